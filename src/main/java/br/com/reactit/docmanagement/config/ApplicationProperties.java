@@ -1,5 +1,10 @@
 package br.com.reactit.docmanagement.config;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -10,7 +15,1095 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final Content content = new Content();
+
+    private final Search search = new Search();
+
+    private final Stats stats = new Stats();
+
+    private final Cache cache = new Cache();
+
     // jhipster-needle-application-properties-property
+
+    public Content getContent() {
+        return content;
+    }
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public Stats getStats() {
+        return stats;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
     // jhipster-needle-application-properties-property-getter
+
+    public static class Content {
+
+        /**
+         * Number of bytes read from or written to the database per round trip when streaming document content.
+         */
+        private int chunkSize = 1024 * 1024;
+
+        private final Streaming streaming = new Streaming();
+
+        private final Storage storage = new Storage();
+
+        private final Upload upload = new Upload();
+
+        private final Compression compression = new Compression();
+
+        private final Thumbnail thumbnail = new Thumbnail();
+
+        private final Export export = new Export();
+
+        private final BulkImport bulkImport = new BulkImport();
+
+        private final Extraction extraction = new Extraction();
+
+        private final Cache cache = new Cache();
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public Streaming getStreaming() {
+            return streaming;
+        }
+
+        public Storage getStorage() {
+            return storage;
+        }
+
+        public Upload getUpload() {
+            return upload;
+        }
+
+        public Compression getCompression() {
+            return compression;
+        }
+
+        public Thumbnail getThumbnail() {
+            return thumbnail;
+        }
+
+        public Export getExport() {
+            return export;
+        }
+
+        public BulkImport getBulkImport() {
+            return bulkImport;
+        }
+
+        public Extraction getExtraction() {
+            return extraction;
+        }
+
+        public Cache getCache() {
+            return cache;
+        }
+
+        public static class Streaming {
+
+            /**
+             * Number of threads copying document content out, once the request thread has been released.
+             */
+            private int poolSize = 16;
+
+            private int queueCapacity = 1000;
+
+            public int getPoolSize() {
+                return poolSize;
+            }
+
+            public void setPoolSize(int poolSize) {
+                this.poolSize = poolSize;
+            }
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+        }
+
+        public static class Upload {
+
+            /**
+             * Directory where the chunks of resumable uploads are staged.
+             */
+            private String directory = "data/uploads";
+
+            /**
+             * Time after which an upload session which didn't receive any chunk is removed.
+             */
+            private Duration sessionTimeout = Duration.ofHours(24);
+
+            public String getDirectory() {
+                return directory;
+            }
+
+            public void setDirectory(String directory) {
+                this.directory = directory;
+            }
+
+            public Duration getSessionTimeout() {
+                return sessionTimeout;
+            }
+
+            public void setSessionTimeout(Duration sessionTimeout) {
+                this.sessionTimeout = sessionTimeout;
+            }
+        }
+
+        public static class Thumbnail {
+
+            /**
+             * Maximum width and height of a thumbnail, in pixels.
+             */
+            private int size = 256;
+
+            /**
+             * Directory where thumbnails are cached.
+             */
+            private String directory = "data/thumbnails";
+
+            /**
+             * Number of threads generating thumbnails.
+             */
+            private int poolSize = 2;
+
+            private int queueCapacity = 100;
+
+            /**
+             * Maximum time a request waits for a thumbnail to be generated.
+             */
+            private Duration timeout = Duration.ofSeconds(30);
+
+            /**
+             * Maximum number of bytes of thumbnails kept in memory.
+             */
+            private long cacheSize = 16L * 1024 * 1024;
+
+            /**
+             * Time a thumbnail is kept on disk after it was last served.
+             */
+            private Duration retention = Duration.ofDays(30);
+
+            public int getSize() {
+                return size;
+            }
+
+            public void setSize(int size) {
+                this.size = size;
+            }
+
+            public String getDirectory() {
+                return directory;
+            }
+
+            public void setDirectory(String directory) {
+                this.directory = directory;
+            }
+
+            public int getPoolSize() {
+                return poolSize;
+            }
+
+            public void setPoolSize(int poolSize) {
+                this.poolSize = poolSize;
+            }
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+
+            public Duration getTimeout() {
+                return timeout;
+            }
+
+            public void setTimeout(Duration timeout) {
+                this.timeout = timeout;
+            }
+
+            public long getCacheSize() {
+                return cacheSize;
+            }
+
+            public void setCacheSize(long cacheSize) {
+                this.cacheSize = cacheSize;
+            }
+
+            public Duration getRetention() {
+                return retention;
+            }
+
+            public void setRetention(Duration retention) {
+                this.retention = retention;
+            }
+        }
+
+        public static class Cache {
+
+            /**
+             * Whether downloaded contents are kept in memory.
+             */
+            private boolean enabled = true;
+
+            /**
+             * Maximum number of bytes of contents kept in memory.
+             */
+            private long maxSize = 64L * 1024 * 1024;
+
+            /**
+             * Size in bytes beyond which a content isn't kept in memory, and is read from storage on every download.
+             */
+            private long maxEntrySize = 1024L * 1024;
+
+            /**
+             * Whether contents are kept in direct buffers, outside of the heap.
+             */
+            private boolean offHeap = false;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public long getMaxSize() {
+                return maxSize;
+            }
+
+            public void setMaxSize(long maxSize) {
+                this.maxSize = maxSize;
+            }
+
+            public long getMaxEntrySize() {
+                return maxEntrySize;
+            }
+
+            public void setMaxEntrySize(long maxEntrySize) {
+                this.maxEntrySize = maxEntrySize;
+            }
+
+            public boolean isOffHeap() {
+                return offHeap;
+            }
+
+            public void setOffHeap(boolean offHeap) {
+                this.offHeap = offHeap;
+            }
+        }
+
+        public static class Export {
+
+            /**
+             * Number of document rows fetched per round trip when exporting a folder.
+             */
+            private int fetchSize = 50;
+
+            /**
+             * Content types which are already compressed, and are exported without being compressed again.
+             */
+            private List<String> storedTypes = new ArrayList<>(
+                List.of(
+                    "image/jpeg",
+                    "image/png",
+                    "image/gif",
+                    "image/webp",
+                    "audio/*",
+                    "video/*",
+                    "application/pdf",
+                    "application/zip",
+                    "application/gzip",
+                    "application/x-7z-compressed",
+                    "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+                    "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+                    "application/vnd.openxmlformats-officedocument.presentationml.presentation"
+                )
+            );
+
+            public int getFetchSize() {
+                return fetchSize;
+            }
+
+            public void setFetchSize(int fetchSize) {
+                this.fetchSize = fetchSize;
+            }
+
+            public List<String> getStoredTypes() {
+                return storedTypes;
+            }
+
+            public void setStoredTypes(List<String> storedTypes) {
+                this.storedTypes = storedTypes;
+            }
+        }
+
+        public static class BulkImport {
+
+            /**
+             * Number of archives imported concurrently.
+             */
+            private int poolSize = 1;
+
+            /**
+             * Number of archives waiting to be imported, beyond which imports are refused.
+             */
+            private int queueCapacity = 10;
+
+            /**
+             * Time during which the progress of a finished import can still be retrieved.
+             */
+            private Duration retention = Duration.ofHours(24);
+
+            /**
+             * Size of an archive, in bytes, beyond which it is refused while it is spooled.
+             */
+            private long maxArchiveSize = 1024L * 1024 * 1024;
+
+            /**
+             * Number of entries of an archive, directories included, beyond which its import fails.
+             */
+            private int maxEntries = 10_000;
+
+            /**
+             * Decompressed size of an entry, in bytes, beyond which its import fails.
+             */
+            private long maxEntrySize = 256L * 1024 * 1024;
+
+            /**
+             * Decompressed size of all the entries of an archive, in bytes, beyond which its import fails.
+             */
+            private long maxTotalSize = 4L * 1024 * 1024 * 1024;
+
+            /**
+             * Ratio of the decompressed size of all the entries of an archive to its size beyond which its import fails.
+             */
+            private int maxCompressionRatio = 100;
+
+            public int getPoolSize() {
+                return poolSize;
+            }
+
+            public void setPoolSize(int poolSize) {
+                this.poolSize = poolSize;
+            }
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+
+            public Duration getRetention() {
+                return retention;
+            }
+
+            public void setRetention(Duration retention) {
+                this.retention = retention;
+            }
+
+            public long getMaxArchiveSize() {
+                return maxArchiveSize;
+            }
+
+            public void setMaxArchiveSize(long maxArchiveSize) {
+                this.maxArchiveSize = maxArchiveSize;
+            }
+
+            public int getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(int maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+
+            public long getMaxEntrySize() {
+                return maxEntrySize;
+            }
+
+            public void setMaxEntrySize(long maxEntrySize) {
+                this.maxEntrySize = maxEntrySize;
+            }
+
+            public long getMaxTotalSize() {
+                return maxTotalSize;
+            }
+
+            public void setMaxTotalSize(long maxTotalSize) {
+                this.maxTotalSize = maxTotalSize;
+            }
+
+            public int getMaxCompressionRatio() {
+                return maxCompressionRatio;
+            }
+
+            public void setMaxCompressionRatio(int maxCompressionRatio) {
+                this.maxCompressionRatio = maxCompressionRatio;
+            }
+        }
+
+        public static class Extraction {
+
+            /**
+             * Whether text is extracted from document contents, for search.
+             */
+            private boolean enabled = true;
+
+            /**
+             * Content types text is extracted from; subtypes may be wildcards.
+             */
+            private List<String> types = new ArrayList<>(
+                List.of(
+                    "text/*",
+                    "application/pdf",
+                    "application/rtf",
+                    "application/msword",
+                    "application/vnd.ms-excel",
+                    "application/vnd.ms-powerpoint",
+                    "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+                    "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+                    "application/vnd.openxmlformats-officedocument.presentationml.presentation"
+                )
+            );
+
+            /**
+             * Number of threads extracting text.
+             */
+            private int poolSize = 2;
+
+            /**
+             * Number of extractions waiting for a thread, beyond which further contents are left to the catch-up job.
+             */
+            private int queueCapacity = 100;
+
+            /**
+             * Time after which a parse is cancelled, and its extraction abandoned.
+             */
+            private Duration timeout = Duration.ofMinutes(1);
+
+            /**
+             * Size in bytes beyond which a content is skipped. There is no other bound on the memory a parser may need,
+             * which compressed formats such as OOXML can make far larger than the content.
+             */
+            private long maxContentSize = 64L * 1024 * 1024;
+
+            /**
+             * Number of characters beyond which the extracted text is cut, which bounds the memory an extraction needs.
+             */
+            private int maxCharacters = 500_000;
+
+            /**
+             * Time a bulk import waits for the queue to have room for a batch, before going on regardless.
+             */
+            private Duration backpressureTimeout = Duration.ofMinutes(10);
+
+            /**
+             * Delay between two runs of the job extracting the text of the contents that were left out, in milliseconds.
+             */
+            private long catchUpDelay = 60000;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public List<String> getTypes() {
+                return types;
+            }
+
+            public void setTypes(List<String> types) {
+                this.types = types;
+            }
+
+            public int getPoolSize() {
+                return poolSize;
+            }
+
+            public void setPoolSize(int poolSize) {
+                this.poolSize = poolSize;
+            }
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+
+            public Duration getTimeout() {
+                return timeout;
+            }
+
+            public void setTimeout(Duration timeout) {
+                this.timeout = timeout;
+            }
+
+            public long getMaxContentSize() {
+                return maxContentSize;
+            }
+
+            public void setMaxContentSize(long maxContentSize) {
+                this.maxContentSize = maxContentSize;
+            }
+
+            public int getMaxCharacters() {
+                return maxCharacters;
+            }
+
+            public void setMaxCharacters(int maxCharacters) {
+                this.maxCharacters = maxCharacters;
+            }
+
+            public Duration getBackpressureTimeout() {
+                return backpressureTimeout;
+            }
+
+            public void setBackpressureTimeout(Duration backpressureTimeout) {
+                this.backpressureTimeout = backpressureTimeout;
+            }
+
+            public long getCatchUpDelay() {
+                return catchUpDelay;
+            }
+
+            public void setCatchUpDelay(long catchUpDelay) {
+                this.catchUpDelay = catchUpDelay;
+            }
+        }
+
+        public static class Compression {
+
+            /**
+             * Whether new contents of the compressible content types are stored compressed.
+             */
+            private boolean enabled = true;
+
+            /**
+             * Content types stored with deflate, which any HTTP client accepts as is.
+             */
+            private List<String> deflateTypes = new ArrayList<>(List.of("text/*", "image/svg+xml"));
+
+            /**
+             * Content types stored with zstd, which compresses better and faster, but must usually be decompressed for clients.
+             */
+            private List<String> zstdTypes = new ArrayList<>(
+                List.of("application/xml", "application/json", "application/*+xml", "application/*+json", "image/tiff", "image/bmp")
+            );
+
+            /**
+             * Number of bytes compressed upfront to measure the compressibility of a content.
+             */
+            private int sampleSize = 64 * 1024;
+
+            /**
+             * Minimum fraction of the sample that compression must save for the content to be stored compressed.
+             */
+            private double minSavings = 0.1;
+
+            private final Recompression recompression = new Recompression();
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public List<String> getDeflateTypes() {
+                return deflateTypes;
+            }
+
+            public void setDeflateTypes(List<String> deflateTypes) {
+                this.deflateTypes = deflateTypes;
+            }
+
+            public List<String> getZstdTypes() {
+                return zstdTypes;
+            }
+
+            public void setZstdTypes(List<String> zstdTypes) {
+                this.zstdTypes = zstdTypes;
+            }
+
+            public int getSampleSize() {
+                return sampleSize;
+            }
+
+            public void setSampleSize(int sampleSize) {
+                this.sampleSize = sampleSize;
+            }
+
+            public double getMinSavings() {
+                return minSavings;
+            }
+
+            public void setMinSavings(double minSavings) {
+                this.minSavings = minSavings;
+            }
+
+            public Recompression getRecompression() {
+                return recompression;
+            }
+
+            public static class Recompression {
+
+                /**
+                 * Whether contents stored before compression was enabled are recompressed in the background.
+                 */
+                private boolean enabled = true;
+
+                /**
+                 * Number of documents recompressed per batch.
+                 */
+                private int batchSize = 20;
+
+                /**
+                 * Delay between two batches, in milliseconds.
+                 */
+                private long delay = 60000;
+
+                /**
+                 * Maximum number of stored bytes read per second, to leave I/O to the application.
+                 */
+                private long maxBytesPerSecond = 8L * 1024 * 1024;
+
+                public boolean isEnabled() {
+                    return enabled;
+                }
+
+                public void setEnabled(boolean enabled) {
+                    this.enabled = enabled;
+                }
+
+                public int getBatchSize() {
+                    return batchSize;
+                }
+
+                public void setBatchSize(int batchSize) {
+                    this.batchSize = batchSize;
+                }
+
+                public long getDelay() {
+                    return delay;
+                }
+
+                public void setDelay(long delay) {
+                    this.delay = delay;
+                }
+
+                public long getMaxBytesPerSecond() {
+                    return maxBytesPerSecond;
+                }
+
+                public void setMaxBytesPerSecond(long maxBytesPerSecond) {
+                    this.maxBytesPerSecond = maxBytesPerSecond;
+                }
+            }
+        }
+
+        public static class Storage {
+
+            /**
+             * Directory of the file system blob store.
+             */
+            private String directory = "data/blobs";
+
+            /**
+             * Time a blob is kept once it isn't referenced by any document anymore.
+             */
+            private Duration releasedBlobRetention = Duration.ofHours(1);
+
+            private final Migration migration = new Migration();
+
+            public String getDirectory() {
+                return directory;
+            }
+
+            public void setDirectory(String directory) {
+                this.directory = directory;
+            }
+
+            public Duration getReleasedBlobRetention() {
+                return releasedBlobRetention;
+            }
+
+            public void setReleasedBlobRetention(Duration releasedBlobRetention) {
+                this.releasedBlobRetention = releasedBlobRetention;
+            }
+
+            public Migration getMigration() {
+                return migration;
+            }
+
+            public static class Migration {
+
+                /**
+                 * Whether document contents still held in the database are moved to the blob store in the background.
+                 */
+                private boolean enabled = true;
+
+                /**
+                 * Number of documents moved per batch.
+                 */
+                private int batchSize = 20;
+
+                /**
+                 * Delay between two batches, in milliseconds.
+                 */
+                private long delay = 10000;
+
+                public boolean isEnabled() {
+                    return enabled;
+                }
+
+                public void setEnabled(boolean enabled) {
+                    this.enabled = enabled;
+                }
+
+                public int getBatchSize() {
+                    return batchSize;
+                }
+
+                public void setBatchSize(int batchSize) {
+                    this.batchSize = batchSize;
+                }
+
+                public long getDelay() {
+                    return delay;
+                }
+
+                public void setDelay(long delay) {
+                    this.delay = delay;
+                }
+            }
+        }
+    }
+
+    public static class Search {
+
+        /**
+         * Number of matches a full-text search counts at most. A query matching more documents is answered as a slice,
+         * with the number of matches estimated by the query planner.
+         */
+        private long maxCount = 10_000;
+
+        private final Lucene lucene = new Lucene();
+
+        private final Typeahead typeahead = new Typeahead();
+
+        public long getMaxCount() {
+            return maxCount;
+        }
+
+        public void setMaxCount(long maxCount) {
+            this.maxCount = maxCount;
+        }
+
+        public Lucene getLucene() {
+            return lucene;
+        }
+
+        public Typeahead getTypeahead() {
+            return typeahead;
+        }
+
+        public static class Lucene {
+
+            /**
+             * Whether documents and folders are indexed in an embedded Lucene index, for deployments where PostgreSQL
+             * full-text search can't be tuned.
+             */
+            private boolean enabled = false;
+
+            /**
+             * Directory holding the index, on a local disk.
+             */
+            private String directory = "data/search-index";
+
+            /**
+             * Delay between two applications of the pending changes to the index, in milliseconds, which bounds how long
+             * a committed change takes to become searchable.
+             */
+            private long refreshDelay = 1000;
+
+            /**
+             * Delay between two commits of the index to disk, in milliseconds. Changes that weren't committed are
+             * searchable, but are lost on a crash, until the next reindex.
+             */
+            private long commitDelay = 60000;
+
+            /**
+             * Number of threads reading rows during a full reindex.
+             */
+            private int reindexThreads = 4;
+
+            /**
+             * Number of rows read per page during a full reindex.
+             */
+            private int reindexBatchSize = 500;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public String getDirectory() {
+                return directory;
+            }
+
+            public void setDirectory(String directory) {
+                this.directory = directory;
+            }
+
+            public long getRefreshDelay() {
+                return refreshDelay;
+            }
+
+            public void setRefreshDelay(long refreshDelay) {
+                this.refreshDelay = refreshDelay;
+            }
+
+            public long getCommitDelay() {
+                return commitDelay;
+            }
+
+            public void setCommitDelay(long commitDelay) {
+                this.commitDelay = commitDelay;
+            }
+
+            public int getReindexThreads() {
+                return reindexThreads;
+            }
+
+            public void setReindexThreads(int reindexThreads) {
+                this.reindexThreads = reindexThreads;
+            }
+
+            public int getReindexBatchSize() {
+                return reindexBatchSize;
+            }
+
+            public void setReindexBatchSize(int reindexBatchSize) {
+                this.reindexBatchSize = reindexBatchSize;
+            }
+        }
+
+        public static class Typeahead {
+
+            /**
+             * Whether document and folder titles are held in memory, for typeahead.
+             */
+            private boolean enabled = true;
+
+            /**
+             * Delay between two merges of the changed titles into the index, in milliseconds. Changed titles are
+             * suggested right away, but each lookup scans them.
+             */
+            private long mergeDelay = 1000;
+
+            /**
+             * Number of rows read per page when the index is built on startup.
+             */
+            private int loadBatchSize = 10000;
+
+            /**
+             * Maximum number of suggestions a lookup returns.
+             */
+            private int maxSuggestions = 50;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public long getMergeDelay() {
+                return mergeDelay;
+            }
+
+            public void setMergeDelay(long mergeDelay) {
+                this.mergeDelay = mergeDelay;
+            }
+
+            public int getLoadBatchSize() {
+                return loadBatchSize;
+            }
+
+            public void setLoadBatchSize(int loadBatchSize) {
+                this.loadBatchSize = loadBatchSize;
+            }
+
+            public int getMaxSuggestions() {
+                return maxSuggestions;
+            }
+
+            public void setMaxSuggestions(int maxSuggestions) {
+                this.maxSuggestions = maxSuggestions;
+            }
+        }
+    }
+
+    public static class Stats {
+
+        /**
+         * Delay in milliseconds between compactions of the folder statistics deltas.
+         */
+        private long compactionDelay = 60000;
+
+        /**
+         * Number of deltas compacted per statement.
+         */
+        private int compactionBatchSize = 10000;
+
+        public long getCompactionDelay() {
+            return compactionDelay;
+        }
+
+        public void setCompactionDelay(long compactionDelay) {
+            this.compactionDelay = compactionDelay;
+        }
+
+        public int getCompactionBatchSize() {
+            return compactionBatchSize;
+        }
+
+        public void setCompactionBatchSize(int compactionBatchSize) {
+            this.compactionBatchSize = compactionBatchSize;
+        }
+    }
+
+    public static class Cache {
+
+        /**
+         * Bounds of the caches, by region name, see {@code CacheConfiguration}.
+         */
+        private final Map<String, Region> regions = new LinkedHashMap<>();
+
+        private final Invalidation invalidation = new Invalidation();
+
+        public Map<String, Region> getRegions() {
+            return regions;
+        }
+
+        public Invalidation getInvalidation() {
+            return invalidation;
+        }
+
+        /**
+         * The bounds of a region, for those missing from {@link #getRegions()} too.
+         *
+         * @param name the name of the region.
+         * @return the bounds.
+         */
+        public Region getRegion(String name) {
+            return regions.getOrDefault(name, new Region());
+        }
+
+        public static class Region {
+
+            /**
+             * Maximum number of entries held, the least likely to be used again being evicted beyond.
+             */
+            private long maxEntries = 1000;
+
+            /**
+             * Time after which an entry expires, counted from when it was written.
+             */
+            private Duration timeToLive = Duration.ofHours(1);
+
+            public long getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(long maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+
+            public Duration getTimeToLive() {
+                return timeToLive;
+            }
+
+            public void setTimeToLive(Duration timeToLive) {
+                this.timeToLive = timeToLive;
+            }
+        }
+
+        public static class Invalidation {
+
+            /**
+             * Whether changes notified by the database are evicted from the local caches, which is required as soon
+             * as several nodes share the database.
+             */
+            private boolean enabled = true;
+
+            /**
+             * Delay in milliseconds between evictions of the invalidations received meanwhile.
+             */
+            private long batchDelay = 100;
+
+            /**
+             * Delay in milliseconds before listening again once the connection was lost.
+             */
+            private long reconnectDelay = 5000;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public long getBatchDelay() {
+                return batchDelay;
+            }
+
+            public void setBatchDelay(long batchDelay) {
+                this.batchDelay = batchDelay;
+            }
+
+            public long getReconnectDelay() {
+                return reconnectDelay;
+            }
+
+            public void setReconnectDelay(long reconnectDelay) {
+                this.reconnectDelay = reconnectDelay;
+            }
+        }
+    }
     // jhipster-needle-application-properties-property-class
 }
@@ -9,6 +9,7 @@ import org.springframework.boot.autoconfigure.task.TaskExecutionProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
@@ -25,8 +26,11 @@ public class AsyncConfiguration implements AsyncConfigurer {
 
     private final TaskExecutionProperties taskExecutionProperties;
 
-    public AsyncConfiguration(TaskExecutionProperties taskExecutionProperties) {
+    private final ApplicationProperties applicationProperties;
+
+    public AsyncConfiguration(TaskExecutionProperties taskExecutionProperties, ApplicationProperties applicationProperties) {
         this.taskExecutionProperties = taskExecutionProperties;
+        this.applicationProperties = applicationProperties;
     }
 
     @Override
@@ -41,6 +45,97 @@ public class AsyncConfiguration implements AsyncConfigurer {
         return new ExceptionHandlingAsyncTaskExecutor(executor);
     }
 
+    @Bean(name = "contentStreamingExecutor")
+    public AsyncTaskExecutor contentStreamingExecutor() {
+        log.debug("Creating Content Streaming Task Executor");
+        ApplicationProperties.Content.Streaming streaming = applicationProperties.getContent().getStreaming();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(streaming.getPoolSize());
+        executor.setMaxPoolSize(streaming.getPoolSize());
+        executor.setQueueCapacity(streaming.getQueueCapacity());
+        executor.setThreadNamePrefix("doc-management-streaming-");
+        return new ExceptionHandlingAsyncTaskExecutor(executor);
+    }
+
+    @Bean(name = "thumbnailExecutor")
+    public AsyncTaskExecutor thumbnailExecutor() {
+        log.debug("Creating Thumbnail Task Executor");
+        ApplicationProperties.Content.Thumbnail thumbnail = applicationProperties.getContent().getThumbnail();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(thumbnail.getPoolSize());
+        executor.setMaxPoolSize(thumbnail.getPoolSize());
+        executor.setQueueCapacity(thumbnail.getQueueCapacity());
+        executor.setThreadNamePrefix("doc-management-thumbnail-");
+        return new ExceptionHandlingAsyncTaskExecutor(executor);
+    }
+
+    @Bean(name = "importExecutor")
+    public AsyncTaskExecutor importExecutor() {
+        log.debug("Creating Import Task Executor");
+        ApplicationProperties.Content.BulkImport bulkImport = applicationProperties.getContent().getBulkImport();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(bulkImport.getPoolSize());
+        executor.setMaxPoolSize(bulkImport.getPoolSize());
+        executor.setQueueCapacity(bulkImport.getQueueCapacity());
+        executor.setThreadNamePrefix("doc-management-import-");
+        return new ExceptionHandlingAsyncTaskExecutor(executor);
+    }
+
+    @Bean(name = "textExtractionExecutor")
+    public AsyncTaskExecutor textExtractionExecutor() {
+        log.debug("Creating Text Extraction Task Executor");
+        ApplicationProperties.Content.Extraction extraction = applicationProperties.getContent().getExtraction();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(extraction.getPoolSize());
+        executor.setMaxPoolSize(extraction.getPoolSize());
+        executor.setQueueCapacity(extraction.getQueueCapacity());
+        executor.setThreadNamePrefix("doc-management-text-extraction-");
+        return new ExceptionHandlingAsyncTaskExecutor(executor);
+    }
+
+    /**
+     * Parses run on threads of their own, so that a parse cancelled after its timeout, which keeps its thread until it
+     * notices the interruption, doesn't hold an extraction thread. Beyond twice the extraction pool size, parses are
+     * rejected, and their extraction fails.
+     */
+    @Bean(name = "textParserExecutor")
+    public AsyncTaskExecutor textParserExecutor() {
+        log.debug("Creating Text Parser Task Executor");
+        ApplicationProperties.Content.Extraction extraction = applicationProperties.getContent().getExtraction();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(extraction.getPoolSize());
+        executor.setMaxPoolSize(extraction.getPoolSize() * 2);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("doc-management-text-parser-");
+        return new ExceptionHandlingAsyncTaskExecutor(executor);
+    }
+
+    @Bean(name = "searchIndexExecutor")
+    public AsyncTaskExecutor searchIndexExecutor() {
+        log.debug("Creating Search Index Task Executor");
+        ApplicationProperties.Search.Lucene lucene = applicationProperties.getSearch().getLucene();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(lucene.getReindexThreads());
+        executor.setMaxPoolSize(lucene.getReindexThreads());
+        executor.setThreadNamePrefix("doc-management-search-index-");
+        return new ExceptionHandlingAsyncTaskExecutor(executor);
+    }
+
+    /**
+     * Runs the throttled background jobs over the document contents, the migration to the blob store and the
+     * recompression, a thread each, so that they never hold the threads of the shared scheduler.
+     */
+    @Bean(name = "contentMaintenanceExecutor")
+    public AsyncTaskExecutor contentMaintenanceExecutor() {
+        log.debug("Creating Content Maintenance Task Executor");
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("doc-management-content-maintenance-");
+        return new ExceptionHandlingAsyncTaskExecutor(executor);
+    }
+
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return new SimpleAsyncUncaughtExceptionHandler();
@@ -0,0 +1,26 @@
+package br.com.reactit.docmanagement.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Configuration of asynchronous request processing, used to stream document content
+ * without holding on to a request thread.
+ */
+@Configuration
+public class AsyncWebConfiguration implements WebMvcConfigurer {
+
+    private final AsyncTaskExecutor contentStreamingExecutor;
+
+    public AsyncWebConfiguration(@Qualifier("contentStreamingExecutor") AsyncTaskExecutor contentStreamingExecutor) {
+        this.contentStreamingExecutor = contentStreamingExecutor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(contentStreamingExecutor);
+    }
+}
@@ -0,0 +1,112 @@
+package br.com.reactit.docmanagement.config;
+
+import br.com.reactit.docmanagement.domain.Authority;
+import br.com.reactit.docmanagement.domain.Folder;
+import br.com.reactit.docmanagement.domain.User;
+import br.com.reactit.docmanagement.repository.UserRepository;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import java.util.OptionalLong;
+import javax.cache.CacheManager;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.info.BuildProperties;
+import org.springframework.boot.info.GitProperties;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.jcache.JCacheCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import tech.jhipster.config.cache.PrefixedKeyGenerator;
+
+/**
+ * Caches held in Caffeine through JCache, used as the Hibernate second-level cache and by {@code @Cacheable} methods.
+ * <p>
+ * Each cache is bounded by the {@code application.cache.regions} entry of its name, and records statistics, which
+ * Spring Boot publishes as the {@code cache.*} meters tagged with the cache. The Spring caches are transaction aware:
+ * puts and evictions within a transaction are applied once it commits, so that a concurrent lookup can't put back an
+ * entry evicted by a change which isn't committed yet.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+
+    /**
+     * The caches, by name in {@code application.cache.regions}.
+     */
+    public static final String FOLDER_REGION = "folder";
+    public static final String AUTHORITY_REGION = "authority";
+    public static final String USER_REGION = "user";
+    public static final String USER_AUTHORITIES_REGION = "user-authorities";
+    public static final String USERS_BY_LOGIN_REGION = "users-by-login";
+    public static final String USERS_BY_EMAIL_REGION = "users-by-email";
+
+    private final Logger log = LoggerFactory.getLogger(CacheConfiguration.class);
+
+    private final ApplicationProperties applicationProperties;
+
+    private GitProperties gitProperties;
+
+    private BuildProperties buildProperties;
+
+    public CacheConfiguration(ApplicationProperties applicationProperties) {
+        this.applicationProperties = applicationProperties;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernatePropertiesCustomizer(CacheManager cacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+    }
+
+    @Bean
+    public JCacheManagerCustomizer cacheManagerCustomizer() {
+        return cm -> {
+            createCache(cm, Folder.class.getName(), FOLDER_REGION);
+            createCache(cm, Authority.class.getName(), AUTHORITY_REGION);
+            createCache(cm, User.class.getName(), USER_REGION);
+            createCache(cm, User.class.getName() + ".authorities", USER_AUTHORITIES_REGION);
+            createCache(cm, UserRepository.USERS_BY_LOGIN_CACHE, USERS_BY_LOGIN_REGION);
+            createCache(cm, UserRepository.USERS_BY_EMAIL_CACHE, USERS_BY_EMAIL_REGION);
+            // jhipster-needle-caffeine-add-entry
+        };
+    }
+
+    @Bean
+    public CacheManagerCustomizer<JCacheCacheManager> transactionAwareCacheManagerCustomizer() {
+        return cacheManager -> cacheManager.setTransactionAware(true);
+    }
+
+    private void createCache(CacheManager cm, String cacheName, String regionName) {
+        javax.cache.Cache<Object, Object> cache = cm.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+            return;
+        }
+        ApplicationProperties.Cache.Region region = applicationProperties.getCache().getRegion(regionName);
+        log.debug("Creating cache {} of {} entries at most, living {}", cacheName, region.getMaxEntries(), region.getTimeToLive());
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(region.getMaxEntries()));
+        configuration.setExpireAfterWrite(OptionalLong.of(region.getTimeToLive().toNanos()));
+        configuration.setStatisticsEnabled(true);
+        cm.createCache(cacheName, configuration);
+    }
+
+    @Autowired(required = false)
+    public void setGitProperties(GitProperties gitProperties) {
+        this.gitProperties = gitProperties;
+    }
+
+    @Autowired(required = false)
+    public void setBuildProperties(BuildProperties buildProperties) {
+        this.buildProperties = buildProperties;
+    }
+
+    @Bean
+    public KeyGenerator keyGenerator() {
+        return new PrefixedKeyGenerator(this.gitProperties, this.buildProperties);
+    }
+}
@@ -1,9 +1,13 @@
 package br.com.reactit.docmanagement.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import java.io.Serializable;
 import java.time.Instant;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 /**
  * A Document.
@@ -25,24 +29,63 @@ public class Document implements Serializable {
     @Column(name = "title", nullable = false)
     private String title;
 
-    @Lob
+    /**
+     * Held in a {@code text} column, rather than as a large object, so that it can be searched.
+     */
+    @JdbcTypeCode(SqlTypes.LONGVARCHAR)
     @Column(name = "description")
     private String description;
 
+    /**
+     * Content held in the database, {@code null} once it has been moved to the blob store.
+     */
     @Lob
-    @Column(name = "data", nullable = false)
+    @Column(name = "data")
     private byte[] data;
 
     @NotNull
     @Column(name = "data_content_type", nullable = false)
     private String dataContentType;
 
+    /**
+     * Size of {@code data} in bytes, persisted so that listings can show it without reading the content.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "data_size")
+    private Long dataSize;
+
+    /**
+     * Digest of the content in the blob store, which is only relevant when {@code data} is {@code null}.
+     * It is managed by {@link br.com.reactit.docmanagement.repository.DocumentContentRepository}, once the document exists.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "data_sha256", updatable = false)
+    private String dataSha256;
+
+    /**
+     * Codec the blob of the content is encoded with, {@code null} when it was stored as is before codecs were introduced.
+     * It is managed by {@link br.com.reactit.docmanagement.repository.DocumentContentRepository}, once the document exists,
+     * and isn't exposed.
+     */
+    @JsonIgnore
+    @Column(name = "data_codec", updatable = false)
+    private String dataCodec;
+
     @Column(name = "uploaded")
     private Instant uploaded;
 
     @ManyToOne(fetch = FetchType.LAZY)
     private Folder folder;
 
+    /**
+     * Optimistic lock version, incremented by each update, the JDBC updates of the content included. The entity tag of
+     * the document is derived from it, see {@link br.com.reactit.docmanagement.web.rest.DocumentResource}.
+     */
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
 
     public Long getId() {
@@ -95,6 +138,7 @@ public class Document implements Serializable {
 
     public void setData(byte[] data) {
         this.data = data;
+        this.dataSize = data == null ? null : (long) data.length;
     }
 
     public String getDataContentType() {
@@ -110,6 +154,34 @@ public class Document implements Serializable {
         this.dataContentType = dataContentType;
     }
 
+    public Long getDataSize() {
+        return this.dataSize;
+    }
+
+    public String getDataSha256() {
+        return this.dataSha256;
+    }
+
+    public String getDataCodec() {
+        return this.dataCodec;
+    }
+
+    /**
+     * Reference a content already written to the blob store, for a document which is yet to be created.
+     *
+     * @param sha256 the digest of the blob.
+     * @param size the size of the content, once decoded.
+     * @param codec the codec the blob is encoded with.
+     * @return this document.
+     */
+    public Document storedContent(String sha256, long size, String codec) {
+        this.data = null;
+        this.dataSize = size;
+        this.dataSha256 = sha256;
+        this.dataCodec = codec;
+        return this;
+    }
+
     public Instant getUploaded() {
         return this.uploaded;
     }
@@ -136,6 +208,14 @@ public class Document implements Serializable {
         return this;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -164,6 +244,9 @@ public class Document implements Serializable {
             ", description='" + getDescription() + "'" +
             ", data='" + getData() + "'" +
             ", dataContentType='" + getDataContentType() + "'" +
+            ", dataSize=" + getDataSize() +
+            ", dataSha256='" + getDataSha256() + "'" +
+            ", dataCodec='" + getDataCodec() + "'" +
             ", uploaded='" + getUploaded() + "'" +
             "}";
     }
@@ -0,0 +1,18 @@
+package br.com.reactit.docmanagement.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A metadata-only view of a {@link Document}, which never carries its content.
+ */
+public record DocumentSummary(
+    Long id,
+    String title,
+    String dataContentType,
+    Instant uploaded,
+    Long dataSize,
+    Long folderId,
+    String folderTitle
+)
+    implements Serializable {}
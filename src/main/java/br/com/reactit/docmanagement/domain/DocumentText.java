@@ -0,0 +1,42 @@
+package br.com.reactit.docmanagement.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * The text extracted from the content of a {@link Document}, for search.
+ *
+ * @param documentId the id of the document.
+ * @param contentKey the blob digest, or {@code lo-} and the large object oid, of the content the text was extracted from.
+ * @param status the outcome of the extraction.
+ * @param textCodec the codec the text is compressed with, {@code null} without text.
+ * @param text the UTF-8 text, compressed, {@code null} unless extracted or truncated.
+ * @param textLength the number of characters of the text, {@code null} without text.
+ * @param extracted when the extraction finished.
+ * @param error why no text, or only part of it, was extracted, if so.
+ */
+public record DocumentText(
+    Long documentId,
+    String contentKey,
+    Status status,
+    String textCodec,
+    byte[] text,
+    Integer textLength,
+    Instant extracted,
+    String error
+)
+    implements Serializable {
+    public enum Status {
+        EXTRACTED,
+        /**
+         * The text exceeded the maximum number of characters, and was cut.
+         */
+        TRUNCATED,
+        /**
+         * The content type isn't supported, or the content is too large.
+         */
+        SKIPPED,
+        TIMED_OUT,
+        FAILED,
+    }
+}
@@ -0,0 +1,36 @@
+package br.com.reactit.docmanagement.domain;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.*;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A resumable upload session, completed into a {@link Document} once all its content has been received.
+ *
+ * @param id the id of the session.
+ * @param title the title of the document to create.
+ * @param description the description of the document to create.
+ * @param dataContentType the content type of the document to create.
+ * @param folderId the id of the folder of the document to create, if any.
+ * @param length the total size of the content in bytes, if known upfront.
+ * @param offset the number of bytes received so far.
+ * @param created when the session was created.
+ * @param updated when the last chunk was received.
+ */
+public record DocumentUpload(
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY) String id,
+    @NotNull @Size(max = 255) String title,
+    String description,
+    @NotNull @Size(max = 255) String dataContentType,
+    Long folderId,
+    @Min(0) Long length,
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY) long offset,
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY) Instant created,
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY) Instant updated
+)
+    implements Serializable {
+    public boolean isComplete() {
+        return length != null && offset == length;
+    }
+}
@@ -0,0 +1,11 @@
+package br.com.reactit.docmanagement.domain;
+
+import java.io.Serializable;
+
+/**
+ * The optimistic lock versions a representation of a {@link Document} is derived from, read without the document.
+ *
+ * @param version the version of the document.
+ * @param folderVersion the version of its folder, {@code null} if it isn't in one.
+ */
+public record DocumentVersion(Long version, Long folderVersion) implements Serializable {}
@@ -1,20 +1,37 @@
 package br.com.reactit.docmanagement.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import java.io.Serializable;
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * A Folder.
  */
 @Entity
 @Table(name = "folder")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @SuppressWarnings("common-java:DuplicatedBlocks")
 public class Folder implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Path of the root folders.
+     */
+    public static final String ROOT_PATH = "/";
+
+    /**
+     * Separator following each id of a path.
+     */
+    public static final String PATH_SEPARATOR = "/";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
     @SequenceGenerator(name = "sequenceGenerator")
@@ -32,6 +49,39 @@ public class Folder implements Serializable {
     @Column(name = "created")
     private Instant created;
 
+    /**
+     * Folder this folder is nested in, {@code null} for a root folder.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Folder parent;
+
+    /**
+     * Materialized path of the ancestors of this folder, the ids from the root down to its parent each followed by
+     * {@code /}, e.g. {@code /1/5/} for a folder nested in folder 5, itself nested in the root folder 1, and {@code /}
+     * for a root folder. The descendants of a folder are then the folders whose path starts with
+     * {@link #getDescendantPath()}, which is sought through an index.
+     * It is managed by {@link br.com.reactit.docmanagement.web.rest.FolderResource} along with the parent.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "path", nullable = false)
+    private String path = ROOT_PATH;
+
+    /**
+     * Optimistic lock version, incremented by each update, moves included. The entity tag of the folder is derived from
+     * it, see {@link br.com.reactit.docmanagement.web.rest.FolderResource}.
+     */
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    /**
+     * Statistics of the documents in this folder, which aren't persisted with it: they are read from
+     * {@link br.com.reactit.docmanagement.repository.FolderStatsRepository} when the folder is returned by
+     * {@link br.com.reactit.docmanagement.web.rest.FolderResource}.
+     */
+    private transient FolderStats stats;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
 
     public Long getId() {
@@ -86,6 +136,68 @@ public class Folder implements Serializable {
         this.created = created;
     }
 
+    public Folder getParent() {
+        return this.parent;
+    }
+
+    public void setParent(Folder parent) {
+        this.parent = parent;
+    }
+
+    public Folder parent(Folder folder) {
+        this.setParent(folder);
+        return this;
+    }
+
+    public String getPath() {
+        return this.path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * @return the path of the children of this folder, which the paths of all its descendants start with.
+     */
+    @JsonIgnore
+    public String getDescendantPath() {
+        return this.path + getId() + PATH_SEPARATOR;
+    }
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public FolderStats getStats() {
+        return this.stats;
+    }
+
+    public void setStats(FolderStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * @return the ids of the ancestors of this folder, from the root down to its parent.
+     */
+    @JsonIgnore
+    public List<Long> getAncestorIds() {
+        return ancestorIds(this.path);
+    }
+
+    /**
+     * @param path the path of a folder.
+     * @return the ids of the ancestors of the folder, from the root down to its parent.
+     */
+    public static List<Long> ancestorIds(String path) {
+        return Arrays.stream(path.split(PATH_SEPARATOR)).filter(id -> !id.isEmpty()).map(Long::valueOf).toList();
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -113,6 +225,7 @@ public class Folder implements Serializable {
             ", title='" + getTitle() + "'" +
             ", description='" + getDescription() + "'" +
             ", created='" + getCreated() + "'" +
+            ", path='" + getPath() + "'" +
             "}";
     }
 }
@@ -0,0 +1,13 @@
+package br.com.reactit.docmanagement.domain;
+
+import java.io.Serializable;
+
+/**
+ * A {@link Folder} in a level of the folder tree.
+ *
+ * @param id the id of the folder.
+ * @param title its title.
+ * @param parentId the id of its parent, {@code null} for a root folder.
+ * @param childCount the number of folders nested in it, not counting their own children.
+ */
+public record FolderNode(Long id, String title, Long parentId, long childCount) implements Serializable {}
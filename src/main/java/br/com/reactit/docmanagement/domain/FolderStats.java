@@ -0,0 +1,22 @@
+package br.com.reactit.docmanagement.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Statistics of the documents in a {@link Folder}, not counting the folders nested in it.
+ *
+ * @param folderId the id of the folder.
+ * @param documentCount the number of documents in the folder.
+ * @param totalBytes the sum of the sizes of their contents.
+ * @param lastUploaded the latest upload time of a document put in the folder, {@code null} if none was.
+ */
+public record FolderStats(Long folderId, long documentCount, long totalBytes, Instant lastUploaded) implements Serializable {
+    /**
+     * @param folderId the id of a folder.
+     * @return the statistics of a folder without documents.
+     */
+    public static FolderStats empty(Long folderId) {
+        return new FolderStats(folderId, 0, 0, null);
+    }
+}
@@ -0,0 +1,26 @@
+package br.com.reactit.docmanagement.domain;
+
+import java.io.Serializable;
+
+/**
+ * The searchable text of a {@link Document} or a {@link Folder}, as held in the embedded search index.
+ *
+ * @param id the id of the document or folder.
+ * @param title its title.
+ * @param description its description.
+ * @param folderId the id of the folder of a document, {@code null} for a folder.
+ */
+public record SearchIndexEntry(Long id, String title, String description, Long folderId) implements Serializable {
+    public static SearchIndexEntry of(Document document) {
+        return new SearchIndexEntry(
+            document.getId(),
+            document.getTitle(),
+            document.getDescription(),
+            document.getFolder() == null ? null : document.getFolder().getId()
+        );
+    }
+
+    public static SearchIndexEntry of(Folder folder) {
+        return new SearchIndexEntry(folder.getId(), folder.getTitle(), folder.getDescription(), null);
+    }
+}
@@ -0,0 +1,11 @@
+package br.com.reactit.docmanagement.domain;
+
+import java.io.Serializable;
+
+/**
+ * The title of a {@link Document} or a {@link Folder}, as held in the typeahead index.
+ *
+ * @param id the id of the document or folder.
+ * @param title its title.
+ */
+public record TitleEntry(Long id, String title) implements Serializable {}
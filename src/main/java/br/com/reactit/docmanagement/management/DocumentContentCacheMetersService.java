@@ -0,0 +1,86 @@
+package br.com.reactit.docmanagement.management;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Service;
+
+/**
+ * Tracks the in-memory cache of document contents: its hits and misses, its hit ratio, and the memory it holds.
+ */
+@Service
+public class DocumentContentCacheMetersService {
+
+    public static final String REQUESTS_METER_NAME = "document.content.cache.requests";
+    public static final String REQUESTS_METER_DESCRIPTION = "Number of downloads looked up in the document content cache.";
+
+    public static final String HIT_RATIO_METER_NAME = "document.content.cache.hit-ratio";
+    public static final String HIT_RATIO_METER_DESCRIPTION = "Share of the downloads served from the document content cache.";
+
+    public static final String SIZE_METER_NAME = "document.content.cache.size";
+    public static final String SIZE_METER_DESCRIPTION = "Number of bytes of contents held by the document content cache.";
+
+    public static final String ENTRIES_METER_NAME = "document.content.cache.entries";
+    public static final String ENTRIES_METER_DESCRIPTION = "Number of contents held by the document content cache.";
+
+    public static final String BYTES_BASE_UNIT = "bytes";
+    public static final String RESULT_DIMENSION = "result";
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final AtomicLong bytes = new AtomicLong();
+
+    private final AtomicLong entries = new AtomicLong();
+
+    public DocumentContentCacheMetersService(MeterRegistry registry) {
+        hits = Counter.builder(REQUESTS_METER_NAME).description(REQUESTS_METER_DESCRIPTION).tag(RESULT_DIMENSION, "hit").register(registry);
+        misses =
+            Counter.builder(REQUESTS_METER_NAME).description(REQUESTS_METER_DESCRIPTION).tag(RESULT_DIMENSION, "miss").register(registry);
+        Gauge
+            .builder(HIT_RATIO_METER_NAME, this, DocumentContentCacheMetersService::hitRatio)
+            .description(HIT_RATIO_METER_DESCRIPTION)
+            .register(registry);
+        Gauge
+            .builder(SIZE_METER_NAME, bytes, AtomicLong::get)
+            .baseUnit(BYTES_BASE_UNIT)
+            .description(SIZE_METER_DESCRIPTION)
+            .register(registry);
+        Gauge.builder(ENTRIES_METER_NAME, entries, AtomicLong::get).description(ENTRIES_METER_DESCRIPTION).register(registry);
+    }
+
+    /**
+     * Accounts for a download served from the cache.
+     */
+    public void hit() {
+        hits.increment();
+    }
+
+    /**
+     * Accounts for a download of a content small enough to be cached, which wasn't.
+     */
+    public void miss() {
+        misses.increment();
+    }
+
+    /**
+     * Accounts for a content which was added to or removed from the cache.
+     *
+     * @param bytes the number of bytes the cache holds.
+     * @param entries the number of contents in the cache.
+     */
+    public void cacheUpdated(long bytes, long entries) {
+        this.bytes.set(bytes);
+        this.entries.set(entries);
+    }
+
+    /**
+     * @return the share of the lookups which were hits since startup, {@code 0} before the first one.
+     */
+    public double hitRatio() {
+        double requests = hits.count() + misses.count();
+        return requests > 0 ? hits.count() / requests : 0;
+    }
+}
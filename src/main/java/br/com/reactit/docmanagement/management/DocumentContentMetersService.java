@@ -0,0 +1,200 @@
+package br.com.reactit.docmanagement.management;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Service;
+
+/**
+ * Tracks the volume and throughput of document content streamed in and out of the application.
+ */
+@Service
+public class DocumentContentMetersService {
+
+    public static final String TRANSFERRED_METER_NAME = "document.content.transferred";
+    public static final String TRANSFERRED_METER_DESCRIPTION = "Number of document content bytes transferred.";
+
+    public static final String IN_FLIGHT_METER_NAME = "document.content.in-flight";
+    public static final String IN_FLIGHT_METER_DESCRIPTION = "Number of document content bytes held by transfers that are still running.";
+
+    public static final String THROUGHPUT_METER_NAME = "document.content.throughput";
+    public static final String THROUGHPUT_METER_DESCRIPTION = "Throughput of completed document content transfers.";
+
+    public static final String BYTES_BASE_UNIT = "bytes";
+    public static final String THROUGHPUT_BASE_UNIT = "bytes/s";
+    public static final String DIRECTION_DIMENSION = "direction";
+
+    public enum Direction {
+        UPLOAD("upload"),
+        DOWNLOAD("download");
+
+        private final String tag;
+
+        Direction(String tag) {
+            this.tag = tag;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+    }
+
+    private final Map<Direction, Counter> transferredCounters = new EnumMap<>(Direction.class);
+    private final Map<Direction, AtomicLong> inFlightBytes = new EnumMap<>(Direction.class);
+    private final Map<Direction, DistributionSummary> throughputSummaries = new EnumMap<>(Direction.class);
+
+    public DocumentContentMetersService(MeterRegistry registry) {
+        for (Direction direction : Direction.values()) {
+            transferredCounters.put(
+                direction,
+                Counter
+                    .builder(TRANSFERRED_METER_NAME)
+                    .baseUnit(BYTES_BASE_UNIT)
+                    .description(TRANSFERRED_METER_DESCRIPTION)
+                    .tag(DIRECTION_DIMENSION, direction.getTag())
+                    .register(registry)
+            );
+            AtomicLong inFlight = new AtomicLong();
+            inFlightBytes.put(direction, inFlight);
+            Gauge
+                .builder(IN_FLIGHT_METER_NAME, inFlight, AtomicLong::get)
+                .baseUnit(BYTES_BASE_UNIT)
+                .description(IN_FLIGHT_METER_DESCRIPTION)
+                .tag(DIRECTION_DIMENSION, direction.getTag())
+                .register(registry);
+            throughputSummaries.put(
+                direction,
+                DistributionSummary
+                    .builder(THROUGHPUT_METER_NAME)
+                    .baseUnit(THROUGHPUT_BASE_UNIT)
+                    .description(THROUGHPUT_METER_DESCRIPTION)
+                    .tag(DIRECTION_DIMENSION, direction.getTag())
+                    .register(registry)
+            );
+        }
+    }
+
+    /**
+     * Wraps an upload stream so that every byte read from it is accounted for.
+     *
+     * @param in the stream to meter.
+     * @return a metered view of {@code in}; closing it ends the transfer.
+     */
+    public InputStream meter(InputStream in) {
+        Transfer transfer = new Transfer(Direction.UPLOAD);
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    transfer.add(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int read = super.read(b, off, len);
+                if (read > 0) {
+                    transfer.add(read);
+                }
+                return read;
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    transfer.complete();
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps a download stream so that every byte written to it is accounted for.
+     *
+     * @param out the stream to meter.
+     * @return a metered view of {@code out}; closing it flushes {@code out}, leaving it open, and ends the transfer.
+     */
+    public OutputStream meter(OutputStream out) {
+        Transfer transfer = new Transfer(Direction.DOWNLOAD);
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                transfer.add(1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                transfer.add(len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    out.flush();
+                } finally {
+                    transfer.complete();
+                }
+            }
+        };
+    }
+
+    /**
+     * Accounts for bytes that were transferred without going through a metered stream.
+     *
+     * @param direction the direction of the transfer.
+     * @param bytes the number of bytes transferred.
+     * @param nanos the time the transfer took.
+     */
+    public void trackTransfer(Direction direction, long bytes, long nanos) {
+        transferredCounters.get(direction).increment(bytes);
+        recordThroughput(direction, bytes, nanos);
+    }
+
+    private void recordThroughput(Direction direction, long bytes, long nanos) {
+        if (nanos > 0) {
+            throughputSummaries.get(direction).record(bytes * 1_000_000_000d / nanos);
+        }
+    }
+
+    private final class Transfer {
+
+        private final Direction direction;
+        private final long start = System.nanoTime();
+        private long bytes;
+        private boolean completed;
+
+        private Transfer(Direction direction) {
+            this.direction = direction;
+        }
+
+        private void add(long count) {
+            bytes += count;
+            transferredCounters.get(direction).increment(count);
+            inFlightBytes.get(direction).addAndGet(count);
+        }
+
+        private void complete() {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            inFlightBytes.get(direction).addAndGet(-bytes);
+            recordThroughput(direction, bytes, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package br.com.reactit.docmanagement.management;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.stereotype.Service;
+
+/**
+ * Tracks the extraction of text from document contents: the depth of its queue, the latency of extractions and their
+ * failures, by content type.
+ */
+@Service
+public class TextExtractionMetersService {
+
+    public static final String QUEUED_METER_NAME = "document.text.extraction.queued";
+    public static final String QUEUED_METER_DESCRIPTION = "Number of document contents waiting for their text to be extracted.";
+
+    public static final String RUNNING_METER_NAME = "document.text.extraction.running";
+    public static final String RUNNING_METER_DESCRIPTION = "Number of document contents whose text is being extracted.";
+
+    public static final String LATENCY_METER_NAME = "document.text.extraction";
+    public static final String LATENCY_METER_DESCRIPTION = "Time taken to extract the text of a document content.";
+
+    public static final String FAILURES_METER_NAME = "document.text.extraction.failures";
+    public static final String FAILURES_METER_DESCRIPTION = "Number of document contents whose text couldn't be extracted.";
+
+    public static final String CONTENT_TYPE_DIMENSION = "content.type";
+    public static final String OUTCOME_DIMENSION = "outcome";
+
+    private final MeterRegistry registry;
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    public TextExtractionMetersService(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder(QUEUED_METER_NAME, queued, AtomicInteger::get).description(QUEUED_METER_DESCRIPTION).register(registry);
+        Gauge.builder(RUNNING_METER_NAME, running, AtomicInteger::get).description(RUNNING_METER_DESCRIPTION).register(registry);
+    }
+
+    public void extractionQueued() {
+        queued.incrementAndGet();
+    }
+
+    /**
+     * Accounts for a queued extraction which got a thread, or was dropped.
+     */
+    public void extractionDequeued() {
+        queued.decrementAndGet();
+    }
+
+    public void extractionStarted() {
+        running.incrementAndGet();
+    }
+
+    /**
+     * Accounts for a finished extraction.
+     *
+     * @param contentType the content type, without parameters.
+     * @param outcome the outcome of the extraction, lower case.
+     * @param failed whether the outcome is a failure.
+     * @param nanos the time the extraction took.
+     */
+    public void extractionFinished(String contentType, String outcome, boolean failed, long nanos) {
+        running.decrementAndGet();
+        Timer
+            .builder(LATENCY_METER_NAME)
+            .description(LATENCY_METER_DESCRIPTION)
+            .tag(CONTENT_TYPE_DIMENSION, contentType)
+            .tag(OUTCOME_DIMENSION, outcome)
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+        if (failed) {
+            Counter
+                .builder(FAILURES_METER_NAME)
+                .description(FAILURES_METER_DESCRIPTION)
+                .tag(CONTENT_TYPE_DIMENSION, contentType)
+                .tag(OUTCOME_DIMENSION, outcome)
+                .register(registry)
+                .increment();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package br.com.reactit.docmanagement.management;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Service;
+
+/**
+ * Tracks the in-memory typeahead indexes: the memory they hold, their number of titles, and the latency of lookups,
+ * by type of entity.
+ */
+@Service
+public class TypeaheadMetersService {
+
+    public static final String MEMORY_METER_NAME = "search.typeahead.memory";
+    public static final String MEMORY_METER_DESCRIPTION = "Number of bytes held by the typeahead index.";
+
+    public static final String ENTRIES_METER_NAME = "search.typeahead.entries";
+    public static final String ENTRIES_METER_DESCRIPTION = "Number of titles in the typeahead index.";
+
+    public static final String LOOKUP_METER_NAME = "search.typeahead.lookup";
+    public static final String LOOKUP_METER_DESCRIPTION = "Time taken to look up the titles matching a prefix.";
+
+    public static final String BYTES_BASE_UNIT = "bytes";
+    public static final String TYPE_DIMENSION = "type";
+
+    private final MeterRegistry registry;
+
+    private final Map<String, Index> indexes = new ConcurrentHashMap<>();
+
+    public TypeaheadMetersService(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Accounts for an index which was built or merged.
+     *
+     * @param type the type of entity.
+     * @param bytes the number of bytes the index holds.
+     * @param entries the number of titles in the index.
+     */
+    public void indexUpdated(String type, long bytes, long entries) {
+        Index index = index(type);
+        index.bytes.set(bytes);
+        index.entries.set(entries);
+    }
+
+    /**
+     * Accounts for a lookup.
+     *
+     * @param type the type of entity.
+     * @param nanos the time the lookup took.
+     */
+    public void lookupPerformed(String type, long nanos) {
+        index(type).lookups.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Index index(String type) {
+        return indexes.computeIfAbsent(type, this::register);
+    }
+
+    private Index register(String type) {
+        Index index = new Index(
+            Timer
+                .builder(LOOKUP_METER_NAME)
+                .description(LOOKUP_METER_DESCRIPTION)
+                .tag(TYPE_DIMENSION, type)
+                .publishPercentiles(0.5, 0.99)
+                .register(registry)
+        );
+        Gauge
+            .builder(MEMORY_METER_NAME, index.bytes, AtomicLong::get)
+            .baseUnit(BYTES_BASE_UNIT)
+            .description(MEMORY_METER_DESCRIPTION)
+            .tag(TYPE_DIMENSION, type)
+            .register(registry);
+        Gauge
+            .builder(ENTRIES_METER_NAME, index.entries, AtomicLong::get)
+            .description(ENTRIES_METER_DESCRIPTION)
+            .tag(TYPE_DIMENSION, type)
+            .register(registry);
+        return index;
+    }
+
+    private static final class Index {
+
+        private final AtomicLong bytes = new AtomicLong();
+
+        private final AtomicLong entries = new AtomicLong();
+
+        private final Timer lookups;
+
+        private Index(Timer lookups) {
+            this.lookups = lookups;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package br.com.reactit.docmanagement.repository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC repository for the reference counts of the blobs holding document contents.
+ * <p>
+ * A blob whose count drops to zero is marked as released, and can be purged from the blob store once it has been
+ * released for long enough.
+ */
+@Repository
+public class DocumentBlobRepository {
+
+    private static final String ACQUIRE_SQL =
+        "insert into document_blob (sha256, size, ref_count, released) values (?, ?, 1, null) " +
+        "on conflict (sha256) do update set ref_count = document_blob.ref_count + 1, released = null";
+
+    private static final String RELEASE_SQL =
+        "update document_blob set ref_count = ref_count - 1, released = case when ref_count = 1 then ? end " +
+        "where sha256 = ? and ref_count > 0";
+
+    private static final String INSERT_RELEASED_SQL =
+        "insert into document_blob (sha256, size, ref_count, released) values (?, ?, 0, ?) on conflict (sha256) do nothing";
+
+    private static final String SELECT_RELEASED_SQL =
+        "select sha256 from document_blob where ref_count = 0 and released < ? order by released limit ?";
+
+    private static final String DELETE_RELEASED_SQL = "delete from document_blob where sha256 = ? and ref_count = 0 and released < ?";
+
+    /**
+     * A blob to reference, by digest, with its size.
+     */
+    public record BlobReference(String sha256, long size) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DocumentBlobRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Add a reference to a blob.
+     *
+     * @param sha256 the digest of the blob.
+     * @param size the size of the blob.
+     */
+    public void acquire(String sha256, long size) {
+        jdbcTemplate.update(ACQUIRE_SQL, sha256, size);
+    }
+
+    /**
+     * Add a reference to each blob, in a single batch, in digest order so that concurrent batches lock blobs in the same order.
+     *
+     * @param references the blobs, listed once per reference to add.
+     */
+    public void acquireAll(List<BlobReference> references) {
+        jdbcTemplate.batchUpdate(
+            ACQUIRE_SQL,
+            references.stream().sorted(Comparator.comparing(BlobReference::sha256)).toList(),
+            references.size(),
+            (ps, reference) -> {
+                ps.setString(1, reference.sha256());
+                ps.setLong(2, reference.size());
+            }
+        );
+    }
+
+    /**
+     * Remove a reference to a blob, marking it as released when it was the last one.
+     *
+     * @param sha256 the digest of the blob.
+     * @param now the current instant.
+     */
+    public void release(String sha256, Instant now) {
+        jdbcTemplate.update(RELEASE_SQL, toLocalDateTime(now), sha256);
+    }
+
+    /**
+     * Record a stored blob which ended up not being referenced as released, unless it is already known.
+     *
+     * @param sha256 the digest of the blob.
+     * @param size the size of the blob.
+     * @param now the current instant.
+     */
+    public void insertReleased(String sha256, long size, Instant now) {
+        jdbcTemplate.update(INSERT_RELEASED_SQL, sha256, size, toLocalDateTime(now));
+    }
+
+    /**
+     * Find the blobs released before {@code releasedBefore}, oldest first.
+     *
+     * @param releasedBefore the release instant upper bound.
+     * @param limit the maximum number of blobs to return.
+     * @return the digests of the blobs.
+     */
+    public List<String> findReleased(Instant releasedBefore, int limit) {
+        return jdbcTemplate.queryForList(SELECT_RELEASED_SQL, String.class, toLocalDateTime(releasedBefore), limit);
+    }
+
+    /**
+     * Delete the reference count of a blob, if it is still released since before {@code releasedBefore}.
+     *
+     * @param sha256 the digest of the blob.
+     * @param releasedBefore the release instant upper bound.
+     * @return {@code true} if the blob isn't referenced anymore and can be purged.
+     */
+    public boolean deleteReleased(String sha256, Instant releasedBefore) {
+        return jdbcTemplate.update(DELETE_RELEASED_SQL, sha256, toLocalDateTime(releasedBefore)) > 0;
+    }
+
+    private static LocalDateTime toLocalDateTime(Instant instant) {
+        // timestamps are stored in UTC, see hibernate.jdbc.time_zone
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+}
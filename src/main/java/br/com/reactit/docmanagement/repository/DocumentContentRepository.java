@@ -0,0 +1,336 @@
+package br.com.reactit.docmanagement.repository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import org.postgresql.PGConnection;
+import org.postgresql.largeobject.LargeObject;
+import org.postgresql.largeobject.LargeObjectManager;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC repository for the content columns of the {@link br.com.reactit.docmanagement.domain.Document} entity,
+ * so that document content never has to be materialized as a {@code byte[]}.
+ * <p>
+ * A content is either held in the database, in {@code data}, or in the blob store, in which case {@code data} is
+ * {@code null} and {@code data_sha256} holds the digest of the blob. On PostgreSQL {@code data} holds the oid of a large
+ * object, which is read through the driver large object API. It must be used within a transaction.
+ */
+@Repository
+public class DocumentContentRepository {
+
+    /**
+     * The size of a large object is found by seeking to its end, when it wasn't recorded; 262144 is {@code INV_READ}.
+     */
+    private static final String SELECT_DESCRIPTOR_SQL =
+        "select d.data_content_type, coalesce(d.data_size, lo_lseek64(lo_open(d.data, 262144), 0, 2)), d.uploaded, " +
+        "case when d.data is null then d.data_sha256 end, case when d.data is null then d.data_codec end, " +
+        "case when d.data is null then b.size end, d.data, d.version " +
+        "from document d left join document_blob b on b.sha256 = d.data_sha256 where d.id = ?";
+
+    /**
+     * The size of a large object isn't sought when it wasn't recorded, as every {@code lo_open} would stay open until the
+     * end of the transaction.
+     */
+    private static final String SELECT_FOLDER_CONTENTS_SQL =
+        "select d.id, d.title, d.data_content_type, d.data_size, d.uploaded, " +
+        "case when d.data is null then d.data_sha256 end, case when d.data is null then d.data_codec end, " +
+        "case when d.data is null then b.size end, d.data, d.version " +
+        "from document d left join document_blob b on b.sha256 = d.data_sha256 " +
+        "where d.folder_id = ? and (d.data is not null or d.data_sha256 is not null) order by d.id";
+
+    private static final String SELECT_CONTENT_SQL = "select data from document where id = ?";
+
+    private static final String SELECT_CONTENT_FOR_UPDATE_SQL = "select data, data_sha256 from document where id = ? for update";
+
+    private static final String SELECT_IDS_WITH_DATABASE_CONTENT_SQL =
+        "select id from document where data is not null and id > ? order by id limit ?";
+
+    private static final String SELECT_IDS_WITH_UNCODED_BLOB_SQL =
+        "select id from document where data is null and data_codec is null and data_sha256 is not null and id > ? order by id limit ?";
+
+    private static final String UPDATE_CONTENT_BLOB_SQL =
+        "update document set data = null, data_sha256 = ?, data_size = ?, data_codec = ?, data_content_type = ?, uploaded = ?, " +
+        "version = version + 1 where id = ?";
+
+    private static final String MOVE_CONTENT_TO_BLOB_SQL =
+        "update document set data = null, data_sha256 = ?, data_size = ?, data_codec = ?, version = version + 1 where id = ?";
+
+    private static final String UPDATE_CONTENT_CODEC_SQL =
+        "update document set data_sha256 = ?, data_codec = ?, version = version + 1 where id = ? and data is null";
+
+    /**
+     * The content type, size and upload time of a document content, with the digest of its blob, the codec the blob is
+     * encoded with and the size of the blob when it isn't held in the database, or else the oid of its large object, and
+     * the version of the document, which changes along with its content.
+     */
+    public record ContentDescriptor(
+        Long id,
+        String contentType,
+        long length,
+        Instant uploaded,
+        String sha256,
+        String codec,
+        long storedLength,
+        Long oid,
+        long version
+    ) {}
+
+    /**
+     * Where a document content is held: the oid of its large object, or else the digest of its blob.
+     * A document whose content was replaced through the entity may still reference a previous blob along with its large object.
+     */
+    public record ContentLocation(Long oid, String sha256) {}
+
+    /**
+     * A document content along with the title of its document.
+     */
+    public record TitledContent(String title, ContentDescriptor descriptor) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DocumentContentRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Describe the content of a document without reading it.
+     *
+     * @param id the id of the document.
+     * @return the content descriptor, or empty if the document doesn't exist.
+     */
+    public Optional<ContentDescriptor> findDescriptor(Long id) {
+        return jdbcTemplate
+            .query(
+                SELECT_DESCRIPTOR_SQL,
+                (rs, rowNum) -> {
+                    long length = rs.getLong(2);
+                    Long storedLength = rs.getObject(6, Long.class);
+                    return new ContentDescriptor(
+                        id,
+                        rs.getString(1),
+                        length,
+                        toInstant(rs.getObject(3, LocalDateTime.class)),
+                        rs.getString(4),
+                        rs.getString(5),
+                        storedLength != null ? storedLength : length,
+                        rs.getObject(7, Long.class),
+                        rs.getLong(8)
+                    );
+                },
+                id
+            )
+            .stream()
+            .findFirst();
+    }
+
+    /**
+     * Describe the contents of the documents of a folder, in id order, handing each one to {@code consumer} as it is read.
+     * <p>
+     * Rows are read through a forward-only cursor, {@code fetchSize} rows per round trip, so that the number of documents
+     * in the folder doesn't matter. The consumer may run other statements on the same connection, such as reading a
+     * large object. It must be used within a transaction, for the driver to keep the cursor open between fetches.
+     * The length of a content held in the database is {@code -1} when it wasn't recorded.
+     *
+     * @param folderId the id of the folder.
+     * @param fetchSize the number of rows fetched per round trip.
+     * @param consumer the consumer of the contents.
+     */
+    public void streamFolderContents(Long folderId, int fetchSize, Consumer<TitledContent> consumer) {
+        jdbcTemplate.query(
+            con -> {
+                PreparedStatement ps = con.prepareStatement(
+                    SELECT_FOLDER_CONTENTS_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY
+                );
+                ps.setFetchSize(fetchSize);
+                ps.setLong(1, folderId);
+                return ps;
+            },
+            (RowCallbackHandler) rs -> {
+                Long length = rs.getObject(4, Long.class);
+                Long storedLength = rs.getObject(8, Long.class);
+                ContentDescriptor descriptor = new ContentDescriptor(
+                    rs.getLong(1),
+                    rs.getString(3),
+                    length != null ? length : -1,
+                    toInstant(rs.getObject(5, LocalDateTime.class)),
+                    rs.getString(6),
+                    rs.getString(7),
+                    storedLength != null ? storedLength : length != null ? length : -1,
+                    rs.getObject(9, Long.class),
+                    rs.getLong(10)
+                );
+                consumer.accept(new TitledContent(rs.getString(2), descriptor));
+            }
+        );
+    }
+
+    /**
+     * Copy a range of the content of a document to {@code out}, one chunk at a time.
+     *
+     * @param id the id of the document.
+     * @param offset the zero-based offset of the first byte to copy.
+     * @param length the number of bytes to copy.
+     * @param chunkSize the maximum number of bytes to read per round trip.
+     * @param out the stream to copy the content to.
+     * @return the number of bytes copied, lower than {@code length} if the content is shorter than expected.
+     */
+    public long copyContent(Long id, long offset, long length, int chunkSize, OutputStream out) {
+        Long copied = jdbcTemplate.execute(
+            (ConnectionCallback<Long>) con -> {
+                Long oid;
+                try (PreparedStatement ps = con.prepareStatement(SELECT_CONTENT_SQL)) {
+                    ps.setLong(1, id);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        oid = rs.next() ? rs.getObject(1, Long.class) : null;
+                    }
+                }
+                if (oid == null) {
+                    return 0L;
+                }
+                LargeObject largeObject = largeObjectManager(con).open(oid, LargeObjectManager.READ);
+                try {
+                    largeObject.seek64(offset, LargeObject.SEEK_SET);
+                    byte[] chunk = new byte[(int) Math.min(chunkSize, length)];
+                    long total = 0;
+                    while (total < length) {
+                        int read = largeObject.read(chunk, 0, (int) Math.min(chunk.length, length - total));
+                        if (read <= 0) {
+                            break;
+                        }
+                        out.write(chunk, 0, read);
+                        total += read;
+                    }
+                    return total;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    largeObject.close();
+                }
+            }
+        );
+        return copied == null ? 0 : copied;
+    }
+
+    /**
+     * Lock a document row and find where its content is held.
+     *
+     * @param id the id of the document.
+     * @return the content location, or empty if the document doesn't exist.
+     */
+    public Optional<ContentLocation> lockContent(Long id) {
+        return jdbcTemplate
+            .query(
+                SELECT_CONTENT_FOR_UPDATE_SQL,
+                (rs, rowNum) -> new ContentLocation(rs.getObject(1, Long.class), rs.getString(2)),
+                id
+            )
+            .stream()
+            .findFirst();
+    }
+
+    /**
+     * Find the documents whose content is still held in the database, in id order.
+     *
+     * @param afterId the id after which to start.
+     * @param limit the maximum number of ids to return.
+     * @return the ids of the documents.
+     */
+    public List<Long> findIdsWithDatabaseContent(long afterId, int limit) {
+        return jdbcTemplate.queryForList(SELECT_IDS_WITH_DATABASE_CONTENT_SQL, Long.class, afterId, limit);
+    }
+
+    /**
+     * Find the documents whose blob was stored before codecs were introduced, in id order.
+     *
+     * @param afterId the id after which to start.
+     * @param limit the maximum number of ids to return.
+     * @return the ids of the documents.
+     */
+    public List<Long> findIdsWithUncodedBlob(long afterId, int limit) {
+        return jdbcTemplate.queryForList(SELECT_IDS_WITH_UNCODED_BLOB_SQL, Long.class, afterId, limit);
+    }
+
+    /**
+     * Point a document at a new blob, replacing its content.
+     *
+     * @param id the id of the document.
+     * @param sha256 the digest of the blob.
+     * @param size the size of the content, once decoded.
+     * @param codec the codec the blob is encoded with.
+     * @param contentType the content type of the new content.
+     * @param uploaded the upload timestamp to record.
+     */
+    public void updateContentBlob(Long id, String sha256, long size, String codec, String contentType, Instant uploaded) {
+        jdbcTemplate.update(
+            UPDATE_CONTENT_BLOB_SQL,
+            sha256,
+            size,
+            codec,
+            contentType,
+            // timestamps are stored in UTC, see hibernate.jdbc.time_zone
+            LocalDateTime.ofInstant(uploaded, ZoneOffset.UTC),
+            id
+        );
+    }
+
+    /**
+     * Point a document at the blob its database content was moved to, keeping its content type and upload timestamp.
+     *
+     * @param id the id of the document.
+     * @param sha256 the digest of the blob.
+     * @param size the size of the content, once decoded.
+     * @param codec the codec the blob is encoded with.
+     */
+    public void moveContentToBlob(Long id, String sha256, long size, String codec) {
+        jdbcTemplate.update(MOVE_CONTENT_TO_BLOB_SQL, sha256, size, codec, id);
+    }
+
+    /**
+     * Point a document at the same content, encoded with another codec.
+     *
+     * @param id the id of the document.
+     * @param sha256 the digest of the blob holding the encoded content.
+     * @param codec the codec the blob is encoded with.
+     */
+    public void updateContentCodec(Long id, String sha256, String codec) {
+        jdbcTemplate.update(UPDATE_CONTENT_CODEC_SQL, sha256, codec, id);
+    }
+
+    /**
+     * Delete a large object which is not referenced anymore.
+     *
+     * @param oid the oid of the large object.
+     */
+    public void unlinkLargeObject(long oid) {
+        jdbcTemplate.execute(
+            (ConnectionCallback<Void>) con -> {
+                largeObjectManager(con).delete(oid);
+                return null;
+            }
+        );
+    }
+
+    private static LargeObjectManager largeObjectManager(Connection con) throws SQLException {
+        return con.unwrap(PGConnection.class).getLargeObjectAPI();
+    }
+
+    private static Instant toInstant(LocalDateTime dateTime) {
+        return dateTime == null ? null : dateTime.toInstant(ZoneOffset.UTC);
+    }
+}
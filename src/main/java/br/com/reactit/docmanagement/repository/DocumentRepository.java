@@ -1,10 +1,19 @@
 package br.com.reactit.docmanagement.repository;
 
 import br.com.reactit.docmanagement.domain.Document;
+import br.com.reactit.docmanagement.domain.DocumentSummary;
+import br.com.reactit.docmanagement.domain.DocumentVersion;
+import br.com.reactit.docmanagement.domain.SearchIndexEntry;
+import br.com.reactit.docmanagement.domain.TitleEntry;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -13,7 +22,7 @@ import org.springframework.stereotype.Repository;
  * Spring Data JPA repository for the Document entity.
  */
 @Repository
-public interface DocumentRepository extends JpaRepository<Document, Long> {
+public interface DocumentRepository extends JpaRepository<Document, Long>, JpaSpecificationExecutor<Document> {
     default Optional<Document> findOneWithEagerRelationships(Long id) {
         return this.findOneWithToOneRelationships(id);
     }
@@ -26,6 +35,10 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
         return this.findAllWithToOneRelationships(pageable);
     }
 
+    default Slice<Document> findSliceWithEagerRelationships(Pageable pageable) {
+        return this.findSliceWithToOneRelationships(pageable);
+    }
+
     @Query(
         value = "select document from Document document left join fetch document.folder",
         countQuery = "select count(document) from Document document"
@@ -35,6 +48,164 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
     @Query("select document from Document document left join fetch document.folder")
     List<Document> findAllWithToOneRelationships();
 
+    /**
+     * Get a slice of the documents with their folder: one more document than the page size is read to tell whether
+     * there is a next slice, and they aren't counted.
+     */
+    @Query("select document from Document document left join fetch document.folder")
+    Slice<Document> findSliceWithToOneRelationships(Pageable pageable);
+
+    @Query("select document from Document document")
+    Slice<Document> findSliceBy(Pageable pageable);
+
+    /**
+     * Estimate the number of documents from the statistics of the table, as the query planner does: the number of rows
+     * counted on the last analyze, scaled by how much the table grew since.
+     *
+     * @return the estimated number of documents, {@code null} if the table was never analyzed.
+     */
+    @Query(
+        value = "select case when c.reltuples < 0 then null when c.relpages = 0 then cast(c.reltuples as bigint) " +
+        "else cast(c.reltuples / c.relpages * (pg_relation_size(c.oid) / cast(current_setting('block_size') as integer)) as bigint) end " +
+        "from pg_class c where c.oid = cast('document' as regclass)",
+        nativeQuery = true
+    )
+    Long estimateCount();
+
     @Query("select document from Document document left join fetch document.folder where document.id =:id")
     Optional<Document> findOneWithToOneRelationships(@Param("id") Long id);
+
+    @Query(
+        value = "select new br.com.reactit.docmanagement.domain.DocumentSummary(document.id, document.title, document.dataContentType, document.uploaded, document.dataSize, folder.id, folder.title) from Document document left join document.folder folder",
+        countQuery = "select count(document) from Document document"
+    )
+    Page<DocumentSummary> findAllSummaries(Pageable pageable);
+
+    @Query(
+        "select new br.com.reactit.docmanagement.domain.DocumentSummary(document.id, document.title, document.dataContentType, document.uploaded, document.dataSize, folder.id, folder.title) from Document document left join document.folder folder where document.id =:id"
+    )
+    Optional<DocumentSummary> findSummaryById(@Param("id") Long id);
+
+    /**
+     * Get the versions the entity tag of a document is derived from, through the primary keys, without reading the
+     * document content.
+     *
+     * @param id the id of the document.
+     * @return the versions, or empty if the document doesn't exist.
+     */
+    @Query(
+        "select new br.com.reactit.docmanagement.domain.DocumentVersion(document.version, folder.version) from Document document left join document.folder folder where document.id = :id"
+    )
+    Optional<DocumentVersion> findVersionById(@Param("id") Long id);
+
+    /**
+     * Get a slice of the summaries of the documents in a folder, sought through the {@code folder_id} index, in a single
+     * statement which reads neither their content nor the whole folder.
+     */
+    @Query(
+        "select new br.com.reactit.docmanagement.domain.DocumentSummary(document.id, document.title, document.dataContentType, document.uploaded, document.dataSize, folder.id, folder.title) from Document document join document.folder folder where folder.id = :folderId"
+    )
+    Slice<DocumentSummary> findSliceOfSummariesByFolderId(@Param("folderId") Long folderId, Pageable pageable);
+
+    /**
+     * Get the summaries of the documents in a folder and in the folders nested in it, at any depth: the folders are
+     * sought by the start of their path rather than walking the tree.
+     */
+    @Query(
+        value = "select new br.com.reactit.docmanagement.domain.DocumentSummary(document.id, document.title, document.dataContentType, document.uploaded, document.dataSize, folder.id, folder.title) from Document document join document.folder folder where folder.id in (select subtree.id from Folder subtree where subtree.id = :folderId or subtree.path like concat(:descendantPath, '%'))",
+        countQuery = "select count(document) from Document document join document.folder folder where folder.id in (select subtree.id from Folder subtree where subtree.id = :folderId or subtree.path like concat(:descendantPath, '%'))"
+    )
+    Page<DocumentSummary> findAllSummariesInSubtree(
+        @Param("folderId") Long folderId,
+        @Param("descendantPath") String descendantPath,
+        Pageable pageable
+    );
+
+    @Query(
+        "select new br.com.reactit.docmanagement.domain.SearchIndexEntry(document.id, document.title, document.description, document.folder.id) from Document document where document.id > :after and document.id <= :last order by document.id"
+    )
+    List<SearchIndexEntry> findSearchIndexEntries(@Param("after") long after, @Param("last") long last, Pageable pageable);
+
+    @Query("select coalesce(max(document.id), 0) from Document document")
+    long findMaxId();
+
+    @Query(
+        "select new br.com.reactit.docmanagement.domain.TitleEntry(document.id, document.title) from Document document where document.id > :after order by document.id"
+    )
+    List<TitleEntry> findTitleEntries(@Param("after") long after, Pageable pageable);
+
+    @Query("select document from Document document left join fetch document.folder where document.id > :id order by document.id")
+    List<Document> findAllByIdAfter(@Param("id") long id, Pageable pageable);
+
+    @Query("select document from Document document left join fetch document.folder where document.id < :id order by document.id desc")
+    List<Document> findAllByIdBefore(@Param("id") long id, Pageable pageable);
+
+    /**
+     * Seek the documents following a position in the order of their upload time then id, through the
+     * {@code idx_document_uploaded_id} index.
+     * <p>
+     * Documents without an upload time come last in ascending order and first in descending order, as Postgres sorts
+     * them in the index. Row value comparisons leave them out, so they are sought on their own, by id.
+     *
+     * @param uploaded the upload time of the document the page follows, {@code null} if it has none.
+     * @param id the id of the document the page follows, {@code null} for the first page.
+     * @param direction the direction of the order.
+     * @param limit the maximum number of documents.
+     * @return the documents, with their folder.
+     */
+    default List<Document> seekAllByUploaded(Instant uploaded, Long id, Sort.Direction direction, int limit) {
+        List<Document> documents = new ArrayList<>(limit);
+        if (direction.isAscending()) {
+            if (id == null) {
+                documents.addAll(findAllWithUploadedAsc(PageRequest.ofSize(limit)));
+            } else if (uploaded != null) {
+                documents.addAll(findAllByUploadedAfter(uploaded, id, PageRequest.ofSize(limit)));
+            }
+            if (documents.size() < limit) {
+                long after = id == null || uploaded != null ? Long.MIN_VALUE : id;
+                documents.addAll(findAllWithoutUploadedByIdAfter(after, PageRequest.ofSize(limit - documents.size())));
+            }
+        } else {
+            if (id == null || uploaded == null) {
+                long before = id == null ? Long.MAX_VALUE : id;
+                documents.addAll(findAllWithoutUploadedByIdBefore(before, PageRequest.ofSize(limit)));
+                if (documents.size() < limit) {
+                    documents.addAll(findAllWithUploadedDesc(PageRequest.ofSize(limit - documents.size())));
+                }
+            } else {
+                documents.addAll(findAllByUploadedBefore(uploaded, id, PageRequest.ofSize(limit)));
+            }
+        }
+        return documents;
+    }
+
+    @Query(
+        "select document from Document document left join fetch document.folder where document.uploaded is not null order by document.uploaded, document.id"
+    )
+    List<Document> findAllWithUploadedAsc(Pageable pageable);
+
+    @Query(
+        "select document from Document document left join fetch document.folder where (document.uploaded, document.id) > (:uploaded, :id) order by document.uploaded, document.id"
+    )
+    List<Document> findAllByUploadedAfter(@Param("uploaded") Instant uploaded, @Param("id") long id, Pageable pageable);
+
+    @Query(
+        "select document from Document document left join fetch document.folder where document.uploaded is not null order by document.uploaded desc, document.id desc"
+    )
+    List<Document> findAllWithUploadedDesc(Pageable pageable);
+
+    @Query(
+        "select document from Document document left join fetch document.folder where (document.uploaded, document.id) < (:uploaded, :id) order by document.uploaded desc, document.id desc"
+    )
+    List<Document> findAllByUploadedBefore(@Param("uploaded") Instant uploaded, @Param("id") long id, Pageable pageable);
+
+    @Query(
+        "select document from Document document left join fetch document.folder where document.uploaded is null and document.id > :id order by document.id"
+    )
+    List<Document> findAllWithoutUploadedByIdAfter(@Param("id") long id, Pageable pageable);
+
+    @Query(
+        "select document from Document document left join fetch document.folder where document.uploaded is null and document.id < :id order by document.id desc"
+    )
+    List<Document> findAllWithoutUploadedByIdBefore(@Param("id") long id, Pageable pageable);
 }
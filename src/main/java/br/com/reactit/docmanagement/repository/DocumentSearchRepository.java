@@ -0,0 +1,108 @@
+package br.com.reactit.docmanagement.repository;
+
+import br.com.reactit.docmanagement.domain.DocumentSummary;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC repository for the full-text search of {@link br.com.reactit.docmanagement.domain.Document} entities.
+ * <p>
+ * Documents are matched on their {@code search_vector} column, which PostgreSQL generates from their title,
+ * description and the text extracted from their content, and which is indexed with GIN, so a search only reads the
+ * matching rows whatever the size of the table.
+ * Queries use the web search syntax: quoted phrases, {@code or}, and {@code -} to exclude a word.
+ */
+@Repository
+public class DocumentSearchRepository {
+
+    private static final String SEARCH_SQL =
+        "select d.id, d.title, d.data_content_type, d.uploaded, d.data_size, f.id, f.title " +
+        "from document d left join folder f on f.id = d.folder_id, websearch_to_tsquery('simple', ?) q " +
+        "where d.search_vector @@ q order by ts_rank_cd(d.search_vector, q) desc, d.id desc limit ? offset ?";
+
+    private static final String COUNT_SQL =
+        "select count(*) from (select 1 from document where search_vector @@ websearch_to_tsquery('simple', ?) limit ?) m";
+
+    private static final String ESTIMATE_COUNT_SQL =
+        "explain (format json) select 1 from document where search_vector @@ websearch_to_tsquery('simple', ?)";
+
+    private static final Pattern PLAN_ROWS = Pattern.compile("\"Plan Rows\": (\\d+)");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DocumentSearchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Search the documents whose title, description or content match a query, best matches first, title matches ranking
+     * above description matches, above content matches. The sort of {@code pageable} is ignored.
+     * <p>
+     * Every match is ranked, so the latency grows with the number of matches: see {@link #count}.
+     *
+     * @param query the query.
+     * @param pageable the pagination information.
+     * @return the slice of matching document summaries, which tells whether more match.
+     */
+    public Slice<DocumentSummary> search(String query, Pageable pageable) {
+        // one more row tells whether there is a next slice
+        List<DocumentSummary> content = jdbcTemplate.query(
+            SEARCH_SQL,
+            DocumentSearchRepository::mapRow,
+            query,
+            pageable.getPageSize() + 1,
+            pageable.getOffset()
+        );
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    /**
+     * Count the documents matching a query, up to a limit, so that a query matching most of the table doesn't read all
+     * of its matches.
+     *
+     * @param query the query.
+     * @param limit the number of matches counted at most.
+     * @return the number of matches, or {@code limit} if there are more.
+     */
+    public long count(String query, long limit) {
+        return jdbcTemplate.queryForObject(COUNT_SQL, Long.class, query, limit);
+    }
+
+    /**
+     * Estimate the number of documents matching a query, as the query planner does from the statistics of the most
+     * common words, without reading any match.
+     *
+     * @param query the query.
+     * @return the estimated number of matches, {@code null} if the plan doesn't tell it.
+     */
+    public Long estimateCount(String query) {
+        String plan = String.join("\n", jdbcTemplate.queryForList(ESTIMATE_COUNT_SQL, String.class, query));
+        Matcher matcher = PLAN_ROWS.matcher(plan);
+        return matcher.find() ? Long.valueOf(matcher.group(1)) : null;
+    }
+
+    private static DocumentSummary mapRow(ResultSet rs, int rowNum) throws SQLException {
+        LocalDateTime uploaded = rs.getObject(4, LocalDateTime.class);
+        return new DocumentSummary(
+            rs.getLong(1),
+            rs.getString(2),
+            rs.getString(3),
+            // timestamps are stored in UTC, see hibernate.jdbc.time_zone
+            uploaded == null ? null : uploaded.toInstant(ZoneOffset.UTC),
+            rs.getObject(5, Long.class),
+            rs.getObject(6, Long.class),
+            rs.getString(7)
+        );
+    }
+}
@@ -0,0 +1,105 @@
+package br.com.reactit.docmanagement.repository;
+
+import br.com.reactit.docmanagement.domain.DocumentText;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC repository for the {@link DocumentText} extracted from document contents.
+ */
+@Repository
+public class DocumentTextRepository {
+
+    private static final String COLUMNS = "document_id, content_key, status, text_codec, text, text_length, extracted, error";
+
+    private static final String UPSERT_SQL =
+        "insert into document_text (" +
+        COLUMNS +
+        ") values (?, ?, ?, ?, ?, ?, ?, ?) on conflict (document_id) do update set content_key = excluded.content_key, " +
+        "status = excluded.status, text_codec = excluded.text_codec, text = excluded.text, text_length = excluded.text_length, " +
+        "extracted = excluded.extracted, error = excluded.error";
+
+    private static final String UPDATE_CONTENT_VECTOR_SQL = "update document set content_vector = to_tsvector('simple', ?) where id = ?";
+
+    private static final String SELECT_SQL = "select " + COLUMNS + " from document_text where document_id = ?";
+
+    private static final String SELECT_IN_SQL = "select " + COLUMNS + " from document_text where document_id = any(?)";
+
+    /**
+     * Documents with a content, whose text wasn't extracted from that content: the current content is a large object
+     * when {@code data} is set, and a blob otherwise.
+     */
+    private static final String SELECT_IDS_WITHOUT_TEXT_SQL =
+        "select d.id from document d left join document_text t on t.document_id = d.id " +
+        "where d.id > ? and (d.data is not null or d.data_sha256 is not null) and (t.document_id is null or " +
+        "t.content_key <> case when d.data is not null then 'lo-' || d.data else d.data_sha256 end) order by d.id limit ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DocumentTextRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Record the text of a document, replacing the former one, and the search vector of the text, which is searched
+     * along with the title and description of the document.
+     *
+     * @param documentText the text, compressed.
+     * @param plainText the text, {@code null} without text.
+     */
+    public void save(DocumentText documentText, String plainText) {
+        jdbcTemplate.update(
+            UPSERT_SQL,
+            documentText.documentId(),
+            documentText.contentKey(),
+            documentText.status().name(),
+            documentText.textCodec(),
+            documentText.text(),
+            documentText.textLength(),
+            // timestamps are stored in UTC, see hibernate.jdbc.time_zone
+            LocalDateTime.ofInstant(documentText.extracted(), ZoneOffset.UTC),
+            documentText.error()
+        );
+        jdbcTemplate.update(UPDATE_CONTENT_VECTOR_SQL, plainText, documentText.documentId());
+    }
+
+    public Optional<DocumentText> findById(Long documentId) {
+        return jdbcTemplate.query(SELECT_SQL, DocumentTextRepository::mapRow, documentId).stream().findFirst();
+    }
+
+    public List<DocumentText> findAllById(Collection<Long> documentIds) {
+        return jdbcTemplate.query(
+            con -> {
+                PreparedStatement statement = con.prepareStatement(SELECT_IN_SQL);
+                statement.setArray(1, con.createArrayOf("bigint", documentIds.toArray()));
+                return statement;
+            },
+            DocumentTextRepository::mapRow
+        );
+    }
+
+    public List<Long> findIdsWithoutText(long afterId, int limit) {
+        return jdbcTemplate.queryForList(SELECT_IDS_WITHOUT_TEXT_SQL, Long.class, afterId, limit);
+    }
+
+    private static DocumentText mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new DocumentText(
+            rs.getLong(1),
+            rs.getString(2),
+            DocumentText.Status.valueOf(rs.getString(3)),
+            rs.getString(4),
+            rs.getBytes(5),
+            rs.getObject(6, Integer.class),
+            rs.getObject(7, LocalDateTime.class).toInstant(ZoneOffset.UTC),
+            rs.getString(8)
+        );
+    }
+}
@@ -0,0 +1,113 @@
+package br.com.reactit.docmanagement.repository;
+
+import br.com.reactit.docmanagement.domain.DocumentUpload;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC repository for the {@link DocumentUpload} sessions.
+ */
+@Repository
+public class DocumentUploadRepository {
+
+    private static final String COLUMNS = "id, title, description, data_content_type, folder_id, upload_length, upload_offset, created, updated";
+
+    private static final String INSERT_SQL = "insert into document_upload (" + COLUMNS + ") values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_SQL = "select " + COLUMNS + " from document_upload where id = ?";
+
+    private static final String SELECT_FOR_UPDATE_SQL = SELECT_SQL + " for update";
+
+    private static final String SELECT_IDS_UPDATED_BEFORE_SQL = "select id from document_upload where updated < ? order by updated limit ?";
+
+    private static final String ADVANCE_OFFSET_SQL =
+        "update document_upload set upload_offset = ?, updated = ? where id = ? and upload_offset = ?";
+
+    private static final String DELETE_SQL = "delete from document_upload where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DocumentUploadRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insert(DocumentUpload upload) {
+        jdbcTemplate.update(
+            INSERT_SQL,
+            upload.id(),
+            upload.title(),
+            upload.description(),
+            upload.dataContentType(),
+            upload.folderId(),
+            upload.length(),
+            upload.offset(),
+            toLocalDateTime(upload.created()),
+            toLocalDateTime(upload.updated())
+        );
+    }
+
+    public Optional<DocumentUpload> findById(String id) {
+        return jdbcTemplate.query(SELECT_SQL, DocumentUploadRepository::mapRow, id).stream().findFirst();
+    }
+
+    /**
+     * Find a session and lock it until the end of the transaction, so that it is completed once.
+     *
+     * @param id the id of the session.
+     * @return the session, or empty if it doesn't exist.
+     */
+    public Optional<DocumentUpload> findByIdForUpdate(String id) {
+        return jdbcTemplate.query(SELECT_FOR_UPDATE_SQL, DocumentUploadRepository::mapRow, id).stream().findFirst();
+    }
+
+    public List<String> findIdsUpdatedBefore(Instant updatedBefore, int limit) {
+        return jdbcTemplate.queryForList(SELECT_IDS_UPDATED_BEFORE_SQL, String.class, toLocalDateTime(updatedBefore), limit);
+    }
+
+    /**
+     * Advance the offset of a session, or rewind it, unless it changed since it was read.
+     *
+     * @param id the id of the session.
+     * @param offset the offset the session was read with.
+     * @param newOffset the offset reached, or the one to resume from.
+     * @param updated the current instant.
+     * @return {@code true} if the offset was updated, {@code false} if it changed or the session doesn't exist anymore.
+     */
+    public boolean advanceOffset(String id, long offset, long newOffset, Instant updated) {
+        return jdbcTemplate.update(ADVANCE_OFFSET_SQL, newOffset, toLocalDateTime(updated), id, offset) > 0;
+    }
+
+    public boolean delete(String id) {
+        return jdbcTemplate.update(DELETE_SQL, id) > 0;
+    }
+
+    private static DocumentUpload mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new DocumentUpload(
+            rs.getString("id"),
+            rs.getString("title"),
+            rs.getString("description"),
+            rs.getString("data_content_type"),
+            rs.getObject("folder_id", Long.class),
+            rs.getObject("upload_length", Long.class),
+            rs.getLong("upload_offset"),
+            toInstant(rs.getObject("created", LocalDateTime.class)),
+            toInstant(rs.getObject("updated", LocalDateTime.class))
+        );
+    }
+
+    private static LocalDateTime toLocalDateTime(Instant instant) {
+        // timestamps are stored in UTC, see hibernate.jdbc.time_zone
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    private static Instant toInstant(LocalDateTime dateTime) {
+        return dateTime == null ? null : dateTime.toInstant(ZoneOffset.UTC);
+    }
+}
@@ -1,7 +1,16 @@
 package br.com.reactit.docmanagement.repository;
 
 import br.com.reactit.docmanagement.domain.Folder;
+import br.com.reactit.docmanagement.domain.FolderNode;
+import br.com.reactit.docmanagement.domain.SearchIndexEntry;
+import br.com.reactit.docmanagement.domain.TitleEntry;
+import jakarta.persistence.LockModeType;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -9,4 +18,74 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface FolderRepository extends JpaRepository<Folder, Long> {}
+public interface FolderRepository extends JpaRepository<Folder, Long> {
+    @Query(
+        "select new br.com.reactit.docmanagement.domain.SearchIndexEntry(folder.id, folder.title, folder.description, cast(null as Long)) from Folder folder where folder.id > :after and folder.id <= :last order by folder.id"
+    )
+    List<SearchIndexEntry> findSearchIndexEntries(@Param("after") long after, @Param("last") long last, Pageable pageable);
+
+    @Query("select coalesce(max(folder.id), 0) from Folder folder")
+    long findMaxId();
+
+    @Query(
+        "select new br.com.reactit.docmanagement.domain.TitleEntry(folder.id, folder.title) from Folder folder where folder.id > :after order by folder.id"
+    )
+    List<TitleEntry> findTitleEntries(@Param("after") long after, Pageable pageable);
+
+    @Query("select folder from Folder folder where folder.id > :id order by folder.id")
+    List<Folder> findAllByIdAfter(@Param("id") long id, Pageable pageable);
+
+    @Query("select folder from Folder folder where folder.id < :id order by folder.id desc")
+    List<Folder> findAllByIdBefore(@Param("id") long id, Pageable pageable);
+
+    /**
+     * Get a folder, locking it until the end of the transaction so that it can't be moved meanwhile.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select folder from Folder folder where folder.id = :id")
+    Optional<Folder> findByIdForUpdate(@Param("id") Long id);
+
+    @Query("select folder.path from Folder folder where folder.id = :id")
+    Optional<String> findPathById(@Param("id") Long id);
+
+    /**
+     * Lock folders in share mode until the end of the transaction, in the order of their ids: they can't be moved
+     * meanwhile, while other transactions can still lock them the same way.
+     *
+     * @param ids the ids of the folders.
+     * @return the ids of the folders locked.
+     */
+    @Query(value = "select id from folder where id in (:ids) order by id for share", nativeQuery = true)
+    List<Long> lockAllForShare(@Param("ids") List<Long> ids);
+
+    @Query(
+        value = "select new br.com.reactit.docmanagement.domain.FolderNode(folder.id, folder.title, folder.parent.id, (select count(child) from Folder child where child.parent = folder)) from Folder folder where folder.parent.id = :parentId",
+        countQuery = "select count(folder) from Folder folder where folder.parent.id = :parentId"
+    )
+    Page<FolderNode> findAllNodesByParentId(@Param("parentId") Long parentId, Pageable pageable);
+
+    @Query(
+        value = "select new br.com.reactit.docmanagement.domain.FolderNode(folder.id, folder.title, cast(null as Long), (select count(child) from Folder child where child.parent = folder)) from Folder folder where folder.parent is null",
+        countQuery = "select count(folder) from Folder folder where folder.parent is null"
+    )
+    Page<FolderNode> findAllRootNodes(Pageable pageable);
+
+    @Query("select new br.com.reactit.docmanagement.domain.TitleEntry(folder.id, folder.title) from Folder folder where folder.id in :ids")
+    List<TitleEntry> findTitleEntriesByIdIn(@Param("ids") List<Long> ids);
+
+    @Query("select count(folder) > 0 from Folder folder where folder.parent.id = :id")
+    boolean existsByParentId(@Param("id") Long id);
+
+    /**
+     * Move the descendants of a folder along with it, replacing the start of their path and incrementing their version.
+     *
+     * @param descendantPath the former path of the children of the folder.
+     * @param newDescendantPath their new path.
+     * @return the number of descendants moved.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(
+        "update Folder folder set folder.path = concat(:newDescendantPath, substring(folder.path, length(:descendantPath) + 1)), folder.version = folder.version + 1 where folder.path like concat(:descendantPath, '%')"
+    )
+    int moveDescendants(@Param("descendantPath") String descendantPath, @Param("newDescendantPath") String newDescendantPath);
+}
@@ -0,0 +1,92 @@
+package br.com.reactit.docmanagement.repository;
+
+import br.com.reactit.docmanagement.domain.FolderStats;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC repository for the {@link FolderStats} of folders.
+ * <p>
+ * The statistics are appended as deltas to {@code folder_stats_delta} by triggers on {@code document}, and compacted
+ * into {@code folder_stats}: reading the statistics of a folder sums its compacted row and its pending deltas, through
+ * their indexes, without reading the documents.
+ */
+@Repository
+public class FolderStatsRepository {
+
+    private static final String SELECT_IN_SQL =
+        "select folder_id, sum(document_count), sum(total_bytes), max(last_uploaded) from (" +
+        "select folder_id, document_count, total_bytes, last_uploaded from folder_stats where folder_id = any(?) union all " +
+        "select folder_id, document_count, total_bytes, last_uploaded from folder_stats_delta where folder_id = any(?)" +
+        ") stats group by folder_id";
+
+    /**
+     * Deletes a batch of the oldest deltas and adds them up into the compacted rows of their folders. Deltas appended
+     * meanwhile aren't visible to the statement and are left for the next compaction, and a concurrent compaction skips
+     * the deltas this one deleted, so that each delta is compacted once. The deltas of deleted folders are dropped.
+     */
+    private static final String COMPACT_SQL =
+        "with compacted as (delete from folder_stats_delta where id in (" +
+        "select id from folder_stats_delta order by id limit ?" +
+        ") returning folder_id, document_count, total_bytes, last_uploaded), " +
+        "summed as (select folder_id, sum(document_count) document_count, sum(total_bytes) total_bytes, " +
+        "max(last_uploaded) last_uploaded from compacted group by folder_id), " +
+        "upserted as (insert into folder_stats (folder_id, document_count, total_bytes, last_uploaded) " +
+        "select s.folder_id, s.document_count, s.total_bytes, s.last_uploaded from summed s join folder f on f.id = s.folder_id " +
+        "on conflict (folder_id) do update set document_count = folder_stats.document_count + excluded.document_count, " +
+        "total_bytes = folder_stats.total_bytes + excluded.total_bytes, " +
+        "last_uploaded = greatest(folder_stats.last_uploaded, excluded.last_uploaded) returning folder_id) " +
+        "select count(*) from compacted";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public FolderStatsRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Get the statistics of folders, including their pending deltas.
+     *
+     * @param folderIds the ids of the folders.
+     * @return the statistics of the folders which ever held a document.
+     */
+    public List<FolderStats> findAllByFolderIdIn(Collection<Long> folderIds) {
+        return jdbcTemplate.query(
+            con -> {
+                PreparedStatement statement = con.prepareStatement(SELECT_IN_SQL);
+                statement.setArray(1, con.createArrayOf("bigint", folderIds.toArray()));
+                statement.setArray(2, con.createArrayOf("bigint", folderIds.toArray()));
+                return statement;
+            },
+            FolderStatsRepository::mapRow
+        );
+    }
+
+    /**
+     * Compact a batch of the oldest deltas.
+     *
+     * @param batchSize the maximum number of deltas to compact.
+     * @return the number of deltas compacted.
+     */
+    public long compact(int batchSize) {
+        return jdbcTemplate.queryForObject(COMPACT_SQL, Long.class, batchSize);
+    }
+
+    private static FolderStats mapRow(ResultSet rs, int rowNum) throws SQLException {
+        LocalDateTime lastUploaded = rs.getObject(4, LocalDateTime.class);
+        return new FolderStats(
+            rs.getLong(1),
+            rs.getLong(2),
+            rs.getLong(3),
+            // timestamps are stored in UTC, see hibernate.jdbc.time_zone
+            lastUploaded == null ? null : lastUploaded.toInstant(ZoneOffset.UTC)
+        );
+    }
+}
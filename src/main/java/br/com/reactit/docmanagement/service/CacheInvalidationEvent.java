@@ -0,0 +1,26 @@
+package br.com.reactit.docmanagement.service;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Published by {@link CacheInvalidationService} once it evicted a batch of changes from the Hibernate and user caches,
+ * so that the other local caches of the node evict them too.
+ *
+ * @param keys the keys of the changed entities, such as {@code Folder:42}.
+ * @param all whether all entries must be evicted, the changes made while the node wasn't listening being unknown.
+ */
+public record CacheInvalidationEvent(Set<String> keys, boolean all) {
+    /**
+     * @param entityName the name of an entity, such as {@code Document}.
+     * @return the ids of the changed entities of that name.
+     */
+    public Set<Long> ids(String entityName) {
+        String prefix = entityName + CacheInvalidationService.KEY_SEPARATOR;
+        return keys
+            .stream()
+            .filter(key -> key.startsWith(prefix))
+            .map(key -> Long.valueOf(key.substring(prefix.length())))
+            .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,260 @@
+package br.com.reactit.docmanagement.service;
+
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import br.com.reactit.docmanagement.domain.Folder;
+import br.com.reactit.docmanagement.domain.User;
+import br.com.reactit.docmanagement.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.sql.DataSource;
+import org.hibernate.SessionFactory;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service evicting the changes of documents, folders and users from the local caches of this node, whichever node made
+ * them, so that several nodes can share the database without serving stale entries.
+ * <p>
+ * Changes are notified on the {@value #CHANNEL} channel by triggers on their tables, once their transaction committed,
+ * however they were written: through Hibernate, by bulk statements, or by the JDBC repositories. They are received on
+ * a dedicated connection, outside of the pool, coalesced by key, and evicted in batches every
+ * {@code application.cache.invalidation.batch-delay} milliseconds from the Hibernate second-level cache and the user
+ * lookup caches, then from the other local caches through a {@link CacheInvalidationEvent}. Batches are evicted by the
+ * listening thread itself, so that busy scheduled jobs can't hold them up.
+ * <p>
+ * Keys are the name of an entity and its id, such as {@code Folder:42}; users are also notified by login and by lower
+ * case email. Notifications sent while the connection was lost are missed, so that the caches are cleared once the
+ * node listens again.
+ */
+@Service
+@ConditionalOnProperty(prefix = "application.cache.invalidation", name = "enabled", havingValue = "true")
+public class CacheInvalidationService {
+
+    public static final String CHANNEL = "cache_invalidation";
+
+    public static final String KEY_SEPARATOR = ":";
+
+    public static final String DOCUMENT = "Document";
+
+    public static final String FOLDER = "Folder";
+
+    public static final String USER = "User";
+
+    public static final String USER_LOGIN = "User.login";
+
+    public static final String USER_EMAIL = "User.email";
+
+    private static final String USER_AUTHORITIES_ROLE = User.class.getName() + ".authorities";
+
+    /**
+     * Milliseconds a wait for notifications lasts at most, after which the listener checks whether it was stopped, unless
+     * the next batch is due sooner.
+     */
+    private static final int POLL_TIMEOUT = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(CacheInvalidationService.class);
+
+    private final DataSource listenerDataSource;
+
+    private final SessionFactory sessionFactory;
+
+    private final CacheManager cacheManager;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final ApplicationProperties.Cache.Invalidation properties;
+
+    private final Set<String> pendingKeys = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean clearPending = new AtomicBoolean();
+
+    private volatile boolean running;
+
+    private volatile boolean listening;
+
+    private volatile Connection connection;
+
+    private Thread listener;
+
+    public CacheInvalidationService(
+        DataSourceProperties dataSourceProperties,
+        EntityManagerFactory entityManagerFactory,
+        CacheManager cacheManager,
+        ApplicationEventPublisher applicationEventPublisher,
+        ApplicationProperties applicationProperties
+    ) {
+        // a connection of its own, which listens for as long as the node runs
+        this.listenerDataSource = dataSourceProperties.initializeDataSourceBuilder().type(SimpleDriverDataSource.class).build();
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.cacheManager = cacheManager;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.properties = applicationProperties.getCache().getInvalidation();
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listener = new Thread(this::listen, "cache-invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        closeConnection();
+        listener.interrupt();
+        listener.join(POLL_TIMEOUT * 2L);
+    }
+
+    /**
+     * @return whether the node is listening to the changes, which it isn't until it connected, nor while reconnecting.
+     */
+    public boolean isListening() {
+        return listening;
+    }
+
+    /**
+     * Evict the changes received until now, each once however many times it was notified.
+     *
+     * @return the number of keys evicted.
+     */
+    public synchronized int evictPending() {
+        boolean all = clearPending.getAndSet(false);
+        Set<String> keys = new HashSet<>();
+        for (Iterator<String> pending = pendingKeys.iterator(); pending.hasNext();) {
+            keys.add(pending.next());
+            pending.remove();
+        }
+        if (all) {
+            log.info("Clearing the local caches, as cache invalidations may have been missed");
+            sessionFactory.getCache().evictAllRegions();
+            cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        } else if (keys.isEmpty()) {
+            return 0;
+        } else {
+            evict(keys);
+        }
+        applicationEventPublisher.publishEvent(new CacheInvalidationEvent(keys, all));
+        return keys.size();
+    }
+
+    /**
+     * Record the keys of a notification, for the next eviction.
+     *
+     * @param payload the payload of the notification: space separated keys.
+     */
+    void received(String payload) {
+        pendingKeys.addAll(Arrays.asList(payload.split(" ")));
+    }
+
+    private void evict(Set<String> keys) {
+        org.hibernate.Cache entityCache = sessionFactory.getCache();
+        Cache usersByLogin = cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE);
+        Cache usersByEmail = cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE);
+        for (String key : keys) {
+            int separator = key.indexOf(KEY_SEPARATOR);
+            String entityName = separator < 0 ? key : key.substring(0, separator);
+            String value = key.substring(separator + 1);
+            switch (entityName) {
+                case FOLDER -> entityCache.evictEntityData(Folder.class, Long.valueOf(value));
+                case USER -> {
+                    entityCache.evictEntityData(User.class, Long.valueOf(value));
+                    entityCache.evictCollectionData(USER_AUTHORITIES_ROLE, Long.valueOf(value));
+                }
+                case USER_LOGIN -> usersByLogin.evict(value);
+                case USER_EMAIL -> usersByEmail.evict(value);
+                default -> {
+                    // documents are only held by the caches listening to the event
+                }
+            }
+        }
+        log.debug("Evicted {} cache invalidations", keys.size());
+    }
+
+    private void listen() {
+        boolean missed = false;
+        long nextBatch = System.currentTimeMillis() + properties.getBatchDelay();
+        while (running) {
+            try (Connection listenerConnection = listenerDataSource.getConnection()) {
+                connection = listenerConnection;
+                try (Statement statement = listenerConnection.createStatement()) {
+                    statement.execute("listen " + CHANNEL);
+                }
+                if (missed) {
+                    // whatever was cached while notifications were missed may be stale
+                    clearPending.set(true);
+                }
+                listening = true;
+                log.debug("Listening to cache invalidations");
+                PGConnection pgConnection = listenerConnection.unwrap(PGConnection.class);
+                while (running) {
+                    // a timeout of 0 would wait until the next notification
+                    long wait = Math.max(1, Math.min(POLL_TIMEOUT, nextBatch - System.currentTimeMillis()));
+                    PGNotification[] notifications = pgConnection.getNotifications((int) wait);
+                    if (notifications != null) {
+                        Arrays.stream(notifications).forEach(notification -> received(notification.getParameter()));
+                    }
+                    if (System.currentTimeMillis() >= nextBatch) {
+                        evictBatch();
+                        nextBatch = System.currentTimeMillis() + properties.getBatchDelay();
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Cache invalidations aren't received: {}", e.getMessage());
+                }
+            } finally {
+                connection = null;
+                listening = false;
+                missed = true;
+            }
+            if (running) {
+                try {
+                    Thread.sleep(properties.getReconnectDelay());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void evictBatch() {
+        try {
+            evictPending();
+        } catch (RuntimeException e) {
+            log.warn("Cache invalidations couldn't be evicted: {}", e.getMessage());
+        }
+    }
+
+    private void closeConnection() {
+        Connection listenerConnection = connection;
+        if (listenerConnection != null) {
+            try {
+                listenerConnection.close();
+            } catch (SQLException e) {
+                log.debug("Cache invalidation connection couldn't be closed: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package br.com.reactit.docmanagement.service;
+
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import br.com.reactit.docmanagement.management.DocumentContentCacheMetersService;
+import br.com.reactit.docmanagement.repository.DocumentContentRepository.ContentDescriptor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In-memory cache of the decoded contents of the most downloaded documents, so that they aren't read from the database
+ * or decoded again on every download.
+ * <p>
+ * Contents are cached by document id and version, which changes along with the content, so that a replaced content is
+ * never served. Contents of up to {@code application.content.cache.max-entry-size} bytes are cached, up to
+ * {@code application.content.cache.max-size} bytes in all, on the heap or in direct buffers. Caffeine evicts by
+ * frequency as well as by recency, so that a burst of contents downloaded once doesn't evict the hot ones. A content
+ * missed by concurrent downloads is loaded once, the other downloads waiting for it.
+ * <p>
+ * Replaced contents are evicted once their transaction committed, and contents changed or deleted by any node once
+ * notified by {@link CacheInvalidationService}, so that the memory they held is released before they would be evicted.
+ */
+@Service
+public class DocumentContentCache {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final Logger log = LoggerFactory.getLogger(DocumentContentCache.class);
+
+    private final DocumentContentCacheMetersService documentContentCacheMetersService;
+
+    private final ApplicationProperties.Content.Cache properties;
+
+    private final Cache<ContentKey, ByteBuffer> cache;
+
+    public DocumentContentCache(
+        DocumentContentCacheMetersService documentContentCacheMetersService,
+        ApplicationProperties applicationProperties
+    ) {
+        this.documentContentCacheMetersService = documentContentCacheMetersService;
+        this.properties = applicationProperties.getContent().getCache();
+        this.cache =
+            Caffeine
+                .newBuilder()
+                .maximumWeight(properties.getMaxSize())
+                .<ContentKey, ByteBuffer>weigher((key, content) -> content.capacity())
+                // evictions run on the calling thread, so that the budget is never exceeded for long
+                .executor(Runnable::run)
+                .removalListener((key, content, cause) -> cacheUpdated())
+                .build();
+    }
+
+    /**
+     * @param descriptor the descriptor of a content.
+     * @return whether the content is small enough to be cached, when caching is enabled.
+     */
+    public boolean accepts(ContentDescriptor descriptor) {
+        return properties.isEnabled() && descriptor.length() >= 0 && descriptor.length() <= properties.getMaxEntrySize();
+    }
+
+    /**
+     * Look up a content, loading it on a miss, which may evict others. Concurrent lookups of a content being loaded wait
+     * for it rather than loading it again, and are accounted as hits.
+     *
+     * @param descriptor the descriptor of the content, which must be {@linkplain #accepts accepted}.
+     * @param loader the loader of the whole decoded content; a content of another length than the descriptor's was
+     * replaced since it was described, and is returned without being cached.
+     * @return the content.
+     * @throws IOException if the content can't be loaded.
+     */
+    public ByteBuffer get(ContentDescriptor descriptor, ContentLoader loader) throws IOException {
+        boolean[] loaded = new boolean[1];
+        ByteBuffer[] replaced = new ByteBuffer[1];
+        ByteBuffer content;
+        try {
+            content =
+                cache.get(
+                    ContentKey.of(descriptor),
+                    key -> {
+                        loaded[0] = true;
+                        byte[] bytes;
+                        try {
+                            bytes = loader.load();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        if (bytes.length != descriptor.length()) {
+                            replaced[0] = ByteBuffer.wrap(bytes);
+                            return null;
+                        }
+                        return buffer(bytes);
+                    }
+                );
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (loaded[0]) {
+            documentContentCacheMetersService.miss();
+            cacheUpdated();
+        } else {
+            documentContentCacheMetersService.hit();
+        }
+        return content != null ? content : replaced[0];
+    }
+
+    /**
+     * Cache a content, which may evict others.
+     *
+     * @param descriptor the descriptor of the content, which must be {@linkplain #accepts accepted}.
+     * @param content the whole decoded content.
+     * @return the cached content.
+     */
+    public ByteBuffer put(ContentDescriptor descriptor, byte[] content) {
+        ByteBuffer buffer = buffer(content);
+        cache.put(ContentKey.of(descriptor), buffer);
+        cacheUpdated();
+        return buffer;
+    }
+
+    /**
+     * Evict the contents of documents, whatever their version.
+     *
+     * @param documentIds the ids of the documents.
+     */
+    public void invalidate(Set<Long> documentIds) {
+        if (!documentIds.isEmpty()) {
+            cache.asMap().keySet().removeIf(key -> documentIds.contains(key.documentId()));
+        }
+    }
+
+    /**
+     * Evict all the contents.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Evict the content of a document which was replaced, once its transaction committed.
+     *
+     * @param event the event.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentContentChanged(DocumentContentChangedEvent event) {
+        invalidate(Set.of(event.documentId()));
+    }
+
+    /**
+     * Evict the contents of the documents changed or deleted by any node.
+     *
+     * @param event the event.
+     */
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (event.all()) {
+            invalidateAll();
+        } else {
+            invalidate(event.ids(CacheInvalidationService.DOCUMENT));
+        }
+    }
+
+    /**
+     * Copy a range of a cached content to {@code out}.
+     *
+     * @param content the cached content, which is left untouched.
+     * @param offset the zero-based offset of the first byte to copy.
+     * @param length the number of bytes to copy.
+     * @param out the stream to copy the content to, which is left open.
+     * @return the number of bytes copied.
+     * @throws IOException if the content can't be written.
+     */
+    public static long copy(ByteBuffer content, long offset, long length, OutputStream out) throws IOException {
+        ByteBuffer range = content.duplicate();
+        range.position((int) Math.min(offset, range.limit()));
+        range.limit(range.position() + (int) Math.min(length, range.remaining()));
+        int copied = range.remaining();
+        if (range.hasArray()) {
+            out.write(range.array(), range.arrayOffset() + range.position(), copied);
+            return copied;
+        }
+        byte[] buffer = new byte[Math.min(COPY_BUFFER_SIZE, copied)];
+        while (range.hasRemaining()) {
+            int chunk = Math.min(buffer.length, range.remaining());
+            range.get(buffer, 0, chunk);
+            out.write(buffer, 0, chunk);
+        }
+        return copied;
+    }
+
+    private ByteBuffer buffer(byte[] content) {
+        if (properties.isOffHeap()) {
+            return ByteBuffer.allocateDirect(content.length).put(content).flip();
+        }
+        return ByteBuffer.wrap(content);
+    }
+
+    private void cacheUpdated() {
+        long bytes = cache.policy().eviction().orElseThrow().weightedSize().orElse(0);
+        documentContentCacheMetersService.cacheUpdated(bytes, cache.estimatedSize());
+        log.trace("Document content cache holds {} bytes", bytes);
+    }
+
+    /**
+     * Loads a whole decoded content.
+     */
+    @FunctionalInterface
+    public interface ContentLoader {
+        byte[] load() throws IOException;
+    }
+
+    /**
+     * @param documentId the id of the document.
+     * @param version the version of the document its content was read from.
+     */
+    private record ContentKey(Long documentId, long version) {
+        private static ContentKey of(ContentDescriptor descriptor) {
+            return new ContentKey(descriptor.id(), descriptor.version());
+        }
+    }
+}
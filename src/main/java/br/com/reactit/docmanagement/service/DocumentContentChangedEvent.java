@@ -0,0 +1,8 @@
+package br.com.reactit.docmanagement.service;
+
+/**
+ * Published when the content of a document was created or replaced, so that what is derived from it can be refreshed.
+ *
+ * @param documentId the id of the document.
+ */
+public record DocumentContentChangedEvent(Long documentId) {}
@@ -0,0 +1,96 @@
+package br.com.reactit.docmanagement.service;
+
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Background job moving the document contents still held in the database to the blob store.
+ * <p>
+ * Each run moves a single batch of documents, one transaction per document, and the delay between runs throttles the
+ * migration. Documents are walked in id order, and the walk starts over once it reached the end.
+ * <p>
+ * Batches run on the {@code contentMaintenanceExecutor} pool, so that they never hold a thread of the shared scheduler.
+ */
+@Service
+public class DocumentContentMigrationService {
+
+    private final Logger log = LoggerFactory.getLogger(DocumentContentMigrationService.class);
+
+    private final DocumentContentService documentContentService;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final AsyncTaskExecutor contentMaintenanceExecutor;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private long lastId;
+
+    public DocumentContentMigrationService(
+        DocumentContentService documentContentService,
+        ApplicationProperties applicationProperties,
+        @Qualifier("contentMaintenanceExecutor") AsyncTaskExecutor contentMaintenanceExecutor
+    ) {
+        this.documentContentService = documentContentService;
+        this.applicationProperties = applicationProperties;
+        this.contentMaintenanceExecutor = contentMaintenanceExecutor;
+    }
+
+    /**
+     * Move a batch of document contents, unless the migration is disabled.
+     * <p>
+     * This is scheduled to get fired every {@code application.content.storage.migration.delay} milliseconds, and hands
+     * the batch over to the {@code contentMaintenanceExecutor} pool, unless the previous one is still running.
+     */
+    @Scheduled(
+        initialDelayString = "${application.content.storage.migration.delay:10000}",
+        fixedDelayString = "${application.content.storage.migration.delay:10000}"
+    )
+    public void migrateScheduled() {
+        if (applicationProperties.getContent().getStorage().getMigration().isEnabled() && running.compareAndSet(false, true)) {
+            contentMaintenanceExecutor.execute(() -> {
+                try {
+                    migrateBatch();
+                } finally {
+                    running.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Move the next batch of document contents to the blob store.
+     *
+     * @return the number of document contents moved.
+     */
+    public synchronized int migrateBatch() {
+        List<Long> ids = documentContentService.findIdsWithDatabaseContent(
+            lastId,
+            applicationProperties.getContent().getStorage().getMigration().getBatchSize()
+        );
+        if (ids.isEmpty()) {
+            lastId = 0;
+            return 0;
+        }
+        int moved = 0;
+        for (Long id : ids) {
+            try {
+                if (documentContentService.moveToBlobStore(id)) {
+                    moved++;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Content of Document {} couldn't be moved to the blob store: {}", id, e.getMessage());
+            }
+            lastId = id;
+        }
+        log.debug("Moved {} document contents to the blob store", moved);
+        return moved;
+    }
+}
@@ -0,0 +1,119 @@
+package br.com.reactit.docmanagement.service;
+
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Background job recompressing the blobs stored as is before codecs were introduced.
+ * <p>
+ * Each run recompresses a single batch of documents, one transaction per document, and is throttled both by the delay
+ * between runs and by pausing after each document so that no more than {@code max-bytes-per-second} stored bytes are
+ * read. Documents are walked in id order, and the walk starts over once it reached the end.
+ * <p>
+ * Batches run on the {@code contentMaintenanceExecutor} pool, so that the pauses never hold a thread of the shared
+ * scheduler.
+ */
+@Service
+public class DocumentContentRecompressionService {
+
+    private final Logger log = LoggerFactory.getLogger(DocumentContentRecompressionService.class);
+
+    private final DocumentContentService documentContentService;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final AsyncTaskExecutor contentMaintenanceExecutor;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private long lastId;
+
+    public DocumentContentRecompressionService(
+        DocumentContentService documentContentService,
+        ApplicationProperties applicationProperties,
+        @Qualifier("contentMaintenanceExecutor") AsyncTaskExecutor contentMaintenanceExecutor
+    ) {
+        this.documentContentService = documentContentService;
+        this.applicationProperties = applicationProperties;
+        this.contentMaintenanceExecutor = contentMaintenanceExecutor;
+    }
+
+    /**
+     * Recompress a batch of document contents, unless compression or recompression is disabled.
+     * <p>
+     * This is scheduled to get fired every {@code application.content.compression.recompression.delay} milliseconds, and
+     * hands the batch over to the {@code contentMaintenanceExecutor} pool, unless the previous one is still running.
+     */
+    @Scheduled(
+        initialDelayString = "${application.content.compression.recompression.delay:60000}",
+        fixedDelayString = "${application.content.compression.recompression.delay:60000}"
+    )
+    public void recompressScheduled() {
+        ApplicationProperties.Content.Compression compression = applicationProperties.getContent().getCompression();
+        if (compression.isEnabled() && compression.getRecompression().isEnabled() && running.compareAndSet(false, true)) {
+            contentMaintenanceExecutor.execute(() -> {
+                try {
+                    recompressBatch();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Recompress the next batch of document contents.
+     *
+     * @return the number of document contents whose codec was recorded.
+     * @throws InterruptedException if interrupted while throttled.
+     */
+    public synchronized int recompressBatch() throws InterruptedException {
+        ApplicationProperties.Content.Compression.Recompression recompression = applicationProperties
+            .getContent()
+            .getCompression()
+            .getRecompression();
+        List<Long> ids = documentContentService.findIdsWithUncodedContent(lastId, recompression.getBatchSize());
+        if (ids.isEmpty()) {
+            lastId = 0;
+            return 0;
+        }
+        int recompressed = 0;
+        for (Long id : ids) {
+            long start = System.nanoTime();
+            long read = 0;
+            try {
+                read = documentContentService.recompress(id);
+                if (read >= 0) {
+                    recompressed++;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Content of Document {} couldn't be recompressed: {}", id, e.getMessage());
+            }
+            lastId = id;
+            throttle(read, start, recompression.getMaxBytesPerSecond());
+        }
+        log.debug("Recompressed {} document contents", recompressed);
+        return recompressed;
+    }
+
+    private static void throttle(long read, long start, long maxBytesPerSecond) throws InterruptedException {
+        if (read <= 0 || maxBytesPerSecond <= 0) {
+            return;
+        }
+        long minNanos = (long) ((double) TimeUnit.SECONDS.toNanos(1) * read / maxBytesPerSecond);
+        long remaining = minNanos - (System.nanoTime() - start);
+        if (remaining > 0) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+    }
+}
@@ -0,0 +1,626 @@
+package br.com.reactit.docmanagement.service;
+
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import br.com.reactit.docmanagement.domain.Document;
+import br.com.reactit.docmanagement.management.DocumentContentMetersService;
+import br.com.reactit.docmanagement.management.DocumentContentMetersService.Direction;
+import br.com.reactit.docmanagement.repository.DocumentBlobRepository;
+import br.com.reactit.docmanagement.repository.DocumentBlobRepository.BlobReference;
+import br.com.reactit.docmanagement.repository.DocumentContentRepository;
+import br.com.reactit.docmanagement.repository.DocumentContentRepository.ContentDescriptor;
+import br.com.reactit.docmanagement.repository.DocumentContentRepository.ContentLocation;
+import br.com.reactit.docmanagement.service.storage.BlobStore;
+import br.com.reactit.docmanagement.service.storage.BlobStore.BlobWriter;
+import br.com.reactit.docmanagement.service.storage.ContentCodec;
+import br.com.reactit.docmanagement.service.storage.ContentCodecSelector;
+import br.com.reactit.docmanagement.service.storage.StoredBlob;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Service streaming the content of {@link br.com.reactit.docmanagement.domain.Document} entities.
+ * <p>
+ * New contents are written to the {@link BlobStore}, where identical contents are stored once and reference counted.
+ * Contents written through the entity are held in the database until they are moved to the blob store,
+ * see {@link DocumentContentMigrationService}.
+ * <p>
+ * Blobs are encoded with the {@link ContentCodec} picked by the {@link ContentCodecSelector}, and decoded as they are
+ * read. Blobs stored before codecs were introduced are recompressed by {@link DocumentContentRecompressionService}.
+ * <p>
+ * Downloads of small contents are served from the {@link DocumentContentCache}.
+ */
+@Service
+@Transactional
+public class DocumentContentService {
+
+    private static final int PURGE_BATCH_SIZE = 100;
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final Logger log = LoggerFactory.getLogger(DocumentContentService.class);
+
+    private final DocumentContentRepository documentContentRepository;
+
+    private final DocumentBlobRepository documentBlobRepository;
+
+    private final BlobStore blobStore;
+
+    private final ContentCodecSelector contentCodecSelector;
+
+    private final DocumentContentMetersService documentContentMetersService;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final TransactionTemplate databaseContentTransactionTemplate;
+
+    private final TransactionTemplate releaseTransactionTemplate;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final DocumentContentCache documentContentCache;
+
+    public DocumentContentService(
+        DocumentContentRepository documentContentRepository,
+        DocumentBlobRepository documentBlobRepository,
+        BlobStore blobStore,
+        ContentCodecSelector contentCodecSelector,
+        DocumentContentMetersService documentContentMetersService,
+        ApplicationProperties applicationProperties,
+        PlatformTransactionManager transactionManager,
+        ApplicationEventPublisher applicationEventPublisher,
+        DocumentContentCache documentContentCache
+    ) {
+        this.documentContentRepository = documentContentRepository;
+        this.documentBlobRepository = documentBlobRepository;
+        this.blobStore = blobStore;
+        this.contentCodecSelector = contentCodecSelector;
+        this.documentContentMetersService = documentContentMetersService;
+        this.applicationProperties = applicationProperties;
+        this.databaseContentTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.databaseContentTransactionTemplate.setReadOnly(true);
+        this.databaseContentTransactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.releaseTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.releaseTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.documentContentCache = documentContentCache;
+    }
+
+    /**
+     * Describe the content of a document without reading it.
+     *
+     * @param id the id of the document.
+     * @return the content descriptor, or empty if the document doesn't exist.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ContentDescriptor> findDescriptor(Long id) {
+        log.debug("Request to describe content of Document : {}", id);
+        return documentContentRepository.findDescriptor(id);
+    }
+
+    /**
+     * Copy a range of the content of a document to {@code out}, decoded.
+     * <p>
+     * A content held in the blob store is copied without holding a database connection. A content held in the
+     * database is read in chunks, from a single snapshot, so a concurrent upload can't produce a torn read.
+     *
+     * @param descriptor the descriptor of the content.
+     * @param offset the zero-based offset of the first byte to copy.
+     * @param length the number of bytes to copy.
+     * @param out the stream to copy the content to, which is left open.
+     * @return the number of bytes copied.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long copyContent(ContentDescriptor descriptor, long offset, long length, OutputStream out) {
+        log.debug("Request to copy content of Document : {} ({} bytes from {})", descriptor.id(), length, offset);
+        try (OutputStream metered = documentContentMetersService.meter(out)) {
+            return copyDecoded(descriptor, offset, length, metered);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Copy a range of the content of a document to {@code out} for a download, decoded, through the
+     * {@link DocumentContentCache}.
+     * <p>
+     * A content small enough to be cached is read whole on a miss, once however many downloads miss it concurrently, then
+     * served from memory until it is evicted; a larger one is copied as with {@link #copyContent}.
+     *
+     * @param descriptor the descriptor of the content.
+     * @param offset the zero-based offset of the first byte to copy.
+     * @param length the number of bytes to copy.
+     * @param out the stream to copy the content to, which is left open.
+     * @return the number of bytes copied.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long downloadContent(ContentDescriptor descriptor, long offset, long length, OutputStream out) {
+        if (!documentContentCache.accepts(descriptor)) {
+            return copyContent(descriptor, offset, length, out);
+        }
+        log.debug("Request to download content of Document : {} ({} bytes from {})", descriptor.id(), length, offset);
+        try (OutputStream metered = documentContentMetersService.meter(out)) {
+            ByteBuffer content = documentContentCache.get(
+                descriptor,
+                () -> {
+                    ByteArrayOutputStream loaded = new ByteArrayOutputStream((int) descriptor.length());
+                    copyDecoded(descriptor, 0, descriptor.length(), loaded);
+                    return loaded.toByteArray();
+                }
+            );
+            return DocumentContentCache.copy(content, offset, length, metered);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Copy the content of a document to {@code out} as it is stored, encoded with the codec of the descriptor.
+     *
+     * @param descriptor the descriptor of the content, which must be held in the blob store.
+     * @param out the stream to copy the content to, which is left open.
+     * @return the number of bytes copied.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long copyStoredContent(ContentDescriptor descriptor, OutputStream out) {
+        log.debug("Request to copy stored content of Document : {} ({})", descriptor.id(), descriptor.codec());
+        try (OutputStream metered = documentContentMetersService.meter(out)) {
+            return blobStore.copy(descriptor.sha256(), 0, Long.MAX_VALUE, metered);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Transfer the content of a document as it is stored, from {@code offset} to its end, as a file channel.
+     * <p>
+     * This lets the servlet container send a content held in the blob store straight from the file system cache
+     * to the socket, with {@code sendfile}, rather than copying it through the heap. The transferred bytes are encoded
+     * with the codec of the descriptor.
+     *
+     * @param descriptor the descriptor of the content.
+     * @param offset the zero-based offset of the first stored byte to transfer.
+     * @param transfer the consumer of the file channel, positioned at {@code offset}, which must send it until its end.
+     * @return {@code true} if the content was transferred, {@code false} if it isn't held in a file and must be copied instead.
+     * @throws IOException if the content can't be transferred.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public boolean transferContent(ContentDescriptor descriptor, long offset, FileChannelTransfer transfer) throws IOException {
+        if (descriptor.sha256() == null) {
+            return false;
+        }
+        Optional<FileChannel> file = blobStore.openChannel(descriptor.sha256());
+        if (file.isEmpty()) {
+            return false;
+        }
+        log.debug("Request to transfer content of Document : {} from {}", descriptor.id(), offset);
+        try (FileChannel channel = file.orElseThrow()) {
+            long start = System.nanoTime();
+            channel.position(offset);
+            transfer.transferFrom(channel);
+            documentContentMetersService.trackTransfer(Direction.DOWNLOAD, channel.size() - offset, System.nanoTime() - start);
+        }
+        return true;
+    }
+
+    /**
+     * Replace the content of a document, streaming it into the blob store.
+     *
+     * @param id the id of the document.
+     * @param content the new content, read until end of stream.
+     * @param length the number of bytes in {@code content}, or {@code -1} if unknown.
+     * @param contentType the content type of the new content.
+     * @return {@code true} if the document exists and its content was replaced.
+     */
+    public boolean replaceContent(Long id, InputStream content, long length, String contentType) {
+        log.debug("Request to replace content of Document : {} ({} bytes, {})", id, length, contentType);
+        Optional<ContentLocation> location = documentContentRepository.lockContent(id);
+        if (location.isEmpty()) {
+            return false;
+        }
+        try (InputStream metered = documentContentMetersService.meter(content)) {
+            StoredContent stored = store(metered, contentType);
+            documentBlobRepository.acquire(stored.sha256(), stored.storedSize());
+            documentContentRepository.updateContentBlob(id, stored.sha256(), stored.size(), stored.codec(), contentType, Instant.now());
+            release(location.orElseThrow());
+            applicationEventPublisher.publishEvent(new DocumentContentChangedEvent(id));
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Replace the content of a document with one received along with the document, streaming it into the blob store,
+     * unless it is the stored content, as when a client sends back a document it fetched.
+     *
+     * @param id the id of the document.
+     * @param data the received content.
+     * @param contentType the content type of the received content.
+     * @return {@code true} if the document exists and its content was replaced.
+     */
+    public boolean updateContent(Long id, byte[] data, String contentType) {
+        Optional<ContentDescriptor> descriptor = documentContentRepository.findDescriptor(id);
+        if (descriptor.isEmpty() || isStoredContent(descriptor.orElseThrow(), data)) {
+            return false;
+        }
+        return replaceContent(id, new ByteArrayInputStream(data), data.length, contentType);
+    }
+
+    /**
+     * Write a content to the blob store for a document which is yet to be created, and must then reference it
+     * with {@link Document#storedContent} and acquire it with {@link #acquireContents}.
+     *
+     * @param content the content, read until end of stream, which is left open.
+     * @param contentType the content type of the content.
+     * @return the stored content.
+     * @throws IOException if the content can't be read or stored.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public StoredContent storeContent(InputStream content, String contentType) throws IOException {
+        try (InputStream metered = documentContentMetersService.meter(StreamUtils.nonClosing(content))) {
+            return store(metered, contentType);
+        }
+    }
+
+    /**
+     * Add a reference to the blobs of contents stored with {@link #storeContent}, in a single batch.
+     *
+     * @param contents the stored contents, one per document referencing it.
+     */
+    public void acquireContents(List<StoredContent> contents) {
+        documentBlobRepository.acquireAll(
+            contents.stream().map(content -> new BlobReference(content.sha256(), content.storedSize())).toList()
+        );
+    }
+
+    /**
+     * Record the blobs of contents stored with {@link #storeContent} which won't be acquired as released, so that they are
+     * purged unless referenced meanwhile.
+     *
+     * @param contents the stored contents.
+     */
+    public void releaseContents(List<StoredContent> contents) {
+        Instant now = Instant.now();
+        contents.forEach(content -> documentBlobRepository.insertReleased(content.sha256(), content.storedSize(), now));
+    }
+
+    /**
+     * Attach a file as the content of a document which has none yet, moving it into the blob store.
+     * <p>
+     * Should the transaction roll back, the blob is recorded as released so that it is purged unless referenced meanwhile.
+     *
+     * @param id the id of the document.
+     * @param file the file, which is consumed.
+     * @param contentType the content type of the file.
+     * @param sha256 the SHA-256 digest of the file when already known, which spares reading it again, or {@code null}.
+     * @throws IOException if the file can't be read or stored.
+     */
+    public void attachContent(Long id, Path file, String contentType, String sha256) throws IOException {
+        log.debug("Request to attach {} as content of Document : {}", file, id);
+        long size = Files.size(file);
+        byte[] sample;
+        try (InputStream in = Files.newInputStream(file)) {
+            sample = in.readNBytes(contentCodecSelector.getSampleSize());
+        }
+        ContentCodec codec = contentCodecSelector.select(contentType, sample, sample.length);
+        StoredBlob blob;
+        if (codec == ContentCodec.IDENTITY) {
+            blob = sha256 != null ? blobStore.move(file, sha256) : blobStore.move(file);
+        } else {
+            try {
+                blob = write(codec, out -> Files.copy(file, out));
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+        releaseOnRollback(blob);
+        documentBlobRepository.acquire(blob.sha256(), blob.size());
+        documentContentRepository.updateContentBlob(id, blob.sha256(), size, codec.getContentEncoding(), contentType, Instant.now());
+        applicationEventPublisher.publishEvent(new DocumentContentChangedEvent(id));
+    }
+
+    /**
+     * Move the content of a document from the database to the blob store.
+     *
+     * @param id the id of the document.
+     * @return {@code true} if the document content was held in the database and has been moved.
+     */
+    public boolean moveToBlobStore(Long id) {
+        Optional<ContentLocation> location = documentContentRepository.lockContent(id).filter(l -> l.oid() != null);
+        if (location.isEmpty()) {
+            return false;
+        }
+        log.debug("Request to move content of Document : {} to the blob store", id);
+        ContentDescriptor descriptor = documentContentRepository.findDescriptor(id).orElseThrow();
+        ByteArrayOutputStream sample = new ByteArrayOutputStream();
+        documentContentRepository.copyContent(id, 0, contentCodecSelector.getSampleSize(), chunkSize(), sample);
+        ContentCodec codec = contentCodecSelector.select(descriptor.contentType(), sample.toByteArray(), sample.size());
+        try {
+            StoredBlob blob = write(codec, out -> documentContentRepository.copyContent(id, 0, Long.MAX_VALUE, chunkSize(), out));
+            documentBlobRepository.acquire(blob.sha256(), blob.size());
+            documentContentRepository.moveContentToBlob(id, blob.sha256(), descriptor.length(), codec.getContentEncoding());
+            release(location.orElseThrow());
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Recompress the content of a document stored as is before codecs were introduced, recording the codec it ends up with.
+     *
+     * @param id the id of the document.
+     * @return the number of stored bytes read to recompress the content, {@code 0} if it wasn't read,
+     * or {@code -1} if its blob was already encoded or it isn't held in the blob store.
+     */
+    public long recompress(Long id) {
+        Optional<ContentDescriptor> locked = documentContentRepository
+            .lockContent(id)
+            .filter(l -> l.oid() == null && l.sha256() != null)
+            .flatMap(l -> documentContentRepository.findDescriptor(id))
+            .filter(d -> d.codec() == null);
+        if (locked.isEmpty()) {
+            return -1;
+        }
+        ContentDescriptor descriptor = locked.orElseThrow();
+        ContentCodec codec = contentCodecSelector.candidate(descriptor.contentType());
+        if (codec == ContentCodec.IDENTITY) {
+            documentContentRepository.updateContentCodec(id, descriptor.sha256(), codec.getContentEncoding());
+            return 0;
+        }
+        try {
+            byte[] sample;
+            try (InputStream in = blobStore.open(descriptor.sha256())) {
+                sample = in.readNBytes(contentCodecSelector.getSampleSize());
+            }
+            codec = contentCodecSelector.select(descriptor.contentType(), sample, sample.length);
+            if (codec == ContentCodec.IDENTITY) {
+                documentContentRepository.updateContentCodec(id, descriptor.sha256(), codec.getContentEncoding());
+                return sample.length;
+            }
+            log.debug("Request to recompress content of Document : {} with {}", id, codec.getContentEncoding());
+            StoredBlob blob = write(codec, out -> blobStore.copy(descriptor.sha256(), 0, Long.MAX_VALUE, out));
+            documentBlobRepository.acquire(blob.sha256(), blob.size());
+            documentContentRepository.updateContentCodec(id, blob.sha256(), codec.getContentEncoding());
+            documentBlobRepository.release(descriptor.sha256(), Instant.now());
+            return sample.length + descriptor.storedLength();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Release the content of a document which is about to be deleted.
+     *
+     * @param id the id of the document.
+     */
+    public void releaseContent(Long id) {
+        log.debug("Request to release content of Document : {}", id);
+        documentContentRepository.lockContent(id).ifPresent(this::release);
+    }
+
+    /**
+     * Load the content of a document from the blob store, when it isn't held in the database.
+     * <p>
+     * This keeps the {@code data} attribute of the entity JSON representation filled. The document must not be flushed
+     * afterwards, or the content would be written back to the database.
+     *
+     * @param document the document, whose {@code data} is set.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void loadContent(Document document) {
+        if (document.getData() != null || document.getDataSha256() == null) {
+            return;
+        }
+        try (InputStream in = ContentCodec.of(document.getDataCodec()).decode(blobStore.open(document.getDataSha256()))) {
+            document.setData(in.readAllBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Find the documents whose content is still held in the database.
+     *
+     * @param afterId the id after which to start.
+     * @param limit the maximum number of ids to return.
+     * @return the ids of the documents, in order.
+     */
+    @Transactional(readOnly = true)
+    public List<Long> findIdsWithDatabaseContent(long afterId, int limit) {
+        return documentContentRepository.findIdsWithDatabaseContent(afterId, limit);
+    }
+
+    /**
+     * Find the documents whose blob was stored before codecs were introduced.
+     *
+     * @param afterId the id after which to start.
+     * @param limit the maximum number of ids to return.
+     * @return the ids of the documents, in order.
+     */
+    @Transactional(readOnly = true)
+    public List<Long> findIdsWithUncodedContent(long afterId, int limit) {
+        return documentContentRepository.findIdsWithUncodedBlob(afterId, limit);
+    }
+
+    /**
+     * Blobs which have not been referenced by any document for long enough should be purged from the blob store.
+     * <p>
+     * This is scheduled to get fired every hour, at 30 minutes past.
+     */
+    @Scheduled(cron = "0 30 * * * ?")
+    public void purgeReleasedBlobs() {
+        Instant releasedBefore = Instant.now().minus(applicationProperties.getContent().getStorage().getReleasedBlobRetention());
+        for (String sha256 : documentBlobRepository.findReleased(releasedBefore, PURGE_BATCH_SIZE)) {
+            if (documentBlobRepository.deleteReleased(sha256, releasedBefore)) {
+                log.debug("Purging blob {}", sha256);
+                try {
+                    blobStore.delete(sha256, releasedBefore);
+                } catch (IOException e) {
+                    log.warn("Blob {} couldn't be purged: {}", sha256, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends a file channel from its current position until its end.
+     */
+    @FunctionalInterface
+    public interface FileChannelTransfer {
+        void transferFrom(FileChannel channel) throws IOException;
+    }
+
+    /**
+     * A content written to the blob store: the digest and size of its blob, its size once decoded, and its codec.
+     */
+    public record StoredContent(String sha256, long size, long storedSize, String codec) {}
+
+    /**
+     * Stores a content, encoded with the codec selected from its content type and a sample of it.
+     */
+    private StoredContent store(InputStream content, String contentType) throws IOException {
+        int sampleSize = contentCodecSelector.getSampleSize();
+        BufferedInputStream buffered = new BufferedInputStream(content, sampleSize);
+        buffered.mark(sampleSize);
+        byte[] sample = buffered.readNBytes(sampleSize);
+        buffered.reset();
+        ContentCodec codec = contentCodecSelector.select(contentType, sample, sample.length);
+        long[] size = new long[1];
+        StoredBlob blob = write(codec, out -> size[0] = buffered.transferTo(out));
+        return new StoredContent(blob.sha256(), size[0], blob.size(), codec.getContentEncoding());
+    }
+
+    /**
+     * Stores the content produced by {@code writer}, encoded with {@code codec}.
+     */
+    private StoredBlob write(ContentCodec codec, BlobWriter writer) throws IOException {
+        if (codec == ContentCodec.IDENTITY) {
+            return blobStore.write(writer);
+        }
+        return blobStore.write(out -> {
+            try (OutputStream encoded = codec.encode(out)) {
+                writer.writeTo(encoded);
+            }
+        });
+    }
+
+    private long copyDecoded(ContentDescriptor descriptor, long offset, long length, OutputStream out) throws IOException {
+        if (descriptor.sha256() != null) {
+            ContentCodec codec = ContentCodec.of(descriptor.codec());
+            if (codec == ContentCodec.IDENTITY) {
+                return blobStore.copy(descriptor.sha256(), offset, length, out);
+            }
+            try (InputStream decoded = codec.decode(blobStore.open(descriptor.sha256()))) {
+                decoded.skipNBytes(offset);
+                return copy(decoded, length, out);
+            }
+        }
+        Long copied = databaseContentTransactionTemplate.execute(status ->
+            documentContentRepository.copyContent(descriptor.id(), offset, length, chunkSize(), out)
+        );
+        return copied == null ? 0 : copied;
+    }
+
+    private static long copy(InputStream in, long length, OutputStream out) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long total = 0;
+        while (total < length) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, length - total));
+            if (read < 0) {
+                break;
+            }
+            out.write(buffer, 0, read);
+            total += read;
+        }
+        return total;
+    }
+
+    private void release(ContentLocation location) {
+        if (location.sha256() != null) {
+            documentBlobRepository.release(location.sha256(), Instant.now());
+        }
+        if (location.oid() != null) {
+            documentContentRepository.unlinkLargeObject(location.oid());
+        }
+    }
+
+    /**
+     * The reference to a blob moved into the store goes away with a rolled back transaction, leaving the blob unknown to
+     * {@link #purgeReleasedBlobs}: it is then recorded as released, in a transaction of its own.
+     */
+    private void releaseOnRollback(StoredBlob blob) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        log.debug("Releasing blob {} of a rolled back transaction", blob.sha256());
+                        releaseTransactionTemplate.executeWithoutResult(transaction ->
+                            documentBlobRepository.insertReleased(blob.sha256(), blob.size(), Instant.now())
+                        );
+                    }
+                }
+            }
+        );
+    }
+
+    /**
+     * A blob stored as is is compared by digest, other contents are read to be compared.
+     */
+    private boolean isStoredContent(ContentDescriptor descriptor, byte[] data) {
+        if (descriptor.length() != data.length) {
+            return false;
+        }
+        if (descriptor.sha256() != null && ContentCodec.of(descriptor.codec()) == ContentCodec.IDENTITY) {
+            try {
+                return descriptor.sha256().equals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data)));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        try {
+            ByteArrayOutputStream stored = new ByteArrayOutputStream(data.length);
+            copyDecoded(descriptor, 0, descriptor.length(), stored);
+            return Arrays.equals(stored.toByteArray(), data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int chunkSize() {
+        return applicationProperties.getContent().getChunkSize();
+    }
+}
@@ -0,0 +1,429 @@
+package br.com.reactit.docmanagement.service;
+
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import br.com.reactit.docmanagement.domain.Document;
+import br.com.reactit.docmanagement.domain.Folder;
+import br.com.reactit.docmanagement.repository.DocumentRepository;
+import br.com.reactit.docmanagement.repository.FolderRepository;
+import br.com.reactit.docmanagement.service.DocumentContentService.StoredContent;
+import br.com.reactit.docmanagement.service.dto.DocumentImportDTO;
+import br.com.reactit.docmanagement.service.dto.DocumentImportDTO.Status;
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveException;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.ArchiveStreamFactory;
+import org.apache.commons.compress.compressors.CompressorException;
+import org.apache.commons.compress.compressors.CompressorStreamFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service importing the files of a ZIP or tar archive, possibly gzipped, as the documents of a folder.
+ * <p>
+ * The archive is spooled to the upload directory, and imported on the {@code importExecutor} pool: entries are read
+ * one at a time and their content streamed into the blob store, and documents are inserted in batches of
+ * {@code hibernate.jdbc.batch_size}, one transaction per batch, so that an archive of any size is imported in
+ * constant memory. A failed import keeps the batches it committed, and releases the contents of the batch it was
+ * filling.
+ * <p>
+ * Archives larger than {@code max-archive-size} are refused while they are spooled. An import fails once the archive
+ * has more than {@code max-entries} entries, an entry expands beyond {@code max-entry-size}, or all of them beyond
+ * {@code max-total-size} or {@code max-compression-ratio} times the size of the archive, so that an archive bomb can't
+ * fill the blob store.
+ * <p>
+ * Imports are tracked in memory, for {@code application.content.bulk-import.retention} once finished.
+ */
+@Service
+public class DocumentImportService {
+
+    private static final int TITLE_MAX_LENGTH = 255;
+
+    private final Logger log = LoggerFactory.getLogger(DocumentImportService.class);
+
+    private final DocumentRepository documentRepository;
+
+    private final FolderRepository folderRepository;
+
+    private final DocumentContentService documentContentService;
+
+    private final TextExtractionService textExtractionService;
+
+    private final AsyncTaskExecutor importExecutor;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final TransactionTemplate batchTransactionTemplate;
+
+    private final int batchSize;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    public DocumentImportService(
+        DocumentRepository documentRepository,
+        FolderRepository folderRepository,
+        DocumentContentService documentContentService,
+        TextExtractionService textExtractionService,
+        @Qualifier("importExecutor") AsyncTaskExecutor importExecutor,
+        ApplicationProperties applicationProperties,
+        ApplicationEventPublisher applicationEventPublisher,
+        PlatformTransactionManager transactionManager,
+        @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:25}") int batchSize
+    ) {
+        this.documentRepository = documentRepository;
+        this.folderRepository = folderRepository;
+        this.documentContentService = documentContentService;
+        this.textExtractionService = textExtractionService;
+        this.importExecutor = importExecutor;
+        this.applicationProperties = applicationProperties;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.batchTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Spool an archive and queue its import into a folder.
+     *
+     * @param folderId the id of the folder, which must exist.
+     * @param archive the archive, read until end of stream.
+     * @return the progress of the queued import.
+     * @throws IOException if the archive can't be spooled.
+     * @throws ImportLimitExceededException if the archive is larger than {@code max-archive-size}.
+     * @throws TaskRejectedException if too many imports are queued already.
+     */
+    public DocumentImportDTO startImport(Long folderId, InputStream archive) throws IOException {
+        String id = UUID.randomUUID().toString();
+        Path directory = Files.createDirectories(Path.of(applicationProperties.getContent().getUpload().getDirectory()));
+        Path file = directory.resolve("import-" + id);
+        long maxArchiveSize = applicationProperties.getContent().getBulkImport().getMaxArchiveSize();
+        long size;
+        try {
+            size = Files.copy(new LimitedInputStream(archive, maxArchiveSize, "Archive larger than " + maxArchiveSize + " bytes"), file);
+        } catch (IOException | ImportLimitExceededException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        ImportJob job = new ImportJob(id, folderId, size);
+        jobs.put(id, job);
+        try {
+            importExecutor.execute(() -> run(job, file));
+        } catch (TaskRejectedException e) {
+            jobs.remove(id);
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        log.debug("Queued Import : {} of {} bytes into Folder : {}", id, size, folderId);
+        return job.toDTO();
+    }
+
+    /**
+     * Get the progress of an import.
+     *
+     * @param id the id of the import.
+     * @return the progress, or empty if the import doesn't exist or finished too long ago.
+     */
+    public Optional<DocumentImportDTO> findOne(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(ImportJob::toDTO);
+    }
+
+    /**
+     * Imports which finished more than {@code application.content.bulk-import.retention} ago should be forgotten.
+     * <p>
+     * This is scheduled to get fired every hour.
+     */
+    @Scheduled(cron = "0 30 * * * ?")
+    public void removeFinishedImports() {
+        Instant finishedBefore = Instant.now().minus(applicationProperties.getContent().getBulkImport().getRetention());
+        jobs.values().removeIf(job -> job.finished != null && job.finished.isBefore(finishedBefore));
+    }
+
+    private void run(ImportJob job, Path file) {
+        job.started = Instant.now();
+        job.status = Status.RUNNING;
+        log.debug("Starting Import : {}", job.id);
+        try (
+            InputStream in = new CountingInputStream(Files.newInputStream(file), job.archiveBytesRead);
+            ArchiveInputStream<? extends ArchiveEntry> archive = openArchive(new BufferedInputStream(in))
+        ) {
+            importEntries(job, archive);
+            job.status = Status.COMPLETED;
+            log.debug("Completed Import : {}, {} documents", job.id, job.documents.get());
+        } catch (IOException | ArchiveException | RuntimeException e) {
+            log.warn("Import {} failed after {} documents: {}", job.id, job.documents.get(), e.getMessage());
+            job.error = e.getMessage();
+            job.status = Status.FAILED;
+        } finally {
+            job.finished = Instant.now();
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Spooled archive of Import {} couldn't be deleted: {}", job.id, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Entries are read through a stream which fails the import once the entry passes {@code max-entry-size}, or all of
+     * them pass the smaller of {@code max-total-size} and {@code max-compression-ratio} times the archive size.
+     */
+    private void importEntries(ImportJob job, ArchiveInputStream<? extends ArchiveEntry> archive) throws IOException {
+        ApplicationProperties.Content.BulkImport properties = applicationProperties.getContent().getBulkImport();
+        long maxRatioSize = job.archiveSize * properties.getMaxCompressionRatio();
+        long maxTotalSize = Math.min(properties.getMaxTotalSize(), maxRatioSize);
+        String totalError = maxTotalSize == maxRatioSize
+            ? "Archive expands to more than " + properties.getMaxCompressionRatio() + " times its size"
+            : "Archive expands to more than " + maxTotalSize + " bytes";
+        List<Document> documents = new ArrayList<>(batchSize);
+        List<StoredContent> contents = new ArrayList<>(batchSize);
+        long entries = 0;
+        long totalSize = 0;
+        try {
+            ArchiveEntry entry;
+            while ((entry = archive.getNextEntry()) != null) {
+                if (++entries > properties.getMaxEntries()) {
+                    throw new ImportLimitExceededException("Archive has more than " + properties.getMaxEntries() + " entries");
+                }
+                String title = title(entry.getName());
+                if (entry.isDirectory() || !archive.canReadEntryData(entry) || title.isEmpty()) {
+                    job.skippedEntries.incrementAndGet();
+                    continue;
+                }
+                String contentType = MediaTypeFactory.getMediaType(title).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+                long maxEntrySize = properties.getMaxEntrySize();
+                LimitedInputStream in = maxEntrySize < maxTotalSize - totalSize
+                    ? new LimitedInputStream(archive, maxEntrySize, "Entry " + title + " larger than " + maxEntrySize + " bytes")
+                    : new LimitedInputStream(archive, maxTotalSize - totalSize, totalError);
+                StoredContent content = documentContentService.storeContent(in, contentType);
+                totalSize += in.count;
+                documents.add(
+                    new Document()
+                        .title(title)
+                        .dataContentType(contentType)
+                        .uploaded(Instant.now())
+                        .storedContent(content.sha256(), content.size(), content.codec())
+                );
+                contents.add(content);
+                if (documents.size() == batchSize) {
+                    insertBatch(job, documents, contents);
+                }
+            }
+            if (!documents.isEmpty()) {
+                insertBatch(job, documents, contents);
+            }
+        } catch (IOException | RuntimeException e) {
+            documentContentService.releaseContents(contents);
+            throw e;
+        }
+    }
+
+    /**
+     * Inserts a batch of documents, whose inserts Hibernate sends as a single JDBC batch, and acquires their contents,
+     * once the text extraction queue has room for them.
+     */
+    private void insertBatch(ImportJob job, List<Document> documents, List<StoredContent> contents) {
+        textExtractionService.awaitCapacity(documents.size());
+        batchTransactionTemplate.executeWithoutResult(status -> {
+            Folder folder = folderRepository.getReferenceById(job.folderId);
+            documents.forEach(document -> document.setFolder(folder));
+            documentRepository.saveAll(documents);
+            documentRepository.flush();
+            documentContentService.acquireContents(contents);
+            documents.forEach(document -> applicationEventPublisher.publishEvent(new DocumentContentChangedEvent(document.getId())));
+        });
+        job.documents.addAndGet(documents.size());
+        job.contentBytes.addAndGet(contents.stream().mapToLong(StoredContent::size).sum());
+        documents.clear();
+        contents.clear();
+    }
+
+    private static ArchiveInputStream<? extends ArchiveEntry> openArchive(InputStream in) throws IOException, ArchiveException {
+        InputStream archive = in;
+        try {
+            CompressorStreamFactory.detect(in);
+            archive = new BufferedInputStream(new CompressorStreamFactory().createCompressorInputStream(in));
+        } catch (CompressorException e) {
+            // not compressed
+        }
+        return new ArchiveStreamFactory().createArchiveInputStream(archive);
+    }
+
+    /**
+     * The file name of an archive entry, without its directories.
+     */
+    private static String title(String name) {
+        String title = name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\')) + 1).strip();
+        return title.length() > TITLE_MAX_LENGTH ? title.substring(0, TITLE_MAX_LENGTH) : title;
+    }
+
+    /**
+     * The progress of an import, updated by the thread running it.
+     */
+    private static final class ImportJob {
+
+        private final String id;
+
+        private final Long folderId;
+
+        private final long archiveSize;
+
+        private final AtomicLong archiveBytesRead = new AtomicLong();
+
+        private final AtomicLong documents = new AtomicLong();
+
+        private final AtomicLong skippedEntries = new AtomicLong();
+
+        private final AtomicLong contentBytes = new AtomicLong();
+
+        private volatile Status status = Status.QUEUED;
+
+        private volatile Instant started;
+
+        private volatile Instant finished;
+
+        private volatile String error;
+
+        private ImportJob(String id, Long folderId, long archiveSize) {
+            this.id = id;
+            this.folderId = folderId;
+            this.archiveSize = archiveSize;
+        }
+
+        private DocumentImportDTO toDTO() {
+            Instant start = started;
+            Instant end = finished;
+            long documentCount = documents.get();
+            long bytes = contentBytes.get();
+            double seconds = start == null ? 0 : Duration.between(start, end != null ? end : Instant.now()).toNanos() / 1e9;
+            return new DocumentImportDTO(
+                id,
+                folderId,
+                status,
+                archiveSize,
+                archiveBytesRead.get(),
+                documentCount,
+                skippedEntries.get(),
+                bytes,
+                start,
+                end,
+                seconds > 0 ? documentCount / seconds : 0,
+                seconds > 0 ? bytes / seconds : 0,
+                error
+            );
+        }
+    }
+
+    /**
+     * Fails the import once more than {@code limit} bytes are read from the stream.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private final long limit;
+
+        private final String error;
+
+        private long count;
+
+        private LimitedInputStream(InputStream in, long limit, String error) {
+            super(in);
+            this.limit = limit;
+            this.error = error;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                counted(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                counted(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            counted(skipped);
+            return skipped;
+        }
+
+        private void counted(long bytes) {
+            count += bytes;
+            if (count > limit) {
+                throw new ImportLimitExceededException(error);
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes read from the spooled archive, as the progress of the import.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private final AtomicLong count;
+
+        private CountingInputStream(InputStream in, AtomicLong count) {
+            super(in);
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count.addAndGet(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count.addAndGet(skipped);
+            return skipped;
+        }
+    }
+}
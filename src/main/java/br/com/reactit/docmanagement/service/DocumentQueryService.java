@@ -0,0 +1,145 @@
+package br.com.reactit.docmanagement.service;
+
+import br.com.reactit.docmanagement.domain.*; // for static metamodels
+import br.com.reactit.docmanagement.domain.Document;
+import br.com.reactit.docmanagement.repository.DocumentRepository;
+import br.com.reactit.docmanagement.service.criteria.DocumentCriteria;
+import br.com.reactit.docmanagement.service.criteria.PrefixStringFilter;
+import jakarta.persistence.criteria.JoinType;
+import java.util.List;
+import java.util.Locale;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tech.jhipster.service.QueryService;
+
+/**
+ * Service for executing complex queries for {@link Document} entities in the database.
+ * The main input is a {@link DocumentCriteria} which gets converted to {@link Specification},
+ * in a way that all the filters must apply.
+ * It returns a {@link List} of {@link Document} or a {@link Page} of {@link Document} which fulfills the criteria.
+ * <p>
+ * The folder, upload time, content type and title prefix filters are served by indexes, see the
+ * {@code added_document_filter_indexes} changelog.
+ */
+@Service
+@Transactional(readOnly = true)
+public class DocumentQueryService extends QueryService<Document> {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private final Logger log = LoggerFactory.getLogger(DocumentQueryService.class);
+
+    private final DocumentRepository documentRepository;
+
+    public DocumentQueryService(DocumentRepository documentRepository) {
+        this.documentRepository = documentRepository;
+    }
+
+    /**
+     * Return a {@link List} of {@link Document} which matches the criteria from the database.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public List<Document> findByCriteria(DocumentCriteria criteria) {
+        log.debug("find by criteria : {}", criteria);
+        final Specification<Document> specification = createSpecification(criteria);
+        return documentRepository.findAll(specification);
+    }
+
+    /**
+     * Return a {@link Page} of {@link Document} which matches the criteria from the database.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<Document> findByCriteria(DocumentCriteria criteria, Pageable page) {
+        log.debug("find by criteria : {}, page: {}", criteria, page);
+        final Specification<Document> specification = createSpecification(criteria);
+        return documentRepository.findAll(specification, page);
+    }
+
+    /**
+     * Return the number of matching entities in the database.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @return the number of matching entities.
+     */
+    @Transactional(readOnly = true)
+    public long countByCriteria(DocumentCriteria criteria) {
+        log.debug("count by criteria : {}", criteria);
+        final Specification<Document> specification = createSpecification(criteria);
+        return documentRepository.count(specification);
+    }
+
+    /**
+     * Function to convert {@link DocumentCriteria} to a {@link Specification}
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @return the matching {@link Specification} of the entity.
+     */
+    protected Specification<Document> createSpecification(DocumentCriteria criteria) {
+        Specification<Document> specification = Specification.where(fetchFolder());
+        if (criteria != null) {
+            // This has to be called first, because the distinct method returns null
+            if (criteria.getDistinct() != null) {
+                specification = specification.and(distinct(criteria.getDistinct()));
+            }
+            if (criteria.getId() != null) {
+                specification = specification.and(buildRangeSpecification(criteria.getId(), Document_.id));
+            }
+            if (criteria.getTitle() != null) {
+                specification = specification.and(buildStringSpecification(criteria.getTitle(), Document_.title));
+                if (criteria.getTitle().getStartsWith() != null) {
+                    specification = specification.and(startsWithUpperSpecification(criteria.getTitle()));
+                }
+            }
+            if (criteria.getDataContentType() != null) {
+                specification = specification.and(buildStringSpecification(criteria.getDataContentType(), Document_.dataContentType));
+            }
+            if (criteria.getUploaded() != null) {
+                specification = specification.and(buildRangeSpecification(criteria.getUploaded(), Document_.uploaded));
+            }
+            if (criteria.getFolderId() != null) {
+                specification =
+                    specification.and(
+                        buildSpecification(criteria.getFolderId(), root -> root.join(Document_.folder, JoinType.LEFT).get(Folder_.id))
+                    );
+            }
+        }
+        return specification;
+    }
+
+    /**
+     * Fetch the folder along with the documents, as {@code findAllWithEagerRelationships} does, but not when counting.
+     */
+    private static Specification<Document> fetchFolder() {
+        return (root, query, builder) -> {
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                root.fetch(Document_.folder, JoinType.LEFT);
+            }
+            return null;
+        };
+    }
+
+    /**
+     * Match the titles starting with a prefix, ignoring case: {@code upper(title) like 'PREFIX%'} is served by the
+     * {@code idx_document_upper_title} index, the wildcards of the prefix being escaped.
+     */
+    private static Specification<Document> startsWithUpperSpecification(PrefixStringFilter filter) {
+        String prefix = filter.getStartsWith().toUpperCase(Locale.ROOT);
+        StringBuilder pattern = new StringBuilder(prefix.length() + 1);
+        for (char c : prefix.toCharArray()) {
+            if (c == LIKE_ESCAPE || c == '%' || c == '_') {
+                pattern.append(LIKE_ESCAPE);
+            }
+            pattern.append(c);
+        }
+        pattern.append('%');
+        return (root, query, builder) -> builder.like(builder.upper(root.get(Document_.title)), pattern.toString(), LIKE_ESCAPE);
+    }
+}
@@ -0,0 +1,8 @@
+package br.com.reactit.docmanagement.service;
+
+/**
+ * Published when the text of a document content was extracted, or couldn't be, so that the search index can be refreshed.
+ *
+ * @param documentId the id of the document.
+ */
+public record DocumentTextExtractedEvent(Long documentId) {}
@@ -0,0 +1,387 @@
+package br.com.reactit.docmanagement.service;
+
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import br.com.reactit.docmanagement.domain.Document;
+import br.com.reactit.docmanagement.domain.DocumentUpload;
+import br.com.reactit.docmanagement.management.DocumentContentMetersService;
+import br.com.reactit.docmanagement.repository.DocumentRepository;
+import br.com.reactit.docmanagement.repository.DocumentUploadRepository;
+import br.com.reactit.docmanagement.repository.FolderRepository;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service for resumable uploads of document contents.
+ * <p>
+ * An upload session receives the content in chunks, each starting at the offset reached by the previous ones, which are
+ * appended to a staging file. Once complete, the document is created and the staging file becomes its content, see
+ * {@link DocumentContentService#attachContent}.
+ * <p>
+ * The SHA-256 digest of the staged bytes is kept in memory as chunks are received. Sessions whose chunks were received
+ * by another node, or before a restart, have their staging file digested once complete.
+ * <p>
+ * The offset of a session is shared through the database, while its staging file may not be: a staging file shorter
+ * than the offset, whose chunks were received by another node or lost, rewinds the session to the length of the file,
+ * so that the client resends the missing chunks rather than leaving a hole in the content.
+ */
+@Service
+@Transactional
+public class DocumentUploadService {
+
+    private static final int REMOVE_BATCH_SIZE = 100;
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final Logger log = LoggerFactory.getLogger(DocumentUploadService.class);
+
+    private final DocumentUploadRepository documentUploadRepository;
+
+    private final DocumentRepository documentRepository;
+
+    private final FolderRepository folderRepository;
+
+    private final DocumentContentService documentContentService;
+
+    private final DocumentContentMetersService documentContentMetersService;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<String, StagedDigest> stagedDigests = new ConcurrentHashMap<>();
+
+    public DocumentUploadService(
+        DocumentUploadRepository documentUploadRepository,
+        DocumentRepository documentRepository,
+        FolderRepository folderRepository,
+        DocumentContentService documentContentService,
+        DocumentContentMetersService documentContentMetersService,
+        ApplicationProperties applicationProperties,
+        PlatformTransactionManager transactionManager
+    ) {
+        this.documentUploadRepository = documentUploadRepository;
+        this.documentRepository = documentRepository;
+        this.folderRepository = folderRepository;
+        this.documentContentService = documentContentService;
+        this.documentContentMetersService = documentContentMetersService;
+        this.applicationProperties = applicationProperties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Create an upload session.
+     *
+     * @param upload the metadata of the document to create.
+     * @return the created session, at offset zero.
+     */
+    public DocumentUpload create(DocumentUpload upload) {
+        Instant now = Instant.now();
+        DocumentUpload created = new DocumentUpload(
+            UUID.randomUUID().toString(),
+            upload.title(),
+            upload.description(),
+            upload.dataContentType(),
+            upload.folderId(),
+            upload.length(),
+            0,
+            now,
+            now
+        );
+        documentUploadRepository.insert(created);
+        log.debug("Created Upload : {}", created);
+        return created;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<DocumentUpload> findOne(String id) {
+        return documentUploadRepository.findById(id);
+    }
+
+    /**
+     * Append a chunk to an upload session.
+     * <p>
+     * The chunk is streamed to the staging file outside of any transaction, under a lock of the staging file which keeps
+     * concurrent chunks of the session out, then the offset is advanced provided it didn't change. Bytes staged by a chunk
+     * which failed are overwritten, as the staging file is first cut to the recorded offset, and a staging file shorter
+     * than the recorded offset rewinds the session to its length.
+     *
+     * @param id the id of the session.
+     * @param offset the offset of the chunk, which must be the current offset of the session.
+     * @param chunk the chunk, read until end of stream.
+     * @return the updated session, or empty if it doesn't exist.
+     * @throws UploadOffsetMismatchException if {@code offset} isn't the current offset of the session, possibly rewound to
+     * the bytes staged on this node, or another chunk of the session is being received.
+     * @throws UploadLengthExceededException if the chunk runs past the declared length of the session.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<DocumentUpload> appendChunk(String id, long offset, InputStream chunk) {
+        Optional<DocumentUpload> found = transactionTemplate.execute(status -> documentUploadRepository.findById(id));
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        long newOffset;
+        Instant now;
+        try (
+            FileChannel channel = FileChannel.open(stagingFile(id), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock = tryLock(channel);
+            InputStream metered = documentContentMetersService.meter(chunk)
+        ) {
+            if (lock == null) {
+                throw new UploadOffsetMismatchException(found.orElseThrow().offset());
+            }
+            // read again under the lock, a previous chunk may have completed since
+            found = transactionTemplate.execute(status -> documentUploadRepository.findById(id));
+            if (found.isEmpty()) {
+                deleteStagingFile(id);
+                return Optional.empty();
+            }
+            DocumentUpload upload = found.orElseThrow();
+            long stagedLength = channel.size();
+            if (stagedLength < upload.offset()) {
+                // writing at the recorded offset would leave a hole
+                Instant rewoundAt = Instant.now();
+                Boolean rewound = transactionTemplate.execute(status ->
+                    documentUploadRepository.advanceOffset(id, upload.offset(), stagedLength, rewoundAt)
+                );
+                if (!Boolean.TRUE.equals(rewound)) {
+                    // the session was cancelled meanwhile
+                    stagedDigests.remove(id);
+                    return Optional.empty();
+                }
+                log.warn("Upload {} staged {} bytes on this node, rewound from offset {}", id, stagedLength, upload.offset());
+                stagedDigests.remove(id);
+                if (offset != stagedLength) {
+                    throw new UploadOffsetMismatchException(stagedLength);
+                }
+            } else if (upload.offset() != offset) {
+                throw new UploadOffsetMismatchException(upload.offset());
+            }
+            channel.truncate(offset);
+            channel.position(offset);
+            MessageDigest digest = stagedDigest(id, offset);
+            long limit = upload.length() != null ? upload.length() - offset : Long.MAX_VALUE;
+            long received = copyChunk(metered, channel, digest, limit);
+            if (received > limit) {
+                channel.truncate(offset);
+                throw new UploadLengthExceededException();
+            }
+            newOffset = offset + received;
+            now = Instant.now();
+            Boolean advanced = transactionTemplate.execute(status -> documentUploadRepository.advanceOffset(id, offset, newOffset, now));
+            if (!Boolean.TRUE.equals(advanced)) {
+                // the session was cancelled meanwhile
+                stagedDigests.remove(id);
+                return Optional.empty();
+            }
+            if (digest != null) {
+                stagedDigests.put(id, new StagedDigest(newOffset, digest));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.debug("Received {} bytes for Upload : {}", newOffset - offset, id);
+        DocumentUpload upload = found.orElseThrow();
+        return Optional.of(
+            new DocumentUpload(
+                upload.id(),
+                upload.title(),
+                upload.description(),
+                upload.dataContentType(),
+                upload.folderId(),
+                upload.length(),
+                newOffset,
+                upload.created(),
+                now
+            )
+        );
+    }
+
+    /**
+     * Complete an upload session into a new document, whose content is moved to the blob store.
+     *
+     * @param id the id of the session.
+     * @return the id of the created document, or empty if the session doesn't exist.
+     * @throws UploadOffsetMismatchException if the session didn't receive its declared length yet, its staging file is
+     * shorter than its offset, which then rewinds to the length of the file, or a chunk of the session is being received.
+     */
+    @Transactional(noRollbackFor = UploadOffsetMismatchException.class)
+    public Optional<Long> complete(String id) {
+        Optional<DocumentUpload> locked = documentUploadRepository.findByIdForUpdate(id);
+        if (locked.isEmpty()) {
+            return Optional.empty();
+        }
+        DocumentUpload upload = locked.orElseThrow();
+        if (upload.length() != null && !upload.isComplete()) {
+            throw new UploadOffsetMismatchException(upload.offset());
+        }
+        Document document = new Document()
+            .title(upload.title())
+            .description(upload.description())
+            .dataContentType(upload.dataContentType())
+            .uploaded(Instant.now());
+        if (upload.folderId() != null) {
+            document.setFolder(folderRepository.getReferenceById(upload.folderId()));
+        }
+        try {
+            Path stagingFile = stagingFile(id);
+            try (
+                // nothing may have been received, the content is then empty
+                FileChannel channel = FileChannel.open(stagingFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                FileLock lock = tryLock(channel)
+            ) {
+                if (lock == null) {
+                    throw new UploadOffsetMismatchException(upload.offset());
+                }
+                long stagedLength = channel.size();
+                if (stagedLength < upload.offset()) {
+                    // the rewound offset is committed along with the exception
+                    documentUploadRepository.advanceOffset(id, upload.offset(), stagedLength, Instant.now());
+                    stagedDigests.remove(id);
+                    log.warn("Upload {} staged {} bytes on this node, rewound from offset {}", id, stagedLength, upload.offset());
+                    throw new UploadOffsetMismatchException(stagedLength);
+                }
+                // drop the bytes of a chunk which failed
+                channel.truncate(upload.offset());
+                document = documentRepository.saveAndFlush(document);
+                StagedDigest staged = stagedDigests.remove(id);
+                String sha256 = staged != null && staged.offset() == upload.offset()
+                    ? HexFormat.of().formatHex(staged.digest().digest())
+                    : null;
+                documentContentService.attachContent(document.getId(), stagingFile, upload.dataContentType(), sha256);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        documentUploadRepository.delete(id);
+        log.debug("Completed Upload : {} into Document : {}", id, document.getId());
+        return Optional.of(document.getId());
+    }
+
+    /**
+     * Cancel an upload session, dropping the content received so far.
+     *
+     * @param id the id of the session.
+     * @return {@code true} if the session existed.
+     */
+    public boolean cancel(String id) {
+        log.debug("Request to cancel Upload : {}", id);
+        if (!documentUploadRepository.delete(id)) {
+            return false;
+        }
+        stagedDigests.remove(id);
+        deleteStagingFile(id);
+        return true;
+    }
+
+    /**
+     * Upload sessions which didn't receive any chunk for {@code application.content.upload.session-timeout} should be removed.
+     * <p>
+     * This is scheduled to get fired every hour.
+     */
+    @Scheduled(cron = "0 0 * * * ?")
+    public void removeStaleUploads() {
+        Instant updatedBefore = Instant.now().minus(applicationProperties.getContent().getUpload().getSessionTimeout());
+        for (String id : documentUploadRepository.findIdsUpdatedBefore(updatedBefore, REMOVE_BATCH_SIZE)) {
+            log.debug("Removing stale Upload : {}", id);
+            documentUploadRepository.delete(id);
+            stagedDigests.remove(id);
+            deleteStagingFile(id);
+        }
+    }
+
+    private void deleteStagingFile(String id) {
+        try {
+            Files.deleteIfExists(stagingFile(id));
+        } catch (IOException e) {
+            log.warn("Staging file of Upload {} couldn't be deleted: {}", id, e.getMessage());
+        }
+    }
+
+    /**
+     * @return the digest of the bytes staged before {@code offset}, to be updated with the chunk, or {@code null} if unknown.
+     */
+    private MessageDigest stagedDigest(String id, long offset) {
+        StagedDigest staged = stagedDigests.get(id);
+        try {
+            if (staged != null && staged.offset() == offset) {
+                // the staged digest is left untouched should the chunk fail
+                return (MessageDigest) staged.digest().clone();
+            }
+            return offset == 0 ? MessageDigest.getInstance("SHA-256") : null;
+        } catch (CloneNotSupportedException | NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Copy a chunk to the staging file, reading at most one byte past {@code limit}.
+     *
+     * @return the number of bytes read, greater than {@code limit} if the chunk runs past it.
+     */
+    private static long copyChunk(InputStream in, FileChannel channel, MessageDigest digest, long limit) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long copied = 0;
+        int read;
+        while ((read = in.read(buffer, 0, (int) Math.min(buffer.length - 1, limit - copied) + 1)) != -1) {
+            copied += read;
+            if (copied > limit) {
+                break;
+            }
+            ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            if (digest != null) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return copied;
+    }
+
+    /**
+     * @return the lock of the staging file, or {@code null} if it is held by another request.
+     */
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    private Path stagingFile(String id) throws IOException {
+        Path directory = Files.createDirectories(Path.of(applicationProperties.getContent().getUpload().getDirectory()));
+        // ids are generated UUIDs, they can't escape the directory
+        return directory.resolve(UUID.fromString(id).toString());
+    }
+
+    /**
+     * The digest of the bytes staged before {@code offset}, updated as chunks are received so that the completed content
+     * isn't read again to be digested.
+     */
+    private record StagedDigest(long offset, MessageDigest digest) {}
+}
@@ -0,0 +1,128 @@
+package br.com.reactit.docmanagement.service;
+
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import br.com.reactit.docmanagement.repository.DocumentContentRepository;
+import br.com.reactit.docmanagement.repository.DocumentContentRepository.ContentDescriptor;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service exporting the documents of a {@link br.com.reactit.docmanagement.domain.Folder} as a ZIP archive.
+ * <p>
+ * The archive is written as the document rows are read from a database cursor, one entry per document, so exporting
+ * a folder takes the same memory whatever its size. Contents of the types listed in
+ * {@code application.content.export.stored-types} are already compressed, and are written uncompressed.
+ */
+@Service
+public class FolderExportService {
+
+    private static final Pattern UNSAFE_NAME_CHARACTERS = Pattern.compile("[\\\\/:*?\"<>|\\p{Cntrl}]");
+
+    private final Logger log = LoggerFactory.getLogger(FolderExportService.class);
+
+    private final DocumentContentRepository documentContentRepository;
+
+    private final DocumentContentService documentContentService;
+
+    private final ApplicationProperties.Content.Export properties;
+
+    private final List<MediaType> storedTypes;
+
+    public FolderExportService(
+        DocumentContentRepository documentContentRepository,
+        DocumentContentService documentContentService,
+        ApplicationProperties applicationProperties
+    ) {
+        this.documentContentRepository = documentContentRepository;
+        this.documentContentService = documentContentService;
+        this.properties = applicationProperties.getContent().getExport();
+        this.storedTypes = MediaType.parseMediaTypes(properties.getStoredTypes());
+    }
+
+    /**
+     * Write the documents of a folder to {@code out} as a ZIP archive, from a single snapshot.
+     * <p>
+     * Entries are named after their document title, with the document id to tell documents sharing a title apart.
+     * Documents without content are left out.
+     *
+     * @param folderId the id of the folder.
+     * @param out the stream to write the archive to, which is left open.
+     * @return the number of documents exported.
+     * @throws IOException if the archive can't be written.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public long exportFolder(Long folderId, OutputStream out) throws IOException {
+        log.debug("Request to export Folder : {}", folderId);
+        ZipOutputStream zip = new ZipOutputStream(out);
+        long[] count = new long[1];
+        try {
+            documentContentRepository.streamFolderContents(
+                folderId,
+                properties.getFetchSize(),
+                content -> {
+                    try {
+                        writeEntry(zip, content.title(), content.descriptor());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    count[0]++;
+                }
+            );
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        zip.finish();
+        zip.flush();
+        return count[0];
+    }
+
+    private void writeEntry(ZipOutputStream zip, String title, ContentDescriptor descriptor) throws IOException {
+        ZipEntry entry = new ZipEntry(entryName(title, descriptor.id()));
+        if (descriptor.uploaded() != null) {
+            entry.setLastModifiedTime(FileTime.from(descriptor.uploaded()));
+        }
+        // an uncompressed deflate entry, as a STORED one would need its CRC before its content
+        zip.setLevel(isStored(descriptor.contentType()) ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+        zip.putNextEntry(entry);
+        documentContentService.copyContent(descriptor, 0, descriptor.length() >= 0 ? descriptor.length() : Long.MAX_VALUE, zip);
+        zip.closeEntry();
+    }
+
+    private boolean isStored(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            return storedTypes.stream().anyMatch(type -> type.includes(mediaType));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The title, stripped of the characters file systems reject, with the document id inserted before its extension.
+     */
+    static String entryName(String title, Long id) {
+        String name = UNSAFE_NAME_CHARACTERS.matcher(title == null ? "" : title).replaceAll("_").strip();
+        int extension = name.lastIndexOf('.');
+        if (extension <= 0) {
+            return name.isEmpty() ? "document (" + id + ")" : name + " (" + id + ")";
+        }
+        return name.substring(0, extension) + " (" + id + ")" + name.substring(extension);
+    }
+}
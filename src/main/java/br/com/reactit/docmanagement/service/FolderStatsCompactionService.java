@@ -0,0 +1,74 @@
+package br.com.reactit.docmanagement.service;
+
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import br.com.reactit.docmanagement.repository.FolderStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Background job compacting the deltas of the folder statistics, see {@link FolderStatsRepository}.
+ * <p>
+ * Deltas are compacted in batches of {@code application.stats.compaction-batch-size}, one transaction per batch, until
+ * none is left. Reads sum the pending deltas of a folder, so compaction only bounds their number.
+ */
+@Service
+public class FolderStatsCompactionService {
+
+    private final Logger log = LoggerFactory.getLogger(FolderStatsCompactionService.class);
+
+    private final FolderStatsRepository folderStatsRepository;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public FolderStatsCompactionService(
+        FolderStatsRepository folderStatsRepository,
+        ApplicationProperties applicationProperties,
+        PlatformTransactionManager transactionManager
+    ) {
+        this.folderStatsRepository = folderStatsRepository;
+        this.applicationProperties = applicationProperties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Compact the pending deltas.
+     * <p>
+     * This is scheduled to get fired every {@code application.stats.compaction-delay} milliseconds.
+     */
+    @Scheduled(
+        initialDelayString = "${application.stats.compaction-delay:60000}",
+        fixedDelayString = "${application.stats.compaction-delay:60000}"
+    )
+    public void compactScheduled() {
+        try {
+            long compacted = compact();
+            if (compacted > 0) {
+                log.debug("Compacted {} folder statistics deltas", compacted);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Folder statistics couldn't be compacted: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Compact the deltas pending when called.
+     *
+     * @return the number of deltas compacted.
+     */
+    public synchronized long compact() {
+        int batchSize = applicationProperties.getStats().getCompactionBatchSize();
+        long total = 0;
+        long compacted;
+        do {
+            compacted = transactionTemplate.execute(status -> folderStatsRepository.compact(batchSize));
+            total += compacted;
+        } while (compacted == batchSize);
+        return total;
+    }
+}
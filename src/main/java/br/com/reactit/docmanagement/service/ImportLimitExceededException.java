@@ -0,0 +1,10 @@
+package br.com.reactit.docmanagement.service;
+
+public class ImportLimitExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ImportLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,127 @@
+package br.com.reactit.docmanagement.service;
+
+import br.com.reactit.docmanagement.domain.Document;
+import br.com.reactit.docmanagement.domain.Folder;
+import br.com.reactit.docmanagement.domain.SearchIndexEntry;
+import br.com.reactit.docmanagement.service.SearchIndexService.EntryType;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hibernate listener recording the changes of documents and folders in the embedded search index and the typeahead
+ * index, whichever are enabled, once their transaction committed, so that rolled back changes are never searchable.
+ * <p>
+ * Changes made with JDBC rather than through the entities, which never touch titles or descriptions, aren't seen.
+ */
+@Component
+public class SearchIndexEventListener
+    implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final SearchIndexService searchIndexService;
+
+    private final TypeaheadService typeaheadService;
+
+    public SearchIndexEventListener(
+        EntityManagerFactory entityManagerFactory,
+        ObjectProvider<SearchIndexService> searchIndexService,
+        ObjectProvider<TypeaheadService> typeaheadService
+    ) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.searchIndexService = searchIndexService.getIfAvailable();
+        this.typeaheadService = typeaheadService.getIfAvailable();
+    }
+
+    @PostConstruct
+    public void register() {
+        if (searchIndexService == null && typeaheadService == null) {
+            return;
+        }
+        EventListenerRegistry registry = entityManagerFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        entityChanged(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        entityChanged(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Document) {
+            entityDeleted(EntryType.DOCUMENT, (Long) event.getId());
+        } else if (event.getEntity() instanceof Folder) {
+            entityDeleted(EntryType.FOLDER, (Long) event.getId());
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        // nothing was recorded
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        // nothing was recorded
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        // nothing was recorded
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        Class<?> entityClass = persister.getMappedClass();
+        return Document.class.equals(entityClass) || Folder.class.equals(entityClass);
+    }
+
+    private void entityChanged(Object entity) {
+        if (entity instanceof Document document) {
+            entryChanged(EntryType.DOCUMENT, SearchIndexEntry.of(document));
+        } else if (entity instanceof Folder folder) {
+            entryChanged(EntryType.FOLDER, SearchIndexEntry.of(folder));
+        }
+    }
+
+    private void entryChanged(EntryType type, SearchIndexEntry entry) {
+        if (searchIndexService != null) {
+            searchIndexService.entryChanged(type, entry);
+        }
+        if (typeaheadService != null) {
+            typeaheadService.titleChanged(type, entry.id(), entry.title());
+        }
+    }
+
+    private void entityDeleted(EntryType type, Long id) {
+        if (searchIndexService != null) {
+            searchIndexService.entryDeleted(type, id);
+        }
+        if (typeaheadService != null) {
+            typeaheadService.titleDeleted(type, id);
+        }
+    }
+}
@@ -0,0 +1,651 @@
+package br.com.reactit.docmanagement.service;
+
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import br.com.reactit.docmanagement.domain.SearchIndexEntry;
+import br.com.reactit.docmanagement.repository.DocumentRepository;
+import br.com.reactit.docmanagement.repository.FolderRepository;
+import br.com.reactit.docmanagement.service.dto.SearchHitDTO;
+import br.com.reactit.docmanagement.service.dto.SearchIndexStatusDTO;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Service keeping an embedded Lucene index of the documents and folders, and searching it.
+ * <p>
+ * Changes are recorded by {@link SearchIndexEventListener} once their transaction committed, coalesced by entity, and
+ * applied in batches every {@code application.search.lucene.refresh-delay} milliseconds, after which the near-real-time
+ * searcher is refreshed: searches see them without the index being committed to disk, which only happens every
+ * {@code commit-delay} milliseconds, and on shutdown. Documents are indexed along with the text extracted from their
+ * content by {@link TextExtractionService}, and indexed again once it was extracted.
+ * <p>
+ * A full reindex splits the documents and folders into id ranges, read by keyset pagination on the
+ * {@code searchIndexExecutor} pool, and deletes the entries it didn't rewrite once all ranges were read, so the index
+ * stays searchable meanwhile. Entries changed while it runs are read again after it wrote them, as it may have
+ * overwritten them with the rows it read before. Searches only read the inverted index, so their latency depends on the number of matches
+ * rather than on the size of the tables.
+ */
+@Service
+@ConditionalOnProperty(prefix = "application.search.lucene", name = "enabled", havingValue = "true")
+public class SearchIndexService {
+
+    public enum EntryType {
+        DOCUMENT("document"),
+        FOLDER("folder");
+
+        private final String tag;
+
+        EntryType(String tag) {
+            this.tag = tag;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+    }
+
+    static final String KEY_FIELD = "key";
+    static final String TYPE_FIELD = "type";
+    static final String ID_FIELD = "id";
+    static final String FOLDER_ID_FIELD = "folderId";
+    static final String TITLE_FIELD = "title";
+    static final String DESCRIPTION_FIELD = "description";
+    static final String CONTENT_FIELD = "content";
+
+    /**
+     * When the entry was written, compared to the start of a full reindex to find the entries it didn't rewrite.
+     */
+    static final String GENERATION_FIELD = "generation";
+
+    /**
+     * Searched fields, by boost: title matches rank above description matches, which rank above content matches.
+     */
+    private static final Map<String, Float> FIELD_BOOSTS = Map.of(TITLE_FIELD, 3f, DESCRIPTION_FIELD, 1f, CONTENT_FIELD, 0.5f);
+
+    private static final float PREFIX_BOOST = 0.5f;
+
+    private static final float FUZZY_BOOST = 0.3f;
+
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    /**
+     * Number of leading characters a fuzzy match must share with a query term, which keeps fuzzy queries cheap.
+     */
+    private static final int FUZZY_PREFIX_LENGTH = 1;
+
+    private static final int MAX_QUERY_TERMS = 32;
+
+    private static final int MAX_DESCRIPTION_PASSAGES = 2;
+
+    private static final int MAX_CONTENT_PASSAGES = 2;
+
+    /**
+     * Text fields are stored, for highlighting, with their offsets, so that snippets don't need to analyze them again.
+     */
+    private static final FieldType HIGHLIGHTED_TEXT_TYPE = new FieldType();
+
+    static {
+        HIGHLIGHTED_TEXT_TYPE.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        HIGHLIGHTED_TEXT_TYPE.setTokenized(true);
+        HIGHLIGHTED_TEXT_TYPE.setStored(true);
+        HIGHLIGHTED_TEXT_TYPE.freeze();
+    }
+
+    private final Logger log = LoggerFactory.getLogger(SearchIndexService.class);
+
+    private final DocumentRepository documentRepository;
+
+    private final FolderRepository folderRepository;
+
+    private final TextExtractionService textExtractionService;
+
+    private final AsyncTaskExecutor searchIndexExecutor;
+
+    private final ApplicationProperties.Search.Lucene properties;
+
+    private final Analyzer analyzer = new FoldingAnalyzer();
+
+    private final Directory directory;
+
+    private final IndexWriter writer;
+
+    private final SearcherManager searcherManager;
+
+    /**
+     * Committed changes not applied to the index yet, by entry key, the latest change of an entry replacing the former.
+     */
+    private final Map<String, Change> pendingChanges = new ConcurrentHashMap<>();
+
+    /**
+     * Keys of the entries changed or deleted while a reindex is running, which it may overwrite with the rows it read before.
+     */
+    private final Set<String> keysChangedDuringReindex = ConcurrentHashMap.newKeySet();
+
+    private volatile long generation = System.currentTimeMillis();
+
+    private final AtomicBoolean reindexing = new AtomicBoolean();
+
+    private final AtomicLong reindexedEntries = new AtomicLong();
+
+    private volatile Instant reindexStarted;
+
+    private volatile Instant reindexFinished;
+
+    private volatile String reindexError;
+
+    public SearchIndexService(
+        DocumentRepository documentRepository,
+        FolderRepository folderRepository,
+        TextExtractionService textExtractionService,
+        @Qualifier("searchIndexExecutor") AsyncTaskExecutor searchIndexExecutor,
+        ApplicationProperties applicationProperties
+    ) {
+        this.documentRepository = documentRepository;
+        this.folderRepository = folderRepository;
+        this.textExtractionService = textExtractionService;
+        this.searchIndexExecutor = searchIndexExecutor;
+        this.properties = applicationProperties.getSearch().getLucene();
+        try {
+            Path path = Files.createDirectories(Path.of(properties.getDirectory()).toAbsolutePath());
+            this.directory = FSDirectory.open(path);
+            this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+            this.searcherManager = new SearcherManager(writer, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Record that a document or folder was created or updated, and committed.
+     *
+     * @param type the type of the entry.
+     * @param entry its searchable text.
+     */
+    public void entryChanged(EntryType type, SearchIndexEntry entry) {
+        pendingChanges.put(key(type, entry.id()), new Change(type, entry.id(), entry, false));
+    }
+
+    /**
+     * Record that a document or folder was deleted, and committed.
+     *
+     * @param type the type of the entry.
+     * @param id its id.
+     */
+    public void entryDeleted(EntryType type, Long id) {
+        pendingChanges.put(key(type, id), new Change(type, id, null, false));
+    }
+
+    /**
+     * Record that the text of a document content was extracted, so that the document gets indexed again with it,
+     * unless a change of the document is pending already.
+     *
+     * @param event the event.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentTextExtracted(DocumentTextExtractedEvent event) {
+        Long id = event.documentId();
+        pendingChanges.putIfAbsent(key(EntryType.DOCUMENT, id), new Change(EntryType.DOCUMENT, id, null, true));
+    }
+
+    /**
+     * Apply the pending changes to the index.
+     * <p>
+     * This is scheduled to get fired every {@code application.search.lucene.refresh-delay} milliseconds.
+     */
+    @Scheduled(
+        initialDelayString = "${application.search.lucene.refresh-delay:1000}",
+        fixedDelayString = "${application.search.lucene.refresh-delay:1000}"
+    )
+    public void refreshScheduled() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Search index couldn't be refreshed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Apply the pending changes to the index, and make them searchable.
+     *
+     * @return the number of changes applied.
+     */
+    public synchronized int refresh() {
+        List<Change> changes = new ArrayList<>();
+        for (String key : pendingChanges.keySet()) {
+            Change change = pendingChanges.remove(key);
+            if (change != null) {
+                changes.add(change);
+            }
+        }
+        Set<Long> documentIds = changes
+            .stream()
+            .filter(change -> change.type() == EntryType.DOCUMENT && (change.entry() != null || change.reload()))
+            .map(Change::id)
+            .collect(Collectors.toSet());
+        Map<Long, String> texts = textExtractionService.findTexts(documentIds);
+        try {
+            for (Change change : changes) {
+                String key = key(change.type(), change.id());
+                if (reindexing.get()) {
+                    // recorded before the entry is written, so that a reindex writing it afterwards applies it again
+                    keysChangedDuringReindex.add(key);
+                }
+                SearchIndexEntry entry = change.reload() ? reload(change.type(), change.id()) : change.entry();
+                if (entry == null) {
+                    writer.deleteDocuments(new Term(KEY_FIELD, key));
+                } else {
+                    writer.updateDocument(new Term(KEY_FIELD, key), toDocument(change.type(), entry, texts.get(entry.id())));
+                }
+            }
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return changes.size();
+    }
+
+    /**
+     * Commit the index to disk, if it changed.
+     * <p>
+     * This is scheduled to get fired every {@code application.search.lucene.commit-delay} milliseconds.
+     */
+    @Scheduled(
+        initialDelayString = "${application.search.lucene.commit-delay:60000}",
+        fixedDelayString = "${application.search.lucene.commit-delay:60000}"
+    )
+    public void commitScheduled() {
+        try {
+            if (writer.hasUncommittedChanges()) {
+                writer.commit();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Search index couldn't be committed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Search the documents or folders, best matches first.
+     * <p>
+     * Each word of the text must match the title, the description or the content, exactly, as the prefix of a word,
+     * or within a couple of typos; exact matches rank above prefix matches, which rank above fuzzy ones, and title
+     * matches above description matches, above content matches. Case and accents are ignored.
+     *
+     * @param type the type of the entries searched.
+     * @param text the searched text.
+     * @param pageable the pagination information, whose sort is ignored.
+     * @return the page of hits.
+     */
+    public Page<SearchHitDTO> search(EntryType type, String text, Pageable pageable) {
+        Query query = buildQuery(type, text);
+        if (query == null) {
+            return Page.empty(pageable);
+        }
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                int end = Math.toIntExact(Math.min(pageable.getOffset() + pageable.getPageSize(), Integer.MAX_VALUE));
+                TopDocs topDocs = searcher.search(query, Math.max(end, 1));
+                long total = topDocs.totalHits.relation == TotalHits.Relation.EQUAL_TO
+                    ? topDocs.totalHits.value
+                    : searcher.count(query);
+                int start = (int) Math.min(pageable.getOffset(), topDocs.scoreDocs.length);
+                ScoreDoc[] hits = Arrays.copyOfRange(topDocs.scoreDocs, start, topDocs.scoreDocs.length);
+                if (hits.length == 0) {
+                    return new PageImpl<>(List.of(), pageable, total);
+                }
+                Map<String, String[]> highlights = UnifiedHighlighter
+                    .builder(searcher, analyzer)
+                    .withFormatter(new DefaultPassageFormatter("<mark>", "</mark>", "… ", true))
+                    .withMaxNoHighlightPassages(0)
+                    .build()
+                    .highlightFields(
+                        new String[] { TITLE_FIELD, DESCRIPTION_FIELD, CONTENT_FIELD },
+                        query,
+                        new TopDocs(topDocs.totalHits, hits),
+                        new int[] { 1, MAX_DESCRIPTION_PASSAGES, MAX_CONTENT_PASSAGES }
+                    );
+                List<SearchHitDTO> content = new ArrayList<>(hits.length);
+                for (int i = 0; i < hits.length; i++) {
+                    Document document = searcher.storedFields().document(hits[i].doc);
+                    Map<String, String> hitHighlights = new LinkedHashMap<>();
+                    for (Map.Entry<String, String[]> field : highlights.entrySet()) {
+                        if (field.getValue()[i] != null) {
+                            hitHighlights.put(field.getKey(), field.getValue()[i]);
+                        }
+                    }
+                    IndexableField folderId = document.getField(FOLDER_ID_FIELD);
+                    content.add(
+                        new SearchHitDTO(
+                            document.getField(ID_FIELD).numericValue().longValue(),
+                            document.get(TITLE_FIELD),
+                            folderId == null ? null : folderId.numericValue().longValue(),
+                            hits[i].score,
+                            hitHighlights
+                        )
+                    );
+                }
+                return new PageImpl<>(content, pageable, total);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Start a full reindex of the documents and folders, unless one is running.
+     *
+     * @return whether a reindex was started.
+     */
+    public boolean reindex() {
+        if (!reindexing.compareAndSet(false, true)) {
+            return false;
+        }
+        // entries written from now on, by the reindex or by changes, are kept once it finished
+        long reindexGeneration = Math.max(generation + 1, System.currentTimeMillis());
+        generation = reindexGeneration;
+        reindexStarted = Instant.now();
+        reindexFinished = null;
+        reindexError = null;
+        reindexedEntries.set(0);
+        log.info("Reindexing the search index");
+        try {
+            List<CompletableFuture<Void>> ranges = new ArrayList<>();
+            submitRanges(EntryType.DOCUMENT, documentRepository.findMaxId(), documentRepository::findSearchIndexEntries, ranges);
+            submitRanges(EntryType.FOLDER, folderRepository.findMaxId(), folderRepository::findSearchIndexEntries, ranges);
+            CompletableFuture
+                .allOf(ranges.toArray(CompletableFuture[]::new))
+                .whenComplete((result, error) -> finishReindex(reindexGeneration, error));
+        } catch (RuntimeException e) {
+            finishReindex(reindexGeneration, e);
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Rebuild the index on startup when it is empty, as when the embedded index was just enabled.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reindexIfEmpty() {
+        if (writer.getDocStats().numDocs == 0) {
+            reindex();
+        }
+    }
+
+    public SearchIndexStatusDTO getStatus() {
+        int indexedEntries;
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                indexedEntries = searcher.getIndexReader().numDocs();
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new SearchIndexStatusDTO(
+            indexedEntries,
+            pendingChanges.size(),
+            reindexing.get(),
+            reindexStarted,
+            reindexFinished,
+            reindexedEntries.get(),
+            reindexError
+        );
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        try {
+            refresh();
+        } finally {
+            searcherManager.close();
+            // commits on close
+            writer.close();
+            directory.close();
+        }
+    }
+
+    private void submitRanges(EntryType type, long maxId, EntryPager pager, List<CompletableFuture<Void>> ranges) {
+        int threads = Math.max(properties.getReindexThreads(), 1);
+        for (int i = 0; i < threads; i++) {
+            long after = maxId * i / threads;
+            long last = maxId * (i + 1) / threads;
+            if (last > after) {
+                ranges.add(CompletableFuture.runAsync(() -> reindexRange(type, pager, after, last), searchIndexExecutor));
+            }
+        }
+    }
+
+    private void reindexRange(EntryType type, EntryPager pager, long after, long last) {
+        int batchSize = properties.getReindexBatchSize();
+        List<SearchIndexEntry> page;
+        do {
+            page = pager.find(after, last, PageRequest.of(0, batchSize));
+            Map<Long, String> texts = type == EntryType.DOCUMENT
+                ? textExtractionService.findTexts(page.stream().map(SearchIndexEntry::id).toList())
+                : Map.of();
+            try {
+                for (SearchIndexEntry entry : page) {
+                    writer.updateDocument(new Term(KEY_FIELD, key(type, entry.id())), toDocument(type, entry, texts.get(entry.id())));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // entries changed or deleted since the page was read may have been overwritten, they are read again
+            for (SearchIndexEntry entry : page) {
+                String key = key(type, entry.id());
+                if (keysChangedDuringReindex.contains(key)) {
+                    pendingChanges.putIfAbsent(key, new Change(type, entry.id(), null, true));
+                }
+            }
+            reindexedEntries.addAndGet(page.size());
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).id();
+            }
+        } while (page.size() == batchSize);
+    }
+
+    private void finishReindex(long reindexGeneration, Throwable error) {
+        try {
+            if (error == null) {
+                writer.deleteDocuments(LongPoint.newRangeQuery(GENERATION_FIELD, Long.MIN_VALUE, reindexGeneration - 1));
+                writer.commit();
+                searcherManager.maybeRefreshBlocking();
+                log.info(
+                    "Reindexed {} search index entries in {}",
+                    reindexedEntries.get(),
+                    Duration.between(reindexStarted, Instant.now())
+                );
+            } else {
+                reindexError = error.getMessage();
+                log.warn("Search index couldn't be reindexed: {}", error.getMessage());
+            }
+        } catch (IOException | RuntimeException e) {
+            reindexError = e.getMessage();
+            log.warn("Search index couldn't be reindexed: {}", e.getMessage());
+        } finally {
+            reindexFinished = Instant.now();
+            keysChangedDuringReindex.clear();
+            reindexing.set(false);
+        }
+    }
+
+    private SearchIndexEntry reload(EntryType type, Long id) {
+        EntryPager pager = type == EntryType.DOCUMENT
+            ? documentRepository::findSearchIndexEntries
+            : folderRepository::findSearchIndexEntries;
+        List<SearchIndexEntry> entries = pager.find(id - 1, id, PageRequest.of(0, 1));
+        return entries.isEmpty() ? null : entries.get(0);
+    }
+
+    private Document toDocument(EntryType type, SearchIndexEntry entry, String content) {
+        Document document = new Document();
+        document.add(new StringField(KEY_FIELD, key(type, entry.id()), Field.Store.NO));
+        document.add(new StringField(TYPE_FIELD, type.getTag(), Field.Store.NO));
+        document.add(new StoredField(ID_FIELD, entry.id()));
+        if (entry.folderId() != null) {
+            document.add(new StoredField(FOLDER_ID_FIELD, entry.folderId()));
+        }
+        if (entry.title() != null) {
+            document.add(new Field(TITLE_FIELD, entry.title(), HIGHLIGHTED_TEXT_TYPE));
+        }
+        if (entry.description() != null) {
+            document.add(new Field(DESCRIPTION_FIELD, entry.description(), HIGHLIGHTED_TEXT_TYPE));
+        }
+        if (content != null) {
+            document.add(new Field(CONTENT_FIELD, content, HIGHLIGHTED_TEXT_TYPE));
+        }
+        document.add(new LongPoint(GENERATION_FIELD, generation));
+        return document;
+    }
+
+    private Query buildQuery(EntryType type, String text) {
+        List<String> terms = analyze(text);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder().add(new TermQuery(new Term(TYPE_FIELD, type.getTag())), Occur.FILTER);
+        for (String term : terms) {
+            BooleanQuery.Builder termQuery = new BooleanQuery.Builder();
+            int maxEdits = maxEdits(term);
+            for (Map.Entry<String, Float> field : FIELD_BOOSTS.entrySet()) {
+                Term fieldTerm = new Term(field.getKey(), term);
+                termQuery.add(new BoostQuery(new TermQuery(fieldTerm), field.getValue()), Occur.SHOULD);
+                if (term.length() >= MIN_PREFIX_LENGTH) {
+                    termQuery.add(new BoostQuery(new PrefixQuery(fieldTerm), field.getValue() * PREFIX_BOOST), Occur.SHOULD);
+                }
+                if (maxEdits > 0) {
+                    termQuery.add(
+                        new BoostQuery(new FuzzyQuery(fieldTerm, maxEdits, FUZZY_PREFIX_LENGTH), field.getValue() * FUZZY_BOOST),
+                        Occur.SHOULD
+                    );
+                }
+            }
+            query.add(termQuery.build(), Occur.MUST);
+        }
+        return query.build();
+    }
+
+    private List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream tokens = analyzer.tokenStream(TITLE_FIELD, text)) {
+            CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (terms.size() < MAX_QUERY_TERMS && tokens.incrementToken()) {
+                terms.add(term.toString());
+            }
+            tokens.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    /**
+     * Number of typos tolerated in a query term: none in short terms, where they would match too many words.
+     */
+    private static int maxEdits(String term) {
+        if (term.length() < 3) {
+            return 0;
+        }
+        return term.length() < 6 ? 1 : 2;
+    }
+
+    private static String key(EntryType type, Long id) {
+        return type.getTag() + ':' + id;
+    }
+
+    /**
+     * A change of an entry: its new searchable text, or its deletion when it has none, unless it needs to be reloaded.
+     */
+    private record Change(EntryType type, Long id, SearchIndexEntry entry, boolean reload) {}
+
+    @FunctionalInterface
+    private interface EntryPager {
+        List<SearchIndexEntry> find(long after, long last, Pageable pageable);
+    }
+
+    /**
+     * Splits text into words, ignoring case and accents, as titles and descriptions are written in several languages.
+     */
+    private static final class FoldingAnalyzer extends Analyzer {
+
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            Tokenizer tokenizer = new StandardTokenizer();
+            return new TokenStreamComponents(tokenizer, new ASCIIFoldingFilter(new LowerCaseFilter(tokenizer)));
+        }
+
+        @Override
+        protected TokenStream normalize(String fieldName, TokenStream in) {
+            return new ASCIIFoldingFilter(new LowerCaseFilter(in));
+        }
+    }
+}
@@ -0,0 +1,540 @@
+package br.com.reactit.docmanagement.service;
+
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import br.com.reactit.docmanagement.domain.DocumentText;
+import br.com.reactit.docmanagement.domain.DocumentText.Status;
+import br.com.reactit.docmanagement.management.TextExtractionMetersService;
+import br.com.reactit.docmanagement.repository.DocumentContentRepository.ContentDescriptor;
+import br.com.reactit.docmanagement.repository.DocumentTextRepository;
+import br.com.reactit.docmanagement.service.storage.ContentCodec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.tika.exception.WriteLimitReachedException;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.ContentHandlerDecorator;
+import org.apache.tika.sax.WriteOutContentHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * Service extracting the text of document contents, for search.
+ * <p>
+ * Text is extracted with Tika on the {@code textExtractionExecutor} pool, after a content was created or replaced.
+ * At most {@code application.content.extraction.pool-size} plus {@code queue-capacity} extractions are queued or
+ * running: beyond that, contents are left to a catch-up job, which picks up every content whose text wasn't extracted,
+ * and bulk imports wait for the queue to have room for each batch, so they can't swamp the pool.
+ * <p>
+ * Each extraction is bounded: contents larger than {@code max-content-size} or of other types than {@code types} are
+ * skipped, the text is cut after {@code max-characters}, and the parse is cancelled once {@code timeout} elapsed. The
+ * memory a parse uses isn't bounded otherwise: compressed formats can expand far beyond {@code max-content-size}.
+ * The text is stored compressed in {@code document_text}, keyed by the content it was extracted from, along with its
+ * search vector on the document, which {@link br.com.reactit.docmanagement.repository.DocumentSearchRepository} searches.
+ */
+@Service
+public class TextExtractionService {
+
+    private static final int CATCH_UP_BATCH_SIZE = 100;
+
+    private static final int ERROR_MAX_LENGTH = 255;
+
+    private static final String UNSUPPORTED_CONTENT_TYPE = "unsupported";
+
+    private static final ContentCodec TEXT_CODEC = ContentCodec.ZSTD;
+
+    private final Logger log = LoggerFactory.getLogger(TextExtractionService.class);
+
+    private final DocumentContentService documentContentService;
+
+    private final DocumentTextRepository documentTextRepository;
+
+    private final TextExtractionMetersService textExtractionMetersService;
+
+    private final AsyncTaskExecutor textExtractionExecutor;
+
+    private final AsyncTaskExecutor textParserExecutor;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final ApplicationProperties.Content.Extraction properties;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Parser parser = new AutoDetectParser();
+
+    private final List<MediaType> types;
+
+    private final int capacity;
+
+    /**
+     * One permit per extraction queued or running.
+     */
+    private final Semaphore permits;
+
+    /**
+     * Documents whose extraction is queued, which a further change of their content doesn't need to queue again.
+     */
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+
+    public TextExtractionService(
+        DocumentContentService documentContentService,
+        DocumentTextRepository documentTextRepository,
+        TextExtractionMetersService textExtractionMetersService,
+        @Qualifier("textExtractionExecutor") AsyncTaskExecutor textExtractionExecutor,
+        @Qualifier("textParserExecutor") AsyncTaskExecutor textParserExecutor,
+        ApplicationProperties applicationProperties,
+        ApplicationEventPublisher applicationEventPublisher,
+        PlatformTransactionManager transactionManager
+    ) {
+        this.documentContentService = documentContentService;
+        this.documentTextRepository = documentTextRepository;
+        this.textExtractionMetersService = textExtractionMetersService;
+        this.textExtractionExecutor = textExtractionExecutor;
+        this.textParserExecutor = textParserExecutor;
+        this.applicationProperties = applicationProperties;
+        this.properties = applicationProperties.getContent().getExtraction();
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.types = MediaType.parseMediaTypes(properties.getTypes());
+        this.capacity = Math.max(properties.getPoolSize() + properties.getQueueCapacity(), 1);
+        this.permits = new Semaphore(capacity, true);
+    }
+
+    /**
+     * Queue the extraction of the text of a content which was created or replaced, once its transaction committed.
+     * <p>
+     * The content is left to the catch-up job if the queue is full.
+     *
+     * @param event the event.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentContentChanged(DocumentContentChangedEvent event) {
+        if (properties.isEnabled()) {
+            submit(event.documentId());
+        }
+    }
+
+    /**
+     * Wait for the queue to have room for a number of extractions, so that a producer of many contents doesn't outpace
+     * the extraction.
+     * <p>
+     * This gives up after {@code application.content.extraction.backpressure-timeout}, leaving the contents which
+     * don't fit to the catch-up job.
+     *
+     * @param count the number of extractions about to be queued.
+     * @return whether the queue had room in time.
+     */
+    public boolean awaitCapacity(int count) {
+        if (!properties.isEnabled() || count <= 0) {
+            return true;
+        }
+        int needed = Math.min(count, capacity);
+        try {
+            if (permits.tryAcquire(needed, properties.getBackpressureTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                permits.release(needed);
+                return true;
+            }
+            log.warn(
+                "Text extraction queue stayed full for {}, leaving {} contents to the catch-up job",
+                properties.getBackpressureTimeout(),
+                count
+            );
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * Queue the extraction of the contents whose text wasn't extracted, as much as the queue has room for.
+     * <p>
+     * This is scheduled to get fired every {@code application.content.extraction.catch-up-delay} milliseconds.
+     */
+    @Scheduled(
+        initialDelayString = "${application.content.extraction.catch-up-delay:60000}",
+        fixedDelayString = "${application.content.extraction.catch-up-delay:60000}"
+    )
+    public void catchUpScheduled() {
+        try {
+            catchUp();
+        } catch (RuntimeException e) {
+            log.warn("Text extraction couldn't catch up: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Queue the extraction of the contents whose text wasn't extracted, or was extracted from a former content, as much
+     * as the queue has room for.
+     *
+     * @return the number of extractions queued.
+     */
+    public int catchUp() {
+        if (!properties.isEnabled()) {
+            return 0;
+        }
+        int submitted = 0;
+        long afterId = 0;
+        List<Long> ids;
+        int limit;
+        do {
+            limit = Math.min(CATCH_UP_BATCH_SIZE, permits.availablePermits());
+            if (limit == 0) {
+                break;
+            }
+            ids = documentTextRepository.findIdsWithoutText(afterId, limit);
+            for (Long id : ids) {
+                if (!queued.contains(id)) {
+                    if (!submit(id)) {
+                        return submitted;
+                    }
+                    submitted++;
+                }
+            }
+            if (!ids.isEmpty()) {
+                afterId = ids.get(ids.size() - 1);
+            }
+        } while (ids.size() == limit);
+        if (submitted > 0) {
+            log.debug("Queued text extraction of {} documents left out", submitted);
+        }
+        return submitted;
+    }
+
+    /**
+     * Extract the text of the current content of a document, and store it.
+     * <p>
+     * A content replaced while its text is extracted gets its own extraction, and the catch-up job extracts again any
+     * text stored for a former content.
+     *
+     * @param id the id of the document.
+     * @return the stored text, or empty if the document doesn't exist or has no content.
+     */
+    public Optional<DocumentText> extract(Long id) {
+        Optional<ContentDescriptor> found = documentContentService.findDescriptor(id);
+        String contentKey = found.map(TextExtractionService::contentKey).orElse(null);
+        if (contentKey == null) {
+            return Optional.empty();
+        }
+        ContentDescriptor descriptor = found.orElseThrow();
+        String contentType = supportedType(descriptor.contentType());
+        log.debug("Request to extract text of Document : {} ({})", id, contentType);
+        textExtractionMetersService.extractionStarted();
+        long start = System.nanoTime();
+        Status status = Status.FAILED;
+        try {
+            Extraction extraction;
+            if (contentType == null) {
+                extraction = new Extraction(Status.SKIPPED, null, "Unsupported content type");
+            } else if (descriptor.length() > properties.getMaxContentSize()) {
+                extraction = new Extraction(Status.SKIPPED, null, "Content larger than " + properties.getMaxContentSize() + " bytes");
+            } else {
+                extraction = parse(descriptor);
+            }
+            status = extraction.status();
+            DocumentText documentText = new DocumentText(
+                id,
+                contentKey,
+                extraction.status(),
+                extraction.text() == null ? null : TEXT_CODEC.getContentEncoding(),
+                extraction.text() == null ? null : encode(extraction.text()),
+                extraction.text() == null ? null : extraction.text().length(),
+                Instant.now(),
+                StringUtils.abbreviate(extraction.error(), ERROR_MAX_LENGTH)
+            );
+            transactionTemplate.executeWithoutResult(transaction -> {
+                documentTextRepository.save(documentText, extraction.text());
+                applicationEventPublisher.publishEvent(new DocumentTextExtractedEvent(id));
+            });
+            return Optional.of(documentText);
+        } finally {
+            textExtractionMetersService.extractionFinished(
+                contentType == null ? UNSUPPORTED_CONTENT_TYPE : contentType,
+                status.name().toLowerCase(),
+                status == Status.FAILED || status == Status.TIMED_OUT,
+                System.nanoTime() - start
+            );
+        }
+    }
+
+    /**
+     * Get the text extracted from the content of a document.
+     *
+     * @param id the id of the document.
+     * @return the text, or empty if none was extracted.
+     */
+    public Optional<String> findText(Long id) {
+        return documentTextRepository.findById(id).map(TextExtractionService::decode);
+    }
+
+    /**
+     * Get the texts extracted from the contents of documents.
+     *
+     * @param ids the ids of the documents.
+     * @return the texts, by document id, without the documents which have none.
+     */
+    public Map<Long, String> findTexts(Collection<Long> ids) {
+        Map<Long, String> texts = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (DocumentText documentText : documentTextRepository.findAllById(ids)) {
+                String text = decode(documentText);
+                if (text != null) {
+                    texts.put(documentText.documentId(), text);
+                }
+            }
+        }
+        return texts;
+    }
+
+    /**
+     * @return the number of extractions which can still be queued.
+     */
+    public int getAvailableCapacity() {
+        return permits.availablePermits();
+    }
+
+    private boolean submit(Long id) {
+        if (!queued.add(id)) {
+            return true;
+        }
+        if (!permits.tryAcquire()) {
+            queued.remove(id);
+            log.debug("Text extraction of Document {} is left to the catch-up job", id);
+            return false;
+        }
+        textExtractionMetersService.extractionQueued();
+        try {
+            textExtractionExecutor.execute(() -> {
+                textExtractionMetersService.extractionDequeued();
+                // a change of the content from now on queues another extraction
+                queued.remove(id);
+                try {
+                    extract(id);
+                } catch (RuntimeException e) {
+                    log.warn("Text of Document {} couldn't be extracted: {}", id, e.getMessage());
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (TaskRejectedException e) {
+            textExtractionMetersService.extractionDequeued();
+            queued.remove(id);
+            permits.release();
+            log.debug("Text extraction of Document {} is left to the catch-up job", id);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * The content is spooled to a temporary file, as some parsers need random access, and parsed on the
+     * {@code textParserExecutor} pool to a writer which stops the parser once the text is long enough. The parse is
+     * cancelled, interrupting its thread, once the timeout elapsed; a handler also stops it at its next element or
+     * characters, for parsers which ignore interruptions.
+     */
+    private Extraction parse(ContentDescriptor descriptor) {
+        Duration timeout = properties.getTimeout();
+        int maxCharacters = properties.getMaxCharacters();
+        DeadlineContentHandler deadline = null;
+        StringWriter text = new StringWriter();
+        Path spool = null;
+        try {
+            Path directory = Files.createDirectories(Path.of(applicationProperties.getContent().getUpload().getDirectory()));
+            spool = Files.createTempFile(directory, "extraction-", ".tmp");
+            deadline = new DeadlineContentHandler(new WriteOutContentHandler(text, maxCharacters), System.nanoTime() + timeout.toNanos());
+            try (OutputStream out = Files.newOutputStream(spool)) {
+                documentContentService.copyContent(descriptor, 0, descriptor.length(), out);
+            }
+            Metadata metadata = new Metadata();
+            metadata.set(Metadata.CONTENT_TYPE, descriptor.contentType());
+            Path spooled = spool;
+            ContentHandler handler = new BodyContentHandler(deadline);
+            Future<Void> parsing = textParserExecutor.submit(() -> {
+                try (TikaInputStream in = TikaInputStream.get(spooled, metadata)) {
+                    parser.parse(in, handler, metadata, new ParseContext());
+                }
+                return null;
+            });
+            try {
+                parsing.get(Math.max(deadline.remaining(), 0), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                parsing.cancel(true);
+                return new Extraction(Status.TIMED_OUT, null, "Text not extracted within " + timeout);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                return failed(descriptor, e.getCause(), text, deadline);
+            }
+            return new Extraction(Status.EXTRACTED, text.toString().strip(), null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Extraction(Status.FAILED, null, "Text extraction interrupted");
+        } catch (IOException | RuntimeException e) {
+            return failed(descriptor, e, text, deadline);
+        } finally {
+            if (spool != null) {
+                try {
+                    Files.deleteIfExists(spool);
+                } catch (IOException e) {
+                    log.warn("Spooled content of Document {} couldn't be deleted: {}", descriptor.id(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * The extraction of a parse which threw {@code e}: a parse stopped once the text is long enough is truncated, and one
+     * stopped once its deadline passed timed out.
+     */
+    private Extraction failed(ContentDescriptor descriptor, Throwable e, StringWriter text, DeadlineContentHandler deadline) {
+        if (WriteLimitReachedException.isWriteLimitReached(e)) {
+            return new Extraction(
+                Status.TRUNCATED,
+                text.toString().strip(),
+                "Text longer than " + properties.getMaxCharacters() + " characters"
+            );
+        }
+        if (deadline != null && deadline.isExceeded()) {
+            return new Extraction(Status.TIMED_OUT, null, "Text not extracted within " + properties.getTimeout());
+        }
+        log.debug("Text of Document {} couldn't be extracted: {}", descriptor.id(), e.getMessage());
+        return new Extraction(Status.FAILED, null, e.getMessage() != null ? e.getMessage() : e.getClass().getName());
+    }
+
+    /**
+     * The type of a content without its parameters, if text is extracted from that type.
+     */
+    private String supportedType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            if (types.stream().anyMatch(type -> type.includes(mediaType))) {
+                return mediaType.getType() + '/' + mediaType.getSubtype();
+            }
+        } catch (InvalidMediaTypeException e) {
+            // not extracted
+        }
+        return null;
+    }
+
+    /**
+     * The key of the current content, which changes with the content: the digest of its blob, unless a large object
+     * replaced it.
+     */
+    private static String contentKey(ContentDescriptor descriptor) {
+        if (descriptor.oid() != null) {
+            return "lo-" + descriptor.oid();
+        }
+        return descriptor.sha256();
+    }
+
+    private static byte[] encode(String text) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream encoded = TEXT_CODEC.encode(out)) {
+            encoded.write(text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String decode(DocumentText documentText) {
+        if (documentText.text() == null) {
+            return null;
+        }
+        try (InputStream decoded = ContentCodec.of(documentText.textCodec()).decode(new ByteArrayInputStream(documentText.text()))) {
+            return new String(decoded.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Extraction(Status status, String text, String error) {}
+
+    /**
+     * Stops the parser, at its next element or characters, once a deadline passed.
+     */
+    private static final class DeadlineContentHandler extends ContentHandlerDecorator {
+
+        private final long deadline;
+
+        private volatile boolean exceeded;
+
+        private DeadlineContentHandler(ContentHandler handler, long deadline) {
+            super(handler);
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String name, Attributes atts) throws SAXException {
+            checkDeadline();
+            super.startElement(uri, localName, name, atts);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            checkDeadline();
+            super.characters(ch, start, length);
+        }
+
+        private boolean isExceeded() {
+            return exceeded;
+        }
+
+        private long remaining() {
+            return deadline - System.nanoTime();
+        }
+
+        private void checkDeadline() throws SAXException {
+            if (System.nanoTime() - deadline > 0) {
+                exceeded = true;
+                throw new SAXException("Text extraction timed out");
+            }
+        }
+    }
+}
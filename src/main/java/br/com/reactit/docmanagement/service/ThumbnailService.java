@@ -0,0 +1,323 @@
+package br.com.reactit.docmanagement.service;
+
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import br.com.reactit.docmanagement.repository.DocumentContentRepository.ContentDescriptor;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Service generating the thumbnails of image document contents.
+ * <p>
+ * Thumbnails are generated on the {@code thumbnailExecutor} pool, after a content was created or replaced, or on demand,
+ * so generating thumbnails never takes more threads, or decoded images memory, than the pool size.
+ * They are keyed by the content they were generated from, its blob digest or large object oid, so a thumbnail never
+ * needs to be invalidated, and are cached on disk and, up to {@code application.content.thumbnail.cache-size} bytes,
+ * in memory, least recently used first evicted.
+ */
+@Service
+public class ThumbnailService {
+
+    private static final String THUMBNAIL_FORMAT = "jpg";
+
+    private static final byte[] NO_THUMBNAIL = new byte[0];
+
+    /**
+     * Approximate size of a cache entry besides its thumbnail, which also bounds the number of contents known to have none.
+     */
+    private static final int CACHE_ENTRY_OVERHEAD = 128;
+
+    private final Logger log = LoggerFactory.getLogger(ThumbnailService.class);
+
+    private final DocumentContentService documentContentService;
+
+    private final AsyncTaskExecutor thumbnailExecutor;
+
+    private final ApplicationProperties.Content.Thumbnail properties;
+
+    private final Path directory;
+
+    private final Map<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Thumbnails in access order, guarded by itself.
+     */
+    private final LinkedHashMap<String, byte[]> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long cachedBytes;
+
+    public ThumbnailService(
+        DocumentContentService documentContentService,
+        @Qualifier("thumbnailExecutor") AsyncTaskExecutor thumbnailExecutor,
+        ApplicationProperties applicationProperties
+    ) {
+        this.documentContentService = documentContentService;
+        this.thumbnailExecutor = thumbnailExecutor;
+        this.properties = applicationProperties.getContent().getThumbnail();
+        this.directory = Path.of(properties.getDirectory()).toAbsolutePath();
+    }
+
+    /**
+     * Get the thumbnail of a document content, waiting for it to be generated if needed.
+     * <p>
+     * Concurrent requests for a thumbnail being generated wait for the same generation.
+     *
+     * @param descriptor the descriptor of the content.
+     * @return the JPEG thumbnail, or empty if the content isn't an image.
+     * @throws ThumbnailUnavailableException if the pool is saturated, or the thumbnail isn't generated in time.
+     */
+    public Optional<byte[]> getThumbnail(ContentDescriptor descriptor) {
+        String key = thumbnailKey(descriptor);
+        if (key == null) {
+            return Optional.empty();
+        }
+        byte[] cached = getCached(key);
+        if (cached != null) {
+            return toOptional(cached);
+        }
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            future = existing;
+        } else {
+            CompletableFuture<byte[]> generation = future;
+            try {
+                thumbnailExecutor.execute(() -> {
+                    try {
+                        generation.complete(load(key, descriptor));
+                    } catch (RuntimeException e) {
+                        generation.completeExceptionally(e);
+                    } finally {
+                        inFlight.remove(key, generation);
+                    }
+                });
+            } catch (TaskRejectedException e) {
+                inFlight.remove(key, generation);
+                throw new ThumbnailUnavailableException(e);
+            }
+        }
+        try {
+            return toOptional(future.get(properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            throw new ThumbnailUnavailableException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ThumbnailUnavailableException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * The thumbnail key, which changes with the content, and can be used as a version.
+     *
+     * @param descriptor the descriptor of the content.
+     * @return the key, or {@code null} if the content isn't an image.
+     */
+    public String thumbnailKey(ContentDescriptor descriptor) {
+        if (descriptor.contentType() == null || !descriptor.contentType().startsWith("image/")) {
+            return null;
+        }
+        if (descriptor.sha256() != null) {
+            return descriptor.sha256();
+        }
+        return descriptor.oid() != null ? "lo-" + descriptor.oid() : null;
+    }
+
+    /**
+     * Generate the thumbnail of a content which was created or replaced, once its transaction committed.
+     * <p>
+     * This is only a head start: the thumbnail is skipped if the pool is saturated, and generated on demand later.
+     *
+     * @param event the event.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentContentChanged(DocumentContentChangedEvent event) {
+        try {
+            thumbnailExecutor.execute(() -> {
+                try {
+                    documentContentService
+                        .findDescriptor(event.documentId())
+                        .ifPresent(descriptor -> {
+                            String key = thumbnailKey(descriptor);
+                            if (key != null && getCached(key) == null) {
+                                load(key, descriptor);
+                            }
+                        });
+                } catch (RuntimeException e) {
+                    log.warn("Thumbnail of Document {} couldn't be generated: {}", event.documentId(), e.getMessage());
+                }
+            });
+        } catch (TaskRejectedException e) {
+            log.debug("Thumbnail of Document {} is left to be generated on demand", event.documentId());
+        }
+    }
+
+    /**
+     * Thumbnails which have not been served for {@code application.content.thumbnail.retention} should be removed from disk.
+     * <p>
+     * This is scheduled to get fired every day, at 03:15 (am).
+     */
+    @Scheduled(cron = "0 15 3 * * ?")
+    public void removeUnusedThumbnails() {
+        Instant servedBefore = Instant.now().minus(properties.getRetention());
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*." + THUMBNAIL_FORMAT)) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(servedBefore)) {
+                    log.debug("Removing unused thumbnail {}", file.getFileName());
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Unused thumbnails couldn't be removed: {}", e.getMessage());
+        }
+    }
+
+    private byte[] load(String key, ContentDescriptor descriptor) {
+        Path file = directory.resolve(key + "." + THUMBNAIL_FORMAT);
+        try {
+            byte[] thumbnail;
+            try {
+                thumbnail = Files.readAllBytes(file);
+                // the modification time records when the thumbnail was last served, see removeUnusedThumbnails()
+                Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+            } catch (NoSuchFileException e) {
+                thumbnail = generate(descriptor);
+                if (thumbnail.length > 0) {
+                    Path temporary = Files.createTempFile(Files.createDirectories(directory), "thumbnail-", ".tmp");
+                    Files.write(temporary, thumbnail);
+                    Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            putCached(key, thumbnail);
+            return thumbnail;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The content is spooled to a temporary file, so the image reader gets random access without holding the content
+     * in memory, and large images are subsampled while they are decoded.
+     */
+    private byte[] generate(ContentDescriptor descriptor) throws IOException {
+        log.debug("Generating thumbnail of Document : {}", descriptor.id());
+        Path source = Files.createTempFile(Files.createDirectories(directory), "source-", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(source)) {
+                documentContentService.copyContent(descriptor, 0, descriptor.length(), out);
+            }
+            BufferedImage image = read(source);
+            if (image == null) {
+                return NO_THUMBNAIL;
+            }
+            int size = properties.getSize();
+            double scale = Math.min(1, Math.min((double) size / image.getWidth(), (double) size / image.getHeight()));
+            int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+            int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+            BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = thumbnail.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                // transparent images get a white background, as JPEG has no alpha channel
+                graphics.drawImage(image, 0, 0, width, height, Color.WHITE, null);
+            } finally {
+                graphics.dispose();
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(thumbnail, THUMBNAIL_FORMAT, out);
+            return out.toByteArray();
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    private BufferedImage read(Path source) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                // decoded at no less than twice the thumbnail size, which keeps the scaled thumbnail smooth
+                int subsampling = Math.max(1, Math.max(reader.getWidth(0), reader.getHeight(0)) / (2 * properties.getSize()));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } catch (IOException | RuntimeException e) {
+                log.debug("Image {} couldn't be decoded: {}", source.getFileName(), e.getMessage());
+                return null;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private byte[] getCached(String key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    private void putCached(String key, byte[] thumbnail) {
+        synchronized (cache) {
+            byte[] previous = cache.put(key, thumbnail);
+            cachedBytes += weight(thumbnail) - (previous != null ? weight(previous) : 0);
+            Iterator<byte[]> eldest = cache.values().iterator();
+            while (cachedBytes > properties.getCacheSize() && eldest.hasNext()) {
+                cachedBytes -= weight(eldest.next());
+                eldest.remove();
+            }
+        }
+    }
+
+    private static long weight(byte[] thumbnail) {
+        return thumbnail.length + CACHE_ENTRY_OVERHEAD;
+    }
+
+    private static Optional<byte[]> toOptional(byte[] thumbnail) {
+        return thumbnail.length > 0 ? Optional.of(thumbnail) : Optional.empty();
+    }
+}
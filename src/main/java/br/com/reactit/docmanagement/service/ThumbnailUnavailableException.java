@@ -0,0 +1,10 @@
+package br.com.reactit.docmanagement.service;
+
+public class ThumbnailUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ThumbnailUnavailableException(Throwable cause) {
+        super("Thumbnail couldn't be generated in time!", cause);
+    }
+}
@@ -0,0 +1,241 @@
+package br.com.reactit.docmanagement.service;
+
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import br.com.reactit.docmanagement.domain.TitleEntry;
+import br.com.reactit.docmanagement.management.TypeaheadMetersService;
+import br.com.reactit.docmanagement.repository.DocumentRepository;
+import br.com.reactit.docmanagement.repository.FolderRepository;
+import br.com.reactit.docmanagement.service.SearchIndexService.EntryType;
+import br.com.reactit.docmanagement.service.dto.TypeaheadSuggestionDTO;
+import br.com.reactit.docmanagement.service.typeahead.TitleIndex;
+import br.com.reactit.docmanagement.service.typeahead.TitleIndex.Match;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service suggesting document and folder titles as they are typed, from in-memory {@link TitleIndex} indexes.
+ * <p>
+ * The indexes are built on startup, reading the titles by keyset pagination. Changes are recorded by
+ * {@link SearchIndexEventListener} once their transaction committed, and suggested right away: lookups scan them
+ * along with the index, until they are merged into a new index every {@code application.search.typeahead.merge-delay}
+ * milliseconds. Lookups never touch the database, so their latency only depends on the number of matches read.
+ */
+@Service
+@ConditionalOnProperty(prefix = "application.search.typeahead", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TypeaheadService {
+
+    /**
+     * Number of matches read from an index per suggestion, which are ranked to pick the suggestions.
+     */
+    private static final int CANDIDATES_PER_SUGGESTION = 8;
+
+    private static final int MIN_CANDIDATES = 64;
+
+    private final Logger log = LoggerFactory.getLogger(TypeaheadService.class);
+
+    private final DocumentRepository documentRepository;
+
+    private final FolderRepository folderRepository;
+
+    private final TypeaheadMetersService typeaheadMetersService;
+
+    private final ApplicationProperties.Search.Typeahead properties;
+
+    private final Map<EntryType, Titles> titles = new EnumMap<>(EntryType.class);
+
+    public TypeaheadService(
+        DocumentRepository documentRepository,
+        FolderRepository folderRepository,
+        TypeaheadMetersService typeaheadMetersService,
+        ApplicationProperties applicationProperties
+    ) {
+        this.documentRepository = documentRepository;
+        this.folderRepository = folderRepository;
+        this.typeaheadMetersService = typeaheadMetersService;
+        this.properties = applicationProperties.getSearch().getTypeahead();
+        for (EntryType type : EntryType.values()) {
+            titles.put(type, new Titles());
+        }
+    }
+
+    /**
+     * Record that a document or folder was created or updated, and committed.
+     *
+     * @param type the type of the entity.
+     * @param id its id.
+     * @param title its title.
+     */
+    public void titleChanged(EntryType type, Long id, String title) {
+        titles.get(type).changes.put(id, title == null ? Change.REMOVED : new Change(title, TitleIndex.fold(title)));
+    }
+
+    /**
+     * Record that a document or folder was deleted, and committed.
+     *
+     * @param type the type of the entity.
+     * @param id its id.
+     */
+    public void titleDeleted(EntryType type, Long id) {
+        titles.get(type).changes.put(id, Change.REMOVED);
+    }
+
+    /**
+     * Suggest the titles having a word starting with a prefix: titles starting with it first, then shorter titles
+     * first. Case and accents are ignored.
+     *
+     * @param type the type of the entities.
+     * @param prefix the prefix.
+     * @param size the number of suggestions, capped by {@code application.search.typeahead.max-suggestions}.
+     * @return the suggestions.
+     */
+    public List<TypeaheadSuggestionDTO> suggest(EntryType type, String prefix, int size) {
+        long start = System.nanoTime();
+        String folded = TitleIndex.fold(prefix.strip());
+        if (folded.isEmpty()) {
+            return List.of();
+        }
+        int limit = Math.max(1, Math.min(size, properties.getMaxSuggestions()));
+        Titles typeTitles = titles.get(type);
+        Map<Long, Change> changes = typeTitles.changes;
+        List<Match> candidates = new ArrayList<>(
+            typeTitles.index.lookup(folded, Math.max(limit * CANDIDATES_PER_SUGGESTION, MIN_CANDIDATES), changes::containsKey)
+        );
+        changes.forEach((id, change) -> {
+            if (change.title() != null) {
+                int word = TitleIndex.matchingWord(change.folded(), folded);
+                if (word >= 0) {
+                    candidates.add(new Match(id, change.title(), word == 0));
+                }
+            }
+        });
+        List<TypeaheadSuggestionDTO> suggestions = candidates
+            .stream()
+            .sorted(TitleIndex.RANKING)
+            .limit(limit)
+            .map(match -> new TypeaheadSuggestionDTO(match.id(), match.title()))
+            .toList();
+        typeaheadMetersService.lookupPerformed(type.getTag(), System.nanoTime() - start);
+        return suggestions;
+    }
+
+    /**
+     * Build the indexes on startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        build(EntryType.DOCUMENT, documentRepository::findTitleEntries);
+        build(EntryType.FOLDER, folderRepository::findTitleEntries);
+    }
+
+    /**
+     * Merge the changed titles into the indexes.
+     * <p>
+     * This is scheduled to get fired every {@code application.search.typeahead.merge-delay} milliseconds.
+     */
+    @Scheduled(
+        initialDelayString = "${application.search.typeahead.merge-delay:1000}",
+        fixedDelayString = "${application.search.typeahead.merge-delay:1000}"
+    )
+    public void mergeScheduled() {
+        try {
+            merge();
+        } catch (RuntimeException e) {
+            log.warn("Typeahead index couldn't be merged: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Merge the changed titles into the indexes which were built.
+     */
+    public synchronized void merge() {
+        for (Map.Entry<EntryType, Titles> entry : titles.entrySet()) {
+            Titles typeTitles = entry.getValue();
+            if (!typeTitles.built || typeTitles.changes.isEmpty()) {
+                continue;
+            }
+            Map<Long, Change> merged = new HashMap<>(typeTitles.changes);
+            Map<Long, String> changedTitles = new HashMap<>();
+            merged.forEach((id, change) -> changedTitles.put(id, change.title()));
+            typeTitles.index = typeTitles.index.merge(changedTitles);
+            // changes recorded meanwhile are kept for the next merge
+            merged.forEach(typeTitles.changes::remove);
+            updateMeters(entry.getKey(), typeTitles.index);
+        }
+    }
+
+    /**
+     * Changes recorded while the index is being built are only merged once it was built, as the rows read may predate
+     * them.
+     */
+    private synchronized void build(EntryType type, TitlePager pager) {
+        long start = System.nanoTime();
+        TitleIndex.Builder builder = new TitleIndex.Builder();
+        int batchSize = properties.getLoadBatchSize();
+        long after = 0;
+        List<TitleEntry> page;
+        do {
+            page = pager.find(after, PageRequest.of(0, batchSize));
+            for (TitleEntry entry : page) {
+                if (entry.title() != null) {
+                    builder.add(entry.id(), entry.title());
+                }
+            }
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).id();
+            }
+        } while (page.size() == batchSize);
+        Titles typeTitles = titles.get(type);
+        typeTitles.index = builder.build();
+        typeTitles.built = true;
+        updateMeters(type, typeTitles.index);
+        log.info(
+            "Built the {} typeahead index of {} titles, {} bytes, in {}",
+            type.getTag(),
+            typeTitles.index.size(),
+            typeTitles.index.estimatedBytes(),
+            Duration.ofNanos(System.nanoTime() - start)
+        );
+    }
+
+    private void updateMeters(EntryType type, TitleIndex index) {
+        typeaheadMetersService.indexUpdated(type.getTag(), index.estimatedBytes(), index.size());
+    }
+
+    /**
+     * A changed title, along with its folded form, {@code null} when the title was removed.
+     */
+    private record Change(String title, String folded) {
+        private static final Change REMOVED = new Change(null, null);
+    }
+
+    private static final class Titles {
+
+        private volatile TitleIndex index = TitleIndex.EMPTY;
+
+        private volatile boolean built;
+
+        /**
+         * Changes not merged into the index yet, by id, the latest change of a title replacing the former.
+         */
+        private final Map<Long, Change> changes = new ConcurrentHashMap<>();
+    }
+
+    @FunctionalInterface
+    private interface TitlePager {
+        List<TitleEntry> find(long after, Pageable pageable);
+    }
+}
@@ -0,0 +1,10 @@
+package br.com.reactit.docmanagement.service;
+
+public class UploadLengthExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UploadLengthExceededException() {
+        super("Chunk runs past the declared upload length!");
+    }
+}
@@ -0,0 +1,21 @@
+package br.com.reactit.docmanagement.service;
+
+/**
+ * Thrown when a chunk doesn't start at the current offset of its upload session,
+ * or when an upload session is completed before all its content was received.
+ */
+public class UploadOffsetMismatchException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long offset;
+
+    public UploadOffsetMismatchException(long offset) {
+        super("Upload is at offset " + offset);
+        this.offset = offset;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+}
@@ -0,0 +1,171 @@
+package br.com.reactit.docmanagement.service.criteria;
+
+import java.io.Serializable;
+import java.util.Objects;
+import org.springdoc.core.annotations.ParameterObject;
+import tech.jhipster.service.Criteria;
+import tech.jhipster.service.filter.*;
+
+/**
+ * Criteria class for the {@link br.com.reactit.docmanagement.domain.Document} entity. This class is used
+ * in {@link br.com.reactit.docmanagement.web.rest.DocumentResource} to receive all the possible filtering options from
+ * the Http GET request parameters.
+ * For example the following could be a valid request:
+ * {@code /documents?folderId.equals=5&uploaded.greaterThanOrEqual=2024-01-01T00:00:00Z&title.startsWith=annual}
+ * As Spring is unable to properly convert the types, unless specific {@link Filter} class are used, we need to use
+ * fix type specific filters.
+ */
+@ParameterObject
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class DocumentCriteria implements Serializable, Criteria {
+
+    private static final long serialVersionUID = 1L;
+
+    private LongFilter id;
+
+    private PrefixStringFilter title;
+
+    private StringFilter dataContentType;
+
+    private InstantFilter uploaded;
+
+    private LongFilter folderId;
+
+    private Boolean distinct;
+
+    public DocumentCriteria() {}
+
+    public DocumentCriteria(DocumentCriteria other) {
+        this.id = other.id == null ? null : other.id.copy();
+        this.title = other.title == null ? null : other.title.copy();
+        this.dataContentType = other.dataContentType == null ? null : other.dataContentType.copy();
+        this.uploaded = other.uploaded == null ? null : other.uploaded.copy();
+        this.folderId = other.folderId == null ? null : other.folderId.copy();
+        this.distinct = other.distinct;
+    }
+
+    @Override
+    public DocumentCriteria copy() {
+        return new DocumentCriteria(this);
+    }
+
+    public LongFilter getId() {
+        return id;
+    }
+
+    public LongFilter id() {
+        if (id == null) {
+            id = new LongFilter();
+        }
+        return id;
+    }
+
+    public void setId(LongFilter id) {
+        this.id = id;
+    }
+
+    public PrefixStringFilter getTitle() {
+        return title;
+    }
+
+    public PrefixStringFilter title() {
+        if (title == null) {
+            title = new PrefixStringFilter();
+        }
+        return title;
+    }
+
+    public void setTitle(PrefixStringFilter title) {
+        this.title = title;
+    }
+
+    public StringFilter getDataContentType() {
+        return dataContentType;
+    }
+
+    public StringFilter dataContentType() {
+        if (dataContentType == null) {
+            dataContentType = new StringFilter();
+        }
+        return dataContentType;
+    }
+
+    public void setDataContentType(StringFilter dataContentType) {
+        this.dataContentType = dataContentType;
+    }
+
+    public InstantFilter getUploaded() {
+        return uploaded;
+    }
+
+    public InstantFilter uploaded() {
+        if (uploaded == null) {
+            uploaded = new InstantFilter();
+        }
+        return uploaded;
+    }
+
+    public void setUploaded(InstantFilter uploaded) {
+        this.uploaded = uploaded;
+    }
+
+    public LongFilter getFolderId() {
+        return folderId;
+    }
+
+    public LongFilter folderId() {
+        if (folderId == null) {
+            folderId = new LongFilter();
+        }
+        return folderId;
+    }
+
+    public void setFolderId(LongFilter folderId) {
+        this.folderId = folderId;
+    }
+
+    public Boolean getDistinct() {
+        return distinct;
+    }
+
+    public void setDistinct(Boolean distinct) {
+        this.distinct = distinct;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final DocumentCriteria that = (DocumentCriteria) o;
+        return (
+            Objects.equals(id, that.id) &&
+            Objects.equals(title, that.title) &&
+            Objects.equals(dataContentType, that.dataContentType) &&
+            Objects.equals(uploaded, that.uploaded) &&
+            Objects.equals(folderId, that.folderId) &&
+            Objects.equals(distinct, that.distinct)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, title, dataContentType, uploaded, folderId, distinct);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "DocumentCriteria{" +
+            (id != null ? "id=" + id + ", " : "") +
+            (title != null ? "title=" + title + ", " : "") +
+            (dataContentType != null ? "dataContentType=" + dataContentType + ", " : "") +
+            (uploaded != null ? "uploaded=" + uploaded + ", " : "") +
+            (folderId != null ? "folderId=" + folderId + ", " : "") +
+            (distinct != null ? "distinct=" + distinct + ", " : "") +
+            "}";
+    }
+}
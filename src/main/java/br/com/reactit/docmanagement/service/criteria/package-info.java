@@ -0,0 +1,4 @@
+/**
+ * Criteria filtering entities, bound from the parameters of HTTP requests.
+ */
+package br.com.reactit.docmanagement.service.criteria;
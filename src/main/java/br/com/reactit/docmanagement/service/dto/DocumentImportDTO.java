@@ -0,0 +1,45 @@
+package br.com.reactit.docmanagement.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A DTO representing the progress of a bulk import of an archive into a folder.
+ *
+ * @param id the id of the import.
+ * @param folderId the id of the folder the documents are imported into.
+ * @param status the status of the import.
+ * @param archiveSize the size of the archive in bytes.
+ * @param archiveBytesRead the number of bytes of the archive read so far.
+ * @param documents the number of documents imported so far.
+ * @param skippedEntries the number of archive entries which aren't files, or couldn't be read.
+ * @param contentBytes the number of content bytes imported so far.
+ * @param started when the import started, {@code null} while it is queued.
+ * @param finished when the import finished, {@code null} until then.
+ * @param documentsPerSecond the number of documents imported per second, since the import started.
+ * @param bytesPerSecond the number of content bytes imported per second, since the import started.
+ * @param error why the import failed, if it did.
+ */
+public record DocumentImportDTO(
+    String id,
+    Long folderId,
+    Status status,
+    long archiveSize,
+    long archiveBytesRead,
+    long documents,
+    long skippedEntries,
+    long contentBytes,
+    Instant started,
+    Instant finished,
+    double documentsPerSecond,
+    double bytesPerSecond,
+    String error
+)
+    implements Serializable {
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,15 @@
+package br.com.reactit.docmanagement.service.dto;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * A DTO representing a document or folder matching a search of the embedded search index.
+ *
+ * @param id the id of the document or folder.
+ * @param title its title.
+ * @param folderId the id of the folder of a document, {@code null} for a folder.
+ * @param score the relevance of the match.
+ * @param highlights the HTML-escaped snippets of the matching fields, with matches wrapped in {@code <mark>}, by field name.
+ */
+public record SearchHitDTO(Long id, String title, Long folderId, float score, Map<String, String> highlights) implements Serializable {}
@@ -0,0 +1,26 @@
+package br.com.reactit.docmanagement.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A DTO representing the state of the embedded search index.
+ *
+ * @param indexedEntries the number of documents and folders that are searchable.
+ * @param pendingChanges the number of committed changes not applied to the index yet.
+ * @param reindexing whether a full reindex is running.
+ * @param reindexStarted when the last full reindex started, {@code null} if none did.
+ * @param reindexFinished when the last full reindex finished, {@code null} if none did or it is running.
+ * @param reindexedEntries the number of documents and folders written by the last full reindex so far.
+ * @param reindexError why the last full reindex failed, if it did.
+ */
+public record SearchIndexStatusDTO(
+    int indexedEntries,
+    int pendingChanges,
+    boolean reindexing,
+    Instant reindexStarted,
+    Instant reindexFinished,
+    long reindexedEntries,
+    String reindexError
+)
+    implements Serializable {}
@@ -0,0 +1,11 @@
+package br.com.reactit.docmanagement.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A DTO representing a document or folder title suggested as a prefix is typed.
+ *
+ * @param id the id of the document or folder.
+ * @param title its title.
+ */
+public record TypeaheadSuggestionDTO(Long id, String title) implements Serializable {}
@@ -0,0 +1,119 @@
+package br.com.reactit.docmanagement.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Content-addressable storage for document content.
+ * <p>
+ * Blobs are keyed by the SHA-256 digest of their content, so storing the same content twice stores it once.
+ * Reference counting is left to the caller, a blob store only knows whether a blob was recently stored.
+ */
+public interface BlobStore {
+    /**
+     * Writes the content produced by {@code writer} into the store.
+     *
+     * @param writer the producer of the content.
+     * @return the stored blob.
+     * @throws IOException if the content can't be produced or stored.
+     */
+    StoredBlob write(BlobWriter writer) throws IOException;
+
+    /**
+     * Stores the content read from {@code content} until end of stream.
+     *
+     * @param content the content to store.
+     * @return the stored blob.
+     * @throws IOException if the content can't be read or stored.
+     */
+    default StoredBlob put(InputStream content) throws IOException {
+        return write(content::transferTo);
+    }
+
+    /**
+     * Stores the content of a file, which is consumed: it is deleted once stored.
+     *
+     * @param file the file holding the content.
+     * @return the stored blob.
+     * @throws IOException if the file can't be read or stored.
+     */
+    default StoredBlob move(Path file) throws IOException {
+        try (InputStream content = Files.newInputStream(file)) {
+            return put(content);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Stores the content of a file whose digest is already known, which is consumed: it is deleted once stored.
+     * <p>
+     * Stores which can move the file as is trust {@code sha256} rather than reading the file again to digest it.
+     *
+     * @param file the file holding the content.
+     * @param sha256 the SHA-256 digest of the file, in lower-case hexadecimal.
+     * @return the stored blob.
+     * @throws IOException if the file can't be read or stored.
+     */
+    default StoredBlob move(Path file, String sha256) throws IOException {
+        return move(file);
+    }
+
+    /**
+     * Copies a range of a blob to {@code out}.
+     *
+     * @param sha256 the digest of the blob.
+     * @param offset the zero-based offset of the first byte to copy.
+     * @param length the number of bytes to copy.
+     * @param out the stream to copy the content to, which is left open.
+     * @return the number of bytes copied, lower than {@code length} if the blob is shorter than expected.
+     * @throws IOException if the blob doesn't exist or can't be read.
+     */
+    long copy(String sha256, long offset, long length, OutputStream out) throws IOException;
+
+    /**
+     * Opens a blob for sequential reading, for consumers which can't work on ranges, such as decoders.
+     *
+     * @param sha256 the digest of the blob.
+     * @return the stream of the blob content, which the caller must close.
+     * @throws IOException if the blob doesn't exist or can't be opened.
+     */
+    InputStream open(String sha256) throws IOException;
+
+    /**
+     * Opens the file holding a blob, for stores which keep blobs in plain files.
+     * <p>
+     * This lets the content be handed to the servlet container, which can send it without copying it through the heap.
+     *
+     * @param sha256 the digest of the blob.
+     * @return a read-only channel on the blob file, which the caller must close, or empty if blobs aren't kept in plain files.
+     * @throws IOException if the blob doesn't exist or can't be opened.
+     */
+    default Optional<FileChannel> openChannel(String sha256) throws IOException {
+        return Optional.empty();
+    }
+
+    /**
+     * Deletes a blob, unless it was stored again since {@code notStoredSince}.
+     *
+     * @param sha256 the digest of the blob.
+     * @param notStoredSince the instant after which a stored blob must be kept.
+     * @return {@code true} if the blob was deleted.
+     * @throws IOException if the blob can't be deleted.
+     */
+    boolean delete(String sha256, Instant notStoredSince) throws IOException;
+
+    /**
+     * Produces the content of a blob.
+     */
+    @FunctionalInterface
+    interface BlobWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,134 @@
+package br.com.reactit.docmanagement.service.storage;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Encodings a document content can be stored with.
+ * <p>
+ * Codecs are named after their HTTP content coding, and produce its exact format, so a stored content can be sent as is
+ * to a client which accepts its encoding. Their output only depends on their input, so identical contents stored with
+ * the same codec are still stored once in the {@link BlobStore}.
+ */
+public enum ContentCodec {
+    IDENTITY("identity") {
+        @Override
+        public OutputStream encode(OutputStream out) {
+            return out;
+        }
+
+        @Override
+        public InputStream decode(InputStream in) {
+            return in;
+        }
+    },
+
+    /**
+     * The zlib format of RFC 1950, which is what HTTP calls {@code deflate}.
+     */
+    DEFLATE("deflate") {
+        @Override
+        public OutputStream encode(OutputStream out) {
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+            return new DeflaterOutputStream(out, deflater, BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        deflater.end();
+                    }
+                }
+            };
+        }
+
+        @Override
+        public InputStream decode(InputStream in) {
+            Inflater inflater = new Inflater();
+            return new InflaterInputStream(in, inflater, BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        inflater.end();
+                    }
+                }
+            };
+        }
+    },
+
+    ZSTD("zstd") {
+        @Override
+        public OutputStream encode(OutputStream out) throws IOException {
+            return new ZstdOutputStream(out, ZSTD_LEVEL);
+        }
+
+        @Override
+        public InputStream decode(InputStream in) throws IOException {
+            return new ZstdInputStream(in);
+        }
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int ZSTD_LEVEL = 3;
+
+    private final String contentEncoding;
+
+    ContentCodec(String contentEncoding) {
+        this.contentEncoding = contentEncoding;
+    }
+
+    /**
+     * @return the HTTP content coding of this codec, which is also the name it is recorded with.
+     */
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    /**
+     * Wrap a stream so that what is written to it gets encoded; closing the returned stream finishes the encoding
+     * and closes {@code out}.
+     *
+     * @param out the stream receiving the encoded bytes.
+     * @return the stream to write the bytes to encode to.
+     * @throws IOException if the encoder can't be initialized.
+     */
+    public abstract OutputStream encode(OutputStream out) throws IOException;
+
+    /**
+     * Wrap a stream of encoded bytes so that it gets decoded as it is read.
+     *
+     * @param in the stream of encoded bytes.
+     * @return the stream of decoded bytes.
+     * @throws IOException if the decoder can't be initialized.
+     */
+    public abstract InputStream decode(InputStream in) throws IOException;
+
+    /**
+     * Find a codec by the name it is recorded with.
+     *
+     * @param contentEncoding the name of the codec, {@code null} for contents recorded before codecs were introduced.
+     * @return the codec.
+     * @throws IllegalArgumentException if there is no such codec.
+     */
+    public static ContentCodec of(String contentEncoding) {
+        if (contentEncoding == null) {
+            return IDENTITY;
+        }
+        for (ContentCodec codec : values()) {
+            if (codec.contentEncoding.equals(contentEncoding)) {
+                return codec;
+            }
+        }
+        throw new IllegalArgumentException("Unknown content codec: " + contentEncoding);
+    }
+}
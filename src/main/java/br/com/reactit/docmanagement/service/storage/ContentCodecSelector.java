@@ -0,0 +1,95 @@
+package br.com.reactit.docmanagement.service.storage;
+
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+/**
+ * Picks the {@link ContentCodec} a content is stored with, from its content type and from how well a sample of it
+ * compresses, so that already compressed formats and random-looking contents are stored as is.
+ */
+@Service
+public class ContentCodecSelector {
+
+    private final ApplicationProperties.Content.Compression properties;
+
+    private final List<MediaType> deflateTypes;
+
+    private final List<MediaType> zstdTypes;
+
+    public ContentCodecSelector(ApplicationProperties applicationProperties) {
+        this.properties = applicationProperties.getContent().getCompression();
+        this.deflateTypes = MediaType.parseMediaTypes(properties.getDeflateTypes());
+        this.zstdTypes = MediaType.parseMediaTypes(properties.getZstdTypes());
+    }
+
+    /**
+     * @return the number of leading bytes of a content to pass to {@link #select(String, byte[], int)}.
+     */
+    public int getSampleSize() {
+        return properties.getSampleSize();
+    }
+
+    /**
+     * Find the codec a content type should be compressed with, if it compresses well enough.
+     *
+     * @param contentType the content type.
+     * @return the codec, {@link ContentCodec#IDENTITY} if contents of this type aren't compressed.
+     */
+    public ContentCodec candidate(String contentType) {
+        if (!properties.isEnabled() || contentType == null) {
+            return ContentCodec.IDENTITY;
+        }
+        MediaType mediaType;
+        try {
+            mediaType = MediaType.parseMediaType(contentType);
+        } catch (InvalidMediaTypeException e) {
+            return ContentCodec.IDENTITY;
+        }
+        if (deflateTypes.stream().anyMatch(type -> type.includes(mediaType))) {
+            return ContentCodec.DEFLATE;
+        }
+        if (zstdTypes.stream().anyMatch(type -> type.includes(mediaType))) {
+            return ContentCodec.ZSTD;
+        }
+        return ContentCodec.IDENTITY;
+    }
+
+    /**
+     * Select the codec to store a content with.
+     *
+     * @param contentType the content type.
+     * @param sample the buffer holding the leading bytes of the content.
+     * @param length the number of bytes in {@code sample}.
+     * @return the codec, {@link ContentCodec#IDENTITY} if the content should be stored as is.
+     */
+    public ContentCodec select(String contentType, byte[] sample, int length) {
+        ContentCodec codec = candidate(contentType);
+        if (codec == ContentCodec.IDENTITY || length == 0) {
+            return ContentCodec.IDENTITY;
+        }
+        long[] encodedLength = new long[1];
+        OutputStream counter = new OutputStream() {
+            @Override
+            public void write(int b) {
+                encodedLength[0]++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                encodedLength[0] += len;
+            }
+        };
+        try (OutputStream out = codec.encode(counter)) {
+            out.write(sample, 0, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return encodedLength[0] <= length * (1 - properties.getMinSavings()) ? codec : ContentCodec.IDENTITY;
+    }
+}
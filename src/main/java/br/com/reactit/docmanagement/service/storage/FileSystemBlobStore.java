@@ -0,0 +1,179 @@
+package br.com.reactit.docmanagement.service.storage;
+
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * {@link BlobStore} keeping blobs on the local file system, under {@code application.content.storage.directory}.
+ * <p>
+ * A blob is stored in {@code ab/cd/abcd...}, after its digest. It is first written to a temporary file while it is
+ * digested, then atomically moved in place, so a blob file is always complete. Blobs are copied through memory-mapped
+ * regions of their file, or handed as a file channel to the servlet container.
+ */
+@Service
+public class FileSystemBlobStore implements BlobStore {
+
+    private static final Pattern SHA256_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private static final String INCOMING_DIRECTORY = ".incoming";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Size of the file regions mapped at once when reading a blob.
+     */
+    private static final long MAPPED_REGION_SIZE = 64L * 1024 * 1024;
+
+    private final Logger log = LoggerFactory.getLogger(FileSystemBlobStore.class);
+
+    private final Path root;
+
+    public FileSystemBlobStore(ApplicationProperties applicationProperties) {
+        this.root = Path.of(applicationProperties.getContent().getStorage().getDirectory()).toAbsolutePath();
+    }
+
+    @Override
+    public StoredBlob write(BlobWriter writer) throws IOException {
+        Path incoming = Files.createDirectories(root.resolve(INCOMING_DIRECTORY));
+        Path temporary = Files.createTempFile(incoming, "blob-", ".tmp");
+        try {
+            MessageDigest digest = sha256Digest();
+            try (OutputStream out = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), BUFFER_SIZE), digest)) {
+                writer.writeTo(out);
+            }
+            return store(temporary, new StoredBlob(HexFormat.of().formatHex(digest.digest()), Files.size(temporary)));
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * The file is digested in place, then moved into the store without being copied when it is on the same file system.
+     */
+    @Override
+    public StoredBlob move(Path file) throws IOException {
+        try {
+            MessageDigest digest = sha256Digest();
+            try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            return store(file, new StoredBlob(HexFormat.of().formatHex(digest.digest()), Files.size(file)));
+        } catch (AtomicMoveNotSupportedException e) {
+            log.debug("{} can't be moved into the store, it is copied", file);
+            return BlobStore.super.move(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * The file is moved into the store without being read when it is on the same file system, otherwise it is copied and digested.
+     */
+    @Override
+    public StoredBlob move(Path file, String sha256) throws IOException {
+        try {
+            return store(file, new StoredBlob(sha256, Files.size(file)));
+        } catch (AtomicMoveNotSupportedException e) {
+            log.debug("{} can't be moved into the store, it is copied", file);
+            return BlobStore.super.move(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private StoredBlob store(Path file, StoredBlob blob) throws IOException {
+        Path path = path(blob.sha256());
+        if (Files.exists(path)) {
+            log.debug("Blob {} is already stored", blob.sha256());
+            // a fresh modification time protects the blob against a concurrent deletion, see delete()
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+        } else {
+            Files.createDirectories(path.getParent());
+            Files.move(file, path, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return blob;
+    }
+
+    @Override
+    public long copy(String sha256, long offset, long length, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(path(sha256), StandardOpenOption.READ)) {
+            long end = Math.min(channel.size(), offset + length);
+            // the channel must not be closed, as it would close out
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = offset;
+            while (position < end) {
+                long regionSize = Math.min(MAPPED_REGION_SIZE, end - position);
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, regionSize);
+                while (region.hasRemaining()) {
+                    target.write(region);
+                }
+                position += regionSize;
+            }
+            return Math.max(0, end - offset);
+        }
+    }
+
+    @Override
+    public InputStream open(String sha256) throws IOException {
+        return Files.newInputStream(path(sha256));
+    }
+
+    @Override
+    public Optional<FileChannel> openChannel(String sha256) throws IOException {
+        return Optional.of(FileChannel.open(path(sha256), StandardOpenOption.READ));
+    }
+
+    @Override
+    public boolean delete(String sha256, Instant notStoredSince) throws IOException {
+        Path path = path(sha256);
+        try {
+            if (Files.getLastModifiedTime(path).toInstant().isAfter(notStoredSince)) {
+                log.debug("Blob {} was stored again, it is kept", sha256);
+                return false;
+            }
+            return Files.deleteIfExists(path);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private Path path(String sha256) {
+        if (sha256 == null || !SHA256_PATTERN.matcher(sha256).matches()) {
+            throw new IllegalArgumentException("Invalid blob digest: " + sha256);
+        }
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    private static MessageDigest sha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package br.com.reactit.docmanagement.service.storage;
+
+/**
+ * A blob held by a {@link BlobStore}, identified by the SHA-256 digest of its content.
+ *
+ * @param sha256 the lowercase hexadecimal SHA-256 digest of the content.
+ * @param size the size of the content in bytes.
+ */
+public record StoredBlob(String sha256, long size) {}
@@ -0,0 +1,4 @@
+/**
+ * Document content storage.
+ */
+package br.com.reactit.docmanagement.service.storage;
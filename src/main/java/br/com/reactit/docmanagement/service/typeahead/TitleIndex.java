@@ -0,0 +1,397 @@
+package br.com.reactit.docmanagement.service.typeahead;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongPredicate;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable, compact index of titles, looked up by the prefix of any of their words.
+ * <p>
+ * Titles are folded to lower case without accents, and the folded titles are held as UTF-8 in a single byte array,
+ * as are the titles themselves. Each word of each folded title gets a pointer, packing the index of the title with the
+ * offset of the word, and the pointers are sorted by the text they point to: the index is a suffix array restricted to
+ * word starts, where the titles having a word starting with a prefix are a contiguous range of pointers, found by
+ * binary search. A title costs its two encodings, 16 bytes, and 8 bytes per word, without any object per title.
+ * <p>
+ * Changes are applied by {@link #merge(Map)}, which builds a new index in linear time, as the pointers of the titles
+ * kept are still sorted.
+ */
+public final class TitleIndex {
+
+    public static final TitleIndex EMPTY = new Builder().build();
+
+    /**
+     * A title matching a prefix.
+     *
+     * @param id the id of the entity the title belongs to.
+     * @param title the title.
+     * @param firstWord whether the first word of the title matched.
+     */
+    public record Match(long id, String title, boolean firstWord) {}
+
+    /**
+     * Matches of the first word first, then shorter titles first, then in alphabetical order.
+     */
+    public static final Comparator<Match> RANKING = Comparator
+        .comparing((Match match) -> !match.firstWord())
+        .thenComparingInt(match -> match.title().length())
+        .thenComparing(Match::title, String.CASE_INSENSITIVE_ORDER)
+        .thenComparingLong(Match::id);
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private static final int ARRAY_OVERHEAD = 16;
+
+    private final long[] ids;
+
+    private final byte[] keys;
+
+    /**
+     * Offsets of the folded titles in {@link #keys}, with the end of the last one.
+     */
+    private final int[] keyOffsets;
+
+    private final byte[] titles;
+
+    /**
+     * Offsets of the titles in {@link #titles}, with the end of the last one.
+     */
+    private final int[] titleOffsets;
+
+    /**
+     * The index of a title in the high int, the offset of a word in its folded title in the low int.
+     */
+    private final long[] pointers;
+
+    private TitleIndex(long[] ids, byte[] keys, int[] keyOffsets, byte[] titles, int[] titleOffsets, long[] pointers) {
+        this.ids = ids;
+        this.keys = keys;
+        this.keyOffsets = keyOffsets;
+        this.titles = titles;
+        this.titleOffsets = titleOffsets;
+        this.pointers = pointers;
+    }
+
+    /**
+     * @return the number of titles.
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @return the number of bytes held by the index.
+     */
+    public long estimatedBytes() {
+        return (
+            6L * ARRAY_OVERHEAD +
+            8L * ids.length +
+            keys.length +
+            4L * keyOffsets.length +
+            titles.length +
+            4L * titleOffsets.length +
+            8L * pointers.length
+        );
+    }
+
+    /**
+     * Find titles having a word starting with a prefix.
+     * <p>
+     * Up to {@code limit} titles are read, in the order of the words that matched, so a short prefix matching more
+     * titles than that only gets some of them.
+     *
+     * @param prefix the prefix, folded with {@link #fold(String)}.
+     * @param limit the maximum number of titles to read.
+     * @param excluded the ids of the titles to leave out.
+     * @return the matching titles, in no particular order.
+     */
+    public List<Match> lookup(String prefix, int limit, LongPredicate excluded) {
+        byte[] folded = prefix.getBytes(StandardCharsets.UTF_8);
+        List<Match> matches = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>();
+        for (int i = lowerBound(folded); i < pointers.length && matches.size() < limit; i++) {
+            int title = title(pointers[i]);
+            if (!startsWith(keyOffsets[title] + offset(pointers[i]), keyOffsets[title + 1], folded)) {
+                break;
+            }
+            if (!excluded.test(ids[title]) && seen.add(title)) {
+                matches.add(new Match(ids[title], title(title), startsWith(keyOffsets[title], keyOffsets[title + 1], folded)));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Build an index with changed titles.
+     *
+     * @param changes the new titles by id, {@code null} for the titles to remove.
+     * @return the new index.
+     */
+    public TitleIndex merge(Map<Long, String> changes) {
+        Builder builder = new Builder();
+        int[] newIndexes = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            if (changes.containsKey(ids[i])) {
+                newIndexes[i] = -1;
+            } else {
+                newIndexes[i] = builder.size();
+                builder.add(
+                    ids[i],
+                    Arrays.copyOfRange(keys, keyOffsets[i], keyOffsets[i + 1]),
+                    Arrays.copyOfRange(titles, titleOffsets[i], titleOffsets[i + 1])
+                );
+            }
+        }
+        int kept = builder.size();
+        changes.forEach((id, title) -> {
+            if (title != null) {
+                builder.add(id, title);
+            }
+        });
+        TitleIndex merged = builder.buildWithoutPointers();
+        long[] keptPointers = new long[pointers.length];
+        int count = 0;
+        for (long pointer : pointers) {
+            int newIndex = newIndexes[title(pointer)];
+            if (newIndex >= 0) {
+                keptPointers[count++] = pointer(newIndex, offset(pointer));
+            }
+        }
+        long[] addedPointers = merged.sortedPointers(kept);
+        long[] mergedPointers = new long[count + addedPointers.length];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < mergedPointers.length; k++) {
+            if (j == addedPointers.length || (i < count && merged.compare(keptPointers[i], addedPointers[j]) <= 0)) {
+                mergedPointers[k] = keptPointers[i++];
+            } else {
+                mergedPointers[k] = addedPointers[j++];
+            }
+        }
+        return new TitleIndex(merged.ids, merged.keys, merged.keyOffsets, merged.titles, merged.titleOffsets, mergedPointers);
+    }
+
+    /**
+     * Fold a text to lower case, without accents, as titles are indexed.
+     *
+     * @param text the text.
+     * @return the folded text.
+     */
+    public static String fold(String text) {
+        return DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Find the word of a folded title starting with a prefix, as {@link #lookup(String, int, LongPredicate)} does.
+     *
+     * @param folded the folded title.
+     * @param prefix the folded prefix.
+     * @return the offset of the first word starting with the prefix, or {@code -1} if none does.
+     */
+    public static int matchingWord(String folded, String prefix) {
+        for (int i = 0; i < folded.length(); i++) {
+            if (isWordStart(folded, i) && folded.startsWith(prefix, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean startsWith(int start, int end, byte[] prefix) {
+        return start + prefix.length <= end && Arrays.equals(keys, start, start + prefix.length, prefix, 0, prefix.length);
+    }
+
+    private String title(int title) {
+        return new String(titles, titleOffsets[title], titleOffsets[title + 1] - titleOffsets[title], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The first pointer to a text not lower than {@code prefix}.
+     */
+    private int lowerBound(byte[] prefix) {
+        int low = 0;
+        int high = pointers.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int title = title(pointers[middle]);
+            int start = keyOffsets[title] + offset(pointers[middle]);
+            if (Arrays.compareUnsigned(keys, start, keyOffsets[title + 1], prefix, 0, prefix.length) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compare the texts two pointers point to, then their titles, so that the order is total.
+     */
+    private int compare(long a, long b) {
+        int titleA = title(a);
+        int titleB = title(b);
+        int result = Arrays.compareUnsigned(
+            keys,
+            keyOffsets[titleA] + offset(a),
+            keyOffsets[titleA + 1],
+            keys,
+            keyOffsets[titleB] + offset(b),
+            keyOffsets[titleB + 1]
+        );
+        return result != 0 ? result : Long.compare(a, b);
+    }
+
+    /**
+     * The pointers to the words of the titles from {@code first} on, sorted.
+     */
+    private long[] sortedPointers(int first) {
+        long[] result = new long[countWords(first)];
+        int count = 0;
+        for (int title = first; title < ids.length; title++) {
+            for (int offset = keyOffsets[title]; offset < keyOffsets[title + 1]; offset++) {
+                if (isWordStart(keys, keyOffsets[title], offset)) {
+                    result[count++] = pointer(title, offset - keyOffsets[title]);
+                }
+            }
+        }
+        sort(result, new long[result.length], 0, result.length);
+        return result;
+    }
+
+    private int countWords(int first) {
+        int count = 0;
+        for (int title = first; title < ids.length; title++) {
+            for (int offset = keyOffsets[title]; offset < keyOffsets[title + 1]; offset++) {
+                if (isWordStart(keys, keyOffsets[title], offset)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Merge sort, as the pointers are primitives compared by the text they point to.
+     */
+    private void sort(long[] values, long[] buffer, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sort(values, buffer, from, middle);
+        sort(values, buffer, middle, to);
+        if (compare(values[middle - 1], values[middle]) <= 0) {
+            return;
+        }
+        System.arraycopy(values, from, buffer, from, to - from);
+        int i = from;
+        int j = middle;
+        for (int k = from; k < to; k++) {
+            if (j == to || (i < middle && compare(buffer[i], buffer[j]) <= 0)) {
+                values[k] = buffer[i++];
+            } else {
+                values[k] = buffer[j++];
+            }
+        }
+    }
+
+    /**
+     * A word starts with a letter or digit which doesn't follow one. UTF-8 continuation bytes never start a word, and
+     * non-ASCII characters count as letters.
+     */
+    private static boolean isWordStart(byte[] keys, int start, int offset) {
+        return isWordByte(keys[offset]) && (keys[offset] & 0xC0) != 0x80 && (offset == start || !isWordByte(keys[offset - 1]));
+    }
+
+    private static boolean isWordByte(byte b) {
+        return b < 0 || Character.isLetterOrDigit((char) b);
+    }
+
+    private static boolean isWordStart(String folded, int index) {
+        return isWordChar(folded.charAt(index)) && (index == 0 || !isWordChar(folded.charAt(index - 1)));
+    }
+
+    private static boolean isWordChar(char c) {
+        return c >= 0x80 || Character.isLetterOrDigit(c);
+    }
+
+    private static long pointer(int title, int offset) {
+        return ((long) title << 32) | offset;
+    }
+
+    private static int title(long pointer) {
+        return (int) (pointer >>> 32);
+    }
+
+    private static int offset(long pointer) {
+        return (int) pointer;
+    }
+
+    /**
+     * Collects titles, then sorts their words once.
+     */
+    public static final class Builder {
+
+        private long[] ids = new long[16];
+
+        private int size;
+
+        private final ByteArrayOutputStream keys = new ByteArrayOutputStream();
+
+        private int[] keyOffsets = new int[17];
+
+        private final ByteArrayOutputStream titles = new ByteArrayOutputStream();
+
+        private int[] titleOffsets = new int[17];
+
+        public Builder add(long id, String title) {
+            return add(id, fold(title).getBytes(StandardCharsets.UTF_8), title.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public TitleIndex build() {
+            TitleIndex index = buildWithoutPointers();
+            long[] pointers = index.sortedPointers(0);
+            return new TitleIndex(index.ids, index.keys, index.keyOffsets, index.titles, index.titleOffsets, pointers);
+        }
+
+        private Builder add(long id, byte[] key, byte[] title) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                keyOffsets = Arrays.copyOf(keyOffsets, size * 2 + 1);
+                titleOffsets = Arrays.copyOf(titleOffsets, size * 2 + 1);
+            }
+            ids[size] = id;
+            keys.writeBytes(key);
+            titles.writeBytes(title);
+            size++;
+            keyOffsets[size] = keys.size();
+            titleOffsets[size] = titles.size();
+            return this;
+        }
+
+        private TitleIndex buildWithoutPointers() {
+            return new TitleIndex(
+                Arrays.copyOf(ids, size),
+                keys.toByteArray(),
+                Arrays.copyOf(keyOffsets, size + 1),
+                titles.toByteArray(),
+                Arrays.copyOf(titleOffsets, size + 1),
+                new long[0]
+            );
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * In-memory indexes of titles, for typeahead.
+ */
+package br.com.reactit.docmanagement.service.typeahead;
@@ -0,0 +1,95 @@
+package br.com.reactit.docmanagement.web.rest;
+
+import br.com.reactit.docmanagement.repository.FolderRepository;
+import br.com.reactit.docmanagement.service.DocumentImportService;
+import br.com.reactit.docmanagement.service.ImportLimitExceededException;
+import br.com.reactit.docmanagement.service.dto.DocumentImportDTO;
+import br.com.reactit.docmanagement.web.rest.errors.BadRequestAlertException;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import tech.jhipster.web.util.HeaderUtil;
+
+/**
+ * REST controller for bulk imports of archives as {@link br.com.reactit.docmanagement.domain.Document} entities.
+ * <p>
+ * A client posts a ZIP or tar archive, possibly gzipped, for a folder, and polls the returned import for its progress.
+ */
+@RestController
+@RequestMapping("/api/document-imports")
+public class DocumentImportResource {
+
+    private final Logger log = LoggerFactory.getLogger(DocumentImportResource.class);
+
+    private static final String ENTITY_NAME = "documentImport";
+
+    @Value("${jhipster.clientApp.name}")
+    private String applicationName;
+
+    private final DocumentImportService documentImportService;
+
+    private final FolderRepository folderRepository;
+
+    public DocumentImportResource(DocumentImportService documentImportService, FolderRepository folderRepository) {
+        this.documentImportService = documentImportService;
+        this.folderRepository = folderRepository;
+    }
+
+    /**
+     * {@code POST  /document-imports?folderId=:folderId} : Import the raw request body, an archive, into a folder.
+     *
+     * @param folderId the id of the folder to import the documents into.
+     * @param request the request, whose body is the archive.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and with body the progress of the import,
+     * or with status {@code 400 (Bad Request)} if the folder is not found,
+     * or with status {@code 413 (Payload Too Large)} if the archive is larger than {@code max-archive-size},
+     * or with status {@code 503 (Service Unavailable)} if too many imports are queued already.
+     * @throws IOException if the request body can't be read.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     */
+    @PostMapping("")
+    public ResponseEntity<DocumentImportDTO> createDocumentImport(@RequestParam Long folderId, HttpServletRequest request)
+        throws IOException, URISyntaxException {
+        log.debug("REST request to import an archive into Folder : {}", folderId);
+        if (!folderRepository.existsById(folderId)) {
+            throw new BadRequestAlertException("Folder not found", ENTITY_NAME, "foldernotfound");
+        }
+        DocumentImportDTO result;
+        try (InputStream archive = request.getInputStream()) {
+            result = documentImportService.startImport(folderId, archive);
+        } catch (ImportLimitExceededException e) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, e.getMessage());
+        } catch (TaskRejectedException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many imports are queued");
+        }
+        return ResponseEntity
+            .accepted()
+            .location(new URI("/api/document-imports/" + result.id()))
+            .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.id()))
+            .body(result);
+    }
+
+    /**
+     * {@code GET  /document-imports/:id} : get the progress of the "id" import.
+     *
+     * @param id the id of the import to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the progress, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<DocumentImportDTO> getDocumentImport(@PathVariable String id) {
+        log.debug("REST request to get Import : {}", id);
+        DocumentImportDTO result = documentImportService.findOne(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(result);
+    }
+}
@@ -1,24 +1,62 @@
 package br.com.reactit.docmanagement.web.rest;
 
 import br.com.reactit.docmanagement.domain.Document;
+import br.com.reactit.docmanagement.domain.DocumentSummary;
+import br.com.reactit.docmanagement.domain.DocumentVersion;
+import br.com.reactit.docmanagement.domain.Folder;
+import br.com.reactit.docmanagement.repository.DocumentContentRepository.ContentDescriptor;
 import br.com.reactit.docmanagement.repository.DocumentRepository;
+import br.com.reactit.docmanagement.service.DocumentContentChangedEvent;
+import br.com.reactit.docmanagement.service.DocumentContentService;
+import br.com.reactit.docmanagement.service.DocumentQueryService;
+import br.com.reactit.docmanagement.service.ThumbnailService;
+import br.com.reactit.docmanagement.service.ThumbnailUnavailableException;
+import br.com.reactit.docmanagement.service.criteria.DocumentCriteria;
+import br.com.reactit.docmanagement.service.storage.ContentCodec;
 import br.com.reactit.docmanagement.web.rest.errors.BadRequestAlertException;
+import io.undertow.servlet.spec.ServletOutputStreamImpl;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.ServletResponseWrapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
@@ -36,13 +74,37 @@ public class DocumentResource {
 
     private static final String ENTITY_NAME = "document";
 
+    private static final String COUNT_EXACT = "exact";
+    private static final String COUNT_APPROXIMATE = "approximate";
+    private static final String COUNT_NONE = "none";
+
+    private static final Set<KeysetCursor.Key> KEYSET_KEYS = EnumSet.of(KeysetCursor.Key.ID, KeysetCursor.Key.UPLOADED);
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
     private final DocumentRepository documentRepository;
 
-    public DocumentResource(DocumentRepository documentRepository) {
+    private final DocumentContentService documentContentService;
+
+    private final DocumentQueryService documentQueryService;
+
+    private final ThumbnailService thumbnailService;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    public DocumentResource(
+        DocumentRepository documentRepository,
+        DocumentContentService documentContentService,
+        DocumentQueryService documentQueryService,
+        ThumbnailService thumbnailService,
+        ApplicationEventPublisher applicationEventPublisher
+    ) {
         this.documentRepository = documentRepository;
+        this.documentContentService = documentContentService;
+        this.documentQueryService = documentQueryService;
+        this.thumbnailService = thumbnailService;
+        this.applicationEventPublisher = applicationEventPublisher;
     }
 
     /**
@@ -59,6 +121,9 @@ public class DocumentResource {
             throw new BadRequestAlertException("A new document cannot already have an ID", ENTITY_NAME, "idexists");
         }
         Document result = documentRepository.save(document);
+        if (result.getData() != null) {
+            applicationEventPublisher.publishEvent(new DocumentContentChangedEvent(result.getId()));
+        }
         return ResponseEntity
             .created(new URI("/api/documents/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
@@ -67,17 +132,26 @@ public class DocumentResource {
 
     /**
      * {@code PUT  /documents/:id} : Updates an existing document.
+     * <p>
+     * With an {@code If-Match} header, the document is only updated if its entity tag still matches, which is checked
+     * without reading the document content, then enforced by its version when it is written.
+     * <p>
+     * The {@code data} attribute is streamed into the blob store, unless it is the stored content sent back, and the
+     * stored content is kept when it is left out.
      *
      * @param id the id of the document to save.
+     * @param ifMatch the {@code If-Match} header, if any.
      * @param document the document to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated document,
      * or with status {@code 400 (Bad Request)} if the document is not valid,
+     * or with status {@code 412 (Precondition Failed)} if the document has changed since the entity tag was given,
      * or with status {@code 500 (Internal Server Error)} if the document couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/{id}")
     public ResponseEntity<Document> updateDocument(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @Valid @RequestBody Document document
     ) throws URISyntaxException {
         log.debug("REST request to update Document : {}, {}", id, document);
@@ -88,31 +162,52 @@ public class DocumentResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!documentRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
+        DocumentVersion version = documentRepository
+            .findVersionById(id)
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
+        if (!EntityTagUtil.ifMatchHolds(ifMatch, documentETag(version))) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
         }
-
-        Document result = documentRepository.save(document);
+        long expectedVersion = updateContent(id, document, version);
+        Document result = documentRepository.findById(id).orElseThrow();
+        if (ifMatch != null && !Objects.equals(result.getVersion(), expectedVersion)) {
+            // updated meanwhile
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+        }
+        result.setTitle(document.getTitle());
+        result.setDescription(document.getDescription());
+        result.setDataContentType(document.getDataContentType());
+        result.setUploaded(document.getUploaded());
+        result.setFolder(document.getFolder());
+        // flushed so that the new version is returned
+        result = documentRepository.saveAndFlush(result);
         return ResponseEntity
             .ok()
+            .eTag(documentETag(result))
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, document.getId().toString()))
             .body(result);
     }
 
     /**
      * {@code PATCH  /documents/:id} : Partial updates given fields of an existing document, field will ignore if it is null
+     * <p>
+     * With an {@code If-Match} header, the document is only updated if its entity tag still matches, and its
+     * {@code data} attribute is handled, as for {@code PUT}.
      *
      * @param id the id of the document to save.
+     * @param ifMatch the {@code If-Match} header, if any.
      * @param document the document to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated document,
      * or with status {@code 400 (Bad Request)} if the document is not valid,
      * or with status {@code 404 (Not Found)} if the document is not found,
+     * or with status {@code 412 (Precondition Failed)} if the document has changed since the entity tag was given,
      * or with status {@code 500 (Internal Server Error)} if the document couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/{id}", consumes = { "application/json", "application/merge-patch+json" })
     public ResponseEntity<Document> partialUpdateDocument(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @NotNull @RequestBody Document document
     ) throws URISyntaxException {
         log.debug("REST request to partial update Document partially : {}, {}", id, document);
@@ -123,22 +218,27 @@ public class DocumentResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!documentRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
+        DocumentVersion version = documentRepository
+            .findVersionById(id)
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
+        if (!EntityTagUtil.ifMatchHolds(ifMatch, documentETag(version))) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
         }
 
+        long expectedVersion = updateContent(id, document, version);
         Optional<Document> result = documentRepository
             .findById(document.getId())
             .map(existingDocument -> {
+                if (ifMatch != null && !Objects.equals(existingDocument.getVersion(), expectedVersion)) {
+                    // updated meanwhile
+                    throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+                }
                 if (document.getTitle() != null) {
                     existingDocument.setTitle(document.getTitle());
                 }
                 if (document.getDescription() != null) {
                     existingDocument.setDescription(document.getDescription());
                 }
-                if (document.getData() != null) {
-                    existingDocument.setData(document.getData());
-                }
                 if (document.getDataContentType() != null) {
                     existingDocument.setDataContentType(document.getDataContentType());
                 }
@@ -148,26 +248,120 @@ public class DocumentResource {
 
                 return existingDocument;
             })
-            .map(documentRepository::save);
+            .map(documentRepository::saveAndFlush);
 
-        return ResponseUtil.wrapOrNotFound(
-            result,
-            HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, document.getId().toString())
-        );
+        return result
+            .map(updated ->
+                ResponseEntity
+                    .ok()
+                    .eTag(documentETag(updated))
+                    .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, document.getId().toString()))
+                    .body(updated)
+            )
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * {@code PUT  /documents/:id/content} : Replaces the content of an existing document with an uploaded file.
+     *
+     * @param id the id of the document whose content to replace.
+     * @param file the uploaded file, whose content type becomes the document content type.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)},
+     * or with status {@code 400 (Bad Request)} if the document is not found.
+     * @throws IOException if the uploaded file can't be read.
+     */
+    @PutMapping(value = "/{id}/content", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Void> uploadDocumentContent(@PathVariable Long id, @RequestPart("file") MultipartFile file) throws IOException {
+        log.debug("REST request to upload content of Document : {}, {}", id, file.getOriginalFilename());
+        try (InputStream content = file.getInputStream()) {
+            return replaceDocumentContent(id, content, file.getSize(), file.getContentType());
+        }
+    }
+
+    /**
+     * {@code PUT  /documents/:id/content} : Replaces the content of an existing document with the raw request body.
+     *
+     * @param id the id of the document whose content to replace.
+     * @param request the request, whose body is streamed as is and whose content type becomes the document content type.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)},
+     * or with status {@code 400 (Bad Request)} if the document is not found.
+     * @throws IOException if the request body can't be read.
+     */
+    @PutMapping(value = "/{id}/content", consumes = "!" + MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Void> streamDocumentContent(@PathVariable Long id, HttpServletRequest request) throws IOException {
+        log.debug("REST request to stream content of Document : {}", id);
+        try (InputStream content = request.getInputStream()) {
+            return replaceDocumentContent(id, content, request.getContentLengthLong(), request.getContentType());
+        }
+    }
+
+    private ResponseEntity<Void> replaceDocumentContent(Long id, InputStream content, long length, String contentType) {
+        if (!documentRepository.existsById(id)) {
+            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
+        }
+        String dataContentType = contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        if (!documentContentService.replaceContent(id, content, length, dataContentType)) {
+            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
+        }
+        return ResponseEntity
+            .noContent()
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, id.toString()))
+            .build();
+    }
+
+    /**
+     * Replace the content of a document with the {@code data} attribute of an update, if any, in the blob store rather
+     * than through the entity.
+     *
+     * @return the version the document must have once its content is replaced.
+     */
+    private long updateContent(Long id, Document document, DocumentVersion version) {
+        if (document.getData() == null || !documentContentService.updateContent(id, document.getData(), document.getDataContentType())) {
+            return version.version();
+        }
+        // the content was replaced on the version checked, unless the document was updated meanwhile
+        return version.version() + 1;
     }
 
     /**
      * {@code GET  /documents} : get all the documents.
+     * <p>
+     * With an {@code after} cursor, empty for the first page, pages are sought by keyset rather than by offset: sorted by
+     * {@code id} or by {@code uploaded} then {@code id}, without total count, the {@code Link} header giving the cursor of
+     * the next page.
+     * <p>
+     * Otherwise, the documents are counted for the {@code X-Total-Count} header unless {@code count} is {@code none},
+     * which skips the count, or {@code approximate}, which estimates it from the statistics of the database for the
+     * {@code X-Approximate-Total-Count} header. Either way the {@code Link} header only tells whether there is a next
+     * page.
+     * <p>
+     * Documents filtered by {@code criteria} are paged by offset and counted exactly.
      *
      * @param pageable the pagination information.
      * @param eagerload flag to eager load entities from relationships (This is applicable for many-to-many).
+     * @param after the cursor of the page to get, from the {@code Link} header of the former page.
+     * @param count how to count the documents: {@code exact}, {@code approximate} or {@code none}.
+     * @param criteria the criteria which the requested entities should match.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of documents in body.
      */
     @GetMapping("")
+    @Transactional(readOnly = true)
     public ResponseEntity<List<Document>> getAllDocuments(
         @org.springdoc.core.annotations.ParameterObject Pageable pageable,
-        @RequestParam(required = false, defaultValue = "true") boolean eagerload
+        @RequestParam(required = false, defaultValue = "true") boolean eagerload,
+        @RequestParam(required = false) String after,
+        @RequestParam(required = false, defaultValue = COUNT_EXACT) String count,
+        DocumentCriteria criteria
     ) {
+        if (!new DocumentCriteria().equals(criteria)) {
+            return getDocumentsByCriteria(criteria, pageable, after, count);
+        }
+        if (after != null) {
+            return getDocumentsAfter(after, pageable);
+        }
+        if (!COUNT_EXACT.equals(count)) {
+            return getDocumentSlice(pageable, eagerload, count);
+        }
         log.debug("REST request to get a page of Documents");
         Page<Document> page;
         if (eagerload) {
@@ -175,21 +369,403 @@ public class DocumentResource {
         } else {
             page = documentRepository.findAll(pageable);
         }
+        page.forEach(documentContentService::loadContent);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    private ResponseEntity<List<Document>> getDocumentsByCriteria(
+        DocumentCriteria criteria,
+        Pageable pageable,
+        String after,
+        String count
+    ) {
+        log.debug("REST request to get Documents by criteria: {}", criteria);
+        if (after != null || !COUNT_EXACT.equals(count)) {
+            throw new BadRequestAlertException("Filtered documents are only paged by offset and counted", ENTITY_NAME, "criteriapaging");
+        }
+        Page<Document> page = documentQueryService.findByCriteria(criteria, pageable);
+        page.forEach(documentContentService::loadContent);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /documents/count} : count all the documents.
+     *
+     * @param criteria the criteria which the requested entities should match.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the count in body.
+     */
+    @GetMapping("/count")
+    @Transactional(readOnly = true)
+    public ResponseEntity<Long> countDocuments(DocumentCriteria criteria) {
+        log.debug("REST request to count Documents by criteria: {}", criteria);
+        return ResponseEntity.ok().body(documentQueryService.countByCriteria(criteria));
+    }
+
+    private ResponseEntity<List<Document>> getDocumentSlice(Pageable pageable, boolean eagerload, String count) {
+        log.debug("REST request to get a slice of Documents, count {}", count);
+        Long approximateCount =
+            switch (count) {
+                case COUNT_NONE -> null;
+                case COUNT_APPROXIMATE -> documentRepository.estimateCount();
+                default -> throw new BadRequestAlertException("Invalid count", ENTITY_NAME, "countinvalid");
+            };
+        Slice<Document> slice = eagerload
+            ? documentRepository.findSliceWithEagerRelationships(pageable)
+            : documentRepository.findSliceBy(pageable);
+        slice.forEach(documentContentService::loadContent);
+        HttpHeaders headers = SlicePaginationUtil.generateSliceHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            slice,
+            approximateCount
+        );
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    private ResponseEntity<List<Document>> getDocumentsAfter(String after, Pageable pageable) {
+        log.debug("REST request to get a page of Documents after {}", after);
+        KeysetCursor cursor;
+        try {
+            cursor = after.isEmpty() ? KeysetCursor.first(pageable.getSort(), KEYSET_KEYS) : KeysetCursor.decode(after, KEYSET_KEYS);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
+        int size = pageable.getPageSize();
+        // one more document tells whether there is a next page
+        List<Document> documents =
+            switch (cursor.key()) {
+                case ID -> cursor.direction().isAscending()
+                    ? documentRepository.findAllByIdAfter(cursor.isFirst() ? Long.MIN_VALUE : cursor.id(), PageRequest.ofSize(size + 1))
+                    : documentRepository.findAllByIdBefore(cursor.isFirst() ? Long.MAX_VALUE : cursor.id(), PageRequest.ofSize(size + 1));
+                case UPLOADED -> documentRepository.seekAllByUploaded(cursor.uploaded(), cursor.id(), cursor.direction(), size + 1);
+            };
+        KeysetCursor next = null;
+        if (documents.size() > size) {
+            documents = documents.subList(0, size);
+            Document last = documents.get(size - 1);
+            next = cursor.next(last.getUploaded(), last.getId());
+        }
+        documents.forEach(documentContentService::loadContent);
+        HttpHeaders headers = KeysetCursor.generateKeysetHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), next, size);
+        return ResponseEntity.ok().headers(headers).body(documents);
+    }
+
+    /**
+     * {@code GET  /documents/summaries} : get the metadata of all the documents, without their content.
+     *
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of document summaries in body.
+     */
+    @GetMapping("/summaries")
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<DocumentSummary>> getAllDocumentSummaries(
+        @org.springdoc.core.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to get a page of Document summaries");
+        Page<DocumentSummary> page = documentRepository.findAllSummaries(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /documents/:id/summary} : get the metadata of the "id" document, without its content.
+     *
+     * @param id the id of the document to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the document summary, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/{id}/summary")
+    @Transactional(readOnly = true)
+    public ResponseEntity<DocumentSummary> getDocumentSummary(@PathVariable Long id) {
+        log.debug("REST request to get Document summary : {}", id);
+        return ResponseUtil.wrapOrNotFound(documentRepository.findSummaryById(id));
+    }
+
     /**
      * {@code GET  /documents/:id} : get the "id" document.
+     * <p>
+     * The document is sent with an entity tag derived from its version and the version of its folder. A request whose
+     * {@code If-None-Match} header matches it is answered from the versions alone, without reading the document.
      *
      * @param id the id of the document to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the document, or with status {@code 404 (Not Found)}.
+     * @param ifNoneMatch the {@code If-None-Match} header, if any.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the document,
+     * or with status {@code 304 (Not Modified)} if the client has it already,
+     * or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Document> getDocument(@PathVariable Long id) {
+    @Transactional(readOnly = true)
+    public ResponseEntity<Document> getDocument(
+        @PathVariable Long id,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
         log.debug("REST request to get Document : {}", id);
-        Optional<Document> document = documentRepository.findOneWithEagerRelationships(id);
-        return ResponseUtil.wrapOrNotFound(document);
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (ifNoneMatch != null) {
+            String etag = documentRepository
+                .findVersionById(id)
+                .map(DocumentResource::documentETag)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+            if (EntityTagUtil.ifNoneMatchMatches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+            }
+        }
+        Document document = documentRepository
+            .findOneWithEagerRelationships(id)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        documentContentService.loadContent(document);
+        return ResponseEntity.ok().eTag(documentETag(document)).cacheControl(cacheControl).body(document);
+    }
+
+    /**
+     * {@code GET  /documents/:id/content} : get the content of the "id" document.
+     * <p>
+     * The content is streamed with its stored content type, once the request thread has been released.
+     * A single byte range can be requested with the {@code Range} header, guarded by {@code If-Range}.
+     * A content stored compressed is sent as is, with a {@code Content-Encoding}, when the client accepts its encoding
+     * and requested the whole content, and is decompressed on the fly otherwise. A small content which isn't sent straight
+     * from a file is kept in memory once decoded, for the next downloads.
+     *
+     * @param id the id of the document whose content to retrieve.
+     * @param range the {@code Range} header, if any.
+     * @param ifRange the {@code If-Range} header, if any.
+     * @param acceptEncoding the {@code Accept-Encoding} header, if any.
+     * @param response the response, whose output can be handed a file channel.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the whole content in body,
+     * or with status {@code 206 (Partial Content)} and the requested range in body,
+     * or with status {@code 416 (Range Not Satisfiable)} if the requested range is out of bounds,
+     * or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/{id}/content")
+    public ResponseEntity<StreamingResponseBody> getDocumentContent(
+        @PathVariable Long id,
+        @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+        @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+        HttpServletResponse response
+    ) {
+        log.debug("REST request to get content of Document : {}, range {}", id, range);
+        ContentDescriptor descriptor = documentContentService
+            .findDescriptor(id)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        long length = descriptor.length();
+        ContentCodec codec = ContentCodec.of(descriptor.codec());
+
+        HttpHeaders headers = new HttpHeaders();
+        String etag = contentETag(descriptor);
+        headers.setETag(etag);
+        if (descriptor.uploaded() != null) {
+            headers.setLastModified(descriptor.uploaded());
+        }
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.setContentType(contentMediaType(descriptor.contentType()));
+        if (codec != ContentCodec.IDENTITY) {
+            headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        }
+
+        HttpRange httpRange = singleRange(range);
+        if (httpRange == null || !ifRangeMatches(ifRange, etag, descriptor.uploaded())) {
+            if (codec != ContentCodec.IDENTITY && acceptsEncoding(acceptEncoding, codec.getContentEncoding())) {
+                // the encoded representation is a distinct one, with its own entity tag
+                headers.setETag(etag.substring(0, etag.length() - 1) + "-" + codec.getContentEncoding() + "\"");
+                headers.set(HttpHeaders.CONTENT_ENCODING, codec.getContentEncoding());
+                headers.setContentLength(descriptor.storedLength());
+                return ResponseEntity.ok().headers(headers).body(out -> writeStoredContent(descriptor, response, out));
+            }
+            headers.setContentLength(length);
+            return ResponseEntity.ok().headers(headers).body(out -> writeContent(descriptor, 0, length, response, out));
+        }
+        long start;
+        long end;
+        try {
+            start = httpRange.getRangeStart(length);
+            end = httpRange.getRangeEnd(length);
+        } catch (IllegalArgumentException e) {
+            start = length;
+            end = length;
+        }
+        if (start >= length || end < start) {
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+        }
+        long offset = start;
+        long count = end - start + 1;
+        headers.setContentLength(count);
+        headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        return ResponseEntity
+            .status(HttpStatus.PARTIAL_CONTENT)
+            .headers(headers)
+            .body(out -> writeContent(descriptor, offset, count, response, out));
+    }
+
+    /**
+     * {@code GET  /documents/:id/thumbnail} : get the JPEG thumbnail of the "id" document, whose content must be an image.
+     * <p>
+     * The thumbnail is generated on a dedicated pool if it isn't cached yet, while the request waits.
+     * Its entity tag changes with the content, and a thumbnail requested with that entity tag, unquoted,
+     * as {@code v} parameter can be cached for a year.
+     *
+     * @param id the id of the document whose thumbnail to retrieve.
+     * @param version the entity tag of the thumbnail, unquoted, if known.
+     * @param ifNoneMatch the {@code If-None-Match} header, if any.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the thumbnail in body,
+     * or with status {@code 304 (Not Modified)} if the client has it already,
+     * or with status {@code 503 (Service Unavailable)} if it couldn't be generated in time,
+     * or with status {@code 404 (Not Found)} if the document doesn't exist or its content isn't an image.
+     */
+    @GetMapping("/{id}/thumbnail")
+    public ResponseEntity<byte[]> getDocumentThumbnail(
+        @PathVariable Long id,
+        @RequestParam(value = "v", required = false) String version,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        log.debug("REST request to get thumbnail of Document : {}", id);
+        ContentDescriptor descriptor = documentContentService
+            .findDescriptor(id)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        String key = thumbnailService.thumbnailKey(descriptor);
+        if (key == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        String etag = "\"" + key + "\"";
+        CacheControl cacheControl = key.equals(version)
+            ? CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable()
+            : CacheControl.noCache().cachePrivate();
+        if (EntityTagUtil.ifNoneMatchMatches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        try {
+            return thumbnailService
+                .getThumbnail(descriptor)
+                .map(bytes -> ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).contentType(MediaType.IMAGE_JPEG).body(bytes))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        } catch (ThumbnailUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+    }
+
+    /**
+     * Contents which are stored as is and run until their end are handed to Undertow as a file channel when possible,
+     * see {@link #transferContent}. Other contents get a plain copy, decoded if they are stored compressed.
+     */
+    private void writeContent(ContentDescriptor descriptor, long offset, long count, HttpServletResponse response, OutputStream out)
+        throws IOException {
+        if (
+            ContentCodec.of(descriptor.codec()) == ContentCodec.IDENTITY &&
+            offset + count == descriptor.length() &&
+            transferContent(descriptor, offset, response, out)
+        ) {
+            return;
+        }
+        documentContentService.downloadContent(descriptor, offset, count, out);
+    }
+
+    private void writeStoredContent(ContentDescriptor descriptor, HttpServletResponse response, OutputStream out) throws IOException {
+        if (!transferContent(descriptor, 0, response, out)) {
+            documentContentService.copyStoredContent(descriptor, out);
+        }
+    }
+
+    /**
+     * Undertow is handed the stored content as a file channel, which it sends with {@code sendfile}, and only copies
+     * through a buffer when the response is compressed or encrypted. Other servlet containers get a plain copy.
+     */
+    private boolean transferContent(ContentDescriptor descriptor, long offset, HttpServletResponse response, OutputStream out)
+        throws IOException {
+        ServletResponse servletResponse = response;
+        while (servletResponse instanceof ServletResponseWrapper wrapper) {
+            servletResponse = wrapper.getResponse();
+        }
+        if (servletResponse.getOutputStream() instanceof ServletOutputStreamImpl undertowOut) {
+            // commits the response through the wrappers, so that they write their headers
+            out.flush();
+            return documentContentService.transferContent(descriptor, offset, undertowOut::transferFrom);
+        }
+        return false;
+    }
+
+    /**
+     * Wildcards are ignored, a content is only sent encoded to clients which explicitly accept its encoding.
+     */
+    private static boolean acceptsEncoding(String acceptEncoding, String contentEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String element : acceptEncoding.split(",")) {
+            String[] parameters = element.split(";");
+            if (parameters[0].trim().equalsIgnoreCase(contentEncoding)) {
+                for (int i = 1; i < parameters.length; i++) {
+                    String parameter = parameters[i].trim();
+                    if (parameter.startsWith("q=")) {
+                        try {
+                            return Double.parseDouble(parameter.substring(2)) > 0;
+                        } catch (NumberFormatException e) {
+                            return false;
+                        }
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Only single ranges are served, other requests get the whole content as allowed by RFC 9110.
+     */
+    private static HttpRange singleRange(String range) {
+        if (range == null) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(range);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean ifRangeMatches(String ifRange, String etag, Instant lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            Instant date = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return lastModified != null && date.equals(lastModified.truncatedTo(ChronoUnit.SECONDS));
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The entity tag of a document changes with its version, and with the version of the folder embedded in it.
+     */
+    private static String documentETag(DocumentVersion version) {
+        return EntityTagUtil.strongETag(version.version(), version.folderVersion());
+    }
+
+    private static String documentETag(Document document) {
+        Folder folder = document.getFolder();
+        return documentETag(new DocumentVersion(document.getVersion(), folder == null ? null : folder.getVersion()));
+    }
+
+    /**
+     * The entity tag of a content changes with the version of its document, which is incremented whenever the content is
+     * replaced, unlike the upload time which a client may send back unchanged.
+     */
+    private static String contentETag(ContentDescriptor descriptor) {
+        return "\"" + descriptor.id() + "-" + descriptor.version() + "\"";
+    }
+
+    private static MediaType contentMediaType(String contentType) {
+        try {
+            return MediaType.parseMediaType(contentType);
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
     }
 
     /**
@@ -201,6 +777,7 @@ public class DocumentResource {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteDocument(@PathVariable Long id) {
         log.debug("REST request to delete Document : {}", id);
+        documentContentService.releaseContent(id);
         documentRepository.deleteById(id);
         return ResponseEntity
             .noContent()
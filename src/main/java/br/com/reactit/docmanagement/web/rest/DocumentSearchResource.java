@@ -0,0 +1,87 @@
+package br.com.reactit.docmanagement.web.rest;
+
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import br.com.reactit.docmanagement.domain.DocumentSummary;
+import br.com.reactit.docmanagement.repository.DocumentSearchRepository;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import tech.jhipster.web.util.PaginationUtil;
+
+/**
+ * REST controller for searching {@link br.com.reactit.docmanagement.domain.Document} entities.
+ */
+@RestController
+@RequestMapping("/api/_search")
+@Transactional(readOnly = true)
+public class DocumentSearchResource {
+
+    private final Logger log = LoggerFactory.getLogger(DocumentSearchResource.class);
+
+    private final DocumentSearchRepository documentSearchRepository;
+
+    private final ApplicationProperties applicationProperties;
+
+    public DocumentSearchResource(DocumentSearchRepository documentSearchRepository, ApplicationProperties applicationProperties) {
+        this.documentSearchRepository = documentSearchRepository;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * {@code GET  /_search/documents?q=:query} : search the documents whose title or description match the query.
+     * <p>
+     * The query supports quoted phrases, {@code or}, and {@code -} to exclude a word. Results are ranked, title matches
+     * first, and carry the metadata of the documents only.
+     * <p>
+     * The matches are counted for the {@code X-Total-Count} header up to {@code application.search.max-count}, unless the
+     * page is the last one. A query matching more documents gets the estimate of the query planner in the
+     * {@code X-Approximate-Total-Count} header instead, the {@code Link} header then only telling whether there is a next
+     * page.
+     *
+     * @param query the query.
+     * @param pageable the pagination information, whose sort is ignored.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of document summaries in body.
+     */
+    @GetMapping("/documents")
+    public ResponseEntity<List<DocumentSummary>> searchDocuments(
+        @RequestParam("q") String query,
+        @org.springdoc.core.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to search for a page of Documents for query {}", query);
+        Slice<DocumentSummary> slice = documentSearchRepository.search(query, pageable);
+        long maxCount = applicationProperties.getSearch().getMaxCount();
+        Long total = null;
+        if (!slice.hasNext() && (slice.hasContent() || pageable.getOffset() == 0)) {
+            // the last page tells the number of matches
+            total = pageable.getOffset() + slice.getNumberOfElements();
+        } else {
+            long counted = documentSearchRepository.count(query, maxCount + 1);
+            if (counted <= maxCount) {
+                total = counted;
+            }
+        }
+        HttpHeaders headers;
+        if (total != null) {
+            PageImpl<DocumentSummary> page = new PageImpl<>(slice.getContent(), pageable, total);
+            headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        } else {
+            Long estimate = documentSearchRepository.estimateCount(query);
+            headers =
+                SlicePaginationUtil.generateSliceHttpHeaders(
+                    ServletUriComponentsBuilder.fromCurrentRequest(),
+                    slice,
+                    // more than maxCount match
+                    estimate == null ? null : Math.max(estimate, maxCount + 1)
+                );
+        }
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+}
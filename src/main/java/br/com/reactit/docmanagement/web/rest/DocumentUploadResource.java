@@ -0,0 +1,186 @@
+package br.com.reactit.docmanagement.web.rest;
+
+import br.com.reactit.docmanagement.domain.DocumentSummary;
+import br.com.reactit.docmanagement.domain.DocumentUpload;
+import br.com.reactit.docmanagement.repository.DocumentRepository;
+import br.com.reactit.docmanagement.repository.FolderRepository;
+import br.com.reactit.docmanagement.service.DocumentUploadService;
+import br.com.reactit.docmanagement.service.UploadLengthExceededException;
+import br.com.reactit.docmanagement.service.UploadOffsetMismatchException;
+import br.com.reactit.docmanagement.web.rest.errors.BadRequestAlertException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import tech.jhipster.web.util.HeaderUtil;
+
+/**
+ * REST controller for resumable uploads of {@link br.com.reactit.docmanagement.domain.Document} contents.
+ * <p>
+ * A client creates an upload session, sends the content in chunks with {@code PATCH}, each one carrying the offset it
+ * starts at in the {@code Upload-Offset} header, and completes the session into a new document. After a failure, the
+ * offset to resume from is returned by {@code GET} (or {@code HEAD}) on the session.
+ */
+@RestController
+@RequestMapping("/api/document-uploads")
+public class DocumentUploadResource {
+
+    public static final String UPLOAD_OFFSET = "Upload-Offset";
+
+    public static final String UPLOAD_LENGTH = "Upload-Length";
+
+    private final Logger log = LoggerFactory.getLogger(DocumentUploadResource.class);
+
+    private static final String ENTITY_NAME = "documentUpload";
+
+    private static final String DOCUMENT_ENTITY_NAME = "document";
+
+    @Value("${jhipster.clientApp.name}")
+    private String applicationName;
+
+    private final DocumentUploadService documentUploadService;
+
+    private final DocumentRepository documentRepository;
+
+    private final FolderRepository folderRepository;
+
+    public DocumentUploadResource(
+        DocumentUploadService documentUploadService,
+        DocumentRepository documentRepository,
+        FolderRepository folderRepository
+    ) {
+        this.documentUploadService = documentUploadService;
+        this.documentRepository = documentRepository;
+        this.folderRepository = folderRepository;
+    }
+
+    /**
+     * {@code POST  /document-uploads} : Create a new upload session.
+     *
+     * @param upload the metadata of the document to create, with its content length if known.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new session,
+     * or with status {@code 400 (Bad Request)} if the folder is not found.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     */
+    @PostMapping("")
+    public ResponseEntity<DocumentUpload> createDocumentUpload(@Valid @RequestBody DocumentUpload upload) throws URISyntaxException {
+        log.debug("REST request to create Upload : {}", upload);
+        if (upload.folderId() != null && !folderRepository.existsById(upload.folderId())) {
+            throw new BadRequestAlertException("Folder not found", ENTITY_NAME, "foldernotfound");
+        }
+        DocumentUpload result = documentUploadService.create(upload);
+        return ResponseEntity
+            .created(new URI("/api/document-uploads/" + result.id()))
+            .headers(uploadHeaders(result))
+            .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.id()))
+            .body(result);
+    }
+
+    /**
+     * {@code GET  /document-uploads/:id} : get the "id" upload session, whose offset is the one to resume from.
+     *
+     * @param id the id of the session to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the session, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<DocumentUpload> getDocumentUpload(@PathVariable String id) {
+        log.debug("REST request to get Upload : {}", id);
+        DocumentUpload upload = documentUploadService.findOne(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        return ResponseEntity.ok().headers(uploadHeaders(upload)).cacheControl(CacheControl.noStore()).body(upload);
+    }
+
+    /**
+     * {@code PATCH  /document-uploads/:id} : Append the raw request body to the "id" upload session.
+     *
+     * @param id the id of the session.
+     * @param offset the offset the chunk starts at, which must be the current offset of the session.
+     * @param request the request, whose body is the chunk.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)} and the new offset,
+     * or with status {@code 409 (Conflict)} and the current offset if {@code offset} doesn't match it,
+     * or with status {@code 413 (Payload Too Large)} if the chunk runs past the declared length,
+     * or with status {@code 404 (Not Found)}.
+     * @throws IOException if the request body can't be read.
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> appendDocumentUploadChunk(
+        @PathVariable String id,
+        @RequestHeader(UPLOAD_OFFSET) long offset,
+        HttpServletRequest request
+    ) throws IOException {
+        log.debug("REST request to append a chunk to Upload : {}, at {}", id, offset);
+        Optional<DocumentUpload> result;
+        try (InputStream chunk = request.getInputStream()) {
+            result = documentUploadService.appendChunk(id, offset, chunk);
+        } catch (UploadOffsetMismatchException e) {
+            return offsetConflict(e);
+        } catch (UploadLengthExceededException e) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, e.getMessage());
+        }
+        DocumentUpload upload = result.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        return ResponseEntity.noContent().headers(uploadHeaders(upload)).build();
+    }
+
+    /**
+     * {@code POST  /document-uploads/:id/complete} : Complete the "id" upload session into a new document.
+     *
+     * @param id the id of the session.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the summary of the new document,
+     * or with status {@code 409 (Conflict)} and the current offset if the declared length wasn't received yet,
+     * or with status {@code 404 (Not Found)}.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     */
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<DocumentSummary> completeDocumentUpload(@PathVariable String id) throws URISyntaxException {
+        log.debug("REST request to complete Upload : {}", id);
+        Long documentId;
+        try {
+            documentId = documentUploadService.complete(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        } catch (UploadOffsetMismatchException e) {
+            return offsetConflict(e);
+        }
+        return ResponseEntity
+            .created(new URI("/api/documents/" + documentId))
+            .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, DOCUMENT_ENTITY_NAME, documentId.toString()))
+            .body(documentRepository.findSummaryById(documentId).orElse(null));
+    }
+
+    /**
+     * {@code DELETE  /document-uploads/:id} : cancel the "id" upload session.
+     *
+     * @param id the id of the session to cancel.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}, or with status {@code 404 (Not Found)}.
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancelDocumentUpload(@PathVariable String id) {
+        log.debug("REST request to cancel Upload : {}", id);
+        if (!documentUploadService.cancel(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id)).build();
+    }
+
+    private static <T> ResponseEntity<T> offsetConflict(UploadOffsetMismatchException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).header(UPLOAD_OFFSET, Long.toString(e.getOffset())).build();
+    }
+
+    private static HttpHeaders uploadHeaders(DocumentUpload upload) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(UPLOAD_OFFSET, Long.toString(upload.offset()));
+        if (upload.length() != null) {
+            headers.set(UPLOAD_LENGTH, upload.length().toString());
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,74 @@
+package br.com.reactit.docmanagement.web.rest;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Utility class deriving strong entity tags from the optimistic lock versions of entities, and evaluating the
+ * {@code If-None-Match} and {@code If-Match} preconditions against them as RFC 9110 does.
+ */
+final class EntityTagUtil {
+
+    private static final String ANY = "*";
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private EntityTagUtil() {}
+
+    /**
+     * Generate a strong entity tag.
+     *
+     * @param components what the representation is derived from: the version of the entity, followed by the versions of
+     * what it embeds, {@code null} ones being allowed.
+     * @return the quoted entity tag.
+     */
+    static String strongETag(Object... components) {
+        return Arrays.stream(components).map(String::valueOf).collect(Collectors.joining("-", "\"", "\""));
+    }
+
+    /**
+     * Evaluate {@code If-None-Match}, with the weak comparison.
+     *
+     * @param ifNoneMatch the {@code If-None-Match} header, if any.
+     * @param etag the entity tag of the current representation.
+     * @return whether the header matches, the representation being then not modified for a {@code GET}.
+     */
+    static boolean ifNoneMatchMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaqueTag = stripWeakPrefix(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals(ANY) || stripWeakPrefix(tag).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Evaluate {@code If-Match}, with the strong comparison: weak entity tags never match.
+     *
+     * @param ifMatch the {@code If-Match} header, if any.
+     * @param etag the entity tag of the current representation.
+     * @return whether the precondition holds, which it does without header.
+     */
+    static boolean ifMatchHolds(String ifMatch, String etag) {
+        if (ifMatch == null) {
+            return true;
+        }
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals(ANY) || (!tag.startsWith(WEAK_PREFIX) && Objects.equals(tag, etag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeakPrefix(String tag) {
+        return tag.startsWith(WEAK_PREFIX) ? tag.substring(WEAK_PREFIX.length()) : tag;
+    }
+}
@@ -1,28 +1,51 @@
 package br.com.reactit.docmanagement.web.rest;
 
+import br.com.reactit.docmanagement.domain.DocumentSummary;
 import br.com.reactit.docmanagement.domain.Folder;
+import br.com.reactit.docmanagement.domain.FolderNode;
+import br.com.reactit.docmanagement.domain.FolderStats;
+import br.com.reactit.docmanagement.domain.TitleEntry;
+import br.com.reactit.docmanagement.repository.DocumentRepository;
 import br.com.reactit.docmanagement.repository.FolderRepository;
+import br.com.reactit.docmanagement.repository.FolderStatsRepository;
+import br.com.reactit.docmanagement.service.FolderExportService;
 import br.com.reactit.docmanagement.web.rest.errors.BadRequestAlertException;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
-import tech.jhipster.web.util.ResponseUtil;
 
 /**
  * REST controller for managing {@link br.com.reactit.docmanagement.domain.Folder}.
@@ -36,17 +59,35 @@ public class FolderResource {
 
     private static final String ENTITY_NAME = "folder";
 
+    private static final Set<KeysetCursor.Key> KEYSET_KEYS = EnumSet.of(KeysetCursor.Key.ID);
+
+    private static final MediaType EXPORT_MEDIA_TYPE = MediaType.parseMediaType("application/zip");
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
     private final FolderRepository folderRepository;
 
-    public FolderResource(FolderRepository folderRepository) {
+    private final DocumentRepository documentRepository;
+
+    private final FolderStatsRepository folderStatsRepository;
+
+    private final FolderExportService folderExportService;
+
+    public FolderResource(
+        FolderRepository folderRepository,
+        DocumentRepository documentRepository,
+        FolderStatsRepository folderStatsRepository,
+        FolderExportService folderExportService
+    ) {
         this.folderRepository = folderRepository;
+        this.documentRepository = documentRepository;
+        this.folderStatsRepository = folderStatsRepository;
+        this.folderExportService = folderExportService;
     }
 
     /**
-     * {@code POST  /folders} : Create a new folder.
+     * {@code POST  /folders} : Create a new folder, nested in its {@code parent} if any.
      *
      * @param folder the folder to create.
      * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new folder, or with status {@code 400 (Bad Request)} if the folder has already an ID.
@@ -58,6 +99,9 @@ public class FolderResource {
         if (folder.getId() != null) {
             throw new BadRequestAlertException("A new folder cannot already have an ID", ENTITY_NAME, "idexists");
         }
+        Folder parent = folder.getParent() == null ? null : findParent(folder.getParent().getId());
+        folder.setParent(parent);
+        folder.setPath(parent == null ? Folder.ROOT_PATH : parent.getDescendantPath());
         Folder result = folderRepository.save(folder);
         return ResponseEntity
             .created(new URI("/api/folders/" + result.getId()))
@@ -66,18 +110,23 @@ public class FolderResource {
     }
 
     /**
-     * {@code PUT  /folders/:id} : Updates an existing folder.
+     * {@code PUT  /folders/:id} : Updates an existing folder, which is kept in its parent: see {@link #moveFolder}.
+     * <p>
+     * With an {@code If-Match} header, the folder is only updated if its entity tag still matches.
      *
      * @param id the id of the folder to save.
+     * @param ifMatch the {@code If-Match} header, if any.
      * @param folder the folder to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated folder,
      * or with status {@code 400 (Bad Request)} if the folder is not valid,
+     * or with status {@code 412 (Precondition Failed)} if the folder has changed since the entity tag was given,
      * or with status {@code 500 (Internal Server Error)} if the folder couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/{id}")
     public ResponseEntity<Folder> updateFolder(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @Valid @RequestBody Folder folder
     ) throws URISyntaxException {
         log.debug("REST request to update Folder : {}, {}", id, folder);
@@ -88,31 +137,44 @@ public class FolderResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!folderRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
+        Folder existingFolder = folderRepository
+            .findById(id)
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
+        loadStatsAndCheckIfMatch(ifMatch, existingFolder);
+        folder.setParent(existingFolder.getParent());
+        folder.setPath(existingFolder.getPath());
+        // the update only applies to the version checked, and is flushed so that the new version is returned
+        folder.setVersion(existingFolder.getVersion());
 
-        Folder result = folderRepository.save(folder);
+        Folder result = folderRepository.saveAndFlush(folder);
+        // updating a folder doesn't change its statistics
+        result.setStats(existingFolder.getStats());
         return ResponseEntity
             .ok()
+            .eTag(folderETag(result))
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, folder.getId().toString()))
             .body(result);
     }
 
     /**
      * {@code PATCH  /folders/:id} : Partial updates given fields of an existing folder, field will ignore if it is null
+     * <p>
+     * With an {@code If-Match} header, the folder is only updated if its entity tag still matches.
      *
      * @param id the id of the folder to save.
+     * @param ifMatch the {@code If-Match} header, if any.
      * @param folder the folder to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated folder,
      * or with status {@code 400 (Bad Request)} if the folder is not valid,
      * or with status {@code 404 (Not Found)} if the folder is not found,
+     * or with status {@code 412 (Precondition Failed)} if the folder has changed since the entity tag was given,
      * or with status {@code 500 (Internal Server Error)} if the folder couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/{id}", consumes = { "application/json", "application/merge-patch+json" })
     public ResponseEntity<Folder> partialUpdateFolder(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @NotNull @RequestBody Folder folder
     ) throws URISyntaxException {
         log.debug("REST request to partial update Folder partially : {}, {}", id, folder);
@@ -123,73 +185,359 @@ public class FolderResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!folderRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
-
-        Optional<Folder> result = folderRepository
-            .findById(folder.getId())
-            .map(existingFolder -> {
-                if (folder.getTitle() != null) {
-                    existingFolder.setTitle(folder.getTitle());
-                }
-                if (folder.getDescription() != null) {
-                    existingFolder.setDescription(folder.getDescription());
-                }
-                if (folder.getCreated() != null) {
-                    existingFolder.setCreated(folder.getCreated());
-                }
-
-                return existingFolder;
-            })
-            .map(folderRepository::save);
-
-        return ResponseUtil.wrapOrNotFound(
-            result,
-            HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, folder.getId().toString())
-        );
+        Folder existingFolder = folderRepository
+            .findById(id)
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
+        loadStatsAndCheckIfMatch(ifMatch, existingFolder);
+
+        if (folder.getTitle() != null) {
+            existingFolder.setTitle(folder.getTitle());
+        }
+        if (folder.getDescription() != null) {
+            existingFolder.setDescription(folder.getDescription());
+        }
+        if (folder.getCreated() != null) {
+            existingFolder.setCreated(folder.getCreated());
+        }
+
+        Folder result = folderRepository.saveAndFlush(existingFolder);
+        return ResponseEntity
+            .ok()
+            .eTag(folderETag(result))
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, folder.getId().toString()))
+            .body(result);
     }
 
     /**
-     * {@code GET  /folders} : get all the folders.
+     * {@code GET  /folders} : get all the folders, with the statistics of their documents.
+     * <p>
+     * With an {@code after} cursor, empty for the first page, pages are sought by keyset rather than by offset: sorted by
+     * {@code id}, without total count, the {@code Link} header giving the cursor of the next page.
      *
      * @param pageable the pagination information.
+     * @param after the cursor of the page to get, from the {@code Link} header of the former page.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of folders in body.
      */
     @GetMapping("")
-    public ResponseEntity<List<Folder>> getAllFolders(@org.springdoc.core.annotations.ParameterObject Pageable pageable) {
+    public ResponseEntity<List<Folder>> getAllFolders(
+        @org.springdoc.core.annotations.ParameterObject Pageable pageable,
+        @RequestParam(required = false) String after
+    ) {
+        if (after != null) {
+            return getFoldersAfter(after, pageable);
+        }
         log.debug("REST request to get a page of Folders");
         Page<Folder> page = folderRepository.findAll(pageable);
+        loadStats(page.getContent());
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    private ResponseEntity<List<Folder>> getFoldersAfter(String after, Pageable pageable) {
+        log.debug("REST request to get a page of Folders after {}", after);
+        KeysetCursor cursor;
+        try {
+            cursor = after.isEmpty() ? KeysetCursor.first(pageable.getSort(), KEYSET_KEYS) : KeysetCursor.decode(after, KEYSET_KEYS);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
+        int size = pageable.getPageSize();
+        // one more folder tells whether there is a next page
+        List<Folder> folders = cursor.direction().isAscending()
+            ? folderRepository.findAllByIdAfter(cursor.isFirst() ? Long.MIN_VALUE : cursor.id(), PageRequest.ofSize(size + 1))
+            : folderRepository.findAllByIdBefore(cursor.isFirst() ? Long.MAX_VALUE : cursor.id(), PageRequest.ofSize(size + 1));
+        KeysetCursor next = null;
+        if (folders.size() > size) {
+            folders = folders.subList(0, size);
+            next = cursor.next(null, folders.get(size - 1).getId());
+        }
+        loadStats(folders);
+        HttpHeaders headers = KeysetCursor.generateKeysetHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), next, size);
+        return ResponseEntity.ok().headers(headers).body(folders);
+    }
+
     /**
-     * {@code GET  /folders/:id} : get the "id" folder.
+     * {@code GET  /folders/:id} : get the "id" folder, with the statistics of its documents.
+     * <p>
+     * The folder is sent with an entity tag derived from its version and its statistics, the folder itself being read
+     * from the second-level cache: a request whose {@code If-None-Match} header matches it gets no body.
      *
      * @param id the id of the folder to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the folder, or with status {@code 404 (Not Found)}.
+     * @param ifNoneMatch the {@code If-None-Match} header, if any.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the folder,
+     * or with status {@code 304 (Not Modified)} if the client has it already,
+     * or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Folder> getFolder(@PathVariable Long id) {
+    public ResponseEntity<Folder> getFolder(
+        @PathVariable Long id,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
         log.debug("REST request to get Folder : {}", id);
-        Optional<Folder> folder = folderRepository.findById(id);
-        return ResponseUtil.wrapOrNotFound(folder);
+        Folder folder = folderRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        loadStats(List.of(folder));
+        String etag = folderETag(folder);
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (EntityTagUtil.ifNoneMatchMatches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(folder);
+    }
+
+    /**
+     * {@code GET  /folders/:id/stats} : get the statistics of the documents in the "id" folder, not counting the
+     * folders nested in it. They are maintained as documents are written, and never aggregated from the documents.
+     *
+     * @param id the id of the folder.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the statistics, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/{id}/stats")
+    @Transactional(readOnly = true)
+    public ResponseEntity<FolderStats> getFolderStats(@PathVariable Long id) {
+        log.debug("REST request to get the statistics of Folder : {}", id);
+        if (!folderRepository.existsById(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        List<FolderStats> stats = folderStatsRepository.findAllByFolderIdIn(List.of(id));
+        return ResponseEntity.ok().body(stats.isEmpty() ? FolderStats.empty(id) : stats.get(0));
+    }
+
+    /**
+     * {@code POST  /folders/:id/move} : move the "id" folder, along with the folders nested in it, into another folder.
+     * <p>
+     * The paths of the nested folders are rewritten by a single statement.
+     *
+     * @param id the id of the folder to move.
+     * @param parentId the id of the folder to move it into, {@code null} to make it a root folder.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the moved folder,
+     * or with status {@code 400 (Bad Request)} if the parent doesn't exist or is nested in the folder,
+     * or with status {@code 404 (Not Found)} if the folder is not found.
+     */
+    @PostMapping("/{id}/move")
+    public ResponseEntity<Folder> moveFolder(@PathVariable Long id, @RequestParam(required = false) Long parentId) {
+        log.debug("REST request to move Folder : {} into {}", id, parentId);
+        Folder folder = lockWithAncestors(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        Folder parent = parentId == null ? null : findParent(parentId);
+        if (parent != null && (parent.getId().equals(id) || parent.getPath().startsWith(folder.getDescendantPath()))) {
+            throw new BadRequestAlertException("A folder cannot be moved into itself", ENTITY_NAME, "foldercycle");
+        }
+        String path = parent == null ? Folder.ROOT_PATH : parent.getDescendantPath();
+        if (!path.equals(folder.getPath())) {
+            String descendantPath = folder.getDescendantPath();
+            folder.setParent(parent);
+            folder.setPath(path);
+            folderRepository.moveDescendants(descendantPath, folder.getDescendantPath());
+        }
+        return ResponseEntity
+            .ok()
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, id.toString()))
+            .body(folder);
+    }
+
+    /**
+     * {@code GET  /folders/tree} : get a level of the folder tree: the children of a folder, or the root folders, with
+     * the number of their own children.
+     *
+     * @param parentId the id of the parent folder, {@code null} for the root folders.
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of folder nodes in body.
+     */
+    @GetMapping("/tree")
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<FolderNode>> getFolderTreeLevel(
+        @RequestParam(required = false) Long parentId,
+        @org.springdoc.core.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to get the children of Folder : {}", parentId);
+        Page<FolderNode> page = parentId == null
+            ? folderRepository.findAllRootNodes(pageable)
+            : folderRepository.findAllNodesByParentId(parentId, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /folders/:id/breadcrumb} : get the ancestors of the "id" folder, from the root down to the folder
+     * itself.
+     *
+     * @param id the id of the folder.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of folder titles in body,
+     * or with status {@code 404 (Not Found)} if the folder is not found.
+     */
+    @GetMapping("/{id}/breadcrumb")
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<TitleEntry>> getFolderBreadcrumb(@PathVariable Long id) {
+        log.debug("REST request to get the breadcrumb of Folder : {}", id);
+        Folder folder = folderRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        List<Long> ids = new ArrayList<>(folder.getAncestorIds());
+        ids.add(id);
+        Map<Long, TitleEntry> titles = folderRepository
+            .findTitleEntriesByIdIn(ids)
+            .stream()
+            .collect(Collectors.toMap(TitleEntry::id, Function.identity()));
+        return ResponseEntity.ok().body(ids.stream().map(titles::get).filter(Objects::nonNull).toList());
+    }
+
+    /**
+     * {@code GET  /folders/:id/documents} : get the summaries of the documents in the "id" folder.
+     * <p>
+     * The documents are read by a single statement, and counted for the {@code X-Total-Count} header from the statistics
+     * of the folder rather than by a count query.
+     *
+     * @param id the id of the folder.
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of document summaries in body,
+     * or with status {@code 404 (Not Found)} if the folder is not found.
+     */
+    @GetMapping("/{id}/documents")
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<DocumentSummary>> getFolderDocuments(
+        @PathVariable Long id,
+        @org.springdoc.core.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to get the Documents of Folder : {}", id);
+        if (!folderRepository.existsById(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        Slice<DocumentSummary> slice = documentRepository.findSliceOfSummariesByFolderId(id, pageable);
+        long documentCount = folderStatsRepository.findAllByFolderIdIn(List.of(id)).stream().mapToLong(FolderStats::documentCount).sum();
+        Page<DocumentSummary> page = new PageImpl<>(slice.getContent(), pageable, documentCount);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /folders/:id/subtree/documents} : get the summaries of the documents in the "id" folder and in the
+     * folders nested in it, at any depth.
+     *
+     * @param id the id of the folder.
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of document summaries in body,
+     * or with status {@code 404 (Not Found)} if the folder is not found.
+     */
+    @GetMapping("/{id}/subtree/documents")
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<DocumentSummary>> getFolderSubtreeDocuments(
+        @PathVariable Long id,
+        @org.springdoc.core.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to get the Documents in the subtree of Folder : {}", id);
+        Folder folder = folderRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        Page<DocumentSummary> page = documentRepository.findAllSummariesInSubtree(id, folder.getDescendantPath(), pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /folders/:id/export.zip} : export the documents of the "id" folder as a ZIP archive.
+     * <p>
+     * The archive is built on the fly and streamed once the request thread has been released, one entry per document
+     * with a content.
+     *
+     * @param id the id of the folder to export.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the archive in body, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/{id}/export.zip")
+    @Transactional(readOnly = true)
+    public ResponseEntity<StreamingResponseBody> exportFolder(@PathVariable Long id) {
+        log.debug("REST request to export Folder : {}", id);
+        Folder folder = folderRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        return ResponseEntity
+            .ok()
+            .contentType(EXPORT_MEDIA_TYPE)
+            .header(
+                HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(folder.getTitle() + ".zip", StandardCharsets.UTF_8).build().toString()
+            )
+            .body(out -> folderExportService.exportFolder(id, out));
     }
 
     /**
      * {@code DELETE  /folders/:id} : delete the "id" folder.
      *
      * @param id the id of the folder to delete.
-     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)},
+     * or with status {@code 400 (Bad Request)} if folders are nested in it.
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteFolder(@PathVariable Long id) {
         log.debug("REST request to delete Folder : {}", id);
+        if (folderRepository.existsByParentId(id)) {
+            throw new BadRequestAlertException("A folder with subfolders cannot be deleted", ENTITY_NAME, "folderhaschildren");
+        }
         folderRepository.deleteById(id);
         return ResponseEntity
             .noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id.toString()))
             .build();
     }
+
+    private Folder findParent(Long parentId) {
+        return lockWithAncestors(parentId)
+            .orElseThrow(() -> new BadRequestAlertException("Parent folder not found", ENTITY_NAME, "parentnotfound"));
+    }
+
+    /**
+     * Lock a folder until the end of the transaction, after its ancestors in share mode, so that none of them can be
+     * moved meanwhile and its path stays right. A move locks the folder it moves before rewriting the paths below it, the
+     * ancestors are then locked first so that both wait for each other in the same order.
+     */
+    private Optional<Folder> lockWithAncestors(Long id) {
+        Optional<String> path = folderRepository.findPathById(id);
+        if (path.isEmpty()) {
+            return Optional.empty();
+        }
+        lockAncestors(path.get());
+        Optional<Folder> folder = folderRepository.findByIdForUpdate(id);
+        if (folder.isPresent() && !folder.get().getPath().equals(path.get())) {
+            // moved before its ancestors were locked, its new path can't change anymore
+            lockAncestors(folder.get().getPath());
+        }
+        return folder;
+    }
+
+    private void lockAncestors(String path) {
+        List<Long> ancestorIds = Folder.ancestorIds(path);
+        if (!ancestorIds.isEmpty()) {
+            folderRepository.lockAllForShare(ancestorIds);
+        }
+    }
+
+    /**
+     * Load the statistics of the current folder, and check the {@code If-Match} header of an update against it.
+     */
+    private void loadStatsAndCheckIfMatch(String ifMatch, Folder folder) {
+        loadStats(List.of(folder));
+        if (!EntityTagUtil.ifMatchHolds(ifMatch, folderETag(folder))) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+        }
+    }
+
+    /**
+     * The entity tag of a folder changes with its version, and with the statistics embedded in it.
+     */
+    private static String folderETag(Folder folder) {
+        FolderStats stats = folder.getStats();
+        Instant lastUploaded = stats.lastUploaded();
+        return EntityTagUtil.strongETag(
+            folder.getVersion(),
+            stats.documentCount(),
+            stats.totalBytes(),
+            lastUploaded == null ? null : lastUploaded.toEpochMilli()
+        );
+    }
+
+    /**
+     * Set the statistics of folders, reading them with a single query.
+     */
+    private void loadStats(List<Folder> folders) {
+        if (folders.isEmpty()) {
+            return;
+        }
+        Map<Long, FolderStats> stats = folderStatsRepository
+            .findAllByFolderIdIn(folders.stream().map(Folder::getId).toList())
+            .stream()
+            .collect(Collectors.toMap(FolderStats::folderId, Function.identity()));
+        folders.forEach(folder -> folder.setStats(stats.getOrDefault(folder.getId(), FolderStats.empty(folder.getId()))));
+    }
 }
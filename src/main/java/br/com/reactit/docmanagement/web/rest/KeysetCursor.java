@@ -0,0 +1,137 @@
+package br.com.reactit.docmanagement.web.rest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Set;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Opaque position in a keyset paginated list: the order of the list, and the sort key of the last entity of a page.
+ * <p>
+ * Lists are ordered by id, or by upload time then id. A page following a cursor is sought through an index on the sort
+ * key rather than by skipping the former pages, so that it takes the same time at any depth. Cursors are encoded in
+ * URL-safe base 64, and handed out in {@code Link} headers.
+ *
+ * @param key the sort key.
+ * @param direction the direction of the order.
+ * @param uploaded the upload time of the last entity, {@code null} if it has none or on the first page.
+ * @param id the id of the last entity, {@code null} on the first page.
+ */
+record KeysetCursor(Key key, Sort.Direction direction, Instant uploaded, Long id) {
+    /**
+     * The sort keys, by property name.
+     */
+    enum Key {
+        ID("id"),
+        UPLOADED("uploaded");
+
+        private final String property;
+
+        Key(String property) {
+            this.property = property;
+        }
+    }
+
+    private static final String SEPARATOR = ",";
+
+    /**
+     * The cursor of the first page in the requested order, {@code id} ascending when unsorted.
+     *
+     * @param sort the requested order: a supported sort key, optionally followed by {@code id} in the same direction.
+     * @param supported the supported sort keys.
+     * @return the cursor.
+     * @throws IllegalArgumentException if the order is not supported.
+     */
+    static KeysetCursor first(Sort sort, Set<Key> supported) {
+        Iterator<Sort.Order> orders = sort.iterator();
+        if (!orders.hasNext()) {
+            return new KeysetCursor(Key.ID, Sort.Direction.ASC, null, null);
+        }
+        Sort.Order order = orders.next();
+        Key key = supported
+            .stream()
+            .filter(candidate -> candidate.property.equals(order.getProperty()))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Unsupported sort: " + order.getProperty()));
+        if (orders.hasNext()) {
+            Sort.Order tieBreak = orders.next();
+            boolean idTieBreak = key != Key.ID && tieBreak.getProperty().equals("id") && tieBreak.getDirection() == order.getDirection();
+            if (!idTieBreak || orders.hasNext()) {
+                throw new IllegalArgumentException("Unsupported sort: " + sort);
+            }
+        }
+        return new KeysetCursor(key, order.getDirection(), null, null);
+    }
+
+    /**
+     * Decode a cursor handed out by {@link #encode()}.
+     *
+     * @param value the encoded cursor.
+     * @param supported the supported sort keys.
+     * @return the cursor.
+     * @throws IllegalArgumentException if the cursor is malformed, or its sort key not supported.
+     */
+    static KeysetCursor decode(String value, Set<Key> supported) {
+        String[] fields = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+        if (fields.length != 4) {
+            throw new IllegalArgumentException("Invalid cursor: " + value);
+        }
+        Key key = Key.valueOf(fields[0]);
+        if (!supported.contains(key)) {
+            throw new IllegalArgumentException("Unsupported sort: " + key.property);
+        }
+        Instant uploaded = fields[2].isEmpty() ? null : Instant.EPOCH.plus(Long.parseLong(fields[2]), ChronoUnit.MICROS);
+        return new KeysetCursor(key, Sort.Direction.valueOf(fields[1]), uploaded, Long.valueOf(fields[3]));
+    }
+
+    /**
+     * @param lastUploaded the upload time of the last entity of a page.
+     * @param lastId the id of the last entity of a page.
+     * @return the cursor of the next page.
+     */
+    KeysetCursor next(Instant lastUploaded, Long lastId) {
+        return new KeysetCursor(key, direction, key == Key.UPLOADED ? lastUploaded : null, lastId);
+    }
+
+    /**
+     * @return whether this is the cursor of the first page.
+     */
+    boolean isFirst() {
+        return id == null;
+    }
+
+    /**
+     * @return the encoded cursor, upload times being stored to the microsecond.
+     */
+    String encode() {
+        String uploadedMicros = uploaded == null ? "" : Long.toString(ChronoUnit.MICROS.between(Instant.EPOCH, uploaded));
+        String value = String.join(SEPARATOR, key.name(), direction.name(), uploadedMicros, String.valueOf(id));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Generate the {@code Link} header pointing to the next page, if any.
+     *
+     * @param uriBuilder the builder of the current request URI.
+     * @param next the cursor of the next page, {@code null} on the last page.
+     * @param size the size of the pages.
+     * @return the headers.
+     */
+    static HttpHeaders generateKeysetHttpHeaders(UriComponentsBuilder uriBuilder, KeysetCursor next, int size) {
+        HttpHeaders headers = new HttpHeaders();
+        if (next != null) {
+            String link = uriBuilder
+                .replaceQueryParam("page")
+                .replaceQueryParam("after", next.encode())
+                .replaceQueryParam("size", size)
+                .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + link + ">; rel=\"next\"");
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,47 @@
+package br.com.reactit.docmanagement.web.rest;
+
+import br.com.reactit.docmanagement.service.SearchIndexService;
+import br.com.reactit.docmanagement.service.dto.SearchIndexStatusDTO;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Management endpoint of the embedded search index: {@code GET /management/searchindex} tells its state, and
+ * {@code POST /management/searchindex} starts a full reindex.
+ */
+@Component
+@Endpoint(id = "searchindex")
+@ConditionalOnProperty(prefix = "application.search.lucene", name = "enabled", havingValue = "true")
+public class SearchIndexEndpoint {
+
+    private final SearchIndexService searchIndexService;
+
+    public SearchIndexEndpoint(SearchIndexService searchIndexService) {
+        this.searchIndexService = searchIndexService;
+    }
+
+    @ReadOperation
+    public SearchIndexStatusDTO status() {
+        return searchIndexService.getStatus();
+    }
+
+    /**
+     * Start a full reindex.
+     *
+     * @return the state of the index, with status {@code 202 (Accepted)}, or {@code 409 (Conflict)} if a reindex is
+     * already running.
+     */
+    @WriteOperation
+    public WebEndpointResponse<SearchIndexStatusDTO> reindex() {
+        boolean started = searchIndexService.reindex();
+        return new WebEndpointResponse<>(
+            searchIndexService.getStatus(),
+            (started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT).value()
+        );
+    }
+}
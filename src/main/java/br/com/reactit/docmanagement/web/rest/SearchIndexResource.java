@@ -0,0 +1,73 @@
+package br.com.reactit.docmanagement.web.rest;
+
+import br.com.reactit.docmanagement.service.SearchIndexService;
+import br.com.reactit.docmanagement.service.SearchIndexService.EntryType;
+import br.com.reactit.docmanagement.service.dto.SearchHitDTO;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import tech.jhipster.web.util.PaginationUtil;
+
+/**
+ * REST controller for searching the embedded search index of documents and folders.
+ */
+@RestController
+@RequestMapping("/api/_search/index")
+@ConditionalOnProperty(prefix = "application.search.lucene", name = "enabled", havingValue = "true")
+public class SearchIndexResource {
+
+    private final Logger log = LoggerFactory.getLogger(SearchIndexResource.class);
+
+    private final SearchIndexService searchIndexService;
+
+    public SearchIndexResource(SearchIndexService searchIndexService) {
+        this.searchIndexService = searchIndexService;
+    }
+
+    /**
+     * {@code GET  /_search/index/documents?q=:query} : search the documents whose title or description match the query,
+     * by prefix or despite typos.
+     *
+     * @param query the query.
+     * @param pageable the pagination information, whose sort is ignored.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of hits, with highlighted snippets, in body.
+     */
+    @GetMapping("/documents")
+    public ResponseEntity<List<SearchHitDTO>> searchDocuments(
+        @RequestParam("q") String query,
+        @org.springdoc.core.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to search the index for a page of Documents for query {}", query);
+        return search(EntryType.DOCUMENT, query, pageable);
+    }
+
+    /**
+     * {@code GET  /_search/index/folders?q=:query} : search the folders whose title or description match the query,
+     * by prefix or despite typos.
+     *
+     * @param query the query.
+     * @param pageable the pagination information, whose sort is ignored.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of hits, with highlighted snippets, in body.
+     */
+    @GetMapping("/folders")
+    public ResponseEntity<List<SearchHitDTO>> searchFolders(
+        @RequestParam("q") String query,
+        @org.springdoc.core.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to search the index for a page of Folders for query {}", query);
+        return search(EntryType.FOLDER, query, pageable);
+    }
+
+    private ResponseEntity<List<SearchHitDTO>> search(EntryType type, String query, Pageable pageable) {
+        Page<SearchHitDTO> page = searchIndexService.search(type, query, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+}
@@ -0,0 +1,60 @@
+package br.com.reactit.docmanagement.web.rest;
+
+import java.text.MessageFormat;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class generating the pagination headers of a {@link Slice}, as {@link tech.jhipster.web.util.PaginationUtil}
+ * does for a page, without the total count nor the link to the last page.
+ */
+final class SlicePaginationUtil {
+
+    /**
+     * Header giving a count estimated from the statistics of the database, which may be off by a few percent.
+     */
+    static final String HEADER_APPROXIMATE_TOTAL_COUNT = "X-Approximate-Total-Count";
+
+    private static final String HEADER_LINK_FORMAT = "<{0}>; rel=\"{1}\"";
+
+    private SlicePaginationUtil() {}
+
+    /**
+     * Generate the pagination headers of a slice.
+     *
+     * @param uriBuilder the builder of the current request URI.
+     * @param slice the slice.
+     * @param approximateCount the approximate number of entities, {@code null} if not wanted or unknown.
+     * @param <T> the type of the entities.
+     * @return the headers.
+     */
+    static <T> HttpHeaders generateSliceHttpHeaders(UriComponentsBuilder uriBuilder, Slice<T> slice, Long approximateCount) {
+        HttpHeaders headers = new HttpHeaders();
+        if (approximateCount != null) {
+            headers.add(HEADER_APPROXIMATE_TOTAL_COUNT, Long.toString(approximateCount));
+        }
+        int pageNumber = slice.getNumber();
+        int pageSize = slice.getSize();
+        StringBuilder link = new StringBuilder();
+        if (slice.hasNext()) {
+            link.append(prepareLink(uriBuilder, pageNumber + 1, pageSize, "next")).append(",");
+        }
+        if (slice.hasPrevious()) {
+            link.append(prepareLink(uriBuilder, pageNumber - 1, pageSize, "prev")).append(",");
+        }
+        link.append(prepareLink(uriBuilder, 0, pageSize, "first"));
+        headers.add(HttpHeaders.LINK, link.toString());
+        return headers;
+    }
+
+    private static String prepareLink(UriComponentsBuilder uriBuilder, int pageNumber, int pageSize, String relType) {
+        String uri = uriBuilder
+            .replaceQueryParam("page", Integer.toString(pageNumber))
+            .replaceQueryParam("size", Integer.toString(pageSize))
+            .toUriString()
+            .replace(",", "%2C")
+            .replace(";", "%3B");
+        return MessageFormat.format(HEADER_LINK_FORMAT, uri, relType);
+    }
+}
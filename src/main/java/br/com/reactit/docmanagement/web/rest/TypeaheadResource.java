@@ -0,0 +1,61 @@
+package br.com.reactit.docmanagement.web.rest;
+
+import br.com.reactit.docmanagement.service.SearchIndexService.EntryType;
+import br.com.reactit.docmanagement.service.TypeaheadService;
+import br.com.reactit.docmanagement.service.dto.TypeaheadSuggestionDTO;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller suggesting document and folder titles as they are typed.
+ */
+@RestController
+@RequestMapping("/api/_search/typeahead")
+@ConditionalOnProperty(prefix = "application.search.typeahead", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TypeaheadResource {
+
+    private final Logger log = LoggerFactory.getLogger(TypeaheadResource.class);
+
+    private final TypeaheadService typeaheadService;
+
+    public TypeaheadResource(TypeaheadService typeaheadService) {
+        this.typeaheadService = typeaheadService;
+    }
+
+    /**
+     * {@code GET  /_search/typeahead/documents?q=:prefix} : suggest the titles of the documents having a word starting
+     * with the prefix.
+     *
+     * @param prefix the prefix.
+     * @param size the number of suggestions.
+     * @return the list of suggestions, titles starting with the prefix first.
+     */
+    @GetMapping("/documents")
+    public List<TypeaheadSuggestionDTO> suggestDocuments(
+        @RequestParam("q") String prefix,
+        @RequestParam(name = "size", defaultValue = "10") int size
+    ) {
+        log.debug("REST request to suggest Document titles for prefix {}", prefix);
+        return typeaheadService.suggest(EntryType.DOCUMENT, prefix, size);
+    }
+
+    /**
+     * {@code GET  /_search/typeahead/folders?q=:prefix} : suggest the titles of the folders having a word starting
+     * with the prefix.
+     *
+     * @param prefix the prefix.
+     * @param size the number of suggestions.
+     * @return the list of suggestions, titles starting with the prefix first.
+     */
+    @GetMapping("/folders")
+    public List<TypeaheadSuggestionDTO> suggestFolders(
+        @RequestParam("q") String prefix,
+        @RequestParam(name = "size", defaultValue = "10") int size
+    ) {
+        log.debug("REST request to suggest Folder titles for prefix {}", prefix);
+        return typeaheadService.suggest(EntryType.FOLDER, prefix, size);
+    }
+}
@@ -3,7 +3,9 @@ package br.com.reactit.docmanagement.config;
 import java.util.concurrent.Executor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
 
 @Configuration
 public class AsyncSyncConfiguration {
@@ -12,4 +14,39 @@ public class AsyncSyncConfiguration {
     public Executor taskExecutor() {
         return new SyncTaskExecutor();
     }
+
+    @Bean(name = "contentStreamingExecutor")
+    public AsyncTaskExecutor contentStreamingExecutor() {
+        return new TaskExecutorAdapter(new SyncTaskExecutor());
+    }
+
+    @Bean(name = "thumbnailExecutor")
+    public AsyncTaskExecutor thumbnailExecutor() {
+        return new TaskExecutorAdapter(new SyncTaskExecutor());
+    }
+
+    @Bean(name = "importExecutor")
+    public AsyncTaskExecutor importExecutor() {
+        return new TaskExecutorAdapter(new SyncTaskExecutor());
+    }
+
+    @Bean(name = "textExtractionExecutor")
+    public AsyncTaskExecutor textExtractionExecutor() {
+        return new TaskExecutorAdapter(new SyncTaskExecutor());
+    }
+
+    @Bean(name = "textParserExecutor")
+    public AsyncTaskExecutor textParserExecutor() {
+        return new TaskExecutorAdapter(new SyncTaskExecutor());
+    }
+
+    @Bean(name = "searchIndexExecutor")
+    public AsyncTaskExecutor searchIndexExecutor() {
+        return new TaskExecutorAdapter(new SyncTaskExecutor());
+    }
+
+    @Bean(name = "contentMaintenanceExecutor")
+    public AsyncTaskExecutor contentMaintenanceExecutor() {
+        return new TaskExecutorAdapter(new SyncTaskExecutor());
+    }
 }
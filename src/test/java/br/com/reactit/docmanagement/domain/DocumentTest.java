@@ -34,4 +34,16 @@ class DocumentTest {
         document.folder(null);
         assertThat(document.getFolder()).isNull();
     }
+
+    @Test
+    void dataSizeTest() throws Exception {
+        Document document = getDocumentRandomSampleGenerator();
+        assertThat(document.getDataSize()).isNull();
+
+        document.setData(new byte[42]);
+        assertThat(document.getDataSize()).isEqualTo(42L);
+
+        document.data(null);
+        assertThat(document.getDataSize()).isNull();
+    }
 }
@@ -0,0 +1,56 @@
+package br.com.reactit.docmanagement.management;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DocumentContentCacheMetersServiceTests {
+
+    private static final String REQUESTS_METER_EXPECTED_NAME = "document.content.cache.requests";
+    private static final String HIT_RATIO_METER_EXPECTED_NAME = "document.content.cache.hit-ratio";
+    private static final String SIZE_METER_EXPECTED_NAME = "document.content.cache.size";
+    private static final String ENTRIES_METER_EXPECTED_NAME = "document.content.cache.entries";
+
+    private MeterRegistry meterRegistry;
+
+    private DocumentContentCacheMetersService documentContentCacheMetersService;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+
+        documentContentCacheMetersService = new DocumentContentCacheMetersService(meterRegistry);
+    }
+
+    @Test
+    void testMetersAreCreated() {
+        meterRegistry.get(REQUESTS_METER_EXPECTED_NAME).tag("result", "hit").counter();
+        meterRegistry.get(REQUESTS_METER_EXPECTED_NAME).tag("result", "miss").counter();
+        assertThat(meterRegistry.get(HIT_RATIO_METER_EXPECTED_NAME).gauge().value()).isZero();
+        assertThat(meterRegistry.get(SIZE_METER_EXPECTED_NAME).gauge().value()).isZero();
+        assertThat(meterRegistry.get(ENTRIES_METER_EXPECTED_NAME).gauge().value()).isZero();
+    }
+
+    @Test
+    void testHitRatioIsTracked() {
+        documentContentCacheMetersService.miss();
+        documentContentCacheMetersService.hit();
+        documentContentCacheMetersService.hit();
+        documentContentCacheMetersService.hit();
+
+        assertThat(meterRegistry.get(REQUESTS_METER_EXPECTED_NAME).tag("result", "hit").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get(REQUESTS_METER_EXPECTED_NAME).tag("result", "miss").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(HIT_RATIO_METER_EXPECTED_NAME).gauge().value()).isEqualTo(0.75);
+    }
+
+    @Test
+    void testOccupancyIsTracked() {
+        documentContentCacheMetersService.cacheUpdated(4096, 3);
+
+        assertThat(meterRegistry.get(SIZE_METER_EXPECTED_NAME).gauge().value()).isEqualTo(4096);
+        assertThat(meterRegistry.get(ENTRIES_METER_EXPECTED_NAME).gauge().value()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,66 @@
+package br.com.reactit.docmanagement.management;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DocumentContentMetersServiceTests {
+
+    private static final String TRANSFERRED_METER_EXPECTED_NAME = "document.content.transferred";
+    private static final String IN_FLIGHT_METER_EXPECTED_NAME = "document.content.in-flight";
+    private static final String THROUGHPUT_METER_EXPECTED_NAME = "document.content.throughput";
+
+    private MeterRegistry meterRegistry;
+
+    private DocumentContentMetersService documentContentMetersService;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+
+        documentContentMetersService = new DocumentContentMetersService(meterRegistry);
+    }
+
+    @Test
+    void testMetersByDirectionAreCreated() {
+        meterRegistry.get(TRANSFERRED_METER_EXPECTED_NAME).tag("direction", "upload").counter();
+        meterRegistry.get(TRANSFERRED_METER_EXPECTED_NAME).tag("direction", "download").counter();
+        meterRegistry.get(IN_FLIGHT_METER_EXPECTED_NAME).tag("direction", "upload").gauge();
+        meterRegistry.get(IN_FLIGHT_METER_EXPECTED_NAME).tag("direction", "download").gauge();
+        meterRegistry.get(THROUGHPUT_METER_EXPECTED_NAME).tag("direction", "upload").summary();
+        meterRegistry.get(THROUGHPUT_METER_EXPECTED_NAME).tag("direction", "download").summary();
+    }
+
+    @Test
+    void testUploadIsTrackedWhileInFlightAndOnceCompleted() throws Exception {
+        InputStream in = documentContentMetersService.meter(new ByteArrayInputStream(new byte[100]));
+
+        assertThat(in.readNBytes(40)).hasSize(40);
+        assertThat(meterRegistry.get(IN_FLIGHT_METER_EXPECTED_NAME).tag("direction", "upload").gauge().value()).isEqualTo(40);
+
+        in.readAllBytes();
+        in.close();
+
+        assertThat(meterRegistry.get(TRANSFERRED_METER_EXPECTED_NAME).tag("direction", "upload").counter().count()).isEqualTo(100);
+        assertThat(meterRegistry.get(IN_FLIGHT_METER_EXPECTED_NAME).tag("direction", "upload").gauge().value()).isZero();
+        assertThat(meterRegistry.get(THROUGHPUT_METER_EXPECTED_NAME).tag("direction", "upload").summary().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testDownloadIsTracked() throws Exception {
+        try (OutputStream out = documentContentMetersService.meter(new ByteArrayOutputStream())) {
+            out.write(new byte[64]);
+            out.write(1);
+        }
+
+        assertThat(meterRegistry.get(TRANSFERRED_METER_EXPECTED_NAME).tag("direction", "download").counter().count()).isEqualTo(65);
+        assertThat(meterRegistry.get(IN_FLIGHT_METER_EXPECTED_NAME).tag("direction", "download").gauge().value()).isZero();
+    }
+}
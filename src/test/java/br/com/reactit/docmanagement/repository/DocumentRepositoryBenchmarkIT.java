@@ -0,0 +1,102 @@
+package br.com.reactit.docmanagement.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import br.com.reactit.docmanagement.IntegrationTest;
+import br.com.reactit.docmanagement.domain.Document;
+import jakarta.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Benchmark of the keyset pagination of {@link DocumentRepository} over a million documents, showing that a page
+ * takes the same time at any depth, where an offset page gets slower. It only runs with {@code -Dbenchmark=true}.
+ */
+@IntegrationTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class DocumentRepositoryBenchmarkIT {
+
+    private static final int DOCUMENTS = 1_000_000;
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final int RUNS = 50;
+
+    /**
+     * Synthetic documents uploaded a second apart, one in a hundred without upload time.
+     */
+    private static final String INSERT_SQL =
+        "insert into document (id, title, data_content_type, data_size, uploaded) " +
+        "select n, 'Document ' || n, 'text/plain', 0, " +
+        "case when n % 100 = 0 then null else timestamp '2020-01-01' + n * interval '1 second' end " +
+        "from generate_series(?, ?) n";
+
+    private final Logger log = LoggerFactory.getLogger(DocumentRepositoryBenchmarkIT.class);
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager em;
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.MINUTES)
+    @Transactional
+    void keysetPageLatencyStaysFlat() {
+        long firstId = 1_000_000_000L;
+        jdbcTemplate.update(INSERT_SQL, firstId, firstId + DOCUMENTS - 1);
+        jdbcTemplate.execute("analyze document");
+        Document deep = documentRepository.findAllByIdAfter(firstId + 1000, PageRequest.ofSize(1)).get(0);
+
+        double firstPage = medianMillis(() -> documentRepository.seekAllByUploaded(null, null, Sort.Direction.DESC, PAGE_SIZE));
+        double deepPage = medianMillis(() ->
+            documentRepository.seekAllByUploaded(deep.getUploaded(), deep.getId(), Sort.Direction.DESC, PAGE_SIZE)
+        );
+        double deepIdPage = medianMillis(() -> documentRepository.findAllByIdBefore(deep.getId(), PageRequest.ofSize(PAGE_SIZE)));
+        double deepOffsetPage = medianMillis(() ->
+            documentRepository.findAll(PageRequest.of(DOCUMENTS / PAGE_SIZE - 50, PAGE_SIZE, Sort.by("uploaded", "id"))).getContent()
+        );
+        log.info(
+            "Median latency: first page {} ms, deep keyset page {} ms, deep keyset page by id {} ms, deep offset page {} ms",
+            String.format("%.3f", firstPage),
+            String.format("%.3f", deepPage),
+            String.format("%.3f", deepIdPage),
+            String.format("%.3f", deepOffsetPage)
+        );
+
+        assertThat(deepPage).isLessThan(firstPage * 5 + 2);
+        assertThat(deepIdPage).isLessThan(firstPage * 5 + 2);
+    }
+
+    private double medianMillis(Supplier<List<Document>> page) {
+        // warm up
+        for (int i = 0; i < 5; i++) {
+            page.get();
+            em.clear();
+        }
+        double[] millis = new double[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            assertThat(page.get()).hasSize(PAGE_SIZE);
+            millis[i] = (System.nanoTime() - start) / 1e6;
+            em.clear();
+        }
+        Arrays.sort(millis);
+        return millis[RUNS / 2];
+    }
+}
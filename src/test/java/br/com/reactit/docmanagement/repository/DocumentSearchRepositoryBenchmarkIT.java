@@ -0,0 +1,115 @@
+package br.com.reactit.docmanagement.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import br.com.reactit.docmanagement.IntegrationTest;
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Benchmark of {@link DocumentSearchRepository} as the document table grows to a million rows, showing that the
+ * latency of a selective search stays flat, and that counting the matches of a broad one stays bounded by
+ * {@code application.search.max-count}, while ranking them grows with their number. It takes a few minutes, and only
+ * runs with {@code -Dbenchmark=true}.
+ */
+@IntegrationTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class DocumentSearchRepositoryBenchmarkIT {
+
+    private static final int[] TABLE_SIZES = { 10_000, 100_000, 1_000_000 };
+
+    private static final int RUNS = 50;
+
+    /**
+     * Synthetic documents, with a title drawn from a thousand words, and one document in ten thousand mentioning a needle.
+     */
+    private static final String INSERT_SQL =
+        "insert into document (id, title, description, data_content_type, data_size) " +
+        "select n, 'Document ' || (n % 1000) || ' ' || md5(n::text), " +
+        "case when n % 10000 = 0 then 'contains the benchmarkneedle' else 'synthetic description ' || (n % 97) end, " +
+        "'text/plain', 0 from generate_series(?, ?) n";
+
+    private final Logger log = LoggerFactory.getLogger(DocumentSearchRepositoryBenchmarkIT.class);
+
+    @Autowired
+    private DocumentSearchRepository documentSearchRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.MINUTES)
+    @Transactional
+    void searchLatencyStaysFlat() {
+        long firstId = 1_000_000_000L;
+        long inserted = 0;
+        long maxCount = applicationProperties.getSearch().getMaxCount();
+        double[] medians = new double[TABLE_SIZES.length];
+        double[] broadCountMedians = new double[TABLE_SIZES.length];
+        for (int i = 0; i < TABLE_SIZES.length; i++) {
+            jdbcTemplate.update(INSERT_SQL, firstId + inserted, firstId + TABLE_SIZES[i] - 1);
+            inserted = TABLE_SIZES[i];
+            jdbcTemplate.execute("analyze document");
+            medians[i] = medianMillis(() -> search("benchmarkneedle", maxCount), RUNS);
+            log.info("{} rows: median search latency {} ms", TABLE_SIZES[i], String.format("%.3f", medians[i]));
+
+            // nearly every document matches
+            broadCountMedians[i] = medianMillis(() -> count("synthetic", maxCount), RUNS);
+            double broadSearchMedian = medianMillis(() -> documentSearchRepository.search("synthetic", PageRequest.of(0, 20)), 5);
+            log.info(
+                "{} rows: median broad search latency {} ms, counting {} ms",
+                TABLE_SIZES[i],
+                String.format("%.3f", broadSearchMedian),
+                String.format("%.3f", broadCountMedians[i])
+            );
+        }
+
+        // a hundred times more rows, yet the same order of latency
+        assertThat(medians[TABLE_SIZES.length - 1]).isLessThan(medians[0] * 5 + 2);
+        // the matches of a broad query are only counted up to max-count, which the smallest table about reaches
+        assertThat(broadCountMedians[TABLE_SIZES.length - 1]).isLessThan(broadCountMedians[0] * 5 + 2);
+    }
+
+    /**
+     * Search as the resource does: a slice, then the number of matches if the slice doesn't tell it.
+     */
+    private void search(String query, long maxCount) {
+        if (documentSearchRepository.search(query, PageRequest.of(0, 20)).hasNext()) {
+            count(query, maxCount);
+        }
+    }
+
+    private void count(String query, long maxCount) {
+        if (documentSearchRepository.count(query, maxCount + 1) > maxCount) {
+            documentSearchRepository.estimateCount(query);
+        }
+    }
+
+    private double medianMillis(Runnable search, int runs) {
+        // warm up
+        for (int i = 0; i < Math.min(runs, 5); i++) {
+            search.run();
+        }
+        double[] millis = new double[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            search.run();
+            millis[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(millis);
+        return millis[runs / 2];
+    }
+}
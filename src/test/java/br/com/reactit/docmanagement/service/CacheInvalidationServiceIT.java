@@ -0,0 +1,228 @@
+package br.com.reactit.docmanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import br.com.reactit.docmanagement.DocManagementApp;
+import br.com.reactit.docmanagement.IntegrationTest;
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import br.com.reactit.docmanagement.config.AsyncSyncConfiguration;
+import br.com.reactit.docmanagement.domain.Folder;
+import br.com.reactit.docmanagement.domain.User;
+import br.com.reactit.docmanagement.repository.FolderRepository;
+import br.com.reactit.docmanagement.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for {@link CacheInvalidationService}, with a second node sharing the database.
+ * <p>
+ * The second node only evicts when the tests tell it to, so that what it received can be observed.
+ */
+@IntegrationTest
+class CacheInvalidationServiceIT {
+
+    private static final long TIMEOUT = 10000;
+
+    private static ConfigurableApplicationContext otherNode;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private FolderRepository folderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CacheInvalidationService cacheInvalidationService;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private CacheInvalidationService otherInvalidationService;
+
+    @BeforeEach
+    public void startOtherNode() throws InterruptedException {
+        if (otherNode == null) {
+            otherNode =
+                new SpringApplicationBuilder(DocManagementApp.class, AsyncSyncConfiguration.class)
+                    .properties(
+                        "spring.datasource.url=" + environment.getProperty("spring.datasource.url"),
+                        "spring.datasource.username=" + environment.getProperty("spring.datasource.username"),
+                        "spring.datasource.password=" + environment.getProperty("spring.datasource.password"),
+                        "server.port=0",
+                        "application.cache.invalidation.batch-delay=3600000"
+                    )
+                    .run();
+        }
+        otherInvalidationService = otherNode.getBean(CacheInvalidationService.class);
+        await(() -> cacheInvalidationService.isListening() && otherInvalidationService.isListening());
+    }
+
+    @AfterAll
+    public static void stopOtherNode() {
+        if (otherNode != null) {
+            otherNode.close();
+            otherNode = null;
+        }
+    }
+
+    @Test
+    void evictsFoldersChangedByAnotherNode() throws InterruptedException {
+        Folder folder = folderRepository.saveAndFlush(new Folder().title("Cached"));
+        jakarta.persistence.Cache otherEntityCache = otherNode.getBean(EntityManagerFactory.class).getCache();
+        FolderRepository otherFolderRepository = otherNode.getBean(FolderRepository.class);
+        try {
+            otherFolderRepository.findById(folder.getId());
+            assertThat(otherEntityCache.contains(Folder.class, folder.getId())).isTrue();
+
+            folder.setTitle("Changed");
+            folderRepository.saveAndFlush(folder);
+
+            awaitEviction(() -> !otherEntityCache.contains(Folder.class, folder.getId()));
+            assertThat(otherFolderRepository.findById(folder.getId())).get().extracting(Folder::getTitle).isEqualTo("Changed");
+        } finally {
+            folderRepository.deleteById(folder.getId());
+        }
+    }
+
+    @Test
+    void evictsUsersCreatedByAnotherNode() throws InterruptedException {
+        User user = new User();
+        user.setLogin("cache-invalidation");
+        user.setEmail("Cache-Invalidation@localhost");
+        user.setPassword(RandomStringUtils.randomAlphanumeric(60));
+        user.setActivated(true);
+        UserRepository otherUserRepository = otherNode.getBean(UserRepository.class);
+        CacheManager otherCacheManager = otherNode.getBean(CacheManager.class);
+        Cache otherUsersByLogin = otherCacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE);
+        Cache otherUsersByEmail = otherCacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE);
+        try {
+            // absent users are cached too
+            assertThat(otherUserRepository.findOneWithAuthoritiesByLogin("cache-invalidation")).isEmpty();
+            assertThat(otherUserRepository.findOneWithAuthoritiesByEmailIgnoreCase("cache-invalidation@localhost")).isEmpty();
+            assertThat(otherUsersByLogin.get("cache-invalidation")).isNotNull();
+            assertThat(otherUsersByEmail.get("cache-invalidation@localhost")).isNotNull();
+
+            userRepository.saveAndFlush(user);
+
+            awaitEviction(() -> otherUsersByLogin.get("cache-invalidation") == null);
+            awaitEviction(() -> otherUsersByEmail.get("cache-invalidation@localhost") == null);
+            assertThat(otherUserRepository.findOneWithAuthoritiesByLogin("cache-invalidation")).isPresent();
+            assertThat(otherUserRepository.findOneWithAuthoritiesByEmailIgnoreCase("CACHE-INVALIDATION@localhost")).isPresent();
+        } finally {
+            userRepository.deleteById(user.getId());
+        }
+    }
+
+    @Test
+    void clearsTheCachesWhenInvalidationsWereMissed() throws InterruptedException {
+        Folder folder = folderRepository.saveAndFlush(new Folder().title("Cached"));
+        jakarta.persistence.Cache otherEntityCache = otherNode.getBean(EntityManagerFactory.class).getCache();
+        try {
+            otherNode.getBean(FolderRepository.class).findById(folder.getId());
+            assertThat(otherEntityCache.contains(Folder.class, folder.getId())).isTrue();
+
+            // the listening connections are lost
+            jdbcTemplate.queryForList(
+                "select pg_terminate_backend(pid) from pg_stat_activity where query = 'listen " + CacheInvalidationService.CHANNEL + "'"
+            );
+
+            awaitEviction(() -> !otherEntityCache.contains(Folder.class, folder.getId()));
+        } finally {
+            folderRepository.deleteById(folder.getId());
+        }
+    }
+
+    @Test
+    void evictsOnTheListeningThread() throws InterruptedException {
+        Folder folder = folderRepository.saveAndFlush(new Folder().title("Cached"));
+        jakarta.persistence.Cache entityCache = entityManagerFactory.getCache();
+        try {
+            folderRepository.findById(folder.getId());
+            assertThat(entityCache.contains(Folder.class, folder.getId())).isTrue();
+
+            // written behind the back of Hibernate, and evicted once notified, within batch-delay
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                jdbcTemplate.update("update folder set title = 'Changed' where id = ?", folder.getId())
+            );
+
+            await(() -> !entityCache.contains(Folder.class, folder.getId()));
+        } finally {
+            folderRepository.deleteById(folder.getId());
+        }
+    }
+
+    @Test
+    void coalescesInvalidationsIntoBatches() {
+        List<CacheInvalidationEvent> events = new ArrayList<>();
+        // not started, so that it only evicts what the test tells it it received
+        CacheInvalidationService service = new CacheInvalidationService(
+            dataSourceProperties,
+            entityManagerFactory,
+            cacheManager,
+            event -> events.add((CacheInvalidationEvent) event),
+            applicationProperties
+        );
+        service.received("Document:1 Document:2 Folder:1");
+        service.received("Document:1");
+        service.received("User:1 User.login:cache-invalidation User.email:cache-invalidation@localhost");
+
+        assertThat(service.evictPending()).isEqualTo(6);
+        assertThat(service.evictPending()).isZero();
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).all()).isFalse();
+        assertThat(events.get(0).ids(CacheInvalidationService.DOCUMENT)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(events.get(0).ids(CacheInvalidationService.FOLDER)).containsExactly(1L);
+    }
+
+    /**
+     * Let the other node evict what it received until the condition holds.
+     */
+    private void awaitEviction(BooleanSupplier evicted) throws InterruptedException {
+        await(() -> {
+            otherInvalidationService.evictPending();
+            return evicted.getAsBoolean();
+        });
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("waited for").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package br.com.reactit.docmanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import br.com.reactit.docmanagement.IntegrationTest;
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import br.com.reactit.docmanagement.domain.Document;
+import br.com.reactit.docmanagement.repository.DocumentContentRepository.ContentDescriptor;
+import br.com.reactit.docmanagement.repository.DocumentRepository;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Benchmark of the download throughput of a small set of hot contents held in the database, read from the database on
+ * every download, then served from the {@link DocumentContentCache}. It only runs with {@code -Dbenchmark=true}.
+ */
+@IntegrationTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class DocumentContentCacheBenchmarkIT {
+
+    private static final int DOCUMENTS = 20;
+
+    private static final int CONTENT_SIZE = 256 * 1024;
+
+    private static final int DOWNLOADS = 2000;
+
+    private final Logger log = LoggerFactory.getLogger(DocumentContentCacheBenchmarkIT.class);
+
+    @Autowired
+    private DocumentContentService documentContentService;
+
+    @Autowired
+    private DocumentContentCache documentContentCache;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.MINUTES)
+    @Transactional
+    void cachedDownloadsAreFaster() {
+        Random random = new Random(42);
+        List<ContentDescriptor> descriptors = new ArrayList<>();
+        for (int i = 0; i < DOCUMENTS; i++) {
+            byte[] content = new byte[CONTENT_SIZE];
+            random.nextBytes(content);
+            Document document = documentRepository.saveAndFlush(
+                new Document().title("Template " + i).dataContentType("application/pdf").uploaded(Instant.now()).data(content)
+            );
+            descriptors.add(documentContentService.findDescriptor(document.getId()).orElseThrow());
+        }
+        ApplicationProperties.Content.Cache properties = applicationProperties.getContent().getCache();
+        boolean enabled = properties.isEnabled();
+        try {
+            properties.setEnabled(false);
+            double uncached = throughput(descriptors);
+            properties.setEnabled(true);
+            documentContentCache.invalidateAll();
+            double cached = throughput(descriptors);
+            log.info(
+                "Download throughput of {} contents of {} bytes: {} MB/s uncached, {} MB/s cached",
+                DOCUMENTS,
+                CONTENT_SIZE,
+                String.format("%.1f", uncached),
+                String.format("%.1f", cached)
+            );
+
+            assertThat(cached).isGreaterThan(uncached * 2);
+        } finally {
+            properties.setEnabled(enabled);
+        }
+    }
+
+    /**
+     * @return the throughput of random downloads of the contents, in MB/s, once warmed up.
+     */
+    private double throughput(List<ContentDescriptor> descriptors) {
+        Random random = new Random(42);
+        // warm up
+        for (int i = 0; i < DOCUMENTS * 5; i++) {
+            download(descriptors.get(i % DOCUMENTS));
+        }
+        long bytes = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < DOWNLOADS; i++) {
+            bytes += download(descriptors.get(random.nextInt(DOCUMENTS)));
+        }
+        return bytes / 1e6 / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private long download(ContentDescriptor descriptor) {
+        long downloaded = documentContentService.downloadContent(descriptor, 0, descriptor.length(), OutputStream.nullOutputStream());
+        assertThat(downloaded).isEqualTo(CONTENT_SIZE);
+        return downloaded;
+    }
+}
@@ -0,0 +1,195 @@
+package br.com.reactit.docmanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import br.com.reactit.docmanagement.management.DocumentContentCacheMetersService;
+import br.com.reactit.docmanagement.repository.DocumentContentRepository.ContentDescriptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DocumentContentCacheTest {
+
+    private static final int MAX_SIZE = 64 * 1024;
+
+    private static final int MAX_ENTRY_SIZE = 16 * 1024;
+
+    private ApplicationProperties applicationProperties;
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getContent().getCache().setMaxSize(MAX_SIZE);
+        applicationProperties.getContent().getCache().setMaxEntrySize(MAX_ENTRY_SIZE);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testContentIsCachedByVersion() throws Exception {
+        DocumentContentCache cache = newCache();
+        byte[] content = randomContent(1000);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.get(descriptor(1L, 1000, 0), () -> load(content, loads))).isEqualTo(ByteBuffer.wrap(content));
+        assertThat(cache.get(descriptor(1L, 1000, 0), () -> load(content, loads))).isEqualTo(ByteBuffer.wrap(content));
+        assertThat(loads).hasValue(1);
+        cache.get(descriptor(1L, 1000, 1), () -> load(content, loads));
+        assertThat(loads).hasValue(2);
+        assertThat(meterRegistry.get(DocumentContentCacheMetersService.HIT_RATIO_METER_NAME).gauge().value()).isEqualTo(1 / 3d);
+        assertThat(meterRegistry.get(DocumentContentCacheMetersService.SIZE_METER_NAME).gauge().value()).isEqualTo(2000);
+    }
+
+    @Test
+    void testConcurrentMissesLoadOnce() throws Exception {
+        DocumentContentCache cache = newCache();
+        byte[] content = randomContent(1000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ByteBuffer>> downloads = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                downloads.add(
+                    executor.submit(() -> {
+                        start.await();
+                        return cache.get(
+                            descriptor(1L, 1000, 0),
+                            () -> {
+                                LockSupport.parkNanos(100_000_000);
+                                return load(content, loads);
+                            }
+                        );
+                    })
+                );
+            }
+            start.countDown();
+            for (Future<ByteBuffer> download : downloads) {
+                assertThat(download.get()).isEqualTo(ByteBuffer.wrap(content));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void testReplacedContentIsNotCached() throws Exception {
+        DocumentContentCache cache = newCache();
+        byte[] replaced = randomContent(999);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.get(descriptor(1L, 1000, 0), () -> load(replaced, loads))).isEqualTo(ByteBuffer.wrap(replaced));
+        cache.get(descriptor(1L, 1000, 0), () -> load(replaced, loads));
+        assertThat(loads).hasValue(2);
+        assertThat(meterRegistry.get(DocumentContentCacheMetersService.SIZE_METER_NAME).gauge().value()).isZero();
+    }
+
+    @Test
+    void testOnlySmallContentsAreAccepted() {
+        DocumentContentCache cache = newCache();
+
+        assertThat(cache.accepts(descriptor(1L, MAX_ENTRY_SIZE, 0))).isTrue();
+        assertThat(cache.accepts(descriptor(1L, MAX_ENTRY_SIZE + 1, 0))).isFalse();
+        assertThat(cache.accepts(descriptor(1L, -1, 0))).isFalse();
+
+        applicationProperties.getContent().getCache().setEnabled(false);
+        assertThat(cache.accepts(descriptor(1L, 1000, 0))).isFalse();
+    }
+
+    @Test
+    void testMemoryBudgetIsEnforced() {
+        DocumentContentCache cache = newCache();
+
+        for (long id = 1; id <= 20; id++) {
+            cache.put(descriptor(id, MAX_ENTRY_SIZE, 0), randomContent(MAX_ENTRY_SIZE));
+            assertThat(meterRegistry.get(DocumentContentCacheMetersService.SIZE_METER_NAME).gauge().value()).isLessThanOrEqualTo(MAX_SIZE);
+        }
+        assertThat(meterRegistry.get(DocumentContentCacheMetersService.ENTRIES_METER_NAME).gauge().value())
+            .isLessThanOrEqualTo(MAX_SIZE / MAX_ENTRY_SIZE);
+    }
+
+    @Test
+    void testContentsAreInvalidatedWhateverTheirVersion() throws Exception {
+        DocumentContentCache cache = newCache();
+        cache.put(descriptor(1L, 100, 0), randomContent(100));
+        cache.put(descriptor(1L, 100, 1), randomContent(100));
+        cache.put(descriptor(2L, 100, 0), randomContent(100));
+
+        cache.invalidate(Set.of(1L));
+        assertThat(isCached(cache, descriptor(1L, 100, 0))).isFalse();
+        assertThat(isCached(cache, descriptor(1L, 100, 1))).isFalse();
+        assertThat(isCached(cache, descriptor(2L, 100, 0))).isTrue();
+
+        cache.onCacheInvalidation(new CacheInvalidationEvent(Set.of(), true));
+        assertThat(meterRegistry.get(DocumentContentCacheMetersService.SIZE_METER_NAME).gauge().value()).isZero();
+        assertThat(isCached(cache, descriptor(2L, 100, 0))).isFalse();
+    }
+
+    @Test
+    void testRangeIsCopiedFromHeapAndDirectBuffers() throws Exception {
+        byte[] content = randomContent(200_000);
+        applicationProperties.getContent().getCache().setMaxEntrySize(content.length);
+        applicationProperties.getContent().getCache().setMaxSize(content.length);
+        for (boolean offHeap : new boolean[] { false, true }) {
+            applicationProperties.getContent().getCache().setOffHeap(offHeap);
+            ByteBuffer cached = newCache().put(descriptor(1L, content.length, 0), content);
+            assertThat(cached.isDirect()).isEqualTo(offHeap);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertThat(DocumentContentCache.copy(cached, 100, 150_000, out)).isEqualTo(150_000);
+            assertThat(out.toByteArray()).isEqualTo(Arrays.copyOfRange(content, 100, 150_100));
+
+            out.reset();
+            assertThat(DocumentContentCache.copy(cached, 199_900, Long.MAX_VALUE, out)).isEqualTo(100);
+            assertThat(out.toByteArray()).isEqualTo(Arrays.copyOfRange(content, 199_900, 200_000));
+            assertThat(cached.position()).isZero();
+        }
+    }
+
+    private DocumentContentCache newCache() {
+        return new DocumentContentCache(new DocumentContentCacheMetersService(meterRegistry), applicationProperties);
+    }
+
+    /**
+     * Whether a content is cached, which it is afterwards.
+     */
+    private static boolean isCached(DocumentContentCache cache, ContentDescriptor descriptor) throws IOException {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(descriptor, () -> load(new byte[(int) descriptor.length()], loads));
+        return loads.get() == 0;
+    }
+
+    private static byte[] load(byte[] content, AtomicInteger loads) {
+        loads.incrementAndGet();
+        return content;
+    }
+
+    private static ContentDescriptor descriptor(Long id, long length, long version) {
+        return new ContentDescriptor(id, "text/plain", length, null, null, null, length, null, version);
+    }
+
+    private static byte[] randomContent(int length) {
+        byte[] content = new byte[length];
+        new Random(length).nextBytes(content);
+        return content;
+    }
+}
@@ -0,0 +1,250 @@
+package br.com.reactit.docmanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import br.com.reactit.docmanagement.IntegrationTest;
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import br.com.reactit.docmanagement.domain.Document;
+import br.com.reactit.docmanagement.management.DocumentContentCacheMetersService;
+import br.com.reactit.docmanagement.repository.DocumentBlobRepository;
+import br.com.reactit.docmanagement.repository.DocumentContentRepository;
+import br.com.reactit.docmanagement.repository.DocumentContentRepository.ContentDescriptor;
+import br.com.reactit.docmanagement.repository.DocumentRepository;
+import br.com.reactit.docmanagement.service.storage.BlobStore;
+import br.com.reactit.docmanagement.service.storage.ContentCodec;
+import br.com.reactit.docmanagement.service.storage.StoredBlob;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link DocumentContentService}.
+ */
+@IntegrationTest
+@Transactional
+class DocumentContentServiceIT {
+
+    private static final String CONTENT_TYPE = "text/plain";
+
+    @Autowired
+    private DocumentContentService documentContentService;
+
+    @Autowired
+    private DocumentContentMigrationService documentContentMigrationService;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private DocumentContentRepository documentContentRepository;
+
+    @Autowired
+    private DocumentBlobRepository documentBlobRepository;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManager em;
+
+    private byte[] content;
+
+    @BeforeEach
+    public void init() {
+        // unique content, so that reference counts aren't shared with other tests
+        content = ("content " + System.nanoTime()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void assertThatDatabaseContentIsMovedToBlobStore() {
+        Document document = documentRepository.saveAndFlush(newDocument().data(content));
+
+        // the migration walks the documents in batches, and starts over once it reached the end
+        for (int i = 0; i < 10 && hasDatabaseContent(document.getId()); i++) {
+            documentContentMigrationService.migrateBatch();
+        }
+
+        em.clear();
+        Document migrated = documentRepository.findById(document.getId()).orElseThrow();
+        assertThat(migrated.getData()).isNull();
+        assertThat(migrated.getDataSha256()).isNotNull();
+        assertThat(migrated.getDataSize()).isEqualTo(content.length);
+        assertThat(migrated.getDataContentType()).isEqualTo(CONTENT_TYPE);
+        assertThat(refCount(migrated.getDataSha256())).isEqualTo(1);
+        assertThat(readContent(document.getId())).isEqualTo(content);
+    }
+
+    @Test
+    void assertThatIdenticalContentsShareOneBlob() {
+        Document first = documentRepository.saveAndFlush(newDocument());
+        Document second = documentRepository.saveAndFlush(newDocument());
+
+        assertThat(documentContentService.replaceContent(first.getId(), new ByteArrayInputStream(content), -1, CONTENT_TYPE)).isTrue();
+        assertThat(documentContentService.replaceContent(second.getId(), new ByteArrayInputStream(content), -1, CONTENT_TYPE)).isTrue();
+
+        String sha256 = documentContentService.findDescriptor(first.getId()).orElseThrow().sha256();
+        assertThat(documentContentService.findDescriptor(second.getId()).orElseThrow().sha256()).isEqualTo(sha256);
+        assertThat(refCount(sha256)).isEqualTo(2);
+
+        documentContentService.releaseContent(first.getId());
+        assertThat(refCount(sha256)).isEqualTo(1);
+        assertThat(readContent(second.getId())).isEqualTo(content);
+    }
+
+    @Test
+    void assertThatReleasedBlobIsPurged() {
+        Document document = documentRepository.saveAndFlush(newDocument());
+        documentContentService.replaceContent(document.getId(), new ByteArrayInputStream(content), -1, CONTENT_TYPE);
+        String sha256 = documentContentService.findDescriptor(document.getId()).orElseThrow().sha256();
+
+        documentContentService.releaseContent(document.getId());
+        documentContentService.purgeReleasedBlobs();
+        assertThat(refCount(sha256)).isZero();
+
+        jdbcTemplate.update(
+            "update document_blob set released = ? where sha256 = ?",
+            LocalDateTime.ofInstant(Instant.now().minus(2, ChronoUnit.DAYS), ZoneOffset.UTC),
+            sha256
+        );
+        documentContentService.purgeReleasedBlobs();
+        assertThat(jdbcTemplate.queryForList("select sha256 from document_blob where sha256 = ?", String.class, sha256)).isEmpty();
+    }
+
+    @Test
+    void assertThatCompressibleContentIsStoredCompressed() {
+        byte[] text = compressibleContent();
+        Document document = documentRepository.saveAndFlush(newDocument());
+
+        documentContentService.replaceContent(document.getId(), new ByteArrayInputStream(text), -1, CONTENT_TYPE);
+
+        ContentDescriptor descriptor = documentContentService.findDescriptor(document.getId()).orElseThrow();
+        assertThat(descriptor.codec()).isEqualTo(ContentCodec.DEFLATE.getContentEncoding());
+        assertThat(descriptor.length()).isEqualTo(text.length);
+        assertThat(descriptor.storedLength()).isLessThan(text.length / 10);
+        assertThat(readContent(document.getId())).isEqualTo(text);
+        assertThat(readContent(document.getId(), 100, 50)).isEqualTo(Arrays.copyOfRange(text, 100, 150));
+    }
+
+    @Test
+    void assertThatUncodedBlobIsRecompressed() throws Exception {
+        byte[] text = compressibleContent();
+        Document document = documentRepository.saveAndFlush(newDocument());
+        // a blob stored as is, before codecs were introduced
+        StoredBlob blob = blobStore.put(new ByteArrayInputStream(text));
+        documentBlobRepository.acquire(blob.sha256(), blob.size());
+        documentContentRepository.updateContentBlob(document.getId(), blob.sha256(), blob.size(), null, CONTENT_TYPE, Instant.now());
+        assertThat(documentContentService.findIdsWithUncodedContent(document.getId() - 1, 1)).containsExactly(document.getId());
+
+        assertThat(documentContentService.recompress(document.getId())).isPositive();
+
+        ContentDescriptor descriptor = documentContentService.findDescriptor(document.getId()).orElseThrow();
+        assertThat(descriptor.codec()).isEqualTo(ContentCodec.DEFLATE.getContentEncoding());
+        assertThat(descriptor.sha256()).isNotEqualTo(blob.sha256());
+        assertThat(refCount(blob.sha256())).isZero();
+        assertThat(refCount(descriptor.sha256())).isEqualTo(1);
+        assertThat(readContent(document.getId())).isEqualTo(text);
+        assertThat(documentContentService.findIdsWithUncodedContent(document.getId() - 1, 1)).isEmpty();
+        assertThat(documentContentService.recompress(document.getId())).isEqualTo(-1);
+    }
+
+    @Test
+    void assertThatDownloadedContentIsServedFromMemory() {
+        Document document = documentRepository.saveAndFlush(newDocument().data(content));
+        double hits = cacheRequests("hit");
+
+        assertThat(downloadContent(document.getId(), 0, content.length)).isEqualTo(content);
+        assertThat(cacheRequests("hit")).isEqualTo(hits);
+
+        assertThat(downloadContent(document.getId(), 2, 5)).isEqualTo(Arrays.copyOfRange(content, 2, 7));
+        assertThat(downloadContent(document.getId(), 0, content.length)).isEqualTo(content);
+        assertThat(cacheRequests("hit")).isEqualTo(hits + 2);
+    }
+
+    @Test
+    void assertThatReplacedContentIsDownloadedAgain() {
+        Document document = documentRepository.saveAndFlush(newDocument());
+        documentContentService.replaceContent(document.getId(), new ByteArrayInputStream(content), -1, CONTENT_TYPE);
+        assertThat(downloadContent(document.getId(), 0, content.length)).isEqualTo(content);
+
+        byte[] replaced = ("replaced " + System.nanoTime()).getBytes(StandardCharsets.UTF_8);
+        documentContentService.replaceContent(document.getId(), new ByteArrayInputStream(replaced), -1, CONTENT_TYPE);
+
+        assertThat(downloadContent(document.getId(), 0, replaced.length)).isEqualTo(replaced);
+    }
+
+    @Test
+    void assertThatLargeContentBypassesTheCache() {
+        Document document = documentRepository.saveAndFlush(newDocument().data(content));
+        ApplicationProperties.Content.Cache properties = applicationProperties.getContent().getCache();
+        long maxEntrySize = properties.getMaxEntrySize();
+        properties.setMaxEntrySize(content.length - 1);
+        try {
+            double requests = cacheRequests("hit") + cacheRequests("miss");
+
+            assertThat(downloadContent(document.getId(), 0, content.length)).isEqualTo(content);
+            assertThat(downloadContent(document.getId(), 0, content.length)).isEqualTo(content);
+            assertThat(cacheRequests("hit") + cacheRequests("miss")).isEqualTo(requests);
+        } finally {
+            properties.setMaxEntrySize(maxEntrySize);
+        }
+    }
+
+    private byte[] compressibleContent() {
+        return (System.nanoTime() + "\n" + "id;title\n1;AAAAAAAAAA\n".repeat(500)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Document newDocument() {
+        return new Document().title("title").dataContentType(CONTENT_TYPE).uploaded(Instant.now());
+    }
+
+    private boolean hasDatabaseContent(Long id) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("select data is not null from document where id = ?", Boolean.class, id));
+    }
+
+    private Integer refCount(String sha256) {
+        return jdbcTemplate.queryForObject("select ref_count from document_blob where sha256 = ?", Integer.class, sha256);
+    }
+
+    private byte[] readContent(Long id) {
+        return readContent(id, 0, documentContentService.findDescriptor(id).orElseThrow().length());
+    }
+
+    private byte[] downloadContent(Long id, long offset, long length) {
+        ContentDescriptor descriptor = documentContentService.findDescriptor(id).orElseThrow();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        documentContentService.downloadContent(descriptor, offset, length, out);
+        return out.toByteArray();
+    }
+
+    private double cacheRequests(String result) {
+        return meterRegistry.get(DocumentContentCacheMetersService.REQUESTS_METER_NAME).tag("result", result).counter().count();
+    }
+
+    private byte[] readContent(Long id, long offset, long length) {
+        ContentDescriptor descriptor = documentContentService.findDescriptor(id).orElseThrow();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        documentContentService.copyContent(descriptor, offset, length, out);
+        return out.toByteArray();
+    }
+}
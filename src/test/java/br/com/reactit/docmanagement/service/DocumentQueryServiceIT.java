@@ -0,0 +1,149 @@
+package br.com.reactit.docmanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import br.com.reactit.docmanagement.IntegrationTest;
+import br.com.reactit.docmanagement.config.RecordingStatementInspector;
+import br.com.reactit.docmanagement.domain.Document;
+import br.com.reactit.docmanagement.domain.Folder;
+import br.com.reactit.docmanagement.service.criteria.DocumentCriteria;
+import br.com.reactit.docmanagement.web.rest.TestUtil;
+import jakarta.persistence.EntityManager;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link DocumentQueryService}, checking that the criteria are translated to statements served by
+ * indexes rather than sequential scans of the documents.
+ */
+@IntegrationTest
+@Transactional
+class DocumentQueryServiceIT {
+
+    private static final Instant UPLOADED = Instant.parse("2024-03-04T10:00:00Z");
+
+    @Autowired
+    private DocumentQueryService documentQueryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager em;
+
+    private Folder folder;
+
+    private Document report;
+
+    private Document picture;
+
+    @BeforeEach
+    public void initTest() {
+        folder = new Folder().title("Reports").created(UPLOADED);
+        em.persist(folder);
+        report = createDocument("Annual_report 2023", "application/pdf", UPLOADED);
+        picture = createDocument("Annual picnic", "image/png", UPLOADED.plusSeconds(3600));
+        em.flush();
+    }
+
+    @Test
+    void findByFolder() {
+        List<Document> documents = find(criteria -> criteria.folderId().setEquals(folder.getId()));
+
+        assertThat(documents).containsExactlyInAnyOrder(report, picture);
+    }
+
+    @Test
+    void findByUploadedRange() {
+        List<Document> documents = find(criteria ->
+            criteria.uploaded().setGreaterThanOrEqual(UPLOADED.plusSeconds(1)).setLessThan(UPLOADED.plusSeconds(7200))
+        );
+
+        assertThat(documents).contains(picture).doesNotContain(report);
+    }
+
+    @Test
+    void findByContentType() {
+        List<Document> documents = find(criteria -> criteria.dataContentType().setEquals("application/pdf"));
+
+        assertThat(documents).contains(report).doesNotContain(picture);
+    }
+
+    @Test
+    void findByTitlePrefixIgnoringCase() {
+        assertThat(find(criteria -> criteria.title().setStartsWith("annual"))).contains(report, picture);
+        assertThat(find(criteria -> criteria.title().setStartsWith("ANNUAL_"))).contains(report).doesNotContain(picture);
+        assertThat(find(criteria -> criteria.title().setStartsWith("annual%"))).doesNotContain(report, picture);
+    }
+
+    @Test
+    void findByFolderUsesTheIndex() {
+        assertThat(plan(criteria -> criteria.folderId().setEquals(folder.getId()), folder.getId().toString()))
+            .contains("idx_document_folder_id")
+            .doesNotContain("Seq Scan on document");
+    }
+
+    @Test
+    void findByUploadedRangeUsesTheIndex() {
+        assertThat(
+            plan(
+                criteria -> criteria.uploaded().setGreaterThanOrEqual(UPLOADED).setLessThan(UPLOADED.plusSeconds(7200)),
+                "2024-03-04 10:00:00",
+                "2024-03-04 12:00:00"
+            )
+        )
+            .contains("idx_document_uploaded_id")
+            .doesNotContain("Seq Scan on document");
+    }
+
+    @Test
+    void findByContentTypeUsesTheIndex() {
+        assertThat(plan(criteria -> criteria.dataContentType().setEquals("application/pdf"), "application/pdf"))
+            .contains("idx_document_data_content_type")
+            .doesNotContain("Seq Scan on document");
+    }
+
+    @Test
+    void findByTitlePrefixUsesTheIndex() {
+        assertThat(plan(criteria -> criteria.title().setStartsWith("annual"), "ANNUAL%"))
+            .contains("idx_document_upper_title")
+            .doesNotContain("Seq Scan on document");
+    }
+
+    /**
+     * Find the documents matching criteria.
+     */
+    private List<Document> find(Consumer<DocumentCriteria> filter) {
+        DocumentCriteria criteria = new DocumentCriteria();
+        filter.accept(criteria);
+        return documentQueryService.findByCriteria(criteria);
+    }
+
+    /**
+     * Explain the statement the criteria are translated to, as executed with parameters.
+     */
+    private String plan(Consumer<DocumentCriteria> filter, String... parameters) {
+        RecordingStatementInspector.start();
+        find(filter);
+        List<String> statements = RecordingStatementInspector.stop();
+        assertThat(statements).hasSize(1);
+        return TestUtil.explain(jdbcTemplate, statements.get(0), parameters);
+    }
+
+    private Document createDocument(String title, String contentType, Instant uploaded) {
+        Document document = new Document()
+            .title(title)
+            .data(new byte[] { 1 })
+            .dataContentType(contentType)
+            .uploaded(uploaded)
+            .folder(folder);
+        em.persist(document);
+        return document;
+    }
+}
@@ -0,0 +1,195 @@
+package br.com.reactit.docmanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import br.com.reactit.docmanagement.IntegrationTest;
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import br.com.reactit.docmanagement.domain.Document;
+import br.com.reactit.docmanagement.domain.DocumentText;
+import br.com.reactit.docmanagement.domain.DocumentText.Status;
+import br.com.reactit.docmanagement.repository.DocumentRepository;
+import br.com.reactit.docmanagement.repository.DocumentSearchRepository;
+import br.com.reactit.docmanagement.repository.DocumentTextRepository;
+import br.com.reactit.docmanagement.service.storage.ContentCodec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link TextExtractionService}.
+ */
+@IntegrationTest
+@Transactional
+class TextExtractionServiceIT {
+
+    private static final String TEXT_PLAIN = "text/plain";
+
+    private static final String DOCX = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+
+    @Autowired
+    private TextExtractionService textExtractionService;
+
+    @Autowired
+    private DocumentContentService documentContentService;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private DocumentTextRepository documentTextRepository;
+
+    @Autowired
+    private DocumentSearchRepository documentSearchRepository;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Test
+    void assertThatPlainTextIsExtractedCompressedAndSearchable() {
+        String text = "The quarzenthal turbine was inspected. " + "Nothing else to report. ".repeat(100);
+        Document document = saveDocument(text.getBytes(StandardCharsets.UTF_8), TEXT_PLAIN);
+
+        DocumentText documentText = textExtractionService.extract(document.getId()).orElseThrow();
+
+        assertThat(documentText.status()).isEqualTo(Status.EXTRACTED);
+        assertThat(documentText.textCodec()).isEqualTo(ContentCodec.ZSTD.getContentEncoding());
+        assertThat(documentText.text().length).isLessThan(text.length() / 10);
+        assertThat(documentText.contentKey()).isEqualTo(documentContentService.findDescriptor(document.getId()).orElseThrow().sha256());
+        assertThat(textExtractionService.findText(document.getId()))
+            .hasValueSatisfying(extracted -> assertThat(extracted).contains("quarzenthal"));
+        assertThat(documentSearchRepository.search("quarzenthal", PageRequest.of(0, 10)).getContent())
+            .extracting("id")
+            .containsExactly(document.getId());
+    }
+
+    @Test
+    void assertThatPdfTextIsExtracted() throws IOException {
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        try (PDDocument pdDocument = new PDDocument()) {
+            PDPage page = new PDPage();
+            pdDocument.addPage(page);
+            try (PDPageContentStream contents = new PDPageContentStream(pdDocument, page)) {
+                contents.beginText();
+                contents.setFont(PDType1Font.HELVETICA, 12);
+                contents.newLineAtOffset(72, 700);
+                contents.showText("Quarzenthal maintenance schedule");
+                contents.endText();
+            }
+            pdDocument.save(pdf);
+        }
+        Document document = saveDocument(pdf.toByteArray(), "application/pdf");
+
+        assertThat(textExtractionService.extract(document.getId()).orElseThrow().status()).isEqualTo(Status.EXTRACTED);
+
+        assertThat(textExtractionService.findText(document.getId()))
+            .hasValueSatisfying(text -> assertThat(text).contains("Quarzenthal maintenance schedule"));
+    }
+
+    @Test
+    void assertThatWordTextIsExtracted() throws IOException {
+        ByteArrayOutputStream docx = new ByteArrayOutputStream();
+        try (XWPFDocument wordDocument = new XWPFDocument()) {
+            wordDocument.createParagraph().createRun().setText("Quarzenthal meeting minutes");
+            wordDocument.write(docx);
+        }
+        Document document = saveDocument(docx.toByteArray(), DOCX);
+
+        assertThat(textExtractionService.extract(document.getId()).orElseThrow().status()).isEqualTo(Status.EXTRACTED);
+
+        assertThat(textExtractionService.findText(document.getId()))
+            .hasValueSatisfying(text -> assertThat(text).contains("Quarzenthal meeting minutes"));
+    }
+
+    @Test
+    void assertThatUnsupportedContentIsSkipped() {
+        Document document = saveDocument(new byte[] { 1, 2, 3 }, "image/png");
+
+        DocumentText documentText = textExtractionService.extract(document.getId()).orElseThrow();
+
+        assertThat(documentText.status()).isEqualTo(Status.SKIPPED);
+        assertThat(documentText.text()).isNull();
+        assertThat(textExtractionService.findText(document.getId())).isEmpty();
+        // not retried until the content changes
+        assertThat(documentTextRepository.findIdsWithoutText(document.getId() - 1, 1)).isEmpty();
+    }
+
+    @Test
+    void assertThatLongTextIsTruncated() {
+        ApplicationProperties.Content.Extraction properties = applicationProperties.getContent().getExtraction();
+        int maxCharacters = properties.getMaxCharacters();
+        properties.setMaxCharacters(20);
+        try {
+            Document document = saveDocument("Quarzenthal ".repeat(100).getBytes(StandardCharsets.UTF_8), TEXT_PLAIN);
+
+            DocumentText documentText = textExtractionService.extract(document.getId()).orElseThrow();
+
+            assertThat(documentText.status()).isEqualTo(Status.TRUNCATED);
+            assertThat(documentText.textLength()).isEqualTo(20);
+            assertThat(textExtractionService.findText(document.getId())).hasValue("Quarzenthal Quarzent");
+        } finally {
+            properties.setMaxCharacters(maxCharacters);
+        }
+    }
+
+    @Test
+    void assertThatSlowExtractionTimesOut() {
+        ApplicationProperties.Content.Extraction properties = applicationProperties.getContent().getExtraction();
+        Duration timeout = properties.getTimeout();
+        properties.setTimeout(Duration.ZERO);
+        try {
+            Document document = saveDocument("Quarzenthal".getBytes(StandardCharsets.UTF_8), TEXT_PLAIN);
+
+            DocumentText documentText = textExtractionService.extract(document.getId()).orElseThrow();
+
+            assertThat(documentText.status()).isEqualTo(Status.TIMED_OUT);
+            assertThat(documentText.text()).isNull();
+        } finally {
+            properties.setTimeout(timeout);
+        }
+    }
+
+    @Test
+    void assertThatReplacedContentIsExtractedAgain() {
+        Document document = saveDocument("Quarzenthal draft".getBytes(StandardCharsets.UTF_8), TEXT_PLAIN);
+        assertThat(documentTextRepository.findIdsWithoutText(document.getId() - 1, 1)).containsExactly(document.getId());
+
+        textExtractionService.extract(document.getId());
+        assertThat(documentTextRepository.findIdsWithoutText(document.getId() - 1, 1)).isEmpty();
+
+        replaceContent(document, "Quarzenthal final".getBytes(StandardCharsets.UTF_8), TEXT_PLAIN);
+        assertThat(documentTextRepository.findIdsWithoutText(document.getId() - 1, 1)).containsExactly(document.getId());
+
+        // the test executor extracts synchronously
+        assertThat(textExtractionService.catchUp()).isPositive();
+        assertThat(textExtractionService.findText(document.getId())).hasValueSatisfying(text -> assertThat(text).contains("final"));
+        assertThat(textExtractionService.getAvailableCapacity())
+            .isEqualTo(
+                applicationProperties.getContent().getExtraction().getPoolSize() +
+                applicationProperties.getContent().getExtraction().getQueueCapacity()
+            );
+    }
+
+    private Document saveDocument(byte[] content, String contentType) {
+        Document document = documentRepository.saveAndFlush(
+            new Document().title("Scanned document").dataContentType(contentType).uploaded(Instant.now())
+        );
+        replaceContent(document, content, contentType);
+        return document;
+    }
+
+    private void replaceContent(Document document, byte[] content, String contentType) {
+        documentContentService.replaceContent(document.getId(), new ByteArrayInputStream(content), -1, contentType);
+    }
+}
@@ -0,0 +1,149 @@
+package br.com.reactit.docmanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import br.com.reactit.docmanagement.domain.TitleEntry;
+import br.com.reactit.docmanagement.management.TypeaheadMetersService;
+import br.com.reactit.docmanagement.repository.DocumentRepository;
+import br.com.reactit.docmanagement.repository.FolderRepository;
+import br.com.reactit.docmanagement.service.SearchIndexService.EntryType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Benchmark of {@link TypeaheadService} over a million document titles, checking that the 99th percentile of lookups
+ * stays under 2 ms, with titles changing meanwhile. It only runs with {@code -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TypeaheadServiceBenchmarkTest {
+
+    private static final int TITLES = 1_000_000;
+
+    private static final int ROUNDS = 5;
+
+    private static final int RUNS = 5_000;
+
+    /**
+     * Changes recorded before each round, and merged after it: more than a second of writes would usually bring.
+     */
+    private static final int CHANGES_PER_ROUND = 200;
+
+    private static final String[] WORDS = {
+        "annual",
+        "report",
+        "contract",
+        "invoice",
+        "meeting",
+        "minutes",
+        "budget",
+        "proposal",
+        "relatório",
+        "orçamento",
+        "draft",
+        "final",
+        "review",
+        "policy",
+        "audit",
+        "summary",
+    };
+
+    private final Logger log = LoggerFactory.getLogger(TypeaheadServiceBenchmarkTest.class);
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.MINUTES)
+    void lookupLatencyStaysUnderTwoMilliseconds() {
+        DocumentRepository documentRepository = mock(DocumentRepository.class);
+        FolderRepository folderRepository = mock(FolderRepository.class);
+        when(documentRepository.findTitleEntries(anyLong(), any(Pageable.class)))
+            .thenAnswer(invocation -> titles(invocation.getArgument(0), invocation.<Pageable>getArgument(1).getPageSize()));
+        when(folderRepository.findTitleEntries(anyLong(), any(Pageable.class))).thenReturn(List.of());
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TypeaheadService typeaheadService = new TypeaheadService(
+            documentRepository,
+            folderRepository,
+            new TypeaheadMetersService(meterRegistry),
+            new ApplicationProperties()
+        );
+
+        long start = System.nanoTime();
+        typeaheadService.build();
+        log.info(
+            "Built an index of {} titles in {} ms, holding {} MB",
+            TITLES,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+            (long) meterRegistry.get("search.typeahead.memory").tag("type", "document").gauge().value() >> 20
+        );
+
+        Random random = new Random(42);
+        // warm up
+        for (int i = 0; i < RUNS; i++) {
+            typeaheadService.suggest(EntryType.DOCUMENT, prefix(random), 10);
+        }
+        double[] p99s = new double[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < CHANGES_PER_ROUND; i++) {
+                typeaheadService.titleChanged(EntryType.DOCUMENT, (long) random.nextInt(TITLES), title(random.nextInt(TITLES)));
+            }
+            double[] millis = new double[RUNS];
+            for (int i = 0; i < RUNS; i++) {
+                String prefix = prefix(random);
+                long lookupStart = System.nanoTime();
+                typeaheadService.suggest(EntryType.DOCUMENT, prefix, 10);
+                millis[i] = (System.nanoTime() - lookupStart) / 1e6;
+            }
+            typeaheadService.merge();
+            Arrays.sort(millis);
+            p99s[round] = millis[RUNS * 99 / 100];
+            log.info(
+                "Lookup latency: median {} ms, p99 {} ms",
+                String.format("%.3f", millis[RUNS / 2]),
+                String.format("%.3f", p99s[round])
+            );
+        }
+        Arrays.sort(p99s);
+
+        // the median round, as a round may be disturbed by the JIT compiler or the garbage collector on a small machine
+        assertThat(p99s[ROUNDS / 2]).isLessThan(2);
+    }
+
+    private static List<TitleEntry> titles(long after, int size) {
+        List<TitleEntry> page = new ArrayList<>();
+        LongStream.rangeClosed(after + 1, Math.min(after + size, TITLES)).forEach(id -> page.add(new TitleEntry(id, title(id))));
+        return page;
+    }
+
+    private static String title(long id) {
+        return (
+            WORDS[(int) (id % WORDS.length)] +
+            " " +
+            WORDS[(int) (id / WORDS.length % WORDS.length)] +
+            " " +
+            Long.toString(id * 2654435761L % 1_000_000_007L, 36)
+        );
+    }
+
+    /**
+     * Prefixes of one to six letters of a random word, the shortest matching a sixteenth of the titles.
+     */
+    private static String prefix(Random random) {
+        String word = WORDS[random.nextInt(WORDS.length)];
+        return word.substring(0, 1 + random.nextInt(Math.min(6, word.length())));
+    }
+}
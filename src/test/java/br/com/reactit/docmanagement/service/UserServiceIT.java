@@ -6,6 +6,8 @@ import static org.mockito.Mockito.when;
 import br.com.reactit.docmanagement.IntegrationTest;
 import br.com.reactit.docmanagement.domain.User;
 import br.com.reactit.docmanagement.repository.UserRepository;
+import br.com.reactit.docmanagement.service.dto.AdminUserDTO;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
@@ -16,8 +18,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.auditing.AuditingHandler;
 import org.springframework.data.auditing.DateTimeProvider;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import tech.jhipster.security.RandomUtil;
 
@@ -49,6 +54,12 @@ class UserServiceIT {
     @Autowired
     private AuditingHandler auditingHandler;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @MockBean
     private DateTimeProvider dateTimeProvider;
 
@@ -162,6 +173,51 @@ class UserServiceIT {
         assertThat(users).isEmpty();
     }
 
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void assertThatUserIsEvictedFromTheCachesWhenActivated() throws InterruptedException {
+        user.setActivated(false);
+        user.setActivationKey(RandomUtil.generateActivationKey());
+        userRepository.saveAndFlush(user);
+
+        try {
+            assertThat(userRepository.findOneWithAuthoritiesByEmailIgnoreCase(DEFAULT_EMAIL.toUpperCase())).isPresent();
+            awaitCachedLookup();
+
+            userService.activateRegistration(user.getActivationKey());
+
+            assertThat(cache(UserRepository.USERS_BY_LOGIN_CACHE).get(DEFAULT_LOGIN)).isNull();
+            assertThat(cache(UserRepository.USERS_BY_EMAIL_CACHE).get(DEFAULT_EMAIL)).isNull();
+            assertThat(userRepository.findOneWithAuthoritiesByLogin(DEFAULT_LOGIN)).map(User::isActivated).contains(true);
+        } finally {
+            userService.deleteUser(DEFAULT_LOGIN);
+        }
+        assertThat(cache(UserRepository.USERS_BY_LOGIN_CACHE).get(DEFAULT_LOGIN)).isNull();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void assertThatFormerLoginAndEmailAreEvictedFromTheCachesOnUpdate() {
+        userRepository.saveAndFlush(user);
+        AdminUserDTO userDTO = new AdminUserDTO(user);
+        userDTO.setLogin("janedoe");
+        userDTO.setEmail("janedoe@localhost");
+
+        try {
+            assertThat(userRepository.findOneWithAuthoritiesByLogin(DEFAULT_LOGIN)).isPresent();
+            assertThat(userRepository.findOneWithAuthoritiesByEmailIgnoreCase(DEFAULT_EMAIL)).isPresent();
+            assertThat(userRepository.findOneWithAuthoritiesByLogin("janedoe")).isEmpty();
+
+            userService.updateUser(userDTO);
+
+            assertThat(userRepository.findOneWithAuthoritiesByLogin(DEFAULT_LOGIN)).isEmpty();
+            assertThat(userRepository.findOneWithAuthoritiesByEmailIgnoreCase(DEFAULT_EMAIL)).isEmpty();
+            assertThat(userRepository.findOneWithAuthoritiesByLogin("janedoe")).map(User::getEmail).contains("janedoe@localhost");
+        } finally {
+            userService.deleteUser("janedoe");
+        }
+    }
+
     @Test
     @Transactional
     void assertThatNotActivatedUsersWithNullActivationKeyCreatedBefore3DaysAreNotDeleted() {
@@ -178,4 +234,35 @@ class UserServiceIT {
         Optional<User> maybeDbUser = userRepository.findById(dbUser.getId());
         assertThat(maybeDbUser).contains(dbUser);
     }
+
+    private Cache cache(String name) {
+        return cacheManager.getCache(name);
+    }
+
+    /**
+     * Look the user up until the lookup is served from the cache: the listener evicts the user once it receives the
+     * notification of its save, which may come between two lookups.
+     */
+    private void awaitCachedLookup() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (true) {
+            assertThat(userRepository.findOneWithAuthoritiesByLogin(DEFAULT_LOGIN)).map(User::isActivated).contains(false);
+            double hits = usersByLoginHits();
+            assertThat(userRepository.findOneWithAuthoritiesByLogin(DEFAULT_LOGIN)).map(User::isActivated).contains(false);
+            if (usersByLoginHits() == hits + 1) {
+                return;
+            }
+            assertThat(System.currentTimeMillis()).as("waited for a cached lookup").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private double usersByLoginHits() {
+        return meterRegistry
+            .get("cache.gets")
+            .tag("cache", UserRepository.USERS_BY_LOGIN_CACHE)
+            .tag("result", "hit")
+            .functionCounter()
+            .count();
+    }
 }
@@ -0,0 +1,75 @@
+package br.com.reactit.docmanagement.service.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class ContentCodecSelectorTest {
+
+    private static final byte[] TEXT = "id;title;description\n1;AAAAAAAAAA;BBBBBBBBBB\n".repeat(200).getBytes(StandardCharsets.UTF_8);
+
+    private ApplicationProperties applicationProperties;
+
+    private ContentCodecSelector selector;
+
+    @BeforeEach
+    void setup() {
+        applicationProperties = new ApplicationProperties();
+        selector = new ContentCodecSelector(applicationProperties);
+    }
+
+    @Test
+    void testCodecIsPickedFromContentType() {
+        assertThat(selector.select("text/csv", TEXT, TEXT.length)).isEqualTo(ContentCodec.DEFLATE);
+        assertThat(selector.select("text/plain;charset=UTF-8", TEXT, TEXT.length)).isEqualTo(ContentCodec.DEFLATE);
+        assertThat(selector.select("application/xml", TEXT, TEXT.length)).isEqualTo(ContentCodec.ZSTD);
+        assertThat(selector.select("application/atom+xml", TEXT, TEXT.length)).isEqualTo(ContentCodec.ZSTD);
+        assertThat(selector.select("image/tiff", TEXT, TEXT.length)).isEqualTo(ContentCodec.ZSTD);
+        assertThat(selector.select("image/jpeg", TEXT, TEXT.length)).isEqualTo(ContentCodec.IDENTITY);
+        assertThat(selector.select("not a content type", TEXT, TEXT.length)).isEqualTo(ContentCodec.IDENTITY);
+    }
+
+    @Test
+    void testIncompressibleContentIsStoredAsIs() {
+        byte[] random = new byte[4096];
+        new Random(42).nextBytes(random);
+
+        assertThat(selector.select("text/plain", random, random.length)).isEqualTo(ContentCodec.IDENTITY);
+        assertThat(selector.select("text/plain", TEXT, 0)).isEqualTo(ContentCodec.IDENTITY);
+    }
+
+    @Test
+    void testCompressionCanBeDisabled() {
+        applicationProperties.getContent().getCompression().setEnabled(false);
+
+        assertThat(selector.select("text/csv", TEXT, TEXT.length)).isEqualTo(ContentCodec.IDENTITY);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ContentCodec.class)
+    void testCodecRoundTrip(ContentCodec codec) throws Exception {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try (OutputStream out = codec.encode(encoded)) {
+            out.write(TEXT);
+        }
+        try (InputStream in = codec.decode(new ByteArrayInputStream(encoded.toByteArray()))) {
+            assertThat(in.readAllBytes()).isEqualTo(TEXT);
+        }
+        assertThat(ContentCodec.of(codec.getContentEncoding())).isEqualTo(codec);
+    }
+
+    @Test
+    void testUnrecordedCodecIsIdentity() {
+        assertThat(ContentCodec.of(null)).isEqualTo(ContentCodec.IDENTITY);
+    }
+}
@@ -0,0 +1,85 @@
+package br.com.reactit.docmanagement.service.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileSystemBlobStoreTest {
+
+    private static final byte[] CONTENT = "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8);
+    private static final String CONTENT_SHA256 = "d7a8fbb307d7809469ca9abcb0082e4f8d5651e46d3cdb762d02d0bf37c9e592";
+
+    @TempDir
+    private Path directory;
+
+    private FileSystemBlobStore blobStore;
+
+    @BeforeEach
+    void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getContent().getStorage().setDirectory(directory.toString());
+        blobStore = new FileSystemBlobStore(applicationProperties);
+    }
+
+    @Test
+    void testBlobIsKeyedByDigest() throws Exception {
+        StoredBlob blob = blobStore.put(new ByteArrayInputStream(CONTENT));
+
+        assertThat(blob.sha256()).isEqualTo(CONTENT_SHA256);
+        assertThat(blob.size()).isEqualTo(CONTENT.length);
+        assertThat(directory.resolve("d7").resolve("a8").resolve(CONTENT_SHA256)).hasBinaryContent(CONTENT);
+    }
+
+    @Test
+    void testIdenticalContentIsStoredOnce() throws Exception {
+        StoredBlob first = blobStore.put(new ByteArrayInputStream(CONTENT));
+        StoredBlob second = blobStore.write(out -> out.write(CONTENT));
+
+        assertThat(second).isEqualTo(first);
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertThat(files.filter(Files::isRegularFile)).hasSize(1);
+        }
+    }
+
+    @Test
+    void testCopyRange() throws Exception {
+        StoredBlob blob = blobStore.put(new ByteArrayInputStream(CONTENT));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(blobStore.copy(blob.sha256(), 4, 5, out)).isEqualTo(5);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("quick");
+
+        out.reset();
+        assertThat(blobStore.copy(blob.sha256(), 40, 100, out)).isEqualTo(3);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("dog");
+    }
+
+    @Test
+    void testDeleteKeepsRecentlyStoredBlob() throws Exception {
+        StoredBlob blob = blobStore.put(new ByteArrayInputStream(CONTENT));
+
+        assertThat(blobStore.delete(blob.sha256(), Instant.now().minus(1, ChronoUnit.HOURS))).isFalse();
+        assertThat(blobStore.delete(blob.sha256(), Instant.now().plus(1, ChronoUnit.HOURS))).isTrue();
+        assertThatThrownBy(() -> blobStore.copy(blob.sha256(), 0, CONTENT.length, new ByteArrayOutputStream()))
+            .isInstanceOf(NoSuchFileException.class);
+    }
+
+    @Test
+    void testInvalidDigestIsRejected() {
+        assertThatThrownBy(() -> blobStore.copy("../../etc/passwd", 0, 1, new ByteArrayOutputStream()))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,111 @@
+package br.com.reactit.docmanagement.service.typeahead;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import br.com.reactit.docmanagement.service.typeahead.TitleIndex.Match;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TitleIndexTest {
+
+    private TitleIndex index;
+
+    @BeforeEach
+    void setup() {
+        index =
+            new TitleIndex.Builder()
+                .add(1L, "Annual report 2023")
+                .add(2L, "Relatório anual")
+                .add(3L, "Board meeting notes")
+                .add(4L, "Report")
+                .add(5L, "Résumé, reviewed")
+                .build();
+    }
+
+    @Test
+    void testTitlesAreFoundByThePrefixOfAnyWord() {
+        assertThat(ids(lookup("rep"))).containsExactlyInAnyOrder(1L, 4L);
+        assertThat(ids(lookup("an"))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(ids(lookup("meeting no"))).containsExactly(3L);
+        assertThat(ids(lookup("eport"))).isEmpty();
+        assertThat(ids(lookup("zzz"))).isEmpty();
+    }
+
+    @Test
+    void testCaseAndAccentsAreIgnored() {
+        assertThat(ids(lookup(TitleIndex.fold("RELATO")))).containsExactly(2L);
+        assertThat(ids(lookup(TitleIndex.fold("resume")))).containsExactly(5L);
+        assertThat(ids(lookup(TitleIndex.fold("révi")))).containsExactly(5L);
+        assertThat(lookup("resu")).extracting(Match::title).containsExactly("Résumé, reviewed");
+    }
+
+    @Test
+    void testTitlesStartingWithThePrefixRankFirst() {
+        List<Match> matches = lookup("r");
+
+        assertThat(matches.stream().sorted(TitleIndex.RANKING).map(Match::id)).containsExactly(4L, 2L, 5L, 1L);
+    }
+
+    @Test
+    void testEachTitleIsFoundOnce() {
+        TitleIndex repeated = new TitleIndex.Builder().add(1L, "Report of reports, reported").build();
+
+        assertThat(repeated.lookup("report", 10, id -> false)).hasSize(1);
+    }
+
+    @Test
+    void testLookupIsLimitedAndExcludesIds() {
+        assertThat(index.lookup("r", 2, id -> false)).hasSize(2);
+        assertThat(ids(index.lookup("rep", 10, id -> id == 4L))).containsExactly(1L);
+    }
+
+    @Test
+    void testChangesAreMerged() {
+        Map<Long, String> changes = new HashMap<>();
+        changes.put(1L, "Quarterly report");
+        changes.put(3L, null);
+        changes.put(6L, "Annual budget");
+
+        TitleIndex merged = index.merge(changes);
+
+        assertThat(merged.size()).isEqualTo(5);
+        assertThat(ids(merged.lookup("rep", 10, id -> false))).containsExactlyInAnyOrder(1L, 4L);
+        assertThat(ids(merged.lookup("an", 10, id -> false))).containsExactlyInAnyOrder(2L, 6L);
+        assertThat(ids(merged.lookup("quar", 10, id -> false))).containsExactly(1L);
+        assertThat(ids(merged.lookup("board", 10, id -> false))).isEmpty();
+        assertThat(merged.lookup("budg", 10, id -> false)).extracting(Match::title).containsExactly("Annual budget");
+        // the merged index is the one a build would give
+        assertThat(merged.estimatedBytes())
+            .isEqualTo(
+                new TitleIndex.Builder()
+                    .add(2L, "Relatório anual")
+                    .add(4L, "Report")
+                    .add(5L, "Résumé, reviewed")
+                    .add(1L, "Quarterly report")
+                    .add(6L, "Annual budget")
+                    .build()
+                    .estimatedBytes()
+            );
+        // the former index is left unchanged
+        assertThat(ids(lookup("board"))).containsExactly(3L);
+    }
+
+    @Test
+    void testMatchingWordIsFoundAsTheIndexDoes() {
+        assertThat(TitleIndex.matchingWord("annual report", "rep")).isEqualTo(7);
+        assertThat(TitleIndex.matchingWord("annual report", "ann")).isZero();
+        assertThat(TitleIndex.matchingWord("annual report", "nual")).isEqualTo(-1);
+        assertThat(TitleIndex.matchingWord("relatorio anual", "anual")).isEqualTo(10);
+    }
+
+    private List<Match> lookup(String prefix) {
+        return index.lookup(prefix, 10, id -> false);
+    }
+
+    private static List<Long> ids(List<Match> matches) {
+        return matches.stream().map(Match::id).toList();
+    }
+}
@@ -0,0 +1,165 @@
+package br.com.reactit.docmanagement.web.rest;
+
+import static br.com.reactit.docmanagement.security.jwt.JwtAuthenticationTestUtils.BEARER;
+import static br.com.reactit.docmanagement.security.jwt.JwtAuthenticationTestUtils.createValidToken;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import br.com.reactit.docmanagement.DocManagementApp;
+import br.com.reactit.docmanagement.config.AsyncSyncConfiguration;
+import br.com.reactit.docmanagement.config.EmbeddedSQL;
+import br.com.reactit.docmanagement.domain.Document;
+import br.com.reactit.docmanagement.repository.DocumentRepository;
+import br.com.reactit.docmanagement.service.DocumentContentService;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+
+/**
+ * Benchmark of the download of a large content held in the blob store through a running Undertow server, handed to
+ * Undertow as a file channel and sent with {@code sendfile}, then copied through the heap, as a range stopping short of
+ * its end is. It reports the throughput, and the CPU time of the Undertow threads per GB downloaded. It only runs with
+ * {@code -Dbenchmark=true}.
+ */
+@SpringBootTest(classes = { DocManagementApp.class, AsyncSyncConfiguration.class }, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EmbeddedSQL
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class DocumentContentTransferBenchmarkIT {
+
+    /**
+     * Larger than {@code application.content.cache.max-entry-size}, so that copies aren't served from memory.
+     */
+    private static final int CONTENT_SIZE = 32 * 1024 * 1024;
+
+    private static final int DOWNLOADS = 64;
+
+    private final Logger log = LoggerFactory.getLogger(DocumentContentTransferBenchmarkIT.class);
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${jhipster.security.authentication.jwt.base64-secret}")
+    private String jwtKey;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private DocumentContentService documentContentService;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private Document document;
+
+    @BeforeEach
+    public void initTest() {
+        byte[] content = new byte[CONTENT_SIZE];
+        new Random(42).nextBytes(content);
+        document = documentRepository.saveAndFlush(new Document().title("transfer").dataContentType("image/png").uploaded(Instant.now()));
+        documentContentService.replaceContent(document.getId(), new ByteArrayInputStream(content), content.length, "image/png");
+    }
+
+    @AfterEach
+    public void cleanup() {
+        documentContentService.releaseContent(document.getId());
+        documentRepository.deleteById(document.getId());
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.MINUTES)
+    void zeroCopyTransferIsCheaper() throws Exception {
+        // the whole content is transferred, a range one byte short of its end is copied
+        Measure transferred = measure(null, CONTENT_SIZE);
+        Measure copied = measure("bytes=0-" + (CONTENT_SIZE - 2), CONTENT_SIZE - 1);
+        log.info(
+            "Download of {} contents of {} bytes: {} MB/s and {} ms of CPU per GB transferred, {} MB/s and {} ms of CPU per GB copied",
+            DOWNLOADS,
+            CONTENT_SIZE,
+            String.format("%.1f", transferred.throughput()),
+            String.format("%.0f", transferred.cpuPerGigabyte()),
+            String.format("%.1f", copied.throughput()),
+            String.format("%.0f", copied.cpuPerGigabyte())
+        );
+
+        assertThat(transferred.cpuPerGigabyte()).isLessThan(copied.cpuPerGigabyte());
+    }
+
+    /**
+     * @return the throughput and CPU time of downloads of the content, once warmed up.
+     */
+    private Measure measure(String range, long expectedLength) throws Exception {
+        // warm up
+        for (int i = 0; i < DOWNLOADS / 8; i++) {
+            download(range, expectedLength);
+        }
+        long bytes = 0;
+        long cpuStart = serverCpuTime();
+        long start = System.nanoTime();
+        for (int i = 0; i < DOWNLOADS; i++) {
+            bytes += download(range, expectedLength);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double cpuMillis = (serverCpuTime() - cpuStart) / 1e6;
+        return new Measure(bytes / 1e6 / seconds, cpuMillis / (bytes / 1e9));
+    }
+
+    /**
+     * @return the CPU time of the Undertow I/O and worker threads, in nanoseconds.
+     */
+    private long serverCpuTime() {
+        long cpuTime = 0;
+        for (ThreadInfo thread : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (thread != null && thread.getThreadName().startsWith("XNIO-")) {
+                cpuTime += Math.max(threads.getThreadCpuTime(thread.getThreadId()), 0);
+            }
+        }
+        return cpuTime;
+    }
+
+    private long download(String range, long expectedLength) throws Exception {
+        HttpRequest.Builder request = HttpRequest
+            .newBuilder(URI.create("http://localhost:" + port + "/api/documents/" + document.getId() + "/content"))
+            .header(HttpHeaders.AUTHORIZATION, BEARER + createValidToken(jwtKey));
+        if (range != null) {
+            request.header(HttpHeaders.RANGE, range);
+        }
+        HttpResponse<InputStream> response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        long downloaded;
+        try (InputStream body = response.body()) {
+            downloaded = body.transferTo(OutputStream.nullOutputStream());
+        }
+        assertThat(downloaded).isEqualTo(expectedLength);
+        return downloaded;
+    }
+
+    /**
+     * @param throughput the throughput, in MB/s.
+     * @param cpuPerGigabyte the CPU time of the server per GB downloaded, in milliseconds.
+     */
+    private record Measure(double throughput, double cpuPerGigabyte) {}
+}
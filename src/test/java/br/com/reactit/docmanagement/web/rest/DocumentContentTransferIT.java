@@ -0,0 +1,110 @@
+package br.com.reactit.docmanagement.web.rest;
+
+import static br.com.reactit.docmanagement.security.jwt.JwtAuthenticationTestUtils.BEARER;
+import static br.com.reactit.docmanagement.security.jwt.JwtAuthenticationTestUtils.createValidToken;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import br.com.reactit.docmanagement.DocManagementApp;
+import br.com.reactit.docmanagement.config.AsyncSyncConfiguration;
+import br.com.reactit.docmanagement.config.EmbeddedSQL;
+import br.com.reactit.docmanagement.domain.Document;
+import br.com.reactit.docmanagement.repository.DocumentRepository;
+import br.com.reactit.docmanagement.service.DocumentContentService;
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+
+/**
+ * Integration tests for the transfer of document contents by the {@link DocumentResource} REST controller,
+ * through a running Undertow server rather than a mock servlet environment.
+ */
+@SpringBootTest(classes = { DocManagementApp.class, AsyncSyncConfiguration.class }, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EmbeddedSQL
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class DocumentContentTransferIT {
+
+    private static final byte[] CONTENT = new byte[256 * 1024];
+
+    static {
+        new Random().nextBytes(CONTENT);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${jhipster.security.authentication.jwt.base64-secret}")
+    private String jwtKey;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private DocumentContentService documentContentService;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private Document document;
+
+    @BeforeEach
+    public void initTest() {
+        document = documentRepository.saveAndFlush(new Document().title("transfer").dataContentType("image/png").uploaded(Instant.now()));
+        documentContentService.replaceContent(document.getId(), new ByteArrayInputStream(CONTENT), CONTENT.length, "image/png");
+    }
+
+    @AfterEach
+    public void cleanup() {
+        documentContentService.releaseContent(document.getId());
+        documentRepository.deleteById(document.getId());
+    }
+
+    @Test
+    void getWholeContent() throws Exception {
+        HttpResponse<byte[]> response = client.send(contentRequest().build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValueAsLong(HttpHeaders.CONTENT_LENGTH)).hasValue(CONTENT.length);
+        assertThat(response.body()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void getContentSuffix() throws Exception {
+        HttpResponse<byte[]> response = client.send(
+            contentRequest().header(HttpHeaders.RANGE, "bytes=1000-").build(),
+            HttpResponse.BodyHandlers.ofByteArray()
+        );
+
+        assertThat(response.statusCode()).isEqualTo(206);
+        assertThat(response.body()).isEqualTo(Arrays.copyOfRange(CONTENT, 1000, CONTENT.length));
+    }
+
+    @Test
+    void getContentRange() throws Exception {
+        HttpResponse<byte[]> response = client.send(
+            contentRequest().header(HttpHeaders.RANGE, "bytes=1000-1999").build(),
+            HttpResponse.BodyHandlers.ofByteArray()
+        );
+
+        assertThat(response.statusCode()).isEqualTo(206);
+        assertThat(response.body()).isEqualTo(Arrays.copyOfRange(CONTENT, 1000, 2000));
+    }
+
+    private HttpRequest.Builder contentRequest() {
+        return HttpRequest
+            .newBuilder(URI.create("http://localhost:" + port + "/api/documents/" + document.getId() + "/content"))
+            .header(HttpHeaders.AUTHORIZATION, BEARER + createValidToken(jwtKey));
+    }
+}
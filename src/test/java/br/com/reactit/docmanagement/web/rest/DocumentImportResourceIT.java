@@ -0,0 +1,299 @@
+package br.com.reactit.docmanagement.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import br.com.reactit.docmanagement.IntegrationTest;
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import br.com.reactit.docmanagement.domain.Document;
+import br.com.reactit.docmanagement.domain.Folder;
+import br.com.reactit.docmanagement.repository.DocumentRepository;
+import br.com.reactit.docmanagement.repository.FolderRepository;
+import br.com.reactit.docmanagement.service.DocumentContentService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link DocumentImportResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class DocumentImportResourceIT {
+
+    private static final String ENTITY_API_URL = "/api/document-imports";
+    private static final String ENTITY_API_URL_ID = ENTITY_API_URL + "/{id}";
+
+    /**
+     * More than hibernate.jdbc.batch_size, so that the documents are inserted in several batches.
+     */
+    private static final int FILE_COUNT = 30;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private FolderRepository folderRepository;
+
+    @Autowired
+    private DocumentContentService documentContentService;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper om;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc restDocumentImportMockMvc;
+
+    private Folder folder;
+
+    private ApplicationProperties.Content.BulkImport defaultProperties;
+
+    @BeforeEach
+    public void initTest() {
+        folder = FolderResourceIT.createEntity(em);
+        ApplicationProperties.Content.BulkImport properties = applicationProperties.getContent().getBulkImport();
+        defaultProperties = new ApplicationProperties.Content.BulkImport();
+        defaultProperties.setMaxArchiveSize(properties.getMaxArchiveSize());
+        defaultProperties.setMaxEntries(properties.getMaxEntries());
+        defaultProperties.setMaxEntrySize(properties.getMaxEntrySize());
+    }
+
+    @AfterEach
+    public void restoreProperties() {
+        ApplicationProperties.Content.BulkImport properties = applicationProperties.getContent().getBulkImport();
+        properties.setMaxArchiveSize(defaultProperties.getMaxArchiveSize());
+        properties.setMaxEntries(defaultProperties.getMaxEntries());
+        properties.setMaxEntrySize(defaultProperties.getMaxEntrySize());
+    }
+
+    @Test
+    @Transactional
+    void importZipArchive() throws Exception {
+        folderRepository.saveAndFlush(folder);
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            zip.putNextEntry(new ZipEntry("files/"));
+            for (int i = 0; i < FILE_COUNT; i++) {
+                zip.putNextEntry(new ZipEntry("files/file-" + i + ".txt"));
+                zip.write(content(i));
+            }
+        }
+
+        JsonNode result = importArchive(archive.toByteArray());
+
+        assertThat(result.get("status").asText()).isEqualTo("COMPLETED");
+        assertThat(result.get("documents").asLong()).isEqualTo(FILE_COUNT);
+        assertThat(result.get("skippedEntries").asLong()).isEqualTo(1);
+        assertThat(result.get("archiveBytesRead").asLong()).isEqualTo(archive.size());
+        List<Document> documents = importedDocuments();
+        assertThat(documents).hasSize(FILE_COUNT);
+        Document document = documents.get(FILE_COUNT - 1);
+        assertThat(document.getTitle()).isEqualTo("file-" + (FILE_COUNT - 1) + ".txt");
+        assertThat(document.getDataContentType()).isEqualTo("text/plain");
+        assertThat(document.getDataSize()).isEqualTo(content(FILE_COUNT - 1).length);
+        assertThat(readContent(document)).isEqualTo(content(FILE_COUNT - 1));
+    }
+
+    @Test
+    @Transactional
+    void importTarGzArchive() throws Exception {
+        folderRepository.saveAndFlush(folder);
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GzipCompressorOutputStream(archive))) {
+            byte[] content = content(0);
+            TarArchiveEntry entry = new TarArchiveEntry("report.json");
+            entry.setSize(content.length);
+            tar.putArchiveEntry(entry);
+            tar.write(content);
+            tar.closeArchiveEntry();
+        }
+
+        JsonNode result = importArchive(archive.toByteArray());
+
+        assertThat(result.get("status").asText()).isEqualTo("COMPLETED");
+        List<Document> documents = importedDocuments();
+        assertThat(documents).hasSize(1);
+        assertThat(documents.get(0).getTitle()).isEqualTo("report.json");
+        assertThat(documents.get(0).getDataContentType()).isEqualTo("application/json");
+        assertThat(readContent(documents.get(0))).isEqualTo(content(0));
+    }
+
+    @Test
+    @Transactional
+    void importInvalidArchive() throws Exception {
+        folderRepository.saveAndFlush(folder);
+
+        JsonNode result = importArchive("not an archive".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(result.get("status").asText()).isEqualTo("FAILED");
+        assertThat(result.get("error").asText()).isNotEmpty();
+        assertThat(importedDocuments()).isEmpty();
+    }
+
+    @Test
+    @Transactional
+    void importArchiveLargerThanMaxArchiveSize() throws Exception {
+        folderRepository.saveAndFlush(folder);
+        applicationProperties.getContent().getBulkImport().setMaxArchiveSize(100);
+
+        restDocumentImportMockMvc
+            .perform(post(ENTITY_API_URL).param("folderId", folder.getId().toString()).content(new byte[101]))
+            .andExpect(status().isPayloadTooLarge());
+    }
+
+    @Test
+    @Transactional
+    void importArchiveWithTooManyEntries() throws Exception {
+        folderRepository.saveAndFlush(folder);
+        applicationProperties.getContent().getBulkImport().setMaxEntries(FILE_COUNT - 1);
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            for (int i = 0; i < FILE_COUNT; i++) {
+                zip.putNextEntry(new ZipEntry("file-" + i + ".txt"));
+                zip.write(content(i));
+            }
+        }
+
+        JsonNode result = importArchive(archive.toByteArray());
+
+        assertThat(result.get("status").asText()).isEqualTo("FAILED");
+        assertThat(result.get("error").asText()).isEqualTo("Archive has more than " + (FILE_COUNT - 1) + " entries");
+    }
+
+    @Test
+    @Transactional
+    void importArchiveWithTooLargeEntry() throws Exception {
+        folderRepository.saveAndFlush(folder);
+        applicationProperties.getContent().getBulkImport().setMaxEntrySize(content(1).length - 1);
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            zip.putNextEntry(new ZipEntry("file-0.txt"));
+            zip.write(content(0));
+            zip.putNextEntry(new ZipEntry("file-1.txt"));
+            zip.write(content(1));
+        }
+
+        JsonNode result = importArchive(archive.toByteArray());
+
+        assertThat(result.get("status").asText()).isEqualTo("FAILED");
+        assertThat(result.get("error").asText()).isEqualTo("Entry file-1.txt larger than " + (content(1).length - 1) + " bytes");
+        assertThat(importedDocuments()).isEmpty();
+    }
+
+    @Test
+    @Transactional
+    void importArchiveBombReleasesStoredContents() throws Exception {
+        folderRepository.saveAndFlush(folder);
+        LocalDateTime start = LocalDateTime.ofInstant(Instant.now(), ZoneOffset.UTC);
+        Random random = new Random();
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            for (int i = 0; i < 2; i++) {
+                byte[] content = new byte[1000];
+                random.nextBytes(content);
+                zip.putNextEntry(new ZipEntry("file-" + i + ".bin"));
+                zip.write(content);
+            }
+            // deflates to about a thousandth of its size
+            zip.putNextEntry(new ZipEntry("bomb.bin"));
+            zip.write(new byte[10 * 1024 * 1024]);
+        }
+
+        JsonNode result = importArchive(archive.toByteArray());
+
+        assertThat(result.get("status").asText()).isEqualTo("FAILED");
+        assertThat(result.get("error").asText()).isEqualTo("Archive expands to more than 100 times its size");
+        assertThat(importedDocuments()).isEmpty();
+        assertThat(
+            jdbcTemplate.queryForObject("select count(*) from document_blob where ref_count = 0 and released >= ?", Long.class, start)
+        )
+            .isEqualTo(2);
+    }
+
+    @Test
+    @Transactional
+    void importIntoNonExistingFolder() throws Exception {
+        restDocumentImportMockMvc
+            .perform(post(ENTITY_API_URL).param("folderId", Long.toString(Long.MAX_VALUE)).content(new byte[0]))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getNonExistingDocumentImport() throws Exception {
+        restDocumentImportMockMvc.perform(get(ENTITY_API_URL_ID, "unknown")).andExpect(status().isNotFound());
+    }
+
+    /**
+     * Imports an archive, which the test executor runs synchronously, and returns the progress of the import.
+     */
+    private JsonNode importArchive(byte[] archive) throws Exception {
+        String location = restDocumentImportMockMvc
+            .perform(post(ENTITY_API_URL).param("folderId", folder.getId().toString()).content(archive))
+            .andExpect(status().isAccepted())
+            .andReturn()
+            .getResponse()
+            .getHeader("Location");
+        byte[] progress = restDocumentImportMockMvc
+            .perform(get(location))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.folderId").value(folder.getId()))
+            .andExpect(jsonPath("$.archiveSize").value(archive.length))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+        return om.readTree(progress);
+    }
+
+    private List<Document> importedDocuments() {
+        em.clear();
+        return documentRepository
+            .findAll()
+            .stream()
+            .filter(document -> document.getFolder() != null && folder.getId().equals(document.getFolder().getId()))
+            .sorted(Comparator.comparing(Document::getId))
+            .toList();
+    }
+
+    private byte[] readContent(Document document) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        documentContentService.copyContent(documentContentService.findDescriptor(document.getId()).orElseThrow(), 0, Long.MAX_VALUE, out);
+        return out.toByteArray();
+    }
+
+    private static byte[] content(int i) {
+        return ("Content of file " + i + ". ").repeat(i + 1).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,21 +1,42 @@
 package br.com.reactit.docmanagement.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import br.com.reactit.docmanagement.IntegrationTest;
+import br.com.reactit.docmanagement.config.RecordingStatementInspector;
 import br.com.reactit.docmanagement.domain.Document;
+import br.com.reactit.docmanagement.domain.Folder;
 import br.com.reactit.docmanagement.repository.DocumentRepository;
+import com.jayway.jsonpath.JsonPath;
 import jakarta.persistence.EntityManager;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.InflaterInputStream;
+import javax.imageio.ImageIO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -25,9 +46,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Base64Utils;
 
@@ -50,16 +74,22 @@ class DocumentResourceIT {
     private static final byte[] UPDATED_DATA = TestUtil.createByteArray(1, "1");
     private static final String DEFAULT_DATA_CONTENT_TYPE = "image/jpg";
     private static final String UPDATED_DATA_CONTENT_TYPE = "image/png";
+    private static final byte[] LARGE_DATA = new byte[4096];
 
     private static final Instant DEFAULT_UPLOADED = Instant.ofEpochMilli(0L);
     private static final Instant UPDATED_UPLOADED = Instant.now().truncatedTo(ChronoUnit.MILLIS);
 
     private static final String ENTITY_API_URL = "/api/documents";
     private static final String ENTITY_API_URL_ID = ENTITY_API_URL + "/{id}";
+    private static final String ENTITY_API_URL_CONTENT = ENTITY_API_URL_ID + "/content";
 
     private static Random random = new Random();
     private static AtomicLong longCount = new AtomicLong(random.nextInt() + (2 * Integer.MAX_VALUE));
 
+    static {
+        random.nextBytes(LARGE_DATA);
+    }
+
     @Autowired
     private DocumentRepository documentRepository;
 
@@ -106,6 +136,10 @@ class DocumentResourceIT {
         return document;
     }
 
+    private static String sha256(byte[] data) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+
     @BeforeEach
     public void initTest() {
         document = createEntity(em);
@@ -185,6 +219,144 @@ class DocumentResourceIT {
             .andExpect(jsonPath("$.[*].uploaded").value(hasItem(DEFAULT_UPLOADED.toString())));
     }
 
+    @Test
+    @Transactional
+    void getAllDocumentsWithoutCount() throws Exception {
+        documentRepository.saveAndFlush(createEntity(em));
+        documentRepository.saveAndFlush(createEntity(em));
+        Document last = documentRepository.saveAndFlush(createEntity(em));
+        long total = documentRepository.count();
+
+        restDocumentMockMvc
+            .perform(get(ENTITY_API_URL + "?count=none&size=2&sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().doesNotExist("X-Approximate-Total-Count"))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("page=1&size=2>; rel=\"next\"")))
+            .andExpect(header().string(HttpHeaders.LINK, not(containsString("rel=\"last\""))))
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[0].id").value(last.getId().intValue()));
+
+        restDocumentMockMvc
+            .perform(get(ENTITY_API_URL + "?count=none&eagerload=false&size=" + total))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.LINK, not(containsString("rel=\"next\""))))
+            .andExpect(jsonPath("$.length()").value(total));
+    }
+
+    @Test
+    @Transactional
+    void getAllDocumentsWithApproximateCount() throws Exception {
+        documentRepository.saveAndFlush(createEntity(em));
+        em.createNativeQuery("analyze document").executeUpdate();
+
+        restDocumentMockMvc
+            .perform(get(ENTITY_API_URL + "?count=approximate&size=1"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().string("X-Approximate-Total-Count", Long.toString(documentRepository.count())));
+
+        restDocumentMockMvc.perform(get(ENTITY_API_URL + "?count=maybe")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getAllDocumentsByKeyset() throws Exception {
+        Instant uploaded = Instant.parse("2100-01-01T00:00:00.000001Z");
+        Document first = documentRepository.saveAndFlush(createEntity(em).uploaded(uploaded));
+        Document sameTime = documentRepository.saveAndFlush(createEntity(em).uploaded(uploaded));
+        Document later = documentRepository.saveAndFlush(createEntity(em).uploaded(uploaded.plus(1, ChronoUnit.DAYS)));
+        Document notUploaded = documentRepository.saveAndFlush(createEntity(em).uploaded(null));
+        Document notUploadedEither = documentRepository.saveAndFlush(createEntity(em).uploaded(null));
+        List<Long> ids = List.of(first.getId(), sameTime.getId(), later.getId(), notUploaded.getId(), notUploadedEither.getId());
+        List<Long> reversedIds = new ArrayList<>(ids);
+        Collections.reverse(reversedIds);
+
+        // documents without upload time last in ascending order, first in descending order
+        assertThat(getAllPagesByKeyset("uploaded,asc")).filteredOn(ids::contains).containsExactlyElementsOf(ids);
+        assertThat(getAllPagesByKeyset("uploaded,desc")).filteredOn(ids::contains).containsExactlyElementsOf(reversedIds);
+        assertThat(getAllPagesByKeyset("uploaded,desc&sort=id,desc")).filteredOn(ids::contains).containsExactlyElementsOf(reversedIds);
+        assertThat(getAllPagesByKeyset("id,desc")).isSortedAccordingTo(Comparator.reverseOrder()).containsAll(ids);
+        assertThat(getAllPagesByKeyset("id,asc")).isSorted().containsAll(ids);
+    }
+
+    @Test
+    @Transactional
+    void getAllDocumentsWithInvalidCursor() throws Exception {
+        restDocumentMockMvc.perform(get(ENTITY_API_URL + "?after=garbage")).andExpect(status().isBadRequest());
+        restDocumentMockMvc.perform(get(ENTITY_API_URL + "?after=&sort=title,asc")).andExpect(status().isBadRequest());
+        restDocumentMockMvc.perform(get(ENTITY_API_URL + "?after=&sort=uploaded,asc&sort=id,desc")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getAllDocumentsByCriteria() throws Exception {
+        Folder folder = FolderResourceIT.createEntity(em);
+        em.persist(folder);
+        Document report = documentRepository.saveAndFlush(
+            createEntity(em).title("Quarterly report").dataContentType("application/pdf").folder(folder)
+        );
+        Document picture = documentRepository.saveAndFlush(
+            createEntity(em).title("Quarterly picnic").dataContentType("image/png").folder(folder)
+        );
+        String folderFilter = "?folderId.equals=" + folder.getId();
+
+        restDocumentMockMvc
+            .perform(get(ENTITY_API_URL + folderFilter + "&sort=id,asc"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(jsonPath("$.[*].id").value(contains(report.getId().intValue(), picture.getId().intValue())))
+            .andExpect(jsonPath("$.[0].folder.id").value(folder.getId().intValue()));
+
+        restDocumentMockMvc
+            .perform(get(ENTITY_API_URL + folderFilter + "&title.startsWith=quarterly r"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(report.getId().intValue())));
+
+        restDocumentMockMvc
+            .perform(get(ENTITY_API_URL + folderFilter + "&dataContentType.equals=image/png"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(picture.getId().intValue())));
+
+        restDocumentMockMvc
+            .perform(get(ENTITY_API_URL + folderFilter + "&uploaded.greaterThan=" + DEFAULT_UPLOADED))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(0));
+
+        restDocumentMockMvc
+            .perform(get(ENTITY_API_URL + "/count" + folderFilter + "&title.startsWith=QUARTERLY"))
+            .andExpect(status().isOk())
+            .andExpect(content().string("2"));
+    }
+
+    @Test
+    @Transactional
+    void getAllDocumentsByCriteriaWithoutOffset() throws Exception {
+        restDocumentMockMvc.perform(get(ENTITY_API_URL + "?folderId.equals=1&after=")).andExpect(status().isBadRequest());
+        restDocumentMockMvc.perform(get(ENTITY_API_URL + "?folderId.equals=1&count=none")).andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Follow the {@code Link} headers from the first page on, checking that every document is listed once.
+     */
+    private List<Long> getAllPagesByKeyset(String sort) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        String url = ENTITY_API_URL + "?after=&size=2&sort=" + sort;
+        while (url != null) {
+            MvcResult result = restDocumentMockMvc
+                .perform(get(URI.create(url)))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Total-Count"))
+                .andReturn();
+            List<Number> pageIds = JsonPath.read(result.getResponse().getContentAsString(), "$[*].id");
+            pageIds.forEach(id -> ids.add(id.longValue()));
+            String link = result.getResponse().getHeader(HttpHeaders.LINK);
+            url = link == null ? null : link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+        }
+        assertThat(ids).doesNotHaveDuplicates().hasSize((int) documentRepository.count());
+        return ids;
+    }
+
     @SuppressWarnings({ "unchecked" })
     void getAllDocumentsWithEagerRelationshipsIsEnabled() throws Exception {
         when(documentRepositoryMock.findAllWithEagerRelationships(any())).thenReturn(new PageImpl(new ArrayList<>()));
@@ -228,6 +400,170 @@ class DocumentResourceIT {
         restDocumentMockMvc.perform(get(ENTITY_API_URL_ID, Long.MAX_VALUE)).andExpect(status().isNotFound());
     }
 
+    @Test
+    @Transactional
+    void getNotModifiedDocumentFromItsVersion() throws Exception {
+        // Initialize the database
+        documentRepository.saveAndFlush(document);
+
+        String etag = restDocumentMockMvc
+            .perform(get(ENTITY_API_URL_ID, document.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("no-cache")))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isEqualTo("\"" + document.getVersion() + "-null\"");
+
+        // Revalidation reads the versions alone, not the document
+        RecordingStatementInspector.start();
+        restDocumentMockMvc
+            .perform(get(ENTITY_API_URL_ID, document.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"0-0\", W/" + etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andExpect(content().string(""));
+        List<String> statements = RecordingStatementInspector.stop();
+        assertThat(statements).hasSize(1);
+        assertThat(statements.get(0)).contains("version").doesNotContain("data");
+
+        // A stale entity tag gets the document
+        restDocumentMockMvc
+            .perform(get(ENTITY_API_URL_ID, document.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"0-0\""))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andExpect(jsonPath("$.title").value(DEFAULT_TITLE));
+        restDocumentMockMvc
+            .perform(get(ENTITY_API_URL_ID, Long.MAX_VALUE).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    void getDocumentEntityTagChangesWithItsFolder() throws Exception {
+        // Initialize the database
+        Folder folder = FolderResourceIT.createEntity(em);
+        em.persist(folder);
+        documentRepository.saveAndFlush(document.folder(folder));
+
+        String etag = restDocumentMockMvc
+            .perform(get(ENTITY_API_URL_ID, document.getId()))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+        // The folder is embedded in the document
+        folder.setTitle(UPDATED_TITLE);
+        em.flush();
+        restDocumentMockMvc
+            .perform(get(ENTITY_API_URL_ID, document.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    @Test
+    @Transactional
+    void putFetchedDocumentKeepsStoredContent() throws Exception {
+        // Initialize the database, with the content in the blob store
+        documentRepository.saveAndFlush(document);
+        em.detach(document);
+        restDocumentMockMvc
+            .perform(put(ENTITY_API_URL_CONTENT, document.getId()).contentType(UPDATED_DATA_CONTENT_TYPE).content(UPDATED_DATA))
+            .andExpect(status().isNoContent());
+
+        // Send back the fetched document, content included
+        String fetched = restDocumentMockMvc
+            .perform(get(ENTITY_API_URL_ID, document.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data").value(Base64.getEncoder().encodeToString(UPDATED_DATA)))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        em.clear();
+        restDocumentMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, document.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(fetched.replace(DEFAULT_TITLE, UPDATED_TITLE))
+            )
+            .andExpect(status().isOk());
+
+        // The content wasn't written to the database
+        em.clear();
+        Document testDocument = documentRepository.findById(document.getId()).orElseThrow();
+        assertThat(testDocument.getTitle()).isEqualTo(UPDATED_TITLE);
+        assertThat(testDocument.getData()).isNull();
+        assertThat(testDocument.getDataSha256()).isEqualTo(sha256(UPDATED_DATA));
+        assertThat(testDocument.getDataSize()).isEqualTo(UPDATED_DATA.length);
+    }
+
+    @Test
+    @Transactional
+    void putDocumentWithStaleEntityTag() throws Exception {
+        // Initialize the database
+        documentRepository.saveAndFlush(document);
+        String etag = "\"" + document.getVersion() + "-null\"";
+        em.detach(document);
+
+        // Update the document a first time
+        document.title(UPDATED_TITLE);
+        String updatedETag = restDocumentMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, document.getId())
+                    .header(HttpHeaders.IF_MATCH, etag)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(document))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.version").value(document.getVersion().intValue() + 1))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+        assertThat(updatedETag).isEqualTo("\"" + (document.getVersion() + 1) + "-null\"");
+
+        // The former entity tag is stale
+        document.description(UPDATED_DESCRIPTION);
+        restDocumentMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, document.getId())
+                    .header(HttpHeaders.IF_MATCH, etag)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(document))
+            )
+            .andExpect(status().isPreconditionFailed());
+        restDocumentMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, document.getId())
+                    .header(HttpHeaders.IF_MATCH, etag)
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(document))
+            )
+            .andExpect(status().isPreconditionFailed());
+        // weak entity tags never match
+        restDocumentMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, document.getId())
+                    .header(HttpHeaders.IF_MATCH, "W/" + updatedETag)
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(document))
+            )
+            .andExpect(status().isPreconditionFailed());
+
+        restDocumentMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, document.getId())
+                    .header(HttpHeaders.IF_MATCH, updatedETag)
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(document))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + (document.getVersion() + 2) + "-null\""));
+
+        Document testDocument = documentRepository.findById(document.getId()).orElseThrow();
+        assertThat(testDocument.getTitle()).isEqualTo(UPDATED_TITLE);
+        assertThat(testDocument.getDescription()).isEqualTo(UPDATED_DESCRIPTION);
+    }
+
     @Test
     @Transactional
     void putExistingDocument() throws Exception {
@@ -261,7 +597,9 @@ class DocumentResourceIT {
         Document testDocument = documentList.get(documentList.size() - 1);
         assertThat(testDocument.getTitle()).isEqualTo(UPDATED_TITLE);
         assertThat(testDocument.getDescription()).isEqualTo(UPDATED_DESCRIPTION);
-        assertThat(testDocument.getData()).isEqualTo(UPDATED_DATA);
+        assertThat(testDocument.getData()).isNull();
+        assertThat(testDocument.getDataSha256()).isEqualTo(sha256(UPDATED_DATA));
+        assertThat(testDocument.getDataSize()).isEqualTo(UPDATED_DATA.length);
         assertThat(testDocument.getDataContentType()).isEqualTo(UPDATED_DATA_CONTENT_TYPE);
         assertThat(testDocument.getUploaded()).isEqualTo(UPDATED_UPLOADED);
     }
@@ -362,6 +700,8 @@ class DocumentResourceIT {
         documentRepository.saveAndFlush(document);
 
         int databaseSizeBeforeUpdate = documentRepository.findAll().size();
+        // The content is replaced with plain JDBC, don't keep the document in the persistence context
+        em.clear();
 
         // Update the document using partial update
         Document partialUpdatedDocument = new Document();
@@ -388,7 +728,9 @@ class DocumentResourceIT {
         Document testDocument = documentList.get(documentList.size() - 1);
         assertThat(testDocument.getTitle()).isEqualTo(UPDATED_TITLE);
         assertThat(testDocument.getDescription()).isEqualTo(UPDATED_DESCRIPTION);
-        assertThat(testDocument.getData()).isEqualTo(UPDATED_DATA);
+        assertThat(testDocument.getData()).isNull();
+        assertThat(testDocument.getDataSha256()).isEqualTo(sha256(UPDATED_DATA));
+        assertThat(testDocument.getDataSize()).isEqualTo(UPDATED_DATA.length);
         assertThat(testDocument.getDataContentType()).isEqualTo(UPDATED_DATA_CONTENT_TYPE);
         assertThat(testDocument.getUploaded()).isEqualTo(UPDATED_UPLOADED);
     }
@@ -466,4 +808,344 @@ class DocumentResourceIT {
         List<Document> documentList = documentRepository.findAll();
         assertThat(documentList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    @Transactional
+    void streamDocumentContent() throws Exception {
+        // Initialize the database
+        documentRepository.saveAndFlush(document);
+
+        // Stream the new content as the raw request body
+        restDocumentMockMvc
+            .perform(put(ENTITY_API_URL_CONTENT, document.getId()).contentType(UPDATED_DATA_CONTENT_TYPE).content(UPDATED_DATA))
+            .andExpect(status().isNoContent());
+
+        // Validate the Document in the database
+        em.clear();
+        Document testDocument = documentRepository.findById(document.getId()).orElseThrow();
+        assertThat(testDocument.getTitle()).isEqualTo(DEFAULT_TITLE);
+        assertThat(testDocument.getData()).isNull();
+        assertThat(testDocument.getDataSha256()).isEqualTo(sha256(UPDATED_DATA));
+        assertThat(testDocument.getDataSize()).isEqualTo(UPDATED_DATA.length);
+        assertThat(testDocument.getDataContentType()).isEqualTo(UPDATED_DATA_CONTENT_TYPE);
+        assertThat(testDocument.getUploaded()).isAfter(DEFAULT_UPLOADED);
+    }
+
+    @Test
+    @Transactional
+    void uploadDocumentContent() throws Exception {
+        // Initialize the database
+        documentRepository.saveAndFlush(document);
+
+        // Upload the new content as a multipart file
+        MockMultipartFile file = new MockMultipartFile("file", "updated.png", UPDATED_DATA_CONTENT_TYPE, UPDATED_DATA);
+        restDocumentMockMvc
+            .perform(
+                multipart(ENTITY_API_URL_CONTENT, document.getId())
+                    .file(file)
+                    .with(request -> {
+                        request.setMethod("PUT");
+                        return request;
+                    })
+            )
+            .andExpect(status().isNoContent());
+
+        // Validate the Document in the database
+        em.clear();
+        Document testDocument = documentRepository.findById(document.getId()).orElseThrow();
+        assertThat(testDocument.getData()).isNull();
+        assertThat(testDocument.getDataSha256()).isEqualTo(sha256(UPDATED_DATA));
+        assertThat(testDocument.getDataContentType()).isEqualTo(UPDATED_DATA_CONTENT_TYPE);
+    }
+
+    @Test
+    @Transactional
+    void streamNonExistingDocumentContent() throws Exception {
+        restDocumentMockMvc
+            .perform(put(ENTITY_API_URL_CONTENT, longCount.incrementAndGet()).contentType(UPDATED_DATA_CONTENT_TYPE).content(UPDATED_DATA))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getDocumentContent() throws Exception {
+        // Initialize the database
+        document.data(LARGE_DATA);
+        documentRepository.saveAndFlush(document);
+
+        // Get the whole content
+        MvcResult result = restDocumentMockMvc
+            .perform(get(ENTITY_API_URL_CONTENT, document.getId()))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        restDocumentMockMvc
+            .perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(DEFAULT_DATA_CONTENT_TYPE))
+            .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andExpect(content().bytes(LARGE_DATA));
+    }
+
+    @Test
+    @Transactional
+    void getDocumentContentRange() throws Exception {
+        // Initialize the database
+        document.data(LARGE_DATA);
+        documentRepository.saveAndFlush(document);
+
+        // Get a range of the content
+        MvcResult result = restDocumentMockMvc
+            .perform(get(ENTITY_API_URL_CONTENT, document.getId()).header(HttpHeaders.RANGE, "bytes=10-19"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        restDocumentMockMvc
+            .perform(asyncDispatch(result))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-19/" + LARGE_DATA.length))
+            .andExpect(content().bytes(Arrays.copyOfRange(LARGE_DATA, 10, 20)));
+    }
+
+    @Test
+    @Transactional
+    void getDocumentContentRangeFromBlobStore() throws Exception {
+        // Initialize the database, with the content in the blob store
+        documentRepository.saveAndFlush(document);
+        restDocumentMockMvc
+            .perform(put(ENTITY_API_URL_CONTENT, document.getId()).contentType(UPDATED_DATA_CONTENT_TYPE).content(LARGE_DATA))
+            .andExpect(status().isNoContent());
+
+        // Get a range of the content
+        MvcResult result = restDocumentMockMvc
+            .perform(get(ENTITY_API_URL_CONTENT, document.getId()).header(HttpHeaders.RANGE, "bytes=100-"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        restDocumentMockMvc
+            .perform(asyncDispatch(result))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 100-" + (LARGE_DATA.length - 1) + "/" + LARGE_DATA.length))
+            .andExpect(content().bytes(Arrays.copyOfRange(LARGE_DATA, 100, LARGE_DATA.length)));
+    }
+
+    @Test
+    @Transactional
+    void getCompressedDocumentContent() throws Exception {
+        // Initialize the database, with a compressible content
+        byte[] text = "id;title\n1;AAAAAAAAAA\n".repeat(500).getBytes(StandardCharsets.UTF_8);
+        documentRepository.saveAndFlush(document);
+        restDocumentMockMvc
+            .perform(put(ENTITY_API_URL_CONTENT, document.getId()).contentType("text/csv").content(text))
+            .andExpect(status().isNoContent());
+
+        // Clients which don't accept the encoding get the content decompressed
+        MvcResult result = restDocumentMockMvc.perform(get(ENTITY_API_URL_CONTENT, document.getId())).andReturn();
+        restDocumentMockMvc
+            .perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+            .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+            .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, text.length))
+            .andExpect(content().bytes(text));
+
+        // Clients which accept it get the stored bytes
+        result =
+            restDocumentMockMvc
+                .perform(get(ENTITY_API_URL_CONTENT, document.getId()).header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br"))
+                .andReturn();
+        byte[] encoded = restDocumentMockMvc
+            .perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "deflate"))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+        assertThat(encoded.length).isLessThan(text.length);
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(encoded))) {
+            assertThat(in.readAllBytes()).isEqualTo(text);
+        }
+
+        // Ranges apply to the decompressed content
+        result =
+            restDocumentMockMvc
+                .perform(
+                    get(ENTITY_API_URL_CONTENT, document.getId())
+                        .header(HttpHeaders.RANGE, "bytes=10-19")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "deflate")
+                )
+                .andReturn();
+        restDocumentMockMvc
+            .perform(asyncDispatch(result))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+            .andExpect(content().bytes(Arrays.copyOfRange(text, 10, 20)));
+    }
+
+    @Test
+    @Transactional
+    void getDocumentContentWithStaleIfRange() throws Exception {
+        // Initialize the database
+        document.data(LARGE_DATA);
+        documentRepository.saveAndFlush(document);
+
+        // A stale If-Range validator gets the whole content
+        MvcResult result = restDocumentMockMvc
+            .perform(
+                get(ENTITY_API_URL_CONTENT, document.getId()).header(HttpHeaders.RANGE, "bytes=10-19").header(HttpHeaders.IF_RANGE, "\"stale\"")
+            )
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        restDocumentMockMvc.perform(asyncDispatch(result)).andExpect(status().isOk()).andExpect(content().bytes(LARGE_DATA));
+    }
+
+    @Test
+    @Transactional
+    void getDocumentContentReplacedWithSameLength() throws Exception {
+        // Initialize the database
+        documentRepository.saveAndFlush(document);
+        em.detach(document);
+        MvcResult result = restDocumentMockMvc.perform(get(ENTITY_API_URL_CONTENT, document.getId())).andReturn();
+        String etag = restDocumentMockMvc.perform(asyncDispatch(result)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Replace the content with one of the same length, sending back the upload time
+        restDocumentMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, document.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(document.data(UPDATED_DATA)))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.uploaded").value(DEFAULT_UPLOADED.toString()));
+
+        // The former validator is stale
+        result =
+            restDocumentMockMvc
+                .perform(
+                    get(ENTITY_API_URL_CONTENT, document.getId()).header(HttpHeaders.RANGE, "bytes=0-0").header(HttpHeaders.IF_RANGE, etag)
+                )
+                .andReturn();
+        restDocumentMockMvc
+            .perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+            .andExpect(content().bytes(UPDATED_DATA));
+    }
+
+    @Test
+    @Transactional
+    void getDocumentContentUnsatisfiableRange() throws Exception {
+        // Initialize the database
+        documentRepository.saveAndFlush(document);
+
+        restDocumentMockMvc
+            .perform(get(ENTITY_API_URL_CONTENT, document.getId()).header(HttpHeaders.RANGE, "bytes=100-"))
+            .andExpect(status().isRequestedRangeNotSatisfiable())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + DEFAULT_DATA.length));
+    }
+
+    @Test
+    @Transactional
+    void getNonExistingDocumentContent() throws Exception {
+        restDocumentMockMvc.perform(get(ENTITY_API_URL_CONTENT, Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    void getDocumentThumbnail() throws Exception {
+        // Initialize the database, with an image content
+        BufferedImage image = new BufferedImage(1000, 500, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        documentRepository.saveAndFlush(document);
+        restDocumentMockMvc
+            .perform(put(ENTITY_API_URL_CONTENT, document.getId()).contentType(MediaType.IMAGE_PNG).content(png.toByteArray()))
+            .andExpect(status().isNoContent());
+
+        // Get the thumbnail
+        MvcResult thumbnail = restDocumentMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/thumbnail", document.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.IMAGE_JPEG))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("no-cache")))
+            .andReturn();
+        BufferedImage scaled = ImageIO.read(new ByteArrayInputStream(thumbnail.getResponse().getContentAsByteArray()));
+        assertThat(scaled.getWidth()).isEqualTo(256);
+        assertThat(scaled.getHeight()).isEqualTo(128);
+
+        // A versioned thumbnail can be cached for long
+        String etag = thumbnail.getResponse().getHeader(HttpHeaders.ETAG);
+        restDocumentMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/thumbnail", document.getId()).param("v", etag.substring(1, etag.length() - 1)))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")));
+
+        // Revalidation, with the weak comparison, against a list or any entity tag
+        for (String ifNoneMatch : List.of(etag, "W/" + etag, "\"other\", " + etag, "*")) {
+            restDocumentMockMvc
+                .perform(get(ENTITY_API_URL_ID + "/thumbnail", document.getId()).header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch))
+                .andExpect(status().isNotModified());
+        }
+        restDocumentMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/thumbnail", document.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    @Transactional
+    void getUndecodableDocumentThumbnail() throws Exception {
+        // Initialize the database, with an image content type but no image
+        documentRepository.saveAndFlush(document);
+
+        restDocumentMockMvc.perform(get(ENTITY_API_URL_ID + "/thumbnail", document.getId())).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    void getNonImageDocumentThumbnail() throws Exception {
+        documentRepository.saveAndFlush(document.dataContentType("text/plain"));
+
+        restDocumentMockMvc.perform(get(ENTITY_API_URL_ID + "/thumbnail", document.getId())).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    void getAllDocumentSummaries() throws Exception {
+        // Initialize the database
+        documentRepository.saveAndFlush(document);
+
+        // Get all the document summaries
+        restDocumentMockMvc
+            .perform(get(ENTITY_API_URL + "/summaries?sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(header().exists("X-Total-Count"))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(document.getId().intValue())))
+            .andExpect(jsonPath("$.[*].title").value(hasItem(DEFAULT_TITLE)))
+            .andExpect(jsonPath("$.[*].dataContentType").value(hasItem(DEFAULT_DATA_CONTENT_TYPE)))
+            .andExpect(jsonPath("$.[*].dataSize").value(hasItem(DEFAULT_DATA.length)))
+            .andExpect(jsonPath("$.[*].uploaded").value(hasItem(DEFAULT_UPLOADED.toString())))
+            .andExpect(jsonPath("$.[*].data").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    void getDocumentSummary() throws Exception {
+        // Initialize the database
+        documentRepository.saveAndFlush(document);
+
+        // Get the document summary
+        restDocumentMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/summary", document.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(document.getId().intValue()))
+            .andExpect(jsonPath("$.title").value(DEFAULT_TITLE))
+            .andExpect(jsonPath("$.dataSize").value(DEFAULT_DATA.length))
+            .andExpect(jsonPath("$.folderId").isEmpty())
+            .andExpect(jsonPath("$.data").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    void getNonExistingDocumentSummary() throws Exception {
+        restDocumentMockMvc.perform(get(ENTITY_API_URL_ID + "/summary", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
 }
@@ -0,0 +1,193 @@
+package br.com.reactit.docmanagement.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import br.com.reactit.docmanagement.IntegrationTest;
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import br.com.reactit.docmanagement.domain.Document;
+import br.com.reactit.docmanagement.domain.Folder;
+import br.com.reactit.docmanagement.repository.DocumentRepository;
+import br.com.reactit.docmanagement.repository.FolderRepository;
+import jakarta.persistence.EntityManager;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link DocumentSearchResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class DocumentSearchResourceIT {
+
+    private static final String ENTITY_API_URL = "/api/_search/documents";
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private FolderRepository folderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc restDocumentSearchMockMvc;
+
+    private Folder folder;
+
+    private Document report;
+
+    private Document notes;
+
+    @BeforeEach
+    public void initTest() {
+        folder = FolderResourceIT.createEntity(em);
+        report = createDocument("Zephyrquartz annual report", "Financial statements of the year");
+        notes = createDocument("Board meeting notes", "The zephyrquartz budget was discussed");
+    }
+
+    @AfterEach
+    public void restoreProperties() {
+        applicationProperties.getSearch().setMaxCount(new ApplicationProperties().getSearch().getMaxCount());
+    }
+
+    private Document createDocument(String title, String description) {
+        return new Document()
+            .title(title)
+            .description(description)
+            .data(new byte[] { 1 })
+            .dataContentType("application/pdf")
+            .uploaded(Instant.ofEpochMilli(0L))
+            .folder(folder);
+    }
+
+    @Test
+    @Transactional
+    void searchDocuments() throws Exception {
+        folderRepository.saveAndFlush(folder);
+        documentRepository.saveAllAndFlush(List.of(notes, report, createDocument("Holiday photos", null)));
+
+        // Title matches rank first
+        restDocumentSearchMockMvc
+            .perform(get(ENTITY_API_URL).param("q", "ZephyrQuartz"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[0].id").value(report.getId().intValue()))
+            .andExpect(jsonPath("$[0].title").value(report.getTitle()))
+            .andExpect(jsonPath("$[0].folderId").value(folder.getId().intValue()))
+            .andExpect(jsonPath("$[0].data").doesNotExist())
+            .andExpect(jsonPath("$[1].id").value(notes.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    void searchDocumentsWithWebSearchSyntax() throws Exception {
+        folderRepository.saveAndFlush(folder);
+        documentRepository.saveAllAndFlush(List.of(notes, report));
+
+        restDocumentSearchMockMvc
+            .perform(get(ENTITY_API_URL).param("q", "zephyrquartz -budget"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].id").value(report.getId().intValue()));
+
+        restDocumentSearchMockMvc
+            .perform(get(ENTITY_API_URL).param("q", "\"zephyrquartz budget\""))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].id").value(notes.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    void searchDocumentsByPage() throws Exception {
+        folderRepository.saveAndFlush(folder);
+        documentRepository.saveAllAndFlush(List.of(notes, report));
+
+        restDocumentSearchMockMvc
+            .perform(get(ENTITY_API_URL).param("q", "zephyrquartz").param("size", "1").param("page", "1"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].id").value(notes.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    void searchDocumentsMatchingMoreThanMaxCount() throws Exception {
+        folderRepository.saveAndFlush(folder);
+        documentRepository.saveAllAndFlush(List.of(notes, report, createDocument("Zephyrquartz forecast", null)));
+        applicationProperties.getSearch().setMaxCount(2);
+
+        // The matches aren't counted past max-count, but estimated
+        restDocumentSearchMockMvc
+            .perform(get(ENTITY_API_URL).param("q", "zephyrquartz").param("size", "1"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().exists("X-Approximate-Total-Count"))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")))
+            .andExpect(header().string(HttpHeaders.LINK, not(containsString("rel=\"last\""))))
+            .andExpect(jsonPath("$.length()").value(1));
+
+        // The last page tells their number
+        restDocumentSearchMockMvc
+            .perform(get(ENTITY_API_URL).param("q", "zephyrquartz").param("size", "1").param("page", "2"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "3"))
+            .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    @Transactional
+    void searchDocumentsWithoutMatch() throws Exception {
+        folderRepository.saveAndFlush(folder);
+        documentRepository.saveAllAndFlush(List.of(notes, report));
+
+        restDocumentSearchMockMvc
+            .perform(get(ENTITY_API_URL).param("q", "nonexistentzephyrword"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "0"))
+            .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    @Transactional
+    void searchDocumentsUsesTheIndex() {
+        // the table is too small for the planner to prefer the index on its own
+        jdbcTemplate.execute("set local enable_seqscan = off");
+
+        String plan = String.join(
+            "\n",
+            jdbcTemplate.queryForList(
+                "explain select id from document where search_vector @@ websearch_to_tsquery('simple', 'zephyrquartz')",
+                String.class
+            )
+        );
+
+        assertThat(plan).contains("idx_document_search_vector");
+    }
+}
@@ -0,0 +1,317 @@
+package br.com.reactit.docmanagement.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import br.com.reactit.docmanagement.IntegrationTest;
+import br.com.reactit.docmanagement.config.ApplicationProperties;
+import br.com.reactit.docmanagement.domain.Document;
+import br.com.reactit.docmanagement.domain.DocumentUpload;
+import br.com.reactit.docmanagement.repository.DocumentRepository;
+import br.com.reactit.docmanagement.repository.DocumentUploadRepository;
+import br.com.reactit.docmanagement.service.DocumentUploadService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link DocumentUploadResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class DocumentUploadResourceIT {
+
+    private static final String DEFAULT_TITLE = "AAAAAAAAAA";
+    private static final String DEFAULT_DESCRIPTION = "AAAAAAAAAA";
+    private static final String DEFAULT_DATA_CONTENT_TYPE = "application/pdf";
+    private static final byte[] DATA = new byte[10000];
+
+    private static final String ENTITY_API_URL = "/api/document-uploads";
+    private static final String ENTITY_API_URL_ID = ENTITY_API_URL + "/{id}";
+    private static final String ENTITY_API_URL_COMPLETE = ENTITY_API_URL_ID + "/complete";
+
+    static {
+        new Random().nextBytes(DATA);
+    }
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private DocumentUploadRepository documentUploadRepository;
+
+    @Autowired
+    private DocumentUploadService documentUploadService;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private ObjectMapper om;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc restDocumentUploadMockMvc;
+
+    private static DocumentUpload createUpload(Long length) {
+        return new DocumentUpload(null, DEFAULT_TITLE, DEFAULT_DESCRIPTION, DEFAULT_DATA_CONTENT_TYPE, null, length, 0, null, null);
+    }
+
+    private String createSession(Long length) throws Exception {
+        MvcResult result = restDocumentUploadMockMvc
+            .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(createUpload(length))))
+            .andExpect(status().isCreated())
+            .andExpect(header().string(DocumentUploadResource.UPLOAD_OFFSET, "0"))
+            .andReturn();
+        // the id is read-only, it is not bound when reading a DocumentUpload
+        return om.readTree(result.getResponse().getContentAsByteArray()).get("id").asText();
+    }
+
+    private Path stagingFile(String id) {
+        return Path.of(applicationProperties.getContent().getUpload().getDirectory(), id);
+    }
+
+    private void appendChunk(String id, int from, int to) throws Exception {
+        restDocumentUploadMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, id)
+                    .header(DocumentUploadResource.UPLOAD_OFFSET, from)
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .content(Arrays.copyOfRange(DATA, from, to))
+            )
+            .andExpect(status().isNoContent())
+            .andExpect(header().string(DocumentUploadResource.UPLOAD_OFFSET, Integer.toString(to)));
+    }
+
+    @Test
+    @Transactional
+    void createDocumentUpload() throws Exception {
+        String id = createSession((long) DATA.length);
+
+        DocumentUpload upload = documentUploadRepository.findById(id).orElseThrow();
+        assertThat(upload.title()).isEqualTo(DEFAULT_TITLE);
+        assertThat(upload.dataContentType()).isEqualTo(DEFAULT_DATA_CONTENT_TYPE);
+        assertThat(upload.length()).isEqualTo(DATA.length);
+        assertThat(upload.offset()).isZero();
+    }
+
+    @Test
+    @Transactional
+    void createDocumentUploadWithNonExistingFolder() throws Exception {
+        DocumentUpload upload = new DocumentUpload(null, DEFAULT_TITLE, null, DEFAULT_DATA_CONTENT_TYPE, Long.MAX_VALUE, null, 0, null, null);
+        restDocumentUploadMockMvc
+            .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(upload)))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void uploadInChunksAndComplete() throws Exception {
+        String id = createSession((long) DATA.length);
+        appendChunk(id, 0, 4000);
+
+        // The offset to resume from is the end of the first chunk
+        restDocumentUploadMockMvc
+            .perform(get(ENTITY_API_URL_ID, id))
+            .andExpect(status().isOk())
+            .andExpect(header().string(DocumentUploadResource.UPLOAD_OFFSET, "4000"))
+            .andExpect(header().string(DocumentUploadResource.UPLOAD_LENGTH, Integer.toString(DATA.length)))
+            .andExpect(jsonPath("$.offset").value(4000));
+
+        appendChunk(id, 4000, DATA.length);
+
+        MvcResult result = restDocumentUploadMockMvc
+            .perform(post(ENTITY_API_URL_COMPLETE, id))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.title").value(DEFAULT_TITLE))
+            .andExpect(jsonPath("$.dataSize").value(DATA.length))
+            .andReturn();
+        Long documentId = om.readTree(result.getResponse().getContentAsByteArray()).get("id").asLong();
+
+        // The content was attached with plain JDBC, don't read the document from the persistence context
+        em.clear();
+        Document document = documentRepository.findById(documentId).orElseThrow();
+        assertThat(document.getDataContentType()).isEqualTo(DEFAULT_DATA_CONTENT_TYPE);
+        assertThat(document.getDataSha256()).isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(DATA)));
+        assertThat(documentUploadRepository.findById(id)).isEmpty();
+
+        MvcResult content = restDocumentUploadMockMvc.perform(get("/api/documents/{id}/content", documentId)).andReturn();
+        restDocumentUploadMockMvc.perform(asyncDispatch(content)).andExpect(status().isOk()).andExpect(content().bytes(DATA));
+    }
+
+    @Test
+    @Transactional
+    void appendChunkAtWrongOffset() throws Exception {
+        String id = createSession((long) DATA.length);
+        appendChunk(id, 0, 4000);
+
+        restDocumentUploadMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, id)
+                    .header(DocumentUploadResource.UPLOAD_OFFSET, 2000)
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .content(Arrays.copyOfRange(DATA, 2000, 4000))
+            )
+            .andExpect(status().isConflict())
+            .andExpect(header().string(DocumentUploadResource.UPLOAD_OFFSET, "4000"));
+    }
+
+    @Test
+    @Transactional
+    void appendChunkPastDeclaredLength() throws Exception {
+        String id = createSession(100L);
+
+        restDocumentUploadMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, id)
+                    .header(DocumentUploadResource.UPLOAD_OFFSET, 0)
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .content(Arrays.copyOfRange(DATA, 0, 101))
+            )
+            .andExpect(status().isPayloadTooLarge());
+    }
+
+    @Test
+    @Transactional
+    void resumeAfterChunkPastDeclaredLength() throws Exception {
+        String id = createSession((long) DATA.length);
+        appendChunk(id, 0, 4000);
+
+        // One byte too many, the chunk is dropped
+        restDocumentUploadMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, id)
+                    .header(DocumentUploadResource.UPLOAD_OFFSET, 4000)
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .content(Arrays.copyOfRange(DATA, 4000, DATA.length + 1))
+            )
+            .andExpect(status().isPayloadTooLarge());
+        assertThat(documentUploadRepository.findById(id).orElseThrow().offset()).isEqualTo(4000);
+
+        appendChunk(id, 4000, DATA.length);
+        MvcResult result = restDocumentUploadMockMvc.perform(post(ENTITY_API_URL_COMPLETE, id)).andExpect(status().isCreated()).andReturn();
+        Long documentId = om.readTree(result.getResponse().getContentAsByteArray()).get("id").asLong();
+
+        em.clear();
+        assertThat(documentRepository.findById(documentId).orElseThrow().getDataSha256())
+            .isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(DATA)));
+    }
+
+    @Test
+    @Transactional
+    void resumeFromBytesStagedOnThisNode() throws Exception {
+        String id = createSession((long) DATA.length);
+        appendChunk(id, 0, 4000);
+        // the last bytes were received by another node
+        try (FileChannel channel = FileChannel.open(stagingFile(id), StandardOpenOption.WRITE)) {
+            channel.truncate(2500);
+        }
+
+        restDocumentUploadMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, id)
+                    .header(DocumentUploadResource.UPLOAD_OFFSET, 4000)
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .content(Arrays.copyOfRange(DATA, 4000, DATA.length))
+            )
+            .andExpect(status().isConflict())
+            .andExpect(header().string(DocumentUploadResource.UPLOAD_OFFSET, "2500"));
+
+        appendChunk(id, 2500, DATA.length);
+        MvcResult result = restDocumentUploadMockMvc.perform(post(ENTITY_API_URL_COMPLETE, id)).andExpect(status().isCreated()).andReturn();
+        Long documentId = om.readTree(result.getResponse().getContentAsByteArray()).get("id").asLong();
+
+        em.clear();
+        assertThat(documentRepository.findById(documentId).orElseThrow().getDataSha256())
+            .isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(DATA)));
+    }
+
+    @Test
+    @Transactional
+    void completeUploadWhoseStagingFileWasLost() throws Exception {
+        String id = createSession((long) DATA.length);
+        appendChunk(id, 0, DATA.length);
+        Files.delete(stagingFile(id));
+
+        restDocumentUploadMockMvc
+            .perform(post(ENTITY_API_URL_COMPLETE, id))
+            .andExpect(status().isConflict())
+            .andExpect(header().string(DocumentUploadResource.UPLOAD_OFFSET, "0"));
+        assertThat(documentUploadRepository.findById(id).orElseThrow().offset()).isZero();
+    }
+
+    @Test
+    @Transactional
+    void completeIncompleteUpload() throws Exception {
+        String id = createSession((long) DATA.length);
+        appendChunk(id, 0, 4000);
+
+        restDocumentUploadMockMvc
+            .perform(post(ENTITY_API_URL_COMPLETE, id))
+            .andExpect(status().isConflict())
+            .andExpect(header().string(DocumentUploadResource.UPLOAD_OFFSET, "4000"));
+    }
+
+    @Test
+    @Transactional
+    void getNonExistingDocumentUpload() throws Exception {
+        restDocumentUploadMockMvc.perform(get(ENTITY_API_URL_ID, "00000000-0000-0000-0000-000000000000")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    void cancelDocumentUpload() throws Exception {
+        String id = createSession(null);
+        appendChunk(id, 0, 4000);
+
+        restDocumentUploadMockMvc.perform(delete(ENTITY_API_URL_ID, id)).andExpect(status().isNoContent());
+
+        assertThat(documentUploadRepository.findById(id)).isEmpty();
+        restDocumentUploadMockMvc.perform(delete(ENTITY_API_URL_ID, id)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    void removeStaleUploads() throws Exception {
+        Instant longAgo = Instant.now().minus(7, ChronoUnit.DAYS);
+        DocumentUpload stale = new DocumentUpload(
+            "00000000-0000-0000-0000-000000000001",
+            DEFAULT_TITLE,
+            null,
+            DEFAULT_DATA_CONTENT_TYPE,
+            null,
+            null,
+            0,
+            longAgo,
+            longAgo
+        );
+        documentUploadRepository.insert(stale);
+        String id = createSession(null);
+
+        documentUploadService.removeStaleUploads();
+
+        assertThat(documentUploadRepository.findById(stale.id())).isEmpty();
+        assertThat(documentUploadRepository.findById(id)).isPresent();
+    }
+}
@@ -1,26 +1,59 @@
 package br.com.reactit.docmanagement.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import br.com.reactit.docmanagement.IntegrationTest;
+import br.com.reactit.docmanagement.config.RecordingStatementInspector;
+import br.com.reactit.docmanagement.domain.Document;
 import br.com.reactit.docmanagement.domain.Folder;
+import br.com.reactit.docmanagement.domain.FolderStats;
+import br.com.reactit.docmanagement.repository.DocumentRepository;
 import br.com.reactit.docmanagement.repository.FolderRepository;
+import br.com.reactit.docmanagement.repository.FolderStatsRepository;
+import br.com.reactit.docmanagement.service.DocumentContentService;
+import br.com.reactit.docmanagement.service.FolderStatsCompactionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -49,9 +82,33 @@ class FolderResourceIT {
     @Autowired
     private FolderRepository folderRepository;
 
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private DocumentContentService documentContentService;
+
+    @Autowired
+    private FolderStatsRepository folderStatsRepository;
+
+    @Autowired
+    private FolderStatsCompactionService folderStatsCompactionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private ObjectMapper om;
+
     @Autowired
     private EntityManager em;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Autowired
     private MockMvc restFolderMockMvc;
 
@@ -154,6 +211,37 @@ class FolderResourceIT {
             .andExpect(jsonPath("$.[*].created").value(hasItem(DEFAULT_CREATED.toString())));
     }
 
+    @Test
+    @Transactional
+    void getAllFoldersByKeyset() throws Exception {
+        Folder first = folderRepository.saveAndFlush(createEntity(em));
+        Folder second = folderRepository.saveAndFlush(createEntity(em));
+        Folder third = folderRepository.saveAndFlush(createEntity(em));
+
+        MvcResult result = restFolderMockMvc
+            .perform(get(ENTITY_API_URL + "?after=&size=2&sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[0].id").value(third.getId().intValue()))
+            .andExpect(jsonPath("$[1].id").value(second.getId().intValue()))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")))
+            .andReturn();
+        String link = result.getResponse().getHeader(HttpHeaders.LINK);
+
+        restFolderMockMvc
+            .perform(get(URI.create(link.substring(link.indexOf('<') + 1, link.indexOf('>')))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].id").value(first.getId().intValue()));
+
+        // the last page has no link
+        restFolderMockMvc
+            .perform(get(ENTITY_API_URL + "?after=&size=" + folderRepository.count()))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.LINK));
+        restFolderMockMvc.perform(get(ENTITY_API_URL + "?after=&sort=title,asc")).andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void getFolder() throws Exception {
@@ -178,6 +266,512 @@ class FolderResourceIT {
         restFolderMockMvc.perform(get(ENTITY_API_URL_ID, Long.MAX_VALUE)).andExpect(status().isNotFound());
     }
 
+    @Test
+    @Transactional
+    void getNotModifiedFolderUntilItsDocumentsChange() throws Exception {
+        // Initialize the database
+        folderRepository.saveAndFlush(folder);
+
+        String etag = restFolderMockMvc
+            .perform(get(ENTITY_API_URL_ID, folder.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("no-cache")))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isEqualTo("\"" + folder.getVersion() + "-0-0-null\"");
+        restFolderMockMvc
+            .perform(get(ENTITY_API_URL_ID, folder.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andExpect(content().string(""));
+
+        // The statistics are embedded in the folder
+        createDocument("Plan", folder);
+        restFolderMockMvc
+            .perform(get(ENTITY_API_URL_ID, folder.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+            .andExpect(jsonPath("$.stats.documentCount").value(1));
+    }
+
+    @Test
+    @Transactional
+    void updateFolderWithStaleEntityTag() throws Exception {
+        // Initialize the database
+        folderRepository.saveAndFlush(folder);
+        String etag = restFolderMockMvc
+            .perform(get(ENTITY_API_URL_ID, folder.getId()))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+        em.detach(folder);
+
+        // Update the folder a first time
+        folder.title(UPDATED_TITLE);
+        String updatedETag = restFolderMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, folder.getId())
+                    .header(HttpHeaders.IF_MATCH, etag)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(folder))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.version").value(folder.getVersion().intValue() + 1))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+        assertThat(updatedETag).isNotEqualTo(etag);
+
+        // The former entity tag is stale
+        folder.description(UPDATED_DESCRIPTION);
+        restFolderMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, folder.getId())
+                    .header(HttpHeaders.IF_MATCH, etag)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(folder))
+            )
+            .andExpect(status().isPreconditionFailed());
+        restFolderMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, folder.getId())
+                    .header(HttpHeaders.IF_MATCH, etag)
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(folder))
+            )
+            .andExpect(status().isPreconditionFailed());
+
+        restFolderMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, folder.getId())
+                    .header(HttpHeaders.IF_MATCH, updatedETag)
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(folder))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG));
+
+        Folder testFolder = folderRepository.findById(folder.getId()).orElseThrow();
+        assertThat(testFolder.getTitle()).isEqualTo(UPDATED_TITLE);
+        assertThat(testFolder.getDescription()).isEqualTo(UPDATED_DESCRIPTION);
+        assertThat(testFolder.getVersion()).isEqualTo(folder.getVersion() + 2);
+    }
+
+    @Test
+    void getFolderFromTheSecondLevelCache() throws Exception {
+        // Initialize the database, committed so that the folder is cached once read
+        folderRepository.saveAndFlush(folder);
+
+        try {
+            em.getEntityManagerFactory().getCache().evict(Folder.class, folder.getId());
+            List<String> firstStatements = recordGetFolderStatements(folder);
+            List<String> secondStatements = recordGetFolderStatements(folder);
+
+            assertThat(firstStatements).hasSize(1).allMatch(sql -> sql.contains("from folder"));
+            assertThat(secondStatements).isEmpty();
+            assertThat(meterRegistry.get("cache.gets").tag("cache", Folder.class.getName()).tag("result", "hit").functionCounter().count())
+                .isPositive();
+        } finally {
+            folderRepository.delete(folder);
+        }
+    }
+
+    @Test
+    @Transactional
+    void exportFolder() throws Exception {
+        // Initialize the database, with a text content held in the blob store and an image held in the database
+        folderRepository.saveAndFlush(folder);
+        byte[] text = "Lorem ipsum dolor sit amet. ".repeat(1000).getBytes(StandardCharsets.UTF_8);
+        byte[] jpeg = new byte[4096];
+        random.nextBytes(jpeg);
+        Document report = documentRepository.saveAndFlush(
+            new Document().title("report.txt").data(new byte[] { 0 }).dataContentType("text/plain").folder(folder)
+        );
+        documentContentService.replaceContent(report.getId(), new ByteArrayInputStream(text), text.length, "text/plain");
+        Document photo = documentRepository.saveAndFlush(
+            new Document().title("photo/1.jpg").data(jpeg).dataContentType("image/jpeg").folder(folder)
+        );
+
+        // Export the folder
+        MvcResult result = restFolderMockMvc.perform(get(ENTITY_API_URL_ID + "/export.zip", folder.getId())).andReturn();
+        byte[] archive = restFolderMockMvc
+            .perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/zip"))
+            .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString(DEFAULT_TITLE + ".zip")))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            ZipEntry entry = zip.getNextEntry();
+            assertThat(entry.getName()).isEqualTo("report (" + report.getId() + ").txt");
+            assertThat(zip.readAllBytes()).isEqualTo(text);
+            // the text is compressed
+            assertThat(entry.getCompressedSize()).isLessThan(text.length / 10);
+
+            entry = zip.getNextEntry();
+            assertThat(entry.getName()).isEqualTo("photo_1 (" + photo.getId() + ").jpg");
+            assertThat(zip.readAllBytes()).isEqualTo(jpeg);
+            // the image is already compressed, and is only framed
+            assertThat(entry.getCompressedSize()).isBetween((long) jpeg.length, jpeg.length + 64L);
+
+            assertThat(zip.getNextEntry()).isNull();
+        }
+    }
+
+    @Test
+    @Transactional
+    void exportNonExistingFolder() throws Exception {
+        restFolderMockMvc.perform(get(ENTITY_API_URL_ID + "/export.zip", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    void createFolderInParent() throws Exception {
+        Folder parent = createFolder("Projects", null);
+
+        restFolderMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(folder.parent(new Folder().id(parent.getId()))))
+            )
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.parent.id").value(parent.getId().intValue()))
+            .andExpect(jsonPath("$.path").value("/" + parent.getId() + "/"));
+
+        restFolderMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(createEntity(em).parent(new Folder().id(Long.MAX_VALUE))))
+            )
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getFolderTreeLevel() throws Exception {
+        Folder projects = createFolder("Projects", null);
+        Folder alpha = createFolder("Alpha", projects);
+        Folder beta = createFolder("Beta", projects);
+        createFolder("Specifications", alpha);
+
+        restFolderMockMvc
+            .perform(get(ENTITY_API_URL + "/tree?parentId=" + projects.getId() + "&sort=title,asc"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(jsonPath("$.[*].id").value(contains(alpha.getId().intValue(), beta.getId().intValue())))
+            .andExpect(jsonPath("$.[*].parentId").value(contains(projects.getId().intValue(), projects.getId().intValue())))
+            .andExpect(jsonPath("$.[*].childCount").value(contains(1, 0)));
+
+        restFolderMockMvc
+            .perform(get(ENTITY_API_URL + "/tree?size=1000"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[?(@.id == " + projects.getId() + ")].childCount").value(contains(2)))
+            .andExpect(jsonPath("$.[*].id").value(not(hasItem(alpha.getId().intValue()))));
+    }
+
+    @Test
+    @Transactional
+    void getFolderBreadcrumb() throws Exception {
+        Folder projects = createFolder("Projects", null);
+        Folder alpha = createFolder("Alpha", projects);
+        Folder specifications = createFolder("Specifications", alpha);
+
+        restFolderMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/breadcrumb", specifications.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].title").value(contains("Projects", "Alpha", "Specifications")));
+
+        restFolderMockMvc.perform(get(ENTITY_API_URL_ID + "/breadcrumb", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    void moveFolder() throws Exception {
+        Folder projects = createFolder("Projects", null);
+        Folder alpha = createFolder("Alpha", projects);
+        Folder beta = createFolder("Beta", projects);
+        Folder specifications = createFolder("Specifications", alpha);
+        Folder drafts = createFolder("Drafts", specifications);
+
+        // Move alpha, along with its subtree, into beta
+        restFolderMockMvc
+            .perform(post(ENTITY_API_URL_ID + "/move?parentId=" + beta.getId(), alpha.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.parent.id").value(beta.getId().intValue()));
+        em.clear();
+
+        assertThat(folderRepository.findById(alpha.getId()).orElseThrow().getAncestorIds()).containsExactly(projects.getId(), beta.getId());
+        assertThat(folderRepository.findById(drafts.getId()).orElseThrow().getAncestorIds())
+            .containsExactly(projects.getId(), beta.getId(), alpha.getId(), specifications.getId());
+        restFolderMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/breadcrumb", drafts.getId()))
+            .andExpect(jsonPath("$.[*].title").value(contains("Projects", "Beta", "Alpha", "Specifications", "Drafts")));
+
+        // Make specifications a root folder
+        restFolderMockMvc.perform(post(ENTITY_API_URL_ID + "/move", specifications.getId())).andExpect(status().isOk());
+        em.clear();
+
+        assertThat(folderRepository.findById(specifications.getId()).orElseThrow().getPath()).isEqualTo(Folder.ROOT_PATH);
+        assertThat(folderRepository.findById(drafts.getId()).orElseThrow().getAncestorIds()).containsExactly(specifications.getId());
+    }
+
+    @Test
+    @Transactional
+    void moveFolderIntoItself() throws Exception {
+        Folder projects = createFolder("Projects", null);
+        Folder alpha = createFolder("Alpha", projects);
+
+        restFolderMockMvc
+            .perform(post(ENTITY_API_URL_ID + "/move?parentId=" + alpha.getId(), projects.getId()))
+            .andExpect(status().isBadRequest());
+        restFolderMockMvc
+            .perform(post(ENTITY_API_URL_ID + "/move?parentId=" + projects.getId(), projects.getId()))
+            .andExpect(status().isBadRequest());
+        restFolderMockMvc
+            .perform(post(ENTITY_API_URL_ID + "/move?parentId=" + Long.MAX_VALUE, projects.getId()))
+            .andExpect(status().isBadRequest());
+        restFolderMockMvc.perform(post(ENTITY_API_URL_ID + "/move", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void createFolderWhileAnAncestorMoves() throws Exception {
+        // Initialize the database, committed so that another connection sees it
+        Folder projects = createFolder("Projects", null);
+        Folder alpha = createFolder("Alpha", projects);
+        Folder archive = createFolder("Archive", null);
+
+        try {
+            MvcResult result = performWhileMoving(
+                projects,
+                archive,
+                post(ENTITY_API_URL)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(createEntity(em).title("Drafts").parent(alpha)))
+            );
+
+            assertThat(result.getResponse().getStatus()).isEqualTo(201);
+            Long createdId = om.readTree(result.getResponse().getContentAsByteArray()).get("id").asLong();
+            assertThat(folderRepository.findById(createdId).orElseThrow().getAncestorIds())
+                .containsExactly(archive.getId(), projects.getId(), alpha.getId());
+        } finally {
+            deleteChildren(alpha);
+            folderRepository.deleteById(alpha.getId());
+            folderRepository.deleteById(projects.getId());
+            folderRepository.deleteById(archive.getId());
+        }
+    }
+
+    @Test
+    void moveFolderWhileAnAncestorOfItsParentMoves() throws Exception {
+        // Initialize the database, committed so that another connection sees it
+        Folder projects = createFolder("Projects", null);
+        Folder alpha = createFolder("Alpha", projects);
+        Folder archive = createFolder("Archive", null);
+        Folder drafts = createFolder("Drafts", null);
+        Folder specifications = createFolder("Specifications", drafts);
+
+        try {
+            MvcResult result = performWhileMoving(
+                projects,
+                archive,
+                post(ENTITY_API_URL_ID + "/move?parentId=" + alpha.getId(), drafts.getId())
+            );
+
+            assertThat(result.getResponse().getStatus()).isEqualTo(200);
+            assertThat(folderRepository.findById(drafts.getId()).orElseThrow().getAncestorIds())
+                .containsExactly(archive.getId(), projects.getId(), alpha.getId());
+            assertThat(folderRepository.findById(specifications.getId()).orElseThrow().getAncestorIds())
+                .containsExactly(archive.getId(), projects.getId(), alpha.getId(), drafts.getId());
+        } finally {
+            folderRepository.deleteById(specifications.getId());
+            folderRepository.deleteById(drafts.getId());
+            folderRepository.deleteById(alpha.getId());
+            folderRepository.deleteById(projects.getId());
+            folderRepository.deleteById(archive.getId());
+        }
+    }
+
+    @Test
+    @Transactional
+    void getFolderDocuments() throws Exception {
+        Folder projects = createFolder("Projects", null);
+        Document roadmap = createDocument("roadmap.txt", projects);
+        Document budget = createDocument("budget.txt", projects);
+        Document plan = createDocument("plan.txt", projects);
+        createDocument("other.txt", createFolder("Archive", null));
+
+        restFolderMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/documents?sort=title,asc&size=2", projects.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "3"))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")))
+            .andExpect(jsonPath("$.[*].id").value(contains(budget.getId().intValue(), plan.getId().intValue())))
+            .andExpect(jsonPath("$.[*].folderTitle").value(contains("Projects", "Projects")))
+            .andExpect(jsonPath("$.[*].dataSize").value(contains(1, 1)))
+            .andExpect(jsonPath("$.[0].data").doesNotExist());
+
+        restFolderMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/documents?sort=title,asc&size=2&page=1", projects.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(roadmap.getId().intValue())));
+
+        restFolderMockMvc.perform(get(ENTITY_API_URL_ID + "/documents", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    void getFolderDocumentsInASingleStatement() throws Exception {
+        Folder projects = createFolder("Projects", null);
+        createDocument("plan.txt", projects);
+        List<String> fewDocumentsStatements = recordFolderDocumentsStatements(projects);
+        for (int i = 0; i < 10; i++) {
+            createDocument(i + ".txt", projects);
+        }
+        em.clear();
+
+        List<String> statements = recordFolderDocumentsStatements(projects);
+
+        // the existence of the folder and its documents, whatever their number; the count is read from the statistics
+        assertThat(statements).hasSize(2).hasSameSizeAs(fewDocumentsStatements);
+        String documentsStatement = statements.get(1);
+        assertThat(documentsStatement).containsPattern("from document \\w+ join folder").doesNotContainPattern("\\.data[ ,]");
+        assertThat(TestUtil.explain(jdbcTemplate, documentsStatement, projects.getId().toString(), "0", "21"))
+            .contains("idx_document_folder_id")
+            .doesNotContain("Seq Scan");
+    }
+
+    @Test
+    @Transactional
+    void getFolderSubtreeDocuments() throws Exception {
+        Folder projects = createFolder("Projects", null);
+        Folder alpha = createFolder("Alpha", projects);
+        Folder specifications = createFolder("Specifications", alpha);
+        Folder beta = createFolder("Beta", projects);
+        Document plan = createDocument("plan.txt", alpha);
+        Document specification = createDocument("specification.txt", specifications);
+        createDocument("budget.txt", beta);
+        createDocument("roadmap.txt", projects);
+
+        restFolderMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/subtree/documents?sort=id,asc", alpha.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(jsonPath("$.[*].id").value(contains(plan.getId().intValue(), specification.getId().intValue())))
+            .andExpect(jsonPath("$.[*].folderTitle").value(contains("Alpha", "Specifications")));
+
+        restFolderMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/subtree/documents", projects.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "4"));
+    }
+
+    @Test
+    @Transactional
+    void getFolderSubtreeDocumentsUsesTheIndexes() {
+        Folder projects = createFolder("Projects", null);
+        // enough other folders and documents that the subtree is worth seeking by path
+        for (int i = 0; i < 100; i++) {
+            Folder other = createFolder("Other " + i, null);
+            for (int j = 0; j < 10; j++) {
+                documentRepository.save(
+                    new Document().title("other.txt").data(new byte[] { 0 }).dataContentType("text/plain").folder(other)
+                );
+            }
+        }
+        documentRepository.flush();
+
+        RecordingStatementInspector.start();
+        documentRepository.findAllSummariesInSubtree(projects.getId(), projects.getDescendantPath(), PageRequest.of(1, 20));
+        List<String> statements = RecordingStatementInspector.stop();
+
+        // the page and the count of the documents; fresh statistics keep the plans from depending on the other tests
+        assertThat(statements).hasSize(2);
+        jdbcTemplate.execute("analyze folder");
+        jdbcTemplate.execute("analyze document");
+        String descendantPath = projects.getDescendantPath();
+        assertThat(TestUtil.explain(jdbcTemplate, statements.get(0), projects.getId().toString(), descendantPath, "20", "20"))
+            .contains("idx_folder_path", "idx_document_folder_id")
+            .doesNotContain("Seq Scan");
+        assertThat(TestUtil.explain(jdbcTemplate, statements.get(1), projects.getId().toString(), descendantPath))
+            .contains("idx_folder_path", "idx_document_folder_id")
+            .doesNotContain("Seq Scan");
+    }
+
+    @Test
+    @Transactional
+    void getFolderStats() throws Exception {
+        Folder projects = createFolder("Projects", null);
+        Folder archive = createFolder("Archive", null);
+        Instant uploaded = Instant.parse("2024-03-18T10:00:00Z");
+        documentRepository.saveAndFlush(
+            new Document().title("plan.txt").data(new byte[3]).dataContentType("text/plain").uploaded(uploaded).folder(projects)
+        );
+        Document budget = documentRepository.saveAndFlush(
+            new Document()
+                .title("budget.txt")
+                .data(new byte[5])
+                .dataContentType("text/plain")
+                .uploaded(uploaded.plusSeconds(60))
+                .folder(projects)
+        );
+
+        restFolderMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/stats", projects.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.folderId").value(projects.getId().intValue()))
+            .andExpect(jsonPath("$.documentCount").value(2))
+            .andExpect(jsonPath("$.totalBytes").value(8))
+            .andExpect(jsonPath("$.lastUploaded").value("2024-03-18T10:01:00Z"));
+
+        // Move a document to another folder
+        budget.setFolder(archive);
+        documentRepository.saveAndFlush(budget);
+
+        restFolderMockMvc
+            .perform(get(ENTITY_API_URL + "?size=1000"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[?(@.id == " + projects.getId() + ")].stats.documentCount").value(contains(1)))
+            .andExpect(jsonPath("$.[?(@.id == " + projects.getId() + ")].stats.totalBytes").value(contains(3)))
+            .andExpect(jsonPath("$.[?(@.id == " + archive.getId() + ")].stats.documentCount").value(contains(1)))
+            .andExpect(jsonPath("$.[?(@.id == " + archive.getId() + ")].stats.totalBytes").value(contains(5)));
+
+        // Delete it
+        documentRepository.delete(budget);
+        documentRepository.flush();
+
+        restFolderMockMvc
+            .perform(get(ENTITY_API_URL_ID, archive.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.stats.documentCount").value(0))
+            .andExpect(jsonPath("$.stats.totalBytes").value(0));
+
+        restFolderMockMvc.perform(get(ENTITY_API_URL_ID + "/stats", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    void compactFolderStats() {
+        Folder projects = createFolder("Projects", null);
+        Instant uploaded = Instant.parse("2024-03-18T10:00:00Z");
+        for (int i = 1; i <= 3; i++) {
+            documentRepository.saveAndFlush(
+                new Document().title(i + ".txt").data(new byte[i]).dataContentType("text/plain").uploaded(uploaded).folder(projects)
+            );
+        }
+        assertThat(countStatsDeltas(projects)).isEqualTo(3);
+
+        folderStatsCompactionService.compact();
+
+        assertThat(countStatsDeltas(projects)).isZero();
+        assertThat(folderStatsRepository.findAllByFolderIdIn(List.of(projects.getId())))
+            .containsExactly(new FolderStats(projects.getId(), 3, 6, uploaded));
+    }
+
     @Test
     @Transactional
     void putExistingFolder() throws Exception {
@@ -383,6 +977,19 @@ class FolderResourceIT {
         assertThat(folderList).hasSize(databaseSizeBeforeUpdate);
     }
 
+    @Test
+    @Transactional
+    void deleteFolderWithSubfolders() throws Exception {
+        Folder projects = createFolder("Projects", null);
+        createFolder("Alpha", projects);
+
+        restFolderMockMvc
+            .perform(delete(ENTITY_API_URL_ID, projects.getId()).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+
+        assertThat(folderRepository.existsById(projects.getId())).isTrue();
+    }
+
     @Test
     @Transactional
     void deleteFolder() throws Exception {
@@ -400,4 +1007,109 @@ class FolderResourceIT {
         List<Folder> folderList = folderRepository.findAll();
         assertThat(folderList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    private Folder createFolder(String title, Folder parent) {
+        Folder created = createEntity(em).title(title).parent(parent);
+        created.setPath(parent == null ? Folder.ROOT_PATH : parent.getDescendantPath());
+        return folderRepository.saveAndFlush(created);
+    }
+
+    /**
+     * Perform a request while another connection moves a folder, as another node would: the folder is locked before the
+     * request is performed, and moved once the request waits for it.
+     */
+    private MvcResult performWhileMoving(Folder moved, Folder into, MockHttpServletRequestBuilder request) throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (
+            Connection mover = DriverManager.getConnection(
+                dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword()
+            )
+        ) {
+            mover.setAutoCommit(false);
+            execute(mover, "select id from folder where id = ? for update", moved.getId());
+
+            // the mock user of the test thread isn't seen by the executor
+            Future<MvcResult> performed = executor.submit(() -> restFolderMockMvc.perform(request.with(user("user"))).andReturn());
+            assertThat(awaitLockWait(mover)).isTrue();
+            assertThat(performed.isDone()).isFalse();
+
+            execute(mover, "update folder set parent_id = ?, path = ? where id = ?", into.getId(), into.getDescendantPath(), moved.getId());
+            execute(
+                mover,
+                "update folder set path = ? || substring(path from ?) where path like ?",
+                into.getDescendantPath() + moved.getId() + Folder.PATH_SEPARATOR,
+                moved.getDescendantPath().length() + 1,
+                moved.getDescendantPath() + "%"
+            );
+            mover.commit();
+
+            return performed.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void deleteChildren(Folder parent) {
+        folderRepository
+            .findAllNodesByParentId(parent.getId(), Pageable.unpaged())
+            .forEach(node -> folderRepository.deleteById(node.id()));
+    }
+
+    private static void execute(Connection connection, String sql, Object... parameters) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            statement.execute();
+        }
+    }
+
+    /**
+     * Wait until another connection of the database waits for a lock.
+     */
+    private static boolean awaitLockWait(Connection connection) throws Exception {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (System.currentTimeMillis() < deadline) {
+            try (
+                PreparedStatement statement = connection.prepareStatement(
+                    "select count(*) from pg_stat_activity where wait_event_type = 'Lock' and pid <> pg_backend_pid()"
+                );
+                ResultSet resultSet = statement.executeQuery()
+            ) {
+                resultSet.next();
+                if (resultSet.getLong(1) > 0) {
+                    return true;
+                }
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+
+    private Document createDocument(String title, Folder parent) {
+        return documentRepository.saveAndFlush(
+            new Document().title(title).data(new byte[] { 0 }).dataContentType("text/plain").folder(parent)
+        );
+    }
+
+    private long countStatsDeltas(Folder folder) {
+        return jdbcTemplate.queryForObject("select count(*) from folder_stats_delta where folder_id = ?", Long.class, folder.getId());
+    }
+
+    /**
+     * Get the documents of a folder, recording the statements Hibernate prepares meanwhile.
+     */
+    private List<String> recordGetFolderStatements(Folder folder) throws Exception {
+        RecordingStatementInspector.start();
+        restFolderMockMvc.perform(get(ENTITY_API_URL_ID, folder.getId())).andExpect(status().isOk());
+        return RecordingStatementInspector.stop();
+    }
+
+    private List<String> recordFolderDocumentsStatements(Folder folder) throws Exception {
+        RecordingStatementInspector.start();
+        restFolderMockMvc.perform(get(ENTITY_API_URL_ID + "/documents?size=20", folder.getId())).andExpect(status().isOk());
+        return RecordingStatementInspector.stop();
+    }
 }
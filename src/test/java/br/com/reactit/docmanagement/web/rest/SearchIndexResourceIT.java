@@ -0,0 +1,254 @@
+package br.com.reactit.docmanagement.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import br.com.reactit.docmanagement.IntegrationTest;
+import br.com.reactit.docmanagement.domain.Document;
+import br.com.reactit.docmanagement.domain.Folder;
+import br.com.reactit.docmanagement.repository.DocumentRepository;
+import br.com.reactit.docmanagement.repository.FolderRepository;
+import br.com.reactit.docmanagement.security.AuthoritiesConstants;
+import br.com.reactit.docmanagement.service.SearchIndexService;
+import br.com.reactit.docmanagement.service.TextExtractionService;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for the {@link SearchIndexResource} REST controller, and the management endpoint of the index.
+ * <p>
+ * Entities are indexed once their transaction committed, so these tests commit, and clean up after themselves.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class SearchIndexResourceIT {
+
+    private static final String DOCUMENTS_API_URL = "/api/_search/index/documents";
+    private static final String FOLDERS_API_URL = "/api/_search/index/folders";
+    private static final String MANAGEMENT_URL = "/management/searchindex";
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private FolderRepository folderRepository;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private TextExtractionService textExtractionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MockMvc restSearchIndexMockMvc;
+
+    private Folder folder;
+
+    private final List<Long> documentIds = new ArrayList<>();
+
+    @BeforeEach
+    public void initTest() {
+        folder = folderRepository.saveAndFlush(new Folder().title("Xylophrase archive").description("Old records"));
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        documentRepository.deleteAllById(documentIds);
+        folderRepository.deleteById(folder.getId());
+        searchIndexService.refresh();
+    }
+
+    private Document saveDocument(String title, String description) {
+        Document document = documentRepository.saveAndFlush(
+            new Document()
+                .title(title)
+                .description(description)
+                .data(new byte[] { 1 })
+                .dataContentType("application/pdf")
+                .uploaded(Instant.ofEpochMilli(0L))
+                .folder(folder)
+        );
+        documentIds.add(document.getId());
+        return document;
+    }
+
+    @Test
+    void searchDocumentsByPrefixAndDespiteTypos() throws Exception {
+        Document report = saveDocument("Xylophrase annual report", "Financial statements");
+        searchIndexService.refresh();
+
+        restSearchIndexMockMvc
+            .perform(get(DOCUMENTS_API_URL).param("q", "xylophr"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andExpect(jsonPath("$[0].id").value(report.getId().intValue()))
+            .andExpect(jsonPath("$[0].title").value(report.getTitle()))
+            .andExpect(jsonPath("$[0].folderId").value(folder.getId().intValue()))
+            .andExpect(jsonPath("$[0].highlights.title").value("<mark>Xylophrase</mark> annual report"));
+
+        // every word must match
+        restSearchIndexMockMvc
+            .perform(get(DOCUMENTS_API_URL).param("q", "xylophrase relatorio"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(0));
+
+        // a transposition and a missing letter, accents and case ignored
+        restSearchIndexMockMvc
+            .perform(get(DOCUMENTS_API_URL).param("q", "XYLOPHARSE anual Fináncial"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].id").value(report.getId().intValue()))
+            .andExpect(jsonPath("$[0].highlights.description").value("<mark>Financial</mark> statements"));
+    }
+
+    @Test
+    void searchDocumentsRanksTitleMatchesFirst() throws Exception {
+        Document notes = saveDocument("Board meeting notes", "The xylophrase budget was discussed");
+        Document report = saveDocument("Xylophrase annual report", "Financial statements");
+        searchIndexService.refresh();
+
+        restSearchIndexMockMvc
+            .perform(get(DOCUMENTS_API_URL).param("q", "xylophrase"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(jsonPath("$[0].id").value(report.getId().intValue()))
+            .andExpect(jsonPath("$[1].id").value(notes.getId().intValue()));
+
+        restSearchIndexMockMvc
+            .perform(get(DOCUMENTS_API_URL).param("q", "xylophrase").param("size", "1").param("page", "1"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].id").value(notes.getId().intValue()));
+    }
+
+    @Test
+    void searchIndexFollowsUpdatesAndDeletes() throws Exception {
+        Document report = saveDocument("Xylophrase annual report", null);
+        searchIndexService.refresh();
+
+        documentRepository.saveAndFlush(documentRepository.findById(report.getId()).orElseThrow().title("Quarterly summary"));
+        searchIndexService.refresh();
+
+        restSearchIndexMockMvc.perform(get(DOCUMENTS_API_URL).param("q", "xylophrase")).andExpect(jsonPath("$.length()").value(0));
+        restSearchIndexMockMvc
+            .perform(get(DOCUMENTS_API_URL).param("q", "quarterly"))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].id").value(report.getId().intValue()));
+
+        documentRepository.deleteById(report.getId());
+        searchIndexService.refresh();
+
+        restSearchIndexMockMvc.perform(get(DOCUMENTS_API_URL).param("q", "quarterly")).andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    void searchIndexIgnoresRolledBackChanges() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            saveDocument("Xylophrase draft", null);
+            status.setRollbackOnly();
+        });
+        documentIds.clear();
+        searchIndexService.refresh();
+
+        restSearchIndexMockMvc.perform(get(DOCUMENTS_API_URL).param("q", "xylophrase")).andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    void searchDocumentsByExtractedContent() throws Exception {
+        Document scan = documentRepository.saveAndFlush(
+            new Document()
+                .title("Scanned letter")
+                .data("The xylophrase turbine was inspected".getBytes(StandardCharsets.UTF_8))
+                .dataContentType("text/plain")
+                .uploaded(Instant.ofEpochMilli(0L))
+                .folder(folder)
+        );
+        documentIds.add(scan.getId());
+        searchIndexService.refresh();
+        restSearchIndexMockMvc.perform(get(DOCUMENTS_API_URL).param("q", "turbine")).andExpect(jsonPath("$.length()").value(0));
+
+        textExtractionService.extract(scan.getId());
+        searchIndexService.refresh();
+
+        restSearchIndexMockMvc
+            .perform(get(DOCUMENTS_API_URL).param("q", "xylophrase turbine"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].id").value(scan.getId().intValue()))
+            .andExpect(jsonPath("$[0].highlights.content").value("The <mark>xylophrase</mark> <mark>turbine</mark> was inspected"));
+    }
+
+    @Test
+    void searchFolders() throws Exception {
+        searchIndexService.refresh();
+
+        restSearchIndexMockMvc
+            .perform(get(FOLDERS_API_URL).param("q", "xylophrase"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].id").value(folder.getId().intValue()))
+            .andExpect(jsonPath("$[0].folderId").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    void reindex() throws Exception {
+        // written without the entities, so only a reindex finds it
+        Long id = transactionTemplate.execute(status -> {
+            Long documentId = jdbcTemplate.queryForObject("select nextval('sequence_generator')", Long.class);
+            jdbcTemplate.update(
+                "insert into document (id, title, data_content_type, folder_id) values (?, 'Xylophrase imported', 'text/plain', ?)",
+                documentId,
+                folder.getId()
+            );
+            return documentId;
+        });
+        documentIds.add(id);
+        restSearchIndexMockMvc.perform(get(DOCUMENTS_API_URL).param("q", "xylophrase")).andExpect(jsonPath("$.length()").value(0));
+
+        // the test executor reindexes synchronously
+        restSearchIndexMockMvc
+            .perform(post(MANAGEMENT_URL))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.reindexing").value(false))
+            .andExpect(jsonPath("$.reindexError").doesNotExist());
+
+        restSearchIndexMockMvc
+            .perform(get(DOCUMENTS_API_URL).param("q", "xylophrase"))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].id").value(id.intValue()));
+        restSearchIndexMockMvc
+            .perform(get(MANAGEMENT_URL))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.reindexedEntries").value(greaterThanOrEqualTo(2)));
+        assertThat(searchIndexService.getStatus().indexedEntries()).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void reindexIsForbiddenToUsers() throws Exception {
+        restSearchIndexMockMvc.perform(post(MANAGEMENT_URL)).andExpect(status().isForbidden());
+    }
+}
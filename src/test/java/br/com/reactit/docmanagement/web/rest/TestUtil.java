@@ -15,13 +15,16 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeParseException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 import org.hamcrest.Description;
 import org.hamcrest.TypeSafeDiagnosingMatcher;
 import org.hamcrest.TypeSafeMatcher;
 import org.springframework.format.datetime.standard.DateTimeFormatterRegistrar;
 import org.springframework.format.support.DefaultFormattingConversionService;
 import org.springframework.format.support.FormattingConversionService;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 /**
  * Utility class for testing REST controllers.
@@ -203,4 +206,29 @@ public final class TestUtil {
     }
 
     private TestUtil() {}
+
+    /**
+     * Explain a statement prepared by Hibernate, as executed with parameters: its {@code ?} placeholders are replaced
+     * by the parameters, in order. Sequential scans are disabled until the end of the transaction, as test tables are
+     * too small for the planner to prefer indexes on its own.
+     *
+     * @param jdbcTemplate the template, which must take part in a transaction.
+     * @param sql the statement, e.g. recorded by {@link br.com.reactit.docmanagement.config.RecordingStatementInspector}.
+     * @param parameters the parameters, as SQL literals.
+     * @return the plan.
+     */
+    public static String explain(JdbcTemplate jdbcTemplate, String sql, String... parameters) {
+        jdbcTemplate.execute("set local enable_seqscan = off");
+        String statement = sql;
+        for (int i = 1; statement.contains("?"); i++) {
+            statement = statement.replaceFirst("\\?", "\\$" + i);
+        }
+        jdbcTemplate.execute("prepare explained_statement as " + statement);
+        try {
+            String arguments = Arrays.stream(parameters).map(parameter -> "'" + parameter + "'").collect(Collectors.joining(", "));
+            return String.join("\n", jdbcTemplate.queryForList("explain execute explained_statement(" + arguments + ")", String.class));
+        } finally {
+            jdbcTemplate.execute("deallocate explained_statement");
+        }
+    }
 }
@@ -0,0 +1,153 @@
+package br.com.reactit.docmanagement.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import br.com.reactit.docmanagement.IntegrationTest;
+import br.com.reactit.docmanagement.domain.Document;
+import br.com.reactit.docmanagement.domain.Folder;
+import br.com.reactit.docmanagement.repository.DocumentRepository;
+import br.com.reactit.docmanagement.repository.FolderRepository;
+import br.com.reactit.docmanagement.service.TypeaheadService;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration tests for the {@link TypeaheadResource} REST controller.
+ * <p>
+ * Titles are recorded once their transaction committed, so these tests commit, and clean up after themselves.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class TypeaheadResourceIT {
+
+    private static final String DOCUMENTS_API_URL = "/api/_search/typeahead/documents";
+    private static final String FOLDERS_API_URL = "/api/_search/typeahead/folders";
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private FolderRepository folderRepository;
+
+    @Autowired
+    private TypeaheadService typeaheadService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MockMvc restTypeaheadMockMvc;
+
+    private Folder folder;
+
+    private final List<Long> documentIds = new ArrayList<>();
+
+    @BeforeEach
+    public void initTest() {
+        folder = folderRepository.saveAndFlush(new Folder().title("Quillonette archive"));
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        documentRepository.deleteAllById(documentIds);
+        folderRepository.deleteById(folder.getId());
+        typeaheadService.merge();
+    }
+
+    private Document saveDocument(String title) {
+        Document document = documentRepository.saveAndFlush(
+            new Document()
+                .title(title)
+                .data(new byte[] { 1 })
+                .dataContentType("application/pdf")
+                .uploaded(Instant.ofEpochMilli(0L))
+                .folder(folder)
+        );
+        documentIds.add(document.getId());
+        return document;
+    }
+
+    @Test
+    void suggestDocumentsByThePrefixOfAnyWord() throws Exception {
+        Document notes = saveDocument("Board notes on the Quillonette budget");
+        Document report = saveDocument("Quillonette report");
+        Document proposal = saveDocument("Quillonette proposal, revised");
+        saveDocument("Unrelated minutes");
+
+        // suggested before the changes are merged, and after
+        for (int i = 0; i < 2; i++) {
+            restTypeaheadMockMvc
+                .perform(get(DOCUMENTS_API_URL).param("q", "QUILLO"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].id").value(report.getId().intValue()))
+                .andExpect(jsonPath("$[0].title").value("Quillonette report"))
+                .andExpect(jsonPath("$[1].id").value(proposal.getId().intValue()))
+                .andExpect(jsonPath("$[2].id").value(notes.getId().intValue()));
+            typeaheadService.merge();
+        }
+
+        restTypeaheadMockMvc
+            .perform(get(DOCUMENTS_API_URL).param("q", "quillonette bud"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].id").value(notes.getId().intValue()));
+        restTypeaheadMockMvc
+            .perform(get(DOCUMENTS_API_URL).param("q", "quillonette").param("size", "1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].id").value(report.getId().intValue()));
+        restTypeaheadMockMvc.perform(get(DOCUMENTS_API_URL).param("q", " ")).andExpect(status().isOk()).andExpect(jsonPath("$").isEmpty());
+
+        assertThat(meterRegistry.get("search.typeahead.entries").tag("type", "document").gauge().value()).isGreaterThanOrEqualTo(4);
+        assertThat(meterRegistry.get("search.typeahead.memory").tag("type", "document").gauge().value()).isPositive();
+        assertThat(meterRegistry.get("search.typeahead.lookup").tag("type", "document").timer().count()).isPositive();
+    }
+
+    @Test
+    void suggestDocumentsFollowsUpdatesAndDeletes() throws Exception {
+        Document report = saveDocument("Quillonette report");
+        Document draft = saveDocument("Quillonette draft");
+        typeaheadService.merge();
+
+        documentRepository.saveAndFlush(report.title("Annual report"));
+        documentRepository.deleteById(draft.getId());
+        documentIds.remove(draft.getId());
+
+        for (int i = 0; i < 2; i++) {
+            restTypeaheadMockMvc
+                .perform(get(DOCUMENTS_API_URL).param("q", "quillonette"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+            restTypeaheadMockMvc
+                .perform(get(DOCUMENTS_API_URL).param("q", "annu"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.id == %d)].title", report.getId()).value("Annual report"));
+            typeaheadService.merge();
+        }
+    }
+
+    @Test
+    void suggestFoldersIgnoringAccents() throws Exception {
+        folderRepository.saveAndFlush(folder.title("Relatórios Quillonette"));
+
+        restTypeaheadMockMvc
+            .perform(get(FOLDERS_API_URL).param("q", "relatorio"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[?(@.id == %d)].title", folder.getId()).value("Relatórios Quillonette"));
+    }
+}
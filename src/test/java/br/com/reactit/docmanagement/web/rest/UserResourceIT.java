@@ -6,6 +6,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import br.com.reactit.docmanagement.IntegrationTest;
+import br.com.reactit.docmanagement.config.RecordingStatementInspector;
 import br.com.reactit.docmanagement.domain.Authority;
 import br.com.reactit.docmanagement.domain.User;
 import br.com.reactit.docmanagement.repository.UserRepository;
@@ -235,6 +236,25 @@ class UserResourceIT {
             .andExpect(jsonPath("$.[*].langKey").value(hasItem(DEFAULT_LANGKEY)));
     }
 
+    @Test
+    void getAllUsersWithAuthoritiesFromTheSecondLevelCache() throws Exception {
+        // Initialize the database, committed so that the authorities can be cached
+        Authority authority = new Authority();
+        authority.setName(AuthoritiesConstants.USER);
+        user.setAuthorities(Set.of(authority));
+        userRepository.saveAndFlush(user);
+
+        try {
+            List<String> firstStatements = recordGetAllUsersStatements();
+            List<String> secondStatements = recordGetAllUsersStatements();
+
+            assertThat(firstStatements).anyMatch(sql -> sql.contains("jhi_user_authority"));
+            assertThat(secondStatements).hasSize(firstStatements.size() - 1).noneMatch(sql -> sql.contains("jhi_user_authority"));
+        } finally {
+            userRepository.delete(user);
+        }
+    }
+
     @Test
     @Transactional
     void getUser() throws Exception {
@@ -535,6 +555,15 @@ class UserResourceIT {
         assertThat(authorityA).isEqualTo(authorityB).hasSameHashCodeAs(authorityB);
     }
 
+    private List<String> recordGetAllUsersStatements() throws Exception {
+        RecordingStatementInspector.start();
+        restUserMockMvc
+            .perform(get("/api/admin/users?sort=id,desc").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].authorities").value(hasItem(List.of(AuthoritiesConstants.USER))));
+        return RecordingStatementInspector.stop();
+    }
+
     private void assertPersistedUsers(Consumer<List<User>> userAssertion) {
         userAssertion.accept(userRepository.findAll());
     }